@@ -0,0 +1,84 @@
+package com.aethersim.benchmarks;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.DesignElement;
+import com.aethersim.designs.Point;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.wires.WireRouter;
+import com.aethersim.tests.designs.TestDesigns;
+import com.aethersim.utils.Direction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DesignBenchmarks {
+
+    // Transistors are 6x4, so this spacing leaves two-wide routing channels between every chip
+    private static final int CHIP_SPACING_X = 8;
+    private static final int CHIP_SPACING_Y = 6;
+
+    private static final int QUERY_POINTS = 1024;
+
+    @State(Scope.Benchmark)
+    public static class GridState {
+
+        // The number of chips along each side of the grid
+        @Param({"4", "8", "16"})
+        int size;
+
+        Design design;
+        Point[] queryPoints;
+        int queryIndex = 0;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            TestDesigns.registerTemplates();
+
+            // Fill the design with a grid of transistors, so routes have to wind through narrow channels
+            design = new Design();
+            design.setWidth(size * CHIP_SPACING_X + 2);
+            design.setHeight(size * CHIP_SPACING_Y + 2);
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    Chip chip = new Chip();
+                    chip.setChipTemplate(ChipTemplate.get((x + y) % 2 == 0 ? "transistor_npn" : "transistor_pnp"));
+                    chip.setLocation(new Point(2 + x * CHIP_SPACING_X, 2 + y * CHIP_SPACING_Y));
+                    design.addChip(chip);
+                }
+            }
+            design.recalculateOpenDistances();
+
+            // Pick a fixed set of points to query, so every run does the same work
+            Random random = new Random(0);
+            queryPoints = new Point[QUERY_POINTS];
+            for (int index = 0; index < QUERY_POINTS; index++)
+                queryPoints[index] = new Point(random.nextInt(design.getWidth()), random.nextInt(design.getHeight()));
+        }
+    }
+
+    @Benchmark
+    public DesignElement getElementAt(GridState state) {
+        Point point = state.queryPoints[state.queryIndex];
+        state.queryIndex = (state.queryIndex + 1) % QUERY_POINTS;
+        return state.design.getElementAt(point);
+    }
+
+    @Benchmark
+    public Point[] routeAcrossGrid(GridState state) {
+        // Route from one corner of the grid to the opposite one, through the middle of the grid
+        Design design = state.design;
+        return WireRouter.route(
+                design,
+                new Point(1, 1), Direction.RIGHT,
+                new Point(design.getWidth() - 1, design.getHeight() - 1), Direction.LEFT,
+                new Point[] {new Point(design.getWidth() / 2, 1), new Point(design.getWidth() / 2, design.getHeight() - 1)}
+        );
+    }
+}
@@ -0,0 +1,85 @@
+package com.aethersim.benchmarks;
+
+import com.aethersim.designs.Design;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerator;
+import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+import com.aethersim.simulation.mesh.threading.MeshSimulationCoordinator;
+import com.aethersim.tests.designs.TestDesigns;
+import com.aethersim.tests.designs.generators.DesignGenerator;
+import com.aethersim.tests.designs.generators.GeneratedDesign;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeshBenchmarks {
+
+    // The most ticks to wait for a generated design to settle before it is benchmarked
+    private static final int MAXIMUM_SETTLE_TICKS = 1 << 20;
+
+    @State(Scope.Benchmark)
+    public static class DesignState {
+
+        @Param({"1024", "16384", "131072"})
+        int stages;
+
+        Design design;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            TestDesigns.registerTemplates();
+            DesignGenerator generator = new DesignGenerator();
+            design = generator.generate(generator.inverterChain(stages)).getDesign();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CoordinatorState {
+
+        @Param({"64", "1024", "16384"})
+        int stages;
+
+        GeneratedDesign design;
+        MeshSimulationCoordinator coordinator;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            TestDesigns.registerTemplates();
+            DesignGenerator generator = new DesignGenerator();
+            design = generator.generate(generator.inverterChain(stages));
+
+            // Generate the mesh and let it settle, so idle ticks start from a stable state
+            coordinator = new MeshSimulationCoordinator();
+            coordinator.configure(MeshGenerator.generate(design.getDesign()));
+            coordinator.start();
+            for (int tick = 0; tick < MAXIMUM_SETTLE_TICKS && !coordinator.isStable(); tick++)
+                coordinator.tick();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            coordinator.stop();
+        }
+    }
+
+    @Benchmark
+    public MeshSimulationConfig generate(DesignState state) {
+        return MeshGenerator.generate(state.design);
+    }
+
+    @Benchmark
+    public void tickIdle(CoordinatorState state) {
+        state.coordinator.tick();
+    }
+
+    @Benchmark
+    public void tickSwitching(CoordinatorState state) {
+        // Flip the input every tick, so every stage in the chain is always switching
+        state.design.toggleInput("a");
+        state.coordinator.tick();
+    }
+}
@@ -0,0 +1,87 @@
+package com.aethersim.benchmarks;
+
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.netlist.BatchNetlist;
+import com.aethersim.simulation.netlist.Netlist;
+import com.aethersim.simulation.netlist.NetlistSimulator;
+import com.aethersim.tests.designs.TestDesigns;
+import com.aethersim.tests.designs.generators.DesignGenerator;
+import com.aethersim.tests.designs.generators.GeneratedDesign;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetlistBenchmarks {
+
+    // Each stage of a ripple-carry adder takes a few ticks for its carry to settle
+    private static final int TICKS_PER_BIT = 4;
+
+    @State(Scope.Benchmark)
+    public static class AdderState {
+
+        // The width of the adder
+        @Param({"8", "32"})
+        int bits;
+
+        GeneratedDesign design;
+        Netlist netlist;
+        BatchNetlist batch;
+        long[] a, b;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            TestDesigns.registerTemplates();
+
+            DesignGenerator generator = new DesignGenerator();
+            design = generator.generate(generator.rippleCarryAdder(bits));
+            NetlistSimulator simulator = new NetlistSimulator();
+            simulator.initialize(design.getDesign());
+            netlist = simulator.getNetlist();
+            batch = new BatchNetlist(netlist);
+
+            // Pick a fixed set of operands for each lane, so every run does the same work
+            Random random = new Random(0);
+            a = new long[BatchNetlist.LANES];
+            b = new long[BatchNetlist.LANES];
+            for (int lane = 0; lane < BatchNetlist.LANES; lane++) {
+                a[lane] = random.nextLong();
+                b[lane] = random.nextLong();
+                for (int bit = 0; bit < bits; bit++) {
+                    batch.setDrivenState(design.getDriver("a" + bit), lane, state(a[lane], bit));
+                    batch.setDrivenState(design.getDriver("b" + bit), lane, state(b[lane], bit));
+                }
+            }
+        }
+
+        private static LogicState state(long value, int bit) {
+            return ((value >>> bit) & 1) != 0 ? LogicState.HIGH : LogicState.LOW;
+        }
+    }
+
+    @Benchmark
+    public long addBatch(AdderState state) {
+        // Settle every lane's operands at once
+        state.batch.reset();
+        for (int tick = 0; tick < TICKS_PER_BIT * state.bits; tick++)
+            state.batch.tick();
+        return state.batch.getActualHighLanes(0);
+    }
+
+    @Benchmark
+    public LogicState addScalar(AdderState state) {
+        // Settle the same operands one lane at a time on the scalar netlist
+        for (int lane = 0; lane < BatchNetlist.LANES; lane++) {
+            state.design.setInputs("a", state.bits, state.a[lane]);
+            state.design.setInputs("b", state.bits, state.b[lane]);
+            for (int tick = 0; tick < TICKS_PER_BIT * state.bits; tick++)
+                state.netlist.tick();
+        }
+        return state.netlist.getActualState(0);
+    }
+}
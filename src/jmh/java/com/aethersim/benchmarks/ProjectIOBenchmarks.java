@@ -0,0 +1,61 @@
+package com.aethersim.benchmarks;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Pin;
+import com.aethersim.projects.Project;
+import com.aethersim.projects.io.ProjectIO;
+import com.aethersim.projects.io.data.DataContext;
+import com.aethersim.projects.io.data.DataMap;
+import com.aethersim.tests.designs.TestDesigns;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectIOBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class ProjectState {
+
+        @Param({"8", "32", "64"})
+        int stages;
+
+        Project project;
+        DataMap projectData;
+        File projectFile;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            TestDesigns.registerTemplates();
+            project = new Project();
+            project.setId("benchmark");
+            project.setName("Benchmark");
+            project.setDesign(TestDesigns.createInverterChain(new Chip(), new Pin(), stages));
+
+            projectData = new DataContext().serialize(project, true);
+            projectFile = File.createTempFile("aethersim-benchmark", ".asproj");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            projectFile.delete();
+        }
+    }
+
+    @Benchmark
+    public void write(ProjectState state) {
+        ProjectIO.write(state.project, state.projectFile);
+    }
+
+    @Benchmark
+    public Map<String, Object> getRawMap(ProjectState state) {
+        return state.projectData.getRawMap();
+    }
+}
@@ -1,10 +1,14 @@
 package com.aethersim;
 
 import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.headless.HeadlessRunner;
 import com.aethersim.logging.AetherSimLogging;
 import com.aethersim.plugins.Plugin;
+import com.aethersim.simulation.metrics.SimulationMetrics;
 import com.aethersim.ui.AetherSimUI;
 
+import java.util.Arrays;
+
 public class AetherSim {
     public static void main(String[] args) {
         Thread.setDefaultUncaughtExceptionHandler((t, e) -> AetherSimLogging.getLogger().error("Uncaught exception in thread '{}'.", t.getName(), e));
@@ -14,10 +18,18 @@ public class AetherSim {
         AetherSimLogging.logEnvironmentInformation();
         AetherSimLogging.logAetherSimInformation();
         ChipTemplate.registerNative();
+        SimulationMetrics.registerGlobal();
         AetherSimLogging.getLogger().info("The following plugins are currently installed:");
         Plugin.getAll().forEach(plugin -> AetherSimLogging.getLogger().info("  - {} [{}]", plugin.getName(), plugin.getId()));
         AetherSimLogging.getLogger().info("Initializing plugins...");
         Plugin.getAll().parallelStream().forEach(Plugin::initialize);
+
+        // If running headless, simulate the specified project without the UI and exit with the result
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessRunner runner = new HeadlessRunner(System.out, System.err);
+            System.exit(runner.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
         AetherSimUI.initialize();
     }
 }
@@ -16,6 +16,11 @@ public class Chip extends DesignElement {
 
     private ChipTemplate chipTemplate;
 
+    // Templates that keep their chips' states in a table record where each chip's state is here, and count how many
+    // times the state has been replaced, so simulations that hold onto the state know when to look it up again
+    private int stateIndex = -1;
+    private volatile int stateVersion = 0;
+
     public int getId() {
         return id;
     }
@@ -42,6 +47,22 @@ public class Chip extends DesignElement {
         this.chipTemplate = chipTemplate;
     }
 
+    public int getStateIndex() {
+        return stateIndex;
+    }
+
+    public void setStateIndex(int stateIndex) {
+        this.stateIndex = stateIndex;
+    }
+
+    public int getStateVersion() {
+        return stateVersion;
+    }
+
+    public void incrementStateVersion() {
+        stateVersion++;
+    }
+
     @Override
     protected void onTransformUpdated() {
 
@@ -68,6 +89,13 @@ public class Chip extends DesignElement {
     @Override
     public void deserialize(DataMap data, DataContext context) {
         // Get all necessary information from the data map by deserializing the proper key
+        if (data.containsKey("Id"))
+            setId(data.get("Id").getScalar().getInt());
+
+        if (data.containsKey("Template"))
+            // Chip templates are stored by ID, so look them up in the registry
+            setChipTemplate(ChipTemplate.get(data.get("Template").getScalar().getString()));
+
         if (data.containsKey("Location")) {
             DataMap locationData = data.get("Location").getMap();
             getLocation().deserialize(locationData, context);
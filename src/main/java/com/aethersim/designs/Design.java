@@ -1,5 +1,6 @@
 package com.aethersim.designs;
 
+import com.aethersim.designs.exceptions.DesignException;
 import com.aethersim.designs.streams.PointStatistics;
 import com.aethersim.designs.templates.DesignedTemplate;
 import com.aethersim.designs.templates.SimulatedTemplate;
@@ -9,6 +10,7 @@ import com.aethersim.designs.wires.WireRoutable;
 import com.aethersim.designs.wires.WireSegment;
 import com.aethersim.designs.wires.WireWaypoint;
 import com.aethersim.projects.io.data.*;
+import com.aethersim.simulation.ChipState;
 import com.aethersim.utils.Direction;
 
 import java.util.*;
@@ -489,7 +491,104 @@ public class Design implements DataSerializable {
 
     @Override
     public void deserialize(DataMap data, DataContext context) {
+        // Load width and height values
+        if (data.containsKey("Width"))
+            width = data.get("Width").getScalar().getInt();
+        if (data.containsKey("Height"))
+            height = data.get("Height").getScalar().getInt();
+
+        // Load any pins in the design
+        if (data.containsKey("Pins")) {
+            for (DataMap pinData : data.get("Pins").getArray().getMapArray()) {
+                Pin pin = new Pin();
+                pin.deserialize(pinData, context);
+                addPin(pin);
+            }
+        }
+
+        // Load any chips in the design.  Chip states are only created once the chip is added to the design, so they
+        // need to be loaded afterwards.
+        if (data.containsKey("Chips")) {
+            for (DataMap chipData : data.get("Chips").getArray().getMapArray()) {
+                Chip chip = new Chip();
+                chip.deserialize(chipData, context);
+                addChip(chip);
+
+                if (chipData.containsKey("State") && chip.getChipTemplate() instanceof SimulatedTemplate<?> chipTemplate) {
+                    ChipState state = chipTemplate.getState(chip);
+                    if (state != null)
+                        state.deserialize(chipData.get("State").getMap(), context);
+                }
+            }
+        }
+
+        // Load any wire nodes in the design
+        if (data.containsKey("WireNodes")) {
+            for (DataMap wireNodeData : data.get("WireNodes").getArray().getMapArray()) {
+                WireNode wireNode = new WireNode(new Point());
+                wireNode.deserialize(wireNodeData, context);
+                addWireNode(wireNode);
+            }
+        }
+
+        // Load any wire segments in the design.  Segments refer to their endpoints by ID, so they need to be loaded
+        // after all other elements.
+        if (data.containsKey("Wires")) {
+            for (DataMap wireSegmentData : data.get("Wires").getArray().getMapArray()) {
+                WireRoutable start = deserializeEndpoint(wireSegmentData, "Start");
+                WireRoutable end = deserializeEndpoint(wireSegmentData, "End");
+
+                WireWaypoint[] waypoints = new WireWaypoint[0];
+                if (wireSegmentData.containsKey("Waypoints")) {
+                    waypoints = Arrays.stream(wireSegmentData.get("Waypoints").getArray().getMapArray())
+                            .map(waypointData -> {
+                                WireWaypoint waypoint = new WireWaypoint();
+                                waypoint.deserialize(waypointData, context);
+                                return waypoint;
+                            })
+                            .toArray(WireWaypoint[]::new);
+                }
+
+                addWireSegment(new WireSegment(this, start, end, waypoints));
+            }
+        }
+
+        recalculateOpenDistances();
+    }
+
+    private WireRoutable deserializeEndpoint(DataMap wireSegmentData, String key) {
+        if (!wireSegmentData.containsKey(key))
+            throw new DesignException("Wire segments must define a '" + key + "' endpoint.");
+
+        DataMap endpointData = wireSegmentData.get(key).getMap();
+        String type = endpointData.get("Type").getScalar().getString();
+        if (type.equals("node")) {
+            // Nodes are referenced by their ID within this design
+            WireNode wireNode = wireNodes.get(endpointData.get("Id").getScalar().getInt());
+            if (wireNode == null)
+                throw new DesignException("Wire node '" + endpointData.get("Id").getScalar().getString() + "' does not exist in the design.");
+            return wireNode;
+        } else if (type.equals("pin")) {
+            // Pins are referenced by their ID, either on the chip with the specified ID or on the design itself
+            String pinId = endpointData.get("Pin").getScalar().getString();
+            if (endpointData.containsKey("Chip")) {
+                Chip chip = chips.get(endpointData.get("Chip").getScalar().getInt());
+                if (chip == null)
+                    throw new DesignException("Chip '" + endpointData.get("Chip").getScalar().getString() + "' does not exist in the design.");
+                return new ChipPin(chip, findPin(chip.getChipTemplate().getPins(), pinId));
+            } else {
+                return new ChipPin(null, findPin(getPins(), pinId));
+            }
+        } else {
+            throw new DesignException("Unknown wire segment endpoint type '" + type + "'.");
+        }
+    }
 
+    private static Pin findPin(Collection<Pin> pins, String pinId) {
+        return pins.stream()
+                .filter(pin -> pinId.equals(pin.getId()))
+                .findFirst()
+                .orElseThrow(() -> new DesignException("Pin '" + pinId + "' does not exist."));
     }
 
     @Override
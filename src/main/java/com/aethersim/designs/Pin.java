@@ -82,7 +82,19 @@ public class Pin extends DesignElement {
 
     @Override
     public void deserialize(DataMap data, DataContext context) {
-
+        // Get all necessary information from the data map
+        if (data.containsKey("Id"))
+            id = data.get("Id").getScalar().getString();
+        if (data.containsKey("Name"))
+            name = data.get("Name").getScalar().getString();
+        if (data.containsKey("ChipOrientation"))
+            setChipOrientation(Direction.valueOf(data.get("ChipOrientation").getScalar().getString().toUpperCase()));
+        if (data.containsKey("DesignOrientation"))
+            setDesignOrientation(Direction.valueOf(data.get("DesignOrientation").getScalar().getString().toUpperCase()));
+        if (data.containsKey("ChipLocation"))
+            getChipLocation().deserialize(data.get("ChipLocation").getMap(), context);
+        if (data.containsKey("DesignLocation"))
+            getDesignLocation().deserialize(data.get("DesignLocation").getMap(), context);
     }
 
     @Override
@@ -0,0 +1,56 @@
+package com.aethersim.designs.templates;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.simulation.ChipState;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+public class ChipStateTable<T extends ChipState> {
+
+    // Each chip is given the index of its state in the table when it is added, so looking up its state doesn't
+    // require hashing.  Indices of removed chips are reused by the next chips that are added.
+    private final List<Chip> chips = new ArrayList<>();
+    private final List<T> states = new ArrayList<>();
+    private final Deque<Integer> freeIndices = new ArrayDeque<>();
+
+    public synchronized void put(Chip chip, T state) {
+        // If the chip is already in the table, replace its state
+        int index = indexOf(chip);
+        if (index < 0) {
+            index = freeIndices.isEmpty() ? chips.size() : freeIndices.pop();
+            if (index == chips.size()) {
+                chips.add(null);
+                states.add(null);
+            }
+            chip.setStateIndex(index);
+        }
+        chips.set(index, chip);
+        states.set(index, state);
+        chip.incrementStateVersion();
+    }
+
+    public synchronized void remove(Chip chip) {
+        int index = indexOf(chip);
+        if (index < 0)
+            return;
+        chips.set(index, null);
+        states.set(index, null);
+        freeIndices.push(index);
+        chip.setStateIndex(-1);
+        chip.incrementStateVersion();
+    }
+
+    public synchronized T get(Chip chip) {
+        int index = indexOf(chip);
+        return index < 0 ? null : states.get(index);
+    }
+
+    private int indexOf(Chip chip) {
+        // The chip's index may have been given to it by a different table, so make sure it belongs to this one
+        int index = chip.getStateIndex();
+        return index >= 0 && index < chips.size() && chips.get(index) == chip ? index : -1;
+    }
+}
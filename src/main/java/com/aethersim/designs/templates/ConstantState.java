@@ -1,6 +1,5 @@
 package com.aethersim.designs.templates;
 
-import com.aethersim.designs.Pin;
 import com.aethersim.projects.io.data.DataContext;
 import com.aethersim.projects.io.data.DataMap;
 import com.aethersim.simulation.ChipState;
@@ -25,41 +24,41 @@ public class ConstantState extends ChipState {
 
     /*
         The following methods are overridden to avoid unnecessary writes/reads from
-        maps, since the constant chips will always produce the same results (and
+        state slots, since the constant chips will always produce the same results (and
         don't have any input pins anyway).
      */
 
     @Override
-    public LogicState getDrivenInputState(Pin pin) {
+    public LogicState getDrivenInputState(int slot) {
         return LogicState.UNKNOWN;
     }
 
     @Override
-    public void setDrivenInputState(Pin pin, LogicState state) {}
+    public void setDrivenInputState(int slot, LogicState state) {}
 
     @Override
-    public LogicState getPulledInputState(Pin pin) {
+    public LogicState getPulledInputState(int slot) {
         return LogicState.UNKNOWN;
     }
 
     @Override
-    public void setPulledInputState(Pin pin, LogicState state) {}
+    public void setPulledInputState(int slot, LogicState state) {}
 
     @Override
-    public LogicState getDrivenOutputState(Pin pin) {
+    public LogicState getDrivenOutputState(int slot) {
         return drivenState;
     }
 
     @Override
-    public void setDrivenOutputState(Pin pin, LogicState state) {}
+    public void setDrivenOutputState(int slot, LogicState state) {}
 
     @Override
-    public LogicState getPulledOutputState(Pin pin) {
+    public LogicState getPulledOutputState(int slot) {
         return pulledState;
     }
 
     @Override
-    public void setPulledOutputState(Pin pin, LogicState state) {}
+    public void setPulledOutputState(int slot, LogicState state) {}
 
     @Override
     public void deserialize(DataMap data, DataContext context) {}
@@ -13,15 +13,13 @@ import com.aethersim.ui.toolkit.UITheme;
 import com.aethersim.ui.toolkit.display.theming.ThemeKeys;
 import com.aethersim.utils.Direction;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 
 public class ConstantTemplate extends SimulatedTemplate<ConstantState> {
 
     public static final Pin OUTPUT = new Pin();
 
-    private final Map<Chip, ConstantState> chipStates = new HashMap<>();
+    private final ChipStateTable<ConstantState> chipStates = new ChipStateTable<>();
 
     private final LogicState drivenState, pulledState;
 
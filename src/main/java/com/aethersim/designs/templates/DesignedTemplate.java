@@ -27,7 +27,17 @@ public class DesignedTemplate extends ChipTemplate {
 
     @Override
     public void deserialize(DataMap data, DataContext context) {
-
+        // Get all necessary information from the data map
+        if (data.containsKey("Id"))
+            setId(data.get("Id").getScalar().getString());
+        if (data.containsKey("Name"))
+            setName(data.get("Name").getScalar().getString());
+        if (data.containsKey("PackageWidth"))
+            setWidth(data.get("PackageWidth").getScalar().getInt());
+        if (data.containsKey("PackageHeight"))
+            setHeight(data.get("PackageHeight").getScalar().getInt());
+        if (data.containsKey("Design"))
+            getDesign().deserialize(data.get("Design").getMap(), context);
     }
 
     @Override
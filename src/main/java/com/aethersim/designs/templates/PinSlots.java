@@ -0,0 +1,47 @@
+package com.aethersim.designs.templates;
+
+import com.aethersim.designs.Pin;
+
+import java.util.*;
+
+public class PinSlots extends AbstractSet<Pin> {
+
+    // Each pin is given the next slot when it is registered, so that states for the pins can be stored in arrays
+    // instead of being looked up by pin
+    private final List<Pin> pins = new ArrayList<>();
+    private final Map<Pin, Integer> slots = new HashMap<>();
+
+    @Override
+    public boolean add(Pin pin) {
+        if (slots.containsKey(pin))
+            return false;
+        slots.put(pin, pins.size());
+        pins.add(pin);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return slots.containsKey(object);
+    }
+
+    @Override
+    public Iterator<Pin> iterator() {
+        // Slots can't be removed once they're assigned, since states may already be stored in them
+        return Collections.unmodifiableList(pins).iterator();
+    }
+
+    @Override
+    public int size() {
+        return pins.size();
+    }
+
+    public int getSlot(Pin pin) {
+        Integer slot = slots.get(pin);
+        return slot != null ? slot : -1;
+    }
+
+    public Pin getPin(int slot) {
+        return pins.get(slot);
+    }
+}
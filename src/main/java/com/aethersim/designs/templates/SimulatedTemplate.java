@@ -6,19 +6,16 @@ import com.aethersim.projects.io.data.DataContext;
 import com.aethersim.projects.io.data.DataMap;
 import com.aethersim.simulation.ChipState;
 
-import java.util.LinkedHashSet;
-import java.util.Set;
-
 public abstract class SimulatedTemplate<T extends ChipState> extends ChipTemplate {
 
-    private final Set<Pin> inputPins = new LinkedHashSet<>();
-    private final Set<Pin> outputPins = new LinkedHashSet<>();
+    private final PinSlots inputPins = new PinSlots();
+    private final PinSlots outputPins = new PinSlots();
 
-    public Set<Pin> getInputPins() {
+    public PinSlots getInputPins() {
         return inputPins;
     }
 
-    public Set<Pin> getOutputPins() {
+    public PinSlots getOutputPins() {
         return outputPins;
     }
 
@@ -30,6 +27,13 @@ public abstract class SimulatedTemplate<T extends ChipState> extends ChipTemplat
 
     public abstract void simulate(T state);
 
+    public boolean isReadingPropagatedStates() {
+        // Most templates read the rectified states of their inputs, where an input that nothing drives reads as its
+        // pulled state.  Templates that need to tell driven inputs from pulled ones override this to read the actual
+        // states propagated into their inputs instead, where an input that nothing drives reads as unconnected.
+        return false;
+    }
+
     @Override
     public void serialize(DataMap data, DataContext context) { /* do nothing */ }
 
@@ -1,12 +1,13 @@
 package com.aethersim.designs.templates;
 
-import com.aethersim.designs.Pin;
 import com.aethersim.projects.io.data.DataContext;
 import com.aethersim.projects.io.data.DataMap;
 import com.aethersim.projects.io.data.DataValue;
 import com.aethersim.simulation.ChipState;
 import com.aethersim.simulation.LogicState;
 
+import java.nio.ByteBuffer;
+
 public class ToggleState extends ChipState {
 
     private volatile LogicState drivenState;
@@ -25,44 +26,65 @@ public class ToggleState extends ChipState {
 
     /*
         The following methods are overridden to avoid unnecessary writes/reads from
-        maps, since the toggle chips will always produce a result based on their configured
+        state slots, since the toggle chips will always produce a result based on their configured
         state (and they don't have any input pins anyway).
      */
 
     @Override
-    public LogicState getDrivenInputState(Pin pin) {
+    public LogicState getDrivenInputState(int slot) {
         return LogicState.UNKNOWN;
     }
 
     @Override
-    public void setDrivenInputState(Pin pin, LogicState state) {}
+    public void setDrivenInputState(int slot, LogicState state) {}
 
     @Override
-    public LogicState getPulledInputState(Pin pin) {
+    public LogicState getPulledInputState(int slot) {
         return LogicState.UNKNOWN;
     }
 
     @Override
-    public void setPulledInputState(Pin pin, LogicState state) {}
+    public void setPulledInputState(int slot, LogicState state) {}
 
     @Override
-    public LogicState getDrivenOutputState(Pin pin) {
+    public LogicState getDrivenOutputState(int slot) {
         return drivenState;
     }
 
     @Override
-    public void setDrivenOutputState(Pin pin, LogicState state) {}
+    public void setDrivenOutputState(int slot, LogicState state) {}
 
     @Override
-    public LogicState getPulledOutputState(Pin pin) {
+    public LogicState getPulledOutputState(int slot) {
         return LogicState.UNKNOWN;
     }
 
     @Override
-    public void setPulledOutputState(Pin pin, LogicState state) {}
+    public void setPulledOutputState(int slot, LogicState state) {}
+
+    @Override
+    public int getSnapshotSize() {
+        return super.getSnapshotSize() + 1;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buffer) {
+        super.writeSnapshot(buffer);
+        LogicState drivenState = getDrivenState();
+        buffer.put(drivenState != null ? (byte) drivenState.ordinal() : -1);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buffer) {
+        super.readSnapshot(buffer);
+        byte drivenState = buffer.get();
+        setDrivenState(drivenState >= 0 ? LogicState.values()[drivenState] : null);
+    }
 
     @Override
     public void deserialize(DataMap data, DataContext context) {
+        if (data.containsKey("DrivenState"))
+            setDrivenState(LogicState.valueOf(data.get("DrivenState").getScalar().getString().toUpperCase()));
     }
 
     @Override
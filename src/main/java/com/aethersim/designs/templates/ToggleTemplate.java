@@ -13,8 +13,6 @@ import com.aethersim.ui.toolkit.UITheme;
 import com.aethersim.ui.toolkit.display.theming.ThemeKeys;
 import com.aethersim.utils.Direction;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 
 public class ToggleTemplate extends SimulatedTemplate<ToggleState> {
@@ -23,7 +21,7 @@ public class ToggleTemplate extends SimulatedTemplate<ToggleState> {
 
     private static ToggleTemplate template;
 
-    private final Map<Chip, ToggleState> chipStates = new HashMap<>();
+    private final ChipStateTable<ToggleState> chipStates = new ChipStateTable<>();
 
     private ToggleTemplate() {}
 
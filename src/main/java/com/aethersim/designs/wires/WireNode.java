@@ -62,7 +62,11 @@ public class WireNode extends DesignElement implements WireRoutable {
 
     @Override
     public void deserialize(DataMap data, DataContext context) {
-
+        // Get all necessary information from the data map
+        if (data.containsKey("Id"))
+            setId(data.get("Id").getScalar().getInt());
+        if (data.containsKey("Location"))
+            getLocation().deserialize(data.get("Location").getMap(), context);
     }
 
     @Override
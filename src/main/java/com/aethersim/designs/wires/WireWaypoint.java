@@ -62,7 +62,9 @@ public class WireWaypoint extends DesignElement implements WireRoutable {
 
     @Override
     public void deserialize(DataMap data, DataContext context) {
-
+        // Get all necessary information from the data map
+        if (data.containsKey("Location"))
+            getLocation().deserialize(data.get("Location").getMap(), context);
     }
 
     @Override
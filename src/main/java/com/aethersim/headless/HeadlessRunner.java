@@ -0,0 +1,318 @@
+package com.aethersim.headless;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.ChipPin;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.Point;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.DesignedTemplate;
+import com.aethersim.designs.templates.ToggleTemplate;
+import com.aethersim.designs.wires.WireSegment;
+import com.aethersim.headless.exceptions.HeadlessException;
+import com.aethersim.logging.AetherSimLogging;
+import com.aethersim.projects.Project;
+import com.aethersim.projects.io.ProjectIO;
+import com.aethersim.simulation.SimulatedDesign;
+import com.aethersim.simulation.Simulation;
+import com.aethersim.simulation.Simulator;
+import com.aethersim.simulation.mesh.MeshSimulator;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerationOptions;
+import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+import com.aethersim.simulation.mesh.threading.MeshSchedulingMode;
+import com.aethersim.simulation.netlist.Netlist;
+import com.aethersim.simulation.netlist.NetlistSimulator;
+import com.aethersim.simulation.waveforms.SimulationProbe;
+import com.aethersim.simulation.waveforms.VcdRecorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code HeadlessRunner} simulates a project without the user interface, which allows simulations to run in
+ * scripts and on machines without a display.  Rather than pacing ticks with the simulation timer, it ticks the
+ * simulator as fast as possible, either for a fixed number of ticks or until the design is stable, and then prints
+ * the tick rate, the size of the simulated mesh, and the final states of the top-level pins.  The states of
+ * top-level pins can also be recorded into a VCD waveform file as the simulation runs.
+ * <p>
+ * The runner returns one of the {@code EXIT_} status codes, so callers can tell whether the run succeeded.
+ */
+public class HeadlessRunner {
+
+    public static final int EXIT_SUCCESS = 0;
+    public static final int EXIT_SIMULATION_ERROR = 1;
+    public static final int EXIT_USAGE_ERROR = 2;
+    public static final int EXIT_INPUT_ERROR = 3;
+    public static final int EXIT_NOT_STABLE = 4;
+
+    public static final int DEFAULT_MAXIMUM_TICKS = 100_000;
+
+    private static final String USAGE = """
+            Usage: aethersim --headless <project file> [options]
+              --ticks <n>           run exactly <n> ticks
+              --until-stable        run until the design is stable (default)
+              --max-ticks <n>       maximum ticks to run until stable (default %d)
+              --stimulus <file>     drive top-level pins from a stimulus file ('<tick> <pin ID> <state>' per line)
+              --simulator <name>    simulator to use: mesh (default), event, compiled, or netlist
+              --switch-level        simulate every transistor on its own instead of collapsing gates into functions
+              --characterize        replace small combinational templates with lookups in their truth tables
+              --vcd <file>          record the states of probed pins into a VCD waveform file
+              --probe <pin ID>      probe a top-level pin in the waveform (may be repeated; default is all pins)
+            """.formatted(DEFAULT_MAXIMUM_TICKS);
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    private File projectFile;
+    private File stimulusFile;
+    private File vcdFile;
+    private final List<String> probedPinIds = new ArrayList<>();
+    private String simulatorName = "mesh";
+    private MeshGenerationOptions options = new MeshGenerationOptions();
+    private int ticks = -1;
+    private int maximumTicks = DEFAULT_MAXIMUM_TICKS;
+
+    public HeadlessRunner(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public int run(String[] args) {
+        // Parse the command-line arguments, and print usage information if they are invalid
+        Simulator simulator;
+        try {
+            parseArguments(args);
+            simulator = createSimulator(simulatorName, options);
+        } catch (HeadlessException e) {
+            err.println(e.getMessage());
+            err.print(USAGE);
+            return EXIT_USAGE_ERROR;
+        }
+
+        // Load the project and stimulus files
+        Project project;
+        Stimulus stimulus;
+        try {
+            stimulus = stimulusFile != null ? Stimulus.read(stimulusFile) : new Stimulus();
+            project = ProjectIO.read(projectFile);
+            if (project == null || project.getDesign() == null)
+                throw new HeadlessException("Project file '" + projectFile.getPath() + "' could not be loaded.");
+        } catch (IOException | RuntimeException e) {
+            AetherSimLogging.getLogger().error("Could not load headless simulation inputs.", e);
+            err.println(e.getMessage());
+            return EXIT_INPUT_ERROR;
+        }
+
+        // Find all pins that are driven by the stimulus
+        Design design = project.getDesign();
+        Map<String, Pin> drivenPins = new LinkedHashMap<>();
+        for (String pinId : stimulus.getPinIds()) {
+            Pin pin = design.getPins().stream().filter(designPin -> pinId.equals(designPin.getId())).findFirst().orElse(null);
+            if (pin == null) {
+                err.println("Stimulus refers to pin '" + pinId + "', which is not a top-level pin of the project design.");
+                return EXIT_INPUT_ERROR;
+            }
+            drivenPins.put(pinId, pin);
+        }
+
+        // Find all pins that are probed in the waveform (if no pins are specified, all top-level pins are probed)
+        List<Pin> probedPins = new ArrayList<>();
+        if (probedPinIds.isEmpty())
+            probedPins.addAll(design.getPins());
+        for (String pinId : probedPinIds) {
+            Pin pin = design.getPins().stream().filter(designPin -> pinId.equals(designPin.getId())).findFirst().orElse(null);
+            if (pin == null) {
+                err.println("Probe refers to pin '" + pinId + "', which is not a top-level pin of the project design.");
+                return EXIT_INPUT_ERROR;
+            }
+            probedPins.add(pin);
+        }
+
+        try {
+            return simulate(project, simulator, stimulus, drivenPins, probedPins);
+        } catch (IOException | RuntimeException e) {
+            AetherSimLogging.getLogger().error("Headless simulation failed.", e);
+            err.println("Simulation failed: " + e.getMessage());
+            return EXIT_SIMULATION_ERROR;
+        }
+    }
+
+    private int simulate(Project project, Simulator simulator, Stimulus stimulus, Map<String, Pin> drivenPins, List<Pin> probedPins) throws IOException {
+        Design design = project.getDesign();
+
+        // If any pins are driven, wrap the design in a harness that connects a toggle to each driven pin
+        Map<String, Chip> drivers = new LinkedHashMap<>();
+        Chip designChip = null;
+        Design simulatedDesign = design;
+        if (!drivenPins.isEmpty()) {
+            designChip = new Chip();
+            simulatedDesign = createHarness(project, designChip, drivenPins, drivers);
+        }
+
+        // Build the mesh for the design
+        Simulation.setSimulator(simulator);
+        SimulatedDesign topLevelDesign = Simulation.initialize(simulatedDesign);
+        SimulatedDesign projectDesign = designChip != null ? topLevelDesign.getSimulatedChipDesign(designChip) : topLevelDesign;
+
+        // If a waveform is being recorded, probe each of the pins and record their initial states
+        VcdRecorder recorder = null;
+        if (vcdFile != null) {
+            List<SimulationProbe> probes = new ArrayList<>();
+            for (Pin pin : probedPins)
+                probes.add(projectDesign.probePin(pin));
+            recorder = new VcdRecorder(vcdFile.toPath(), probes);
+            recorder.sample(0);
+        }
+
+        // Tick the simulator directly (instead of through the simulation timer) until the run is complete
+        boolean untilStable = ticks < 0;
+        int tickLimit = untilStable ? maximumTicks : ticks;
+        int tick = 0;
+        boolean stable = false;
+        long startTime = System.nanoTime();
+        simulator.start();
+        try {
+            while (tick < tickLimit) {
+                // Apply any stimulus scheduled for this tick
+                for (Stimulus.Event event : stimulus.getEvents(tick)) {
+                    Chip driver = drivers.get(event.pinId());
+                    ((ToggleTemplate) driver.getChipTemplate()).setDrivenState(driver, event.state());
+                }
+
+                simulator.tick();
+                tick++;
+                if (recorder != null)
+                    recorder.sample(tick);
+
+                // The design can only be stable once all the stimulus has been applied
+                if (untilStable && tick > stimulus.getLastTick() && simulator.isStable()) {
+                    stable = true;
+                    break;
+                }
+            }
+        } finally {
+            simulator.stop();
+            if (recorder != null)
+                recorder.close();
+        }
+        long elapsedTime = System.nanoTime() - startTime;
+
+        // Print the results of the run
+        double elapsedSeconds = elapsedTime / 1_000_000_000.0;
+        out.printf("Project: %s%n", project.getName() != null ? project.getName() : projectFile.getName());
+        out.printf("Simulator: %s%n", simulatorName);
+        out.printf("Mesh: %s (%d transistors)%n", describeMeshSize(simulator), design.getTransistorCount());
+        out.printf(
+                "Ticks: %d%s in %.3f s (%.1f ticks/sec)%n",
+                tick,
+                untilStable ? (stable ? " (stable)" : " (not stable)") : "",
+                elapsedSeconds,
+                elapsedSeconds > 0 ? tick / elapsedSeconds : 0.0
+        );
+        out.println("Pins:");
+        for (Pin pin : design.getPins())
+            out.printf("  %s: %s%n", pin.getId() != null ? pin.getId() : pin.getName(), projectDesign.getStateForPin(pin));
+
+        return untilStable && !stable ? EXIT_NOT_STABLE : EXIT_SUCCESS;
+    }
+
+    private static Design createHarness(Project project, Chip designChip, Map<String, Pin> drivenPins, Map<String, Chip> drivers) {
+        // Wrap the project design in a template, so it can be placed as a chip (this template is not registered,
+        // since it only exists for this run)
+        Design design = project.getDesign();
+        DesignedTemplate template = new DesignedTemplate(design);
+        template.setId(project.getId() != null ? project.getId() : "headless_design");
+        template.setName(project.getName());
+        template.setWidth(Math.max(design.getWidth(), 1));
+        template.setHeight(Math.max(design.getHeight(), 1));
+
+        // Place the design chip to the right of a column of toggles, one per driven pin
+        Design harness = new Design();
+        harness.setWidth(template.getWidth() + 12);
+        harness.setHeight(Math.max(template.getHeight(), 6 * drivenPins.size()) + 2);
+        designChip.setChipTemplate(template);
+        designChip.setLocation(new Point(10, 1));
+        harness.addChip(designChip);
+
+        int driverIndex = 0;
+        for (Map.Entry<String, Pin> entry : drivenPins.entrySet()) {
+            Chip driver = new Chip();
+            driver.setChipTemplate(ChipTemplate.get("toggle"));
+            driver.setLocation(new Point(1, 1 + 6 * driverIndex++));
+            harness.addChip(driver);
+            harness.addWireSegment(new WireSegment(harness, new ChipPin(driver, ToggleTemplate.OUTPUT), new ChipPin(designChip, entry.getValue())));
+            drivers.put(entry.getKey(), driver);
+        }
+
+        return harness;
+    }
+
+    private static String describeMeshSize(Simulator simulator) {
+        if (simulator instanceof NetlistSimulator netlistSimulator && netlistSimulator.getNetlist() != null) {
+            Netlist netlist = netlistSimulator.getNetlist();
+            return netlist.getVertexCount() + " vertices, " + netlist.getConnectorCount() + " connectors, " + netlist.getFunctionCount() + " functions";
+        } else if (simulator instanceof MeshSimulator meshSimulator && meshSimulator.getSimulationConfig() != null) {
+            MeshSimulationConfig config = meshSimulator.getSimulationConfig();
+            return config.getMeshVertices().size() + " vertices, " + config.getMeshConnectors().size() + " connectors, " + config.getMeshChips().size() + " functions";
+        } else {
+            return "unknown size";
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int index = 0; index < args.length; index++) {
+            String arg = args[index];
+            switch (arg) {
+                case "--ticks" -> ticks = parseCount(arg, argumentValue(args, ++index, arg));
+                case "--until-stable" -> ticks = -1;
+                case "--max-ticks" -> maximumTicks = parseCount(arg, argumentValue(args, ++index, arg));
+                case "--stimulus" -> stimulusFile = new File(argumentValue(args, ++index, arg));
+                case "--simulator" -> simulatorName = argumentValue(args, ++index, arg);
+                case "--switch-level" -> options.setCollapsingSwitchNetworks(false);
+                case "--characterize" -> options.setCharacterizingTemplates(true);
+                case "--vcd" -> vcdFile = new File(argumentValue(args, ++index, arg));
+                case "--probe" -> probedPinIds.add(argumentValue(args, ++index, arg));
+                default -> {
+                    if (arg.startsWith("--") || projectFile != null)
+                        throw new HeadlessException("Unexpected argument '" + arg + "'.");
+                    projectFile = new File(arg);
+                }
+            }
+        }
+
+        if (projectFile == null)
+            throw new HeadlessException("No project file specified.");
+    }
+
+    private static String argumentValue(String[] args, int index, String arg) {
+        if (index >= args.length)
+            throw new HeadlessException("Argument '" + arg + "' requires a value.");
+        return args[index];
+    }
+
+    private static int parseCount(String arg, String value) {
+        try {
+            int count = Integer.parseInt(value);
+            if (count > 0)
+                return count;
+        } catch (NumberFormatException e) {
+            // Fall through to the exception below
+        }
+        throw new HeadlessException("Argument '" + arg + "' requires a positive integer.");
+    }
+
+    private static Simulator createSimulator(String name, MeshGenerationOptions options) {
+        return switch (name) {
+            case "mesh" -> new MeshSimulator(MeshSchedulingMode.FULL, options);
+            case "event" -> new MeshSimulator(MeshSchedulingMode.EVENT_DRIVEN, options);
+            case "compiled" -> new MeshSimulator(MeshSchedulingMode.COMPILED, options);
+            case "netlist" -> new NetlistSimulator(options);
+            default -> throw new HeadlessException("Unknown simulator '" + name + "'.");
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.aethersim.headless;
+
+import com.aethersim.headless.exceptions.HeadlessException;
+import com.aethersim.simulation.LogicState;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A {@code Stimulus} is a schedule of states to drive onto the top-level {@link com.aethersim.designs.Pin}s of a
+ * design during a headless simulation.  Stimulus files contain one event per line in the form
+ * {@code <tick> <pin ID> <state>}, where the state is the name of a {@link LogicState}.  Blank lines and lines
+ * starting with {@code #} are ignored.
+ */
+public class Stimulus {
+
+    public record Event(int tick, String pinId, LogicState state) {}
+
+    private final NavigableMap<Integer, List<Event>> events = new TreeMap<>();
+    private final Set<String> pinIds = new LinkedHashSet<>();
+
+    public void add(Event event) {
+        events.computeIfAbsent(event.tick(), tick -> new ArrayList<>()).add(event);
+        pinIds.add(event.pinId());
+    }
+
+    public Set<String> getPinIds() {
+        return pinIds;
+    }
+
+    public List<Event> getEvents(int tick) {
+        return events.getOrDefault(tick, List.of());
+    }
+
+    public int getLastTick() {
+        return events.isEmpty() ? -1 : events.lastKey();
+    }
+
+    public static Stimulus read(File file) throws IOException {
+        Stimulus stimulus = new Stimulus();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                // Skip blank lines and comments
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+
+                String[] tokens = line.split("\\s+");
+                if (tokens.length != 3)
+                    throw new HeadlessException("Line " + lineNumber + " of stimulus file '" + file.getPath() + "' must be in the form '<tick> <pin ID> <state>'.");
+
+                try {
+                    int tick = Integer.parseInt(tokens[0]);
+                    if (tick < 0)
+                        throw new HeadlessException("Line " + lineNumber + " of stimulus file '" + file.getPath() + "' has a negative tick.");
+                    stimulus.add(new Event(tick, tokens[1], LogicState.valueOf(tokens[2].toUpperCase())));
+                } catch (IllegalArgumentException e) {
+                    // This also handles invalid numbers, since NumberFormatException is an IllegalArgumentException
+                    throw new HeadlessException("Line " + lineNumber + " of stimulus file '" + file.getPath() + "' has an invalid tick or state.", e);
+                }
+            }
+        }
+
+        return stimulus;
+    }
+}
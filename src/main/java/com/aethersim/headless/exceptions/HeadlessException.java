@@ -0,0 +1,12 @@
+package com.aethersim.headless.exceptions;
+
+public class HeadlessException extends RuntimeException {
+
+    public HeadlessException(String message) {
+        super(message);
+    }
+
+    public HeadlessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
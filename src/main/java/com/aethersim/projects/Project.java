@@ -39,7 +39,16 @@ public class Project implements DataSerializable {
 
     @Override
     public void deserialize(DataMap data, DataContext context) {
-
+        // Get all necessary information from the data map
+        if (data.containsKey("Id"))
+            setId(data.get("Id").getScalar().getString());
+        if (data.containsKey("Name"))
+            setName(data.get("Name").getScalar().getString());
+        if (data.containsKey("Design")) {
+            Design design = new Design();
+            design.deserialize(data.get("Design").getMap(), context);
+            setDesign(design);
+        }
     }
 
     @Override
@@ -1,18 +1,21 @@
 package com.aethersim.projects.io;
 
+import com.aethersim.designs.Design;
 import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.DesignedTemplate;
 import com.aethersim.logging.AetherSimLogging;
 import com.aethersim.plugins.Plugin;
 import com.aethersim.projects.Project;
 import com.aethersim.projects.Scope;
 import com.aethersim.projects.io.data.DataContext;
+import com.aethersim.projects.io.data.DataEntry;
 import com.aethersim.projects.io.data.DataMap;
+import com.aethersim.projects.io.exceptions.ProjectIOException;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 public class ProjectIO {
 
@@ -52,4 +55,72 @@ public class ProjectIO {
             AetherSimLogging.getLogger().error("An error occurred while writing to project file '" + projectFile.getPath() + "'.", e);
         }
     }
+
+    public static Project read(File projectFile) {
+        try (ProjectReader reader = new ProjectReader(projectFile)) {
+            // Read all project-scope chip template files, keyed by template ID
+            Map<String, DataMap> templateData = new LinkedHashMap<>();
+            for (String filename : reader.list("chip_templates")) {
+                DataMap data = reader.read("chip_templates", filename);
+                templateData.put(data.containsKey("Id") ? data.get("Id").getScalar().getString() : filename, data);
+            }
+
+            // Templates can contain chips built from other templates, so they must be loaded in dependency order
+            // (so that the chips can find their templates when they are deserialized)
+            List<String> loadOrder = new ArrayList<>();
+            for (String templateId : templateData.keySet())
+                orderTemplate(templateId, templateData, new HashSet<>(), loadOrder);
+
+            for (String templateId : loadOrder) {
+                DataMap data = templateData.get(templateId);
+                DesignedTemplate template = new DesignedTemplate(new Design());
+                template.deserialize(data, createContext(data));
+                template.setId(templateId);
+                ChipTemplate.register(template, Scope.PROJECT);
+                data.dispose();
+            }
+
+            // Read the main project design file
+            DataMap projectData = reader.read("project");
+            Project project = new Project();
+            project.deserialize(projectData, createContext(projectData));
+            projectData.dispose();
+
+            return project;
+        } catch (FileNotFoundException e) {
+            AetherSimLogging.getLogger().error("Could not read from project file '" + projectFile.getPath() + "'.", e);
+        } catch (IOException e) {
+            AetherSimLogging.getLogger().error("An error occurred while reading from project file '" + projectFile.getPath() + "'.", e);
+        }
+
+        return null;
+    }
+
+    private static void orderTemplate(String templateId, Map<String, DataMap> templateData, Set<String> visiting, List<String> loadOrder) {
+        // If the template was already ordered, or is not part of this project, there is nothing to do
+        if (loadOrder.contains(templateId) || !templateData.containsKey(templateId))
+            return;
+        if (!visiting.add(templateId))
+            throw new ProjectIOException("Chip template '" + templateId + "' contains itself.");
+
+        // Order all templates used by chips in this template's design before this one
+        DataMap data = templateData.get(templateId);
+        if (data.containsKey("Design") && data.get("Design").getMap().containsKey("Chips"))
+            for (DataEntry chipData : data.get("Design").getMap().get("Chips").getArray())
+                if (chipData.getMap().containsKey("Template"))
+                    orderTemplate(chipData.getMap().get("Template").getScalar().getString(), templateData, visiting, loadOrder);
+
+        visiting.remove(templateId);
+        loadOrder.add(templateId);
+    }
+
+    private static DataContext createContext(DataMap data) {
+        // Use the format version from the top-level metadata, if it exists
+        if (data.containsKey("AetherSim")) {
+            DataMap aetherSimData = data.get("AetherSim").getMap();
+            if (aetherSimData.containsKey("FormatVersion"))
+                return new DataContext(aetherSimData.get("FormatVersion").getScalar().getInt());
+        }
+        return new DataContext();
+    }
 }
@@ -1,4 +1,90 @@
 package com.aethersim.projects.io;
 
-public class ProjectReader {
+import com.aethersim.projects.io.data.DataEntry;
+import com.aethersim.projects.io.data.DataMap;
+import com.aethersim.projects.io.exceptions.ProjectIOException;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class ProjectReader implements Closeable {
+
+    private final File projectFile;
+    private final ZipFile zipFile;
+    private final Yaml yaml;
+
+    public ProjectReader(File projectFile) throws IOException {
+        // If the project file is a directory, throw an exception
+        if (projectFile.isDirectory())
+            throw new ProjectIOException("Project file '" + projectFile.getPath() + "' is a directory.");
+        // If the project file doesn't exist, throw an exception
+        if (!projectFile.exists())
+            throw new FileNotFoundException("Project file '" + projectFile.getPath() + "' does not exist.");
+
+        this.projectFile = projectFile;
+        this.zipFile = new ZipFile(projectFile);
+        this.yaml = new Yaml();
+    }
+
+    public DataMap read(String filename) throws IOException {
+        return read(ProjectWriter.DEFAULT_FILE_PREFIX, filename);
+    }
+
+    public DataMap read(String prefix, String filename) throws IOException {
+        // Determine the full filename, including prefix and extension
+        String fullFilename = sanitizePrefix(prefix) + filename + ProjectWriter.DEFAULT_FILE_EXTENSION;
+
+        // Find the zip entry in the project file
+        ZipEntry entry = zipFile.getEntry(fullFilename);
+        if (entry == null)
+            throw new ProjectIOException("Project file '" + projectFile.getPath() + "' does not contain '" + fullFilename + "'.");
+
+        // Load the raw data from the file and convert it to a data map
+        try (Reader reader = new InputStreamReader(zipFile.getInputStream(entry))) {
+            Object raw = yaml.load(reader);
+            // Empty files are loaded as null, so treat them as empty maps
+            if (raw == null)
+                return new DataMap();
+
+            DataEntry data = DataEntry.fromRaw(raw);
+            if (!data.isMap())
+                throw new ProjectIOException("File '" + fullFilename + "' in project file '" + projectFile.getPath() + "' is not a map.");
+            return data.getMap();
+        }
+    }
+
+    public List<String> list(String prefix) {
+        // Find all entries directly within the prefix that have the correct extension, and strip the prefix and
+        // extension from their names
+        String sanitizedPrefix = sanitizePrefix(prefix);
+        List<String> filenames = new ArrayList<>();
+        for (ZipEntry entry : Collections.list(zipFile.entries())) {
+            String name = entry.getName();
+            if (entry.isDirectory() || !name.startsWith(sanitizedPrefix) || !name.endsWith(ProjectWriter.DEFAULT_FILE_EXTENSION))
+                continue;
+
+            String filename = name.substring(sanitizedPrefix.length(), name.length() - ProjectWriter.DEFAULT_FILE_EXTENSION.length());
+            if (!filename.contains("/"))
+                filenames.add(filename);
+        }
+        return filenames;
+    }
+
+    private static String sanitizePrefix(String prefix) {
+        // Sanitize the prefix and append a trailing slash if necessary
+        prefix = prefix.replace('\\', '/');
+        if (prefix.length() > 0 && !prefix.endsWith("/"))
+            prefix += "/";
+        return prefix;
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipFile.close();
+    }
 }
@@ -3,6 +3,9 @@ package com.aethersim.projects.io.data;
 
 import com.aethersim.projects.io.data.exceptions.DataException;
 
+import java.util.List;
+import java.util.Map;
+
 public interface DataEntry {
 
     /**
@@ -50,7 +53,7 @@ public interface DataEntry {
      * @see #isArray()
      */
     default DataValue getScalar() {
-        if (!isMap())
+        if (!isScalar())
             throw new DataException("Cannot marshal non-scalar value to DataValue.");
 
         return (DataValue) this;
@@ -89,4 +92,28 @@ public interface DataEntry {
     }
 
     void dispose();
+
+    /**
+     * This method converts a raw object (such as one produced by a YAML parser) into the corresponding data entry.
+     * {@link Map} objects are converted to {@link DataMap}s (using the string form of their keys),
+     * {@link List} objects are converted to {@link DataArray}s, and all other objects are converted to
+     * {@link DataValue}s.  Nested maps and lists are converted recursively.
+     *
+     * @param raw the raw {@link Object} to convert
+     * @return The {@link DataEntry} representing the raw object
+     * @throws DataException if the raw object (or any nested object) is {@code null}
+     */
+    static DataEntry fromRaw(Object raw) {
+        if (raw instanceof Map<?, ?> rawMap) {
+            DataMap map = new DataMap();
+            rawMap.forEach((key, value) -> map.put(String.valueOf(key), fromRaw(value)));
+            return map;
+        } else if (raw instanceof List<?> rawList) {
+            DataArray array = new DataArray();
+            rawList.forEach(value -> array.add(fromRaw(value)));
+            return array;
+        } else {
+            return new DataValue(raw);
+        }
+    }
 }
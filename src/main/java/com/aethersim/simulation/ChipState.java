@@ -1,63 +1,151 @@
 package com.aethersim.simulation;
 
 import com.aethersim.designs.Pin;
+import com.aethersim.designs.templates.PinSlots;
+import com.aethersim.designs.templates.SimulatedTemplate;
 import com.aethersim.projects.io.data.DataSerializable;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public abstract class ChipState implements DataSerializable {
 
-    private final Map<Pin, LogicState> drivenInputPinStates = new HashMap<>();
-    private final Map<Pin, LogicState> pulledInputPinStates = new HashMap<>();
-    private final Map<Pin, LogicState> drivenOutputPinStates = new HashMap<>();
-    private final Map<Pin, LogicState> pulledOutputPinStates = new HashMap<>();
+    // Cached logic state values (indexed by ordinal) so that reading states does not allocate
+    private static final LogicState[] LOGIC_STATES = LogicState.values();
+    private static final byte UNKNOWN = (byte) LogicState.UNKNOWN.ordinal();
+    private static final PinSlots NO_PINS = new PinSlots();
+
+    // States are stored as ordinals, indexed by the slots the template assigned to its pins.  Until the state is bound
+    // to a template, it has no slots at all.
+    private PinSlots inputSlots = NO_PINS, outputSlots = NO_PINS;
+    private byte[] drivenInputStates = new byte[0], pulledInputStates = new byte[0];
+    private byte[] drivenOutputStates = new byte[0], pulledOutputStates = new byte[0];
+
+    public void bind(SimulatedTemplate<?> template) {
+        // If the state already has a slot for every pin of the template, there's nothing to do
+        PinSlots templateInputs = template.getInputPins();
+        PinSlots templateOutputs = template.getOutputPins();
+        if (inputSlots == templateInputs && outputSlots == templateOutputs
+                && drivenInputStates.length == templateInputs.size() && drivenOutputStates.length == templateOutputs.size())
+            return;
+
+        // Otherwise, size the arrays to fit the template's pins, keeping any states that were already stored
+        inputSlots = templateInputs;
+        outputSlots = templateOutputs;
+        drivenInputStates = resize(drivenInputStates, templateInputs.size());
+        pulledInputStates = resize(pulledInputStates, templateInputs.size());
+        drivenOutputStates = resize(drivenOutputStates, templateOutputs.size());
+        pulledOutputStates = resize(pulledOutputStates, templateOutputs.size());
+    }
+
+    public LogicState getDrivenInputState(int slot) {
+        return LOGIC_STATES[drivenInputStates[slot]];
+    }
+
+    public void setDrivenInputState(int slot, LogicState state) {
+        drivenInputStates[slot] = ordinal(state);
+    }
+
+    public LogicState getPulledInputState(int slot) {
+        return LOGIC_STATES[pulledInputStates[slot]];
+    }
+
+    public void setPulledInputState(int slot, LogicState state) {
+        pulledInputStates[slot] = ordinal(state);
+    }
+
+    public LogicState getDrivenOutputState(int slot) {
+        return LOGIC_STATES[drivenOutputStates[slot]];
+    }
+
+    public void setDrivenOutputState(int slot, LogicState state) {
+        drivenOutputStates[slot] = ordinal(state);
+    }
+
+    public LogicState getPulledOutputState(int slot) {
+        return LOGIC_STATES[pulledOutputStates[slot]];
+    }
+
+    public void setPulledOutputState(int slot, LogicState state) {
+        pulledOutputStates[slot] = ordinal(state);
+    }
+
+    /*
+        The following methods look up the slot for each pin, so templates can keep reading and writing states by pin.
+        Pins that aren't registered with the template have no slot, so they always read as unknown.
+     */
 
     public LogicState getDrivenInputState(Pin pin) {
-        return drivenInputPinStates.getOrDefault(pin, LogicState.UNKNOWN);
+        int slot = inputSlots.getSlot(pin);
+        return slot < 0 ? LogicState.UNKNOWN : getDrivenInputState(slot);
     }
 
     public void setDrivenInputState(Pin pin, LogicState state) {
-        // If the state is null, set it to be unknown
-        if (state == null)
-            state = LogicState.UNKNOWN;
-        // Update the pin state
-        drivenInputPinStates.put(pin, state);
+        int slot = inputSlots.getSlot(pin);
+        if (slot >= 0)
+            setDrivenInputState(slot, state);
     }
 
     public LogicState getPulledInputState(Pin pin) {
-        return pulledInputPinStates.getOrDefault(pin, LogicState.UNKNOWN);
+        int slot = inputSlots.getSlot(pin);
+        return slot < 0 ? LogicState.UNKNOWN : getPulledInputState(slot);
     }
 
     public void setPulledInputState(Pin pin, LogicState state) {
-        // If the state is null, set it to be unknown
-        if (state == null)
-            state = LogicState.UNKNOWN;
-        // Update the pin state
-        pulledInputPinStates.put(pin, state);
+        int slot = inputSlots.getSlot(pin);
+        if (slot >= 0)
+            setPulledInputState(slot, state);
     }
 
     public LogicState getDrivenOutputState(Pin pin) {
-        return drivenOutputPinStates.getOrDefault(pin, LogicState.UNKNOWN);
+        int slot = outputSlots.getSlot(pin);
+        return slot < 0 ? LogicState.UNKNOWN : getDrivenOutputState(slot);
     }
 
     public void setDrivenOutputState(Pin pin, LogicState state) {
-        // If the state is null, set it to be unknown
-        if (state == null)
-            state = LogicState.UNKNOWN;
-        // Update the pin state
-        drivenOutputPinStates.put(pin, state);
+        int slot = outputSlots.getSlot(pin);
+        if (slot >= 0)
+            setDrivenOutputState(slot, state);
     }
 
     public LogicState getPulledOutputState(Pin pin) {
-        return pulledOutputPinStates.getOrDefault(pin, LogicState.UNKNOWN);
+        int slot = outputSlots.getSlot(pin);
+        return slot < 0 ? LogicState.UNKNOWN : getPulledOutputState(slot);
     }
 
     public void setPulledOutputState(Pin pin, LogicState state) {
+        int slot = outputSlots.getSlot(pin);
+        if (slot >= 0)
+            setPulledOutputState(slot, state);
+    }
+
+    /*
+        The following methods store the state in simulation snapshots.  Subclasses that keep states of their own
+        should add them to the snapshot, after the states stored here.
+     */
+
+    public int getSnapshotSize() {
+        return drivenInputStates.length + pulledInputStates.length + drivenOutputStates.length + pulledOutputStates.length;
+    }
+
+    public void writeSnapshot(ByteBuffer buffer) {
+        buffer.put(drivenInputStates).put(pulledInputStates).put(drivenOutputStates).put(pulledOutputStates);
+    }
+
+    public void readSnapshot(ByteBuffer buffer) {
+        buffer.get(drivenInputStates).get(pulledInputStates).get(drivenOutputStates).get(pulledOutputStates);
+    }
+
+    private static byte ordinal(LogicState state) {
         // If the state is null, set it to be unknown
-        if (state == null)
-            state = LogicState.UNKNOWN;
-        // Update the pin state
-        pulledOutputPinStates.put(pin, state);
+        return state == null ? UNKNOWN : (byte) state.ordinal();
+    }
+
+    private static byte[] resize(byte[] states, int size) {
+        int previousSize = states.length;
+        states = Arrays.copyOf(states, size);
+        if (size > previousSize)
+            Arrays.fill(states, previousSize, size, UNKNOWN);
+        return states;
     }
 }
@@ -5,6 +5,7 @@ import com.aethersim.designs.Chip;
 import com.aethersim.designs.Pin;
 import com.aethersim.designs.wires.WireNode;
 import com.aethersim.designs.wires.WireSegment;
+import com.aethersim.simulation.waveforms.SimulationProbe;
 
 /**
  * A {@code SimulatedDesign} is the component of the simulation system responsible for mapping simulated
@@ -83,6 +84,54 @@ public abstract class SimulatedDesign {
      */
     public abstract SimulatedDesign getSimulatedChipDesign(Chip chip);
 
+    /**
+     * This method creates a {@link SimulationProbe} that reads the simulated {@link LogicState} of the specified
+     * {@link Pin}, named after the pin's ID (or its name, if it has no ID).  Probes only read states when they are
+     * sampled, so design elements without probes add no cost to the simulation.
+     *
+     * @param pin the {@link Pin} to probe
+     * @return A {@link SimulationProbe} for the {@link Pin}
+     */
+    public SimulationProbe probePin(Pin pin) {
+        return probePin(pin, pin.getId() != null ? pin.getId() : pin.getName());
+    }
+
+    /**
+     * This method creates a {@link SimulationProbe} with the specified name that reads the simulated
+     * {@link LogicState} of the specified {@link Pin}.
+     *
+     * @param pin  the {@link Pin} to probe
+     * @param name the name to record the pin's states under
+     * @return A {@link SimulationProbe} for the {@link Pin}
+     */
+    public SimulationProbe probePin(Pin pin, String name) {
+        return new SimulationProbe(name, () -> getStateForPin(pin));
+    }
+
+    /**
+     * This method creates a {@link SimulationProbe} with the specified name that reads the simulated
+     * {@link LogicState} of the specified {@link WireNode}.
+     *
+     * @param wireNode the {@link WireNode} to probe
+     * @param name     the name to record the wire node's states under
+     * @return A {@link SimulationProbe} for the {@link WireNode}
+     */
+    public SimulationProbe probeWireNode(WireNode wireNode, String name) {
+        return new SimulationProbe(name, () -> getStateForWireNode(wireNode));
+    }
+
+    /**
+     * This method creates a {@link SimulationProbe} with the specified name that reads the simulated
+     * {@link LogicState} of the specified {@link WireSegment}.
+     *
+     * @param wireSegment the {@link WireSegment} to probe
+     * @param name        the name to record the wire segment's states under
+     * @return A {@link SimulationProbe} for the {@link WireSegment}
+     */
+    public SimulationProbe probeWireSegment(WireSegment wireSegment, String name) {
+        return new SimulationProbe(name, () -> getStateForWireSegment(wireSegment));
+    }
+
     /**
      * This method returns the "default" simulated design that returns {@link LogicState#UNCONNECTED} for all
      * design elements.  It is useful when providing default simulated designs where no other design exists, but
@@ -2,6 +2,7 @@ package com.aethersim.simulation;
 
 import com.aethersim.designs.Design;
 import com.aethersim.simulation.timing.SimulationTickTimer;
+import com.aethersim.simulation.timing.SimulationTimingMode;
 
 /**
  * The {@code Simulation} class controls AetherSim's simulation module.  Since simulators are modular, this class
@@ -58,6 +59,23 @@ public final class Simulation {
             return null;
     }
 
+    /**
+     * This method updates the currently-active simulator module after the specified {@link Design} was edited.  If the
+     * simulator supports updates, it patches its internal representation of the design in place, so the simulation
+     * continues without a reset.  Otherwise, the design is initialized again as in {@link #initialize(Design)}.
+     *
+     * @param design the edited {@link Design}
+     * @return The {@link SimulatedDesign} for the edited {@link Design}
+     */
+    public static SimulatedDesign update(Design design) {
+        if (simulator == null)
+            return null;
+        // Simulators that can't patch their designs must start over
+        if (!simulator.supportsUpdates())
+            return initialize(design);
+        return simulator.update(design);
+    }
+
     /**
      * This method starts the simulation timing module, which will provide ticks to the currently-active simulator
      * module.
@@ -94,4 +112,63 @@ public final class Simulation {
     public static boolean isRunning() {
         return TIMER.isRunning();
     }
+
+    /**
+     * This method sets how the simulation timing module paces ticks.  The new mode takes effect at the start of the
+     * next cycle.
+     *
+     * @param timingMode the {@link SimulationTimingMode} to use
+     */
+    public static void setTimingMode(SimulationTimingMode timingMode) {
+        TIMER.setTimingMode(timingMode);
+    }
+
+    /**
+     * This method returns how the simulation timing module paces ticks.
+     *
+     * @return The current {@link SimulationTimingMode}
+     */
+    public static SimulationTimingMode getTimingMode() {
+        return TIMER.getTimingMode();
+    }
+
+    /**
+     * This method sets the target number of cycles per second for the simulation timing module.  In
+     * {@link SimulationTimingMode#FIXED_RATE} mode, this is the target tick rate, and in
+     * {@link SimulationTimingMode#BATCHED} mode, each cycle runs a batch of ticks.  This rate is ignored in
+     * {@link SimulationTimingMode#UNTHROTTLED} mode.
+     *
+     * @param cyclesPerSecond the target number of cycles per second
+     */
+    public static void setTargetCycleRate(double cyclesPerSecond) {
+        TIMER.setTargetCycleDurationNanos(Math.round(1_000_000_000 / cyclesPerSecond));
+    }
+
+    /**
+     * This method sets the number of ticks run during each cycle in {@link SimulationTimingMode#BATCHED} mode.
+     *
+     * @param ticksPerCycle the number of ticks per cycle
+     */
+    public static void setTicksPerCycle(int ticksPerCycle) {
+        TIMER.setTicksPerCycle(ticksPerCycle);
+    }
+
+    /**
+     * This method returns the tick rate that the simulation is actually achieving, measured over the last fraction of
+     * a second.  If the simulation is not running, this method returns {@code 0}.
+     *
+     * @return The achieved number of ticks per second
+     */
+    public static double getAchievedTickRate() {
+        return TIMER.getAchievedTickRate();
+    }
+
+    /**
+     * This method returns the number of ticks run since the simulation was last started.
+     *
+     * @return The number of ticks run
+     */
+    public static long getTickCount() {
+        return TIMER.getTickCount();
+    }
 }
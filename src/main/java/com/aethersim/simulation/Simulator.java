@@ -21,6 +21,30 @@ public abstract class Simulator {
      */
     public abstract SimulatedDesign initialize(Design design);
 
+    /**
+     * This method returns whether the simulator module can apply edits to a {@link Design} it has already been
+     * initialized with through {@link #update(Design)}, rather than rebuilding it from scratch.
+     *
+     * @return {@code true} if the simulator module supports updates, {@code false} otherwise
+     */
+    public boolean supportsUpdates() {
+        return false;
+    }
+
+    /**
+     * This method brings the simulator module up to date with edits made to the {@link Design} it was initialized
+     * with, while keeping the simulated {@link LogicState}s of the parts of the design that were not changed.  It is
+     * always called on the same thread as {@link #tick()}, or while the simulator is not ticking.
+     * <p>
+     * Simulator modules that don't support updates initialize the design again instead.
+     *
+     * @param design the edited {@link Design}
+     * @return The {@link SimulatedDesign} for the edited {@link Design}
+     */
+    public SimulatedDesign update(Design design) {
+        return initialize(design);
+    }
+
     /**
      * This method should perform any actions necessary for the simulator module's first tick, as this method is
      * called directly before the first call to {@link #tick()}.
@@ -44,6 +68,18 @@ public abstract class Simulator {
      */
     public abstract void tick();
 
+    /**
+     * This method returns whether the simulated design has settled, meaning that further calls to {@link #tick()}
+     * will not change any {@link LogicState}s unless the design's inputs change.  Simulator modules that cannot
+     * determine this return {@code false}, so callers waiting for a design to settle should also limit the number
+     * of ticks they run.
+     *
+     * @return {@code true} if the simulated design is stable, {@code false} otherwise
+     */
+    public boolean isStable() {
+        return false;
+    }
+
     /**
      * This method should reset the simulator module as close to its initial state as possible.  It is always called
      * on the same thread as {@link #start()}, {@link #stop()}, and {@link #tick()}.  It will be called before
@@ -0,0 +1,70 @@
+package com.aethersim.simulation;
+
+/**
+ * The {@code SwitchingDelays} class chooses how many ticks each transistor takes to switch.  Rather than drawing
+ * delays from a random number generator per transistor, each delay is a hash of the global seed, the tick, and the
+ * index of the transistor's connector.  This keeps no state per transistor, is safe to call from any thread, and makes
+ * every run with the same seed identical.
+ * <p>
+ * The seed can be set with the {@code aethersim.seed} system property, and defaults to {@link #DEFAULT_SEED}.
+ */
+public final class SwitchingDelays {
+
+    // Don't allow instances of this class
+    private SwitchingDelays() {}
+
+    public static final long DEFAULT_SEED = 0x5EEDL;
+
+    private static volatile long seed = Long.getLong("aethersim.seed", DEFAULT_SEED);
+
+    /**
+     * This method returns the seed that all switching delays are derived from.
+     *
+     * @return The current seed
+     */
+    public static long getSeed() {
+        return seed;
+    }
+
+    /**
+     * This method sets the seed that all switching delays are derived from.  Simulators pick up the new seed on
+     * their next tick.
+     *
+     * @param seed the new seed
+     */
+    public static void setSeed(long seed) {
+        SwitchingDelays.seed = seed;
+    }
+
+    /**
+     * This method returns the key for a tick, which combines the seed and the tick number.  Simulators calculate this
+     * once per tick and then pass it to {@link #getDelay(long, int, int)} for each connector.
+     *
+     * @param tick the number of the tick, counted from when the simulator was initialized or reset
+     * @return The key for the tick
+     */
+    public static long getTickKey(long tick) {
+        return mix(seed + tick * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * This method returns the delay for a connector that starts switching during the tick with the specified key.
+     *
+     * @param tickKey      the key returned by {@link #getTickKey(long)} for the current tick
+     * @param connector    the index of the connector
+     * @param maximumDelay the maximum delay
+     * @return A delay between {@code 1} and {@code maximumDelay}, inclusive
+     */
+    public static int getDelay(long tickKey, int connector, int maximumDelay) {
+        // Scale the high bits of the hash into the range, which avoids the cost and bias of a modulo
+        long hash = mix(tickKey ^ (connector * 0xC2B2AE3D27D4EB4FL));
+        return (int) (((hash >>> 32) * maximumDelay) >>> 32) + 1;
+    }
+
+    private static long mix(long value) {
+        // This is the SplitMix64 finalizer, which spreads every input bit across the whole output
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
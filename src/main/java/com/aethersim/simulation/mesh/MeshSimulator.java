@@ -3,24 +3,133 @@ package com.aethersim.simulation.mesh;
 import com.aethersim.designs.Design;
 import com.aethersim.simulation.SimulatedDesign;
 import com.aethersim.simulation.Simulator;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerationOptions;
 import com.aethersim.simulation.mesh.mesh.generation.MeshGenerator;
+import com.aethersim.simulation.mesh.mesh.generation.MeshPatcher;
 import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+import com.aethersim.simulation.mesh.threading.MeshSchedulingMode;
 import com.aethersim.simulation.mesh.threading.MeshSimulationCoordinator;
+import com.aethersim.simulation.mesh.snapshots.MeshHistory;
+import com.aethersim.simulation.mesh.snapshots.MeshSnapshot;
+import com.aethersim.simulation.metrics.SimulationMetrics;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class MeshSimulator extends Simulator {
 
     private final MeshSimulationCoordinator coordinator = new MeshSimulationCoordinator();
+    private final MeshGenerationOptions options;
+    private MeshPatcher patcher;
+    private MeshSimulationConfig simulationConfig;
+
+    public MeshSimulator() {
+        this(MeshSchedulingMode.FULL);
+    }
+
+    public MeshSimulator(MeshSchedulingMode schedulingMode) {
+        this(schedulingMode, new MeshGenerationOptions());
+    }
+
+    public MeshSimulator(MeshSchedulingMode schedulingMode, MeshGenerationOptions options) {
+        this.options = options;
+        coordinator.setSchedulingMode(schedulingMode);
+    }
+
+    public MeshSimulationConfig getSimulationConfig() {
+        return simulationConfig;
+    }
+
+    public SimulationMetrics getMetrics() {
+        return coordinator.getMetrics();
+    }
+
+    public void setMetrics(SimulationMetrics metrics) {
+        coordinator.setMetrics(metrics);
+    }
+
+    public boolean isStealingWork() {
+        return coordinator.isStealingWork();
+    }
+
+    public void setStealingWork(boolean stealingWork) {
+        coordinator.setStealingWork(stealingWork);
+    }
+
+    public synchronized MeshSnapshot snapshot() {
+        // Ticks are synchronized as well, so the snapshot is always taken between ticks
+        return coordinator.snapshot();
+    }
+
+    public synchronized void restore(MeshSnapshot snapshot) {
+        coordinator.restore(snapshot);
+    }
+
+    public void saveSnapshot(Path file, boolean compressed) throws IOException {
+        MeshSnapshot snapshot = snapshot();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            snapshot.write(channel, compressed);
+        }
+    }
+
+    public void restoreSnapshot(Path file) throws IOException {
+        MeshSnapshot snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            snapshot = MeshSnapshot.read(channel);
+        }
+        restore(snapshot);
+    }
+
+    public MeshHistory getHistory() {
+        return coordinator.getHistory();
+    }
+
+    public synchronized void setHistory(MeshHistory history) {
+        // Setting the history starts it from the current state, and setting it to null stops keeping history
+        coordinator.setHistory(history);
+    }
+
+    public long getTickCount() {
+        return coordinator.getTickCount();
+    }
+
+    public synchronized void seek(long tick) {
+        coordinator.seek(tick);
+    }
+
+    public synchronized void stepBack(long ticks) {
+        coordinator.seek(coordinator.getTickCount() - ticks);
+    }
 
     @Override
-    public SimulatedDesign initialize(Design design) {
-        // Generate the simulation config for the design
-        MeshSimulationConfig simulationConfig = MeshGenerator.generate(design);
+    public synchronized SimulatedDesign initialize(Design design) {
+        // Generate the simulation config for the design, and keep a patcher over it so later edits can be applied to it
+        simulationConfig = MeshGenerator.generate(design, coordinator.getWorkerCount(), options);
+        patcher = new MeshPatcher(design, simulationConfig, options);
         // Configure the coordinator with the new configuration
         coordinator.configure(simulationConfig);
         // Return the generated simulated design
         return simulationConfig.getTopLevelSimulatedDesign();
     }
 
+    @Override
+    public boolean supportsUpdates() {
+        return true;
+    }
+
+    @Override
+    public synchronized SimulatedDesign update(Design design) {
+        // If this is a different design, it has to be generated from scratch
+        if (patcher == null || patcher.getDesign() != design)
+            return initialize(design);
+
+        // Otherwise, patch the changed parts of the mesh and let the coordinator pick up the changes
+        coordinator.refresh(patcher.update());
+        return simulationConfig.getTopLevelSimulatedDesign();
+    }
+
     @Override
     public void start() {
         // Start the coordinator
@@ -34,13 +143,18 @@ public class MeshSimulator extends Simulator {
     }
 
     @Override
-    public void tick() {
+    public synchronized void tick() {
         // Tick the coordinator
         coordinator.tick();
     }
 
     @Override
-    public void reset() {
+    public boolean isStable() {
+        return coordinator.isStable();
+    }
+
+    @Override
+    public synchronized void reset() {
         // TODO
         coordinator.reset();
     }
@@ -1,33 +1,52 @@
 package com.aethersim.simulation.mesh.mesh;
 
 import com.aethersim.simulation.LogicState;
-
-import java.util.Random;
+import com.aethersim.simulation.SwitchingDelays;
 
 public class MeshConnector {
 
     private static final int MAXIMUM_RANDOM_DELAY = 3; // TODO
 
-    private final Random random = new Random(hashCode() * System.currentTimeMillis());
-
     private boolean currentlyConnected;
     private boolean connecting;
     public int currentDelay = -1;
 
-    private final MeshVertex decider;
+    private final int index;
+    private MeshVertex decider;
     private final boolean activeLow;
 
-    public MeshConnector(MeshVertex decider, boolean activeLow) {
+    public MeshConnector(int index, MeshVertex decider, boolean activeLow) {
+        this.index = index;
         this.decider = decider;
         this.activeLow = activeLow;
         this.currentlyConnected = activeLow;
         this.connecting = activeLow;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    public MeshVertex getDecider() {
+        return decider;
+    }
+
+    public void setDecider(MeshVertex decider) {
+        this.decider = decider;
+    }
+
+    public boolean isActiveLow() {
+        return activeLow;
+    }
+
     public boolean isConnected() {
         return currentlyConnected;
     }
 
+    public boolean isSwitching() {
+        return currentDelay >= 0;
+    }
+
     public void reset() {
         // Reset this connector to its default state
         this.currentlyConnected = activeLow;
@@ -35,14 +54,25 @@ public class MeshConnector {
         this.currentDelay = -1;
     }
 
-    public boolean tick() {
+    public short getSnapshotState() {
+        // The delay is stored above the connection flags, offset by one so that -1 (not switching) is stored as 0
+        return (short) ((currentDelay + 1) << 2 | (connecting ? 2 : 0) | (currentlyConnected ? 1 : 0));
+    }
+
+    public void restoreSnapshotState(short snapshotState) {
+        this.currentlyConnected = (snapshotState & 1) != 0;
+        this.connecting = (snapshotState & 2) != 0;
+        this.currentDelay = ((snapshotState & 0xFFFF) >>> 2) - 1;
+    }
+
+    public boolean tick(long tickKey) {
         boolean deciderActive = decider.getActualState() == (activeLow ? LogicState.LOW : LogicState.HIGH);
 
         // If the state has changed, reset the delay.  Otherwise, if the delay is still counting, handle this tick.
         boolean propagateChanges = false;
         if (connecting != deciderActive) {
             connecting = deciderActive;
-            currentDelay = random.nextInt(MAXIMUM_RANDOM_DELAY) + 1;
+            currentDelay = SwitchingDelays.getDelay(tickKey, index, MAXIMUM_RANDOM_DELAY);
         } else if (currentDelay >= 0){
             // If the current delay is 0, we've reached the end of the delay, so set the status
             if (currentDelay == 0) {
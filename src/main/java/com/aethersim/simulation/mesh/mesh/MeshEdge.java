@@ -2,14 +2,34 @@ package com.aethersim.simulation.mesh.mesh;
 
 import com.aethersim.simulation.mesh.exceptions.MeshException;
 
-public record MeshEdge(MeshVertex endpoint, MeshConnector connector) {
+public final class MeshEdge {
 
-    public MeshEdge {
+    private MeshVertex endpoint;
+    private final MeshConnector connector;
+
+    public MeshEdge(MeshVertex endpoint, MeshConnector connector) {
         // If either endpoint or connector is null, throw an exception
         if (endpoint == null)
             throw new MeshException("Simulation mesh endpoints may not be null.");
         if (connector == null)
             throw new MeshException("Simulation mesh connectors may not be null.");
+        this.endpoint = endpoint;
+        this.connector = connector;
+    }
+
+    public MeshVertex endpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(MeshVertex endpoint) {
+        // Endpoints are only changed when the mesh is patched, which moves edges between merged or split vertices
+        if (endpoint == null)
+            throw new MeshException("Simulation mesh endpoints may not be null.");
+        this.endpoint = endpoint;
+    }
+
+    public MeshConnector connector() {
+        return connector;
     }
 
     public boolean isConnected() {
@@ -8,7 +8,7 @@ import com.aethersim.simulation.LogicState;
 import com.aethersim.simulation.mesh.threading.MeshSimulationCoordinator;
 import com.aethersim.simulation.mesh.threading.MeshStateProcessor;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
 
 public class MeshFunction<T extends ChipState> {
@@ -16,12 +16,51 @@ public class MeshFunction<T extends ChipState> {
     private final Chip chip;
     private final SimulatedTemplate<T> simulatedTemplate;
 
-    private final Map<Pin, MeshVertex> inputVertices = new HashMap<>();
-    private final Map<Pin, MeshVertex> outputVertices = new HashMap<>();
+    // Vertices and the last evaluated output states are stored in the slots of the template's pins
+    private final MeshPinVertices inputVertices;
+    private final MeshPinVertices outputVertices;
+    private final LogicState[] drivenOutputStates;
+    private final LogicState[] pulledOutputStates;
+
+    // The chip's state is resolved once, when the function is created, rather than being looked up on every tick.  It
+    // is only looked up again if the chip's state is replaced.
+    private T state;
+    private int stateVersion;
+
+    private int partition = 0;
 
     public MeshFunction(Chip chip, SimulatedTemplate<T> simulatedTemplate) {
         this.chip = chip;
         this.simulatedTemplate = simulatedTemplate;
+        this.inputVertices = new MeshPinVertices(simulatedTemplate.getInputPins());
+        this.outputVertices = new MeshPinVertices(simulatedTemplate.getOutputPins());
+        this.drivenOutputStates = new LogicState[simulatedTemplate.getOutputPins().size()];
+        this.pulledOutputStates = new LogicState[simulatedTemplate.getOutputPins().size()];
+        this.state = resolveState();
+    }
+
+    public Chip getChip() {
+        return chip;
+    }
+
+    public SimulatedTemplate<T> getSimulatedTemplate() {
+        return simulatedTemplate;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public void setPartition(int partition) {
+        this.partition = partition;
+    }
+
+    public T getState() {
+        // If the chip had no state when the function was created, or its state has been replaced since, resolve it
+        // again
+        if (state == null || stateVersion != chip.getStateVersion())
+            state = resolveState();
+        return state;
     }
 
     public Map<Pin, MeshVertex> getInputVertices() {
@@ -32,31 +71,27 @@ public class MeshFunction<T extends ChipState> {
         return outputVertices;
     }
 
-    public boolean tick(MeshSimulationCoordinator coordinator) {
-        // Get the chip state for the current chip
-        T state = simulatedTemplate.getState(chip);
-        // For each input pin, set its value based on the state of the vertex
-        for (Pin input : simulatedTemplate.getInputPins()) {
-            MeshVertex pinVertex = inputVertices.get(input);
-            state.setDrivenInputState(input, pinVertex.getActualState());
-            state.setPulledInputState(input, pinVertex.getSuggestedState());
-        }
+    public MeshVertex[] getOutputSlotVertices() {
+        // The output vertices indexed by slot (slots without a vertex are null), for iterating without allocating
+        return outputVertices.getVertices();
+    }
 
-        // Pass the state to the template simulate() method to perform the computation
-        simulatedTemplate.simulate(state);
+    public boolean tick(MeshSimulationCoordinator coordinator) {
+        // Simulate the chip using the current states of the input vertices
+        T state = simulate();
 
         // Queue simulated updated states based on the output pins
         boolean propagateChanges = false;
-        for (Pin output : simulatedTemplate.getOutputPins()) {
-            MeshVertex pinVertex = outputVertices.get(output);
-            LogicState actualState = state.getDrivenOutputState(output);
-            LogicState suggestedState = state.getPulledOutputState(output);
+        MeshVertex[] vertices = outputVertices.getVertices();
+        for (int slot = 0; slot < vertices.length; slot++) {
+            LogicState actualState = state.getDrivenOutputState(slot);
+            LogicState suggestedState = state.getPulledOutputState(slot);
             // If the states are different, queue an update
-            if (pinVertex.compareStates(actualState, suggestedState)) {
+            if (vertices[slot].compareStates(actualState, suggestedState)) {
                 coordinator.queue(
                         new MeshStateProcessor(
                                 coordinator,
-                                pinVertex,
+                                vertices[slot],
                                 actualState,
                                 suggestedState
                         )
@@ -67,4 +102,76 @@ public class MeshFunction<T extends ChipState> {
 
         return propagateChanges;
     }
+
+    public boolean evaluate() {
+        // Simulate the chip using the current states of the input vertices
+        T state = simulate();
+
+        // Store the output states, and check whether any of them differ from the last evaluation
+        boolean outputsChanged = false;
+        for (int slot = 0; slot < drivenOutputStates.length; slot++) {
+            LogicState actualState = state.getDrivenOutputState(slot);
+            LogicState suggestedState = state.getPulledOutputState(slot);
+            if (drivenOutputStates[slot] != actualState || pulledOutputStates[slot] != suggestedState) {
+                drivenOutputStates[slot] = actualState;
+                pulledOutputStates[slot] = suggestedState;
+                outputsChanged = true;
+            }
+        }
+
+        return outputsChanged;
+    }
+
+    public void queueOutputs(MeshSimulationCoordinator coordinator, MeshVertex vertex) {
+        // Queue simulated updated states from the last evaluation for all output pins attached to the vertex
+        MeshVertex[] vertices = outputVertices.getVertices();
+        for (int slot = 0; slot < vertices.length; slot++) {
+            if (vertices[slot] != vertex || drivenOutputStates[slot] == null)
+                continue;
+
+            LogicState actualState = drivenOutputStates[slot];
+            LogicState suggestedState = pulledOutputStates[slot];
+            // If the states are different, queue an update
+            if (vertex.compareStates(actualState, suggestedState))
+                coordinator.queue(new MeshStateProcessor(coordinator, vertex, actualState, suggestedState));
+        }
+    }
+
+    public void applyOutputs(MeshVertex vertex) {
+        // Set the states from the last evaluation directly on the vertex, for schedulers that settle each vertex
+        // themselves rather than propagating states through the mesh
+        MeshVertex[] vertices = outputVertices.getVertices();
+        for (int slot = 0; slot < vertices.length; slot++)
+            if (vertices[slot] == vertex && drivenOutputStates[slot] != null)
+                vertex.mergeStates(drivenOutputStates[slot], pulledOutputStates[slot]);
+    }
+
+    public void clearOutputs() {
+        Arrays.fill(drivenOutputStates, null);
+        Arrays.fill(pulledOutputStates, null);
+    }
+
+    private T resolveState() {
+        // Make sure the state has a slot for each of the template's pins
+        stateVersion = chip.getStateVersion();
+        T state = simulatedTemplate.getState(chip);
+        if (state != null)
+            state.bind(simulatedTemplate);
+        return state;
+    }
+
+    private T simulate() {
+        T state = getState();
+        // For each input pin, set its value based on the state of the vertex
+        MeshVertex[] vertices = inputVertices.getVertices();
+        boolean propagated = simulatedTemplate.isReadingPropagatedStates();
+        for (int slot = 0; slot < vertices.length; slot++) {
+            state.setDrivenInputState(slot, propagated ? vertices[slot].getPropagatedActualState() : vertices[slot].getActualState());
+            state.setPulledInputState(slot, vertices[slot].getSuggestedState());
+        }
+
+        // Pass the state to the template simulate() method to perform the computation
+        simulatedTemplate.simulate(state);
+        return state;
+    }
 }
@@ -0,0 +1,67 @@
+package com.aethersim.simulation.mesh.mesh;
+
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.templates.PinSlots;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+
+import java.util.*;
+
+class MeshPinVertices extends AbstractMap<Pin, MeshVertex> {
+
+    // Vertices are stored in the slots of their pins, and this map is just a view of them by pin
+    private final PinSlots pinSlots;
+    private final MeshVertex[] vertices;
+
+    MeshPinVertices(PinSlots pinSlots) {
+        this.pinSlots = pinSlots;
+        this.vertices = new MeshVertex[pinSlots.size()];
+    }
+
+    MeshVertex[] getVertices() {
+        return vertices;
+    }
+
+    @Override
+    public MeshVertex get(Object key) {
+        int slot = key instanceof Pin pin ? pinSlots.getSlot(pin) : -1;
+        return slot < 0 ? null : vertices[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public MeshVertex put(Pin pin, MeshVertex vertex) {
+        int slot = pinSlots.getSlot(pin);
+        if (slot < 0 || slot >= vertices.length)
+            throw new MeshException("Simulated chip pins must be registered with their template before they are mapped to vertices.");
+        MeshVertex previousVertex = vertices[slot];
+        vertices[slot] = vertex;
+        return previousVertex;
+    }
+
+    @Override
+    public Set<Entry<Pin, MeshVertex>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Pin, MeshVertex>> iterator() {
+                List<Entry<Pin, MeshVertex>> entries = new ArrayList<>();
+                for (int slot = 0; slot < vertices.length; slot++)
+                    if (vertices[slot] != null)
+                        entries.add(new SimpleImmutableEntry<>(pinSlots.getPin(slot), vertices[slot]));
+                return entries.iterator();
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (MeshVertex vertex : vertices)
+                    if (vertex != null)
+                        size++;
+                return size;
+            }
+        };
+    }
+}
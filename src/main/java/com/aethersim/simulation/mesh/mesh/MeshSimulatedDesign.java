@@ -2,92 +2,76 @@ package com.aethersim.simulation.mesh.mesh;
 
 import com.aethersim.designs.Chip;
 import com.aethersim.designs.Pin;
-import com.aethersim.designs.templates.SimulatedTemplate;
 import com.aethersim.designs.wires.WireNode;
 import com.aethersim.designs.wires.WireSegment;
-import com.aethersim.simulation.ChipState;
 import com.aethersim.simulation.LogicState;
 import com.aethersim.simulation.SimulatedDesign;
-
-import java.util.HashMap;
-import java.util.Map;
+import com.aethersim.simulation.mesh.mesh.generation.MeshInstance;
 
 public class MeshSimulatedDesign extends SimulatedDesign {
 
-    private final Map<Pin, MeshVertex> pinMapping = new HashMap<>();
-    private final Map<WireNode, MeshVertex> wireNodeMapping = new HashMap<>();
-    private final Map<WireSegment, MeshVertex> wireSegmentMapping = new HashMap<>();
-    private final Map<Chip, MeshSimulatedDesign> chipMapping = new HashMap<>();
+    private final MeshInstance instance;
+    private final MeshVertex[] vertices;
+
+    public MeshSimulatedDesign(MeshInstance instance, MeshVertex[] vertices) {
+        this.instance = instance;
+        this.vertices = vertices;
+    }
 
-    public Map<Pin, MeshVertex> getPinMapping() {
-        return pinMapping;
+    public MeshInstance getInstance() {
+        return instance;
     }
 
-    public Map<WireNode, MeshVertex> getWireNodeMapping() {
-        return wireNodeMapping;
+    public MeshVertex[] getVertices() {
+        return vertices;
     }
 
-    public Map<WireSegment, MeshVertex> getWireSegmentMapping() {
-        return wireSegmentMapping;
+    public MeshVertex getVertexForPin(Pin pin) {
+        return getVertex(instance.getVertexIndex(pin));
     }
 
-    public Map<Chip, MeshSimulatedDesign> getChipMapping() {
-        return chipMapping;
+    public MeshVertex getVertexForWireNode(WireNode wireNode) {
+        return getVertex(instance.getVertexIndex(wireNode));
+    }
+
+    public MeshVertex getVertexForWireSegment(WireSegment wireSegment) {
+        return getVertex(instance.getVertexIndex(wireSegment));
     }
 
     @Override
     public LogicState getStateForPin(Pin pin) {
-        MeshVertex vertex = pinMapping.get(pin);
-        // Default to UNCONNECTED if no vertex found
-        if (vertex == null)
-            return LogicState.UNCONNECTED;
-        else
-            return vertex.getActualState();
+        return getState(getVertexForPin(pin));
     }
 
     @Override
     public LogicState getStateForWireNode(WireNode wireNode) {
-        MeshVertex vertex = wireNodeMapping.get(wireNode);
-        // Default to UNCONNECTED if no vertex found
-        if (vertex == null)
-            return LogicState.UNCONNECTED;
-        else
-            return vertex.getActualState();
+        return getState(getVertexForWireNode(wireNode));
     }
 
     @Override
     public LogicState getStateForWireSegment(WireSegment wireSegment) {
-        MeshVertex vertex = wireSegmentMapping.get(wireSegment);
-        // Default to UNCONNECTED if no vertex found
-        if (vertex == null)
-            return LogicState.UNCONNECTED;
-        else
-            return vertex.getActualState();
+        return getState(getVertexForWireSegment(wireSegment));
     }
 
     @Override
     public SimulatedDesign getSimulatedChipDesign(Chip chip) {
-        MeshSimulatedDesign design = chipMapping.get(chip);
-        if (design != null)
-            return design;
+        // Chip designs share this design's vertex table, so they're only created when they're asked for
+        MeshInstance chipInstance = instance.getChipInstance(chip);
+        if (chipInstance != null)
+            return new MeshSimulatedDesign(chipInstance, vertices);
         else
             return none();
     }
 
-    public <T extends ChipState> MeshFunction<T> generateMeshChip(Chip chip, SimulatedTemplate<T> simulatedTemplate) {
-        MeshFunction<T> meshFunction = new MeshFunction<>(chip, simulatedTemplate);
-
-        // Populate the mesh drivers and vertices
-        for (Pin input : simulatedTemplate.getInputPins()) {
-            MeshVertex pinVertex = getPinMapping().get(input);
-            meshFunction.getInputVertices().put(input, pinVertex);
-        }
-
-        for (Pin output : simulatedTemplate.getOutputPins()) {
-            MeshVertex pinVertex = getPinMapping().get(output);
-            meshFunction.getOutputVertices().put(output, pinVertex);
-        }
+    private MeshVertex getVertex(int index) {
+        return index < 0 ? null : vertices[index];
+    }
 
-        return meshFunction;
+    private static LogicState getState(MeshVertex vertex) {
+        // Default to UNCONNECTED if no vertex found
+        if (vertex == null)
+            return LogicState.UNCONNECTED;
+        else
+            return vertex.getActualState();
     }
 }
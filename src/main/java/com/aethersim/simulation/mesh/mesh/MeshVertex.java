@@ -2,75 +2,194 @@ package com.aethersim.simulation.mesh.mesh;
 
 import com.aethersim.simulation.LogicState;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class MeshVertex {
 
+    // Cached logic state values (indexed by ordinal) so that unpacking states does not allocate
+    private static final LogicState[] LOGIC_STATES = LogicState.values();
+    private static final boolean[] EXCLUSIVE = new boolean[LOGIC_STATES.length];
+    private static final int UNCONNECTED = LogicState.UNCONNECTED.ordinal();
+    private static final int CONFLICTED = LogicState.CONFLICTED.ordinal();
+    private static final int UNKNOWN = LogicState.UNKNOWN.ordinal();
+
+    // Simulated states are packed the same way as in compiled netlists, with the ordinal of the actual state in the
+    // low three bits and the ordinal of the suggested state in the next three bits
+    private static final int STATE_BITS = 3;
+    private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+    private static final int UNCONNECTED_STATES = pack(UNCONNECTED, UNCONNECTED);
+
+    private static final VarHandle SIMULATED_STATES;
+
+    static {
+        for (LogicState state : LOGIC_STATES)
+            EXCLUSIVE[state.ordinal()] = state.isExclusive();
+        try {
+            SIMULATED_STATES = MethodHandles.lookup().findVarHandle(MeshVertex.class, "simulatedStates", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final Set<MeshEdge> outgoingEdges = new LinkedHashSet<>();
 
     private LogicState actualState = LogicState.UNCONNECTED, suggestedState = LogicState.UNCONNECTED;
-    private LogicState simulatedActualState = LogicState.UNCONNECTED, simulatedSuggestedState = LogicState.UNCONNECTED;
-    
+    private LogicState propagatedActualState = LogicState.UNCONNECTED, propagatedSuggestedState = LogicState.UNCONNECTED;
+    private boolean stateChanged = false;
+
+    // States are propagated into the vertex by many processors at once, so they are merged into this word with
+    // compare-and-set rather than under a lock
+    private volatile int simulatedStates = UNCONNECTED_STATES;
+
+    private int partition = 0;
+
     public Set<MeshEdge> getOutgoingEdges() {
         return outgoingEdges;
     }
 
+    public int getPartition() {
+        return partition;
+    }
+
+    public void setPartition(int partition) {
+        this.partition = partition;
+    }
+
     public LogicState getActualState() {
         return actualState;
     }
 
-    public synchronized void setActualState(LogicState actualState) {
-        // If the actual state of this vertex is conflicted, do not overwrite it.
-        if (simulatedActualState == LogicState.CONFLICTED)
-            return;
-        // If this has an exclusive logical state, and the incoming state is different, set it as conflicted
-        if (simulatedActualState.isExclusive() && actualState.isExclusive() && simulatedActualState != actualState)
-            actualState = LogicState.CONFLICTED;
-        this.simulatedActualState = actualState;
+    public void setActualState(LogicState actualState) {
+        int currentStates, newStates;
+        do {
+            currentStates = simulatedStates;
+            newStates = pack(merge(actualOf(currentStates), actualState.ordinal()), suggestedOf(currentStates));
+        } while (newStates != currentStates && !SIMULATED_STATES.compareAndSet(this, currentStates, newStates));
     }
 
     public LogicState getSuggestedState() {
         return suggestedState;
     }
 
-    public synchronized void setSuggestedState(LogicState suggestedState) {
-        // If the suggested state of this vertex is conflicted, do not overwrite it
-        if (simulatedSuggestedState == LogicState.CONFLICTED)
-            return;
-        // If this has an exclusive logical state, and the incoming state is different, set it as conflicted
-        if (simulatedSuggestedState.isExclusive() && suggestedState.isExclusive() && simulatedSuggestedState != suggestedState)
-            suggestedState = LogicState.CONFLICTED;
-        this.simulatedSuggestedState = suggestedState;
+    public void setSuggestedState(LogicState suggestedState) {
+        int currentStates, newStates;
+        do {
+            currentStates = simulatedStates;
+            newStates = pack(actualOf(currentStates), merge(suggestedOf(currentStates), suggestedState.ordinal()));
+        } while (newStates != currentStates && !SIMULATED_STATES.compareAndSet(this, currentStates, newStates));
+    }
+
+    public void mergeStates(LogicState actualState, LogicState suggestedState) {
+        // Merge both states in a single step, leaving out any that are unknown
+        int actual = actualState.ordinal();
+        int suggested = suggestedState.ordinal();
+        int currentStates, newStates;
+        do {
+            currentStates = simulatedStates;
+            newStates = pack(
+                    actual != UNKNOWN ? merge(actualOf(currentStates), actual) : actualOf(currentStates),
+                    suggested != UNKNOWN ? merge(suggestedOf(currentStates), suggested) : suggestedOf(currentStates)
+            );
+        } while (newStates != currentStates && !SIMULATED_STATES.compareAndSet(this, currentStates, newStates));
+    }
+
+    public LogicState getPropagatedActualState() {
+        return propagatedActualState;
+    }
+
+    public LogicState getPropagatedSuggestedState() {
+        return propagatedSuggestedState;
+    }
+
+    public boolean hasStateChanged() {
+        return stateChanged;
     }
 
     public void rectifyStates() {
+        // Take the simulated states, leaving the vertex ready for the next tick
+        int states = (int) SIMULATED_STATES.getAndSet(this, UNCONNECTED_STATES);
+        LogicState simulatedActualState = LOGIC_STATES[actualOf(states)];
+        LogicState simulatedSuggestedState = LOGIC_STATES[suggestedOf(states)];
+
+        // Keep the states that were propagated into this vertex, so they can be propagated onward again
+        // without re-simulating the vertices upstream of this one
+        propagatedActualState = simulatedActualState;
+        propagatedSuggestedState = simulatedSuggestedState;
+
         // If the "actual" state is unconnected, set it to the suggested state
         if (simulatedActualState == LogicState.UNCONNECTED)
             simulatedActualState = simulatedSuggestedState;
 
-        // Set the current states to the simulated states
+        // Set the current states to the simulated states, and record whether they changed
+        stateChanged = actualState != simulatedActualState || suggestedState != simulatedSuggestedState;
         actualState = simulatedActualState;
         suggestedState = simulatedSuggestedState;
-        simulatedActualState = LogicState.UNCONNECTED;
-        simulatedSuggestedState = LogicState.UNCONNECTED;
     }
 
     public boolean compareStates(LogicState otherActualState, LogicState otherSuggestedState) {
+        // Read both simulated states at once, so they are consistent with each other
+        int states = simulatedStates;
+        int simulatedActualState = actualOf(states);
+        int simulatedSuggestedState = suggestedOf(states);
+
         // If this vertex is already conflicted, there is no need to update it again
-        if (simulatedActualState == LogicState.CONFLICTED)
+        if (simulatedActualState == CONFLICTED)
             return false;
 
         // If the new actual state differs from the current one, it needs to be updated unless the new state is unknown
-        if (otherActualState != LogicState.UNKNOWN && simulatedActualState != otherActualState)
+        if (otherActualState.ordinal() != UNKNOWN && simulatedActualState != otherActualState.ordinal())
             return true;
 
         // If the suggested state is already conflicted, there is no need to update it again
-        if (simulatedSuggestedState == LogicState.CONFLICTED)
+        if (simulatedSuggestedState == CONFLICTED)
             return false;
 
         // If the new suggested state differs from the current one, it needs to be updated unless the new state
         // is unknown.  Otherwise, there are no discrepancies, so it doesn't need to be updated
-        return otherSuggestedState != LogicState.UNKNOWN && simulatedSuggestedState != otherSuggestedState;
+        return otherSuggestedState.ordinal() != UNKNOWN && simulatedSuggestedState != otherSuggestedState.ordinal();
+    }
+
+    public short getSnapshotState() {
+        // Snapshots are taken between ticks, when there are no simulated states, so only the current and propagated
+        // states (and whether the states changed on the last tick) need to be kept
+        int states = pack(actualState.ordinal(), suggestedState.ordinal())
+                | pack(propagatedActualState.ordinal(), propagatedSuggestedState.ordinal()) << (2 * STATE_BITS)
+                | (stateChanged ? 1 << (4 * STATE_BITS) : 0);
+        return (short) states;
+    }
+
+    public void restoreSnapshotState(short snapshotState) {
+        int states = snapshotState & 0xFFFF;
+        actualState = LOGIC_STATES[actualOf(states)];
+        suggestedState = LOGIC_STATES[suggestedOf(states)];
+        propagatedActualState = LOGIC_STATES[actualOf(states >>> (2 * STATE_BITS))];
+        propagatedSuggestedState = LOGIC_STATES[suggestedOf(states >>> (2 * STATE_BITS))];
+        stateChanged = (states & (1 << (4 * STATE_BITS))) != 0;
+        SIMULATED_STATES.setVolatile(this, UNCONNECTED_STATES);
+    }
+
+    private static int merge(int currentState, int newState) {
+        // If the current state is conflicted, do not overwrite it.  If both states are exclusive and different,
+        // the result is conflicted.
+        if (currentState == CONFLICTED)
+            return currentState;
+        if (EXCLUSIVE[currentState] && EXCLUSIVE[newState] && currentState != newState)
+            return CONFLICTED;
+        return newState;
+    }
+
+    private static int pack(int actualState, int suggestedState) {
+        return actualState | (suggestedState << STATE_BITS);
+    }
+
+    private static int actualOf(int states) {
+        return states & STATE_MASK;
+    }
+
+    private static int suggestedOf(int states) {
+        return (states >>> STATE_BITS) & STATE_MASK;
     }
 }
@@ -0,0 +1,70 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.templates.SimulatedTemplate;
+import com.aethersim.projects.io.data.DataContext;
+import com.aethersim.projects.io.data.DataMap;
+import com.aethersim.simulation.ChipState;
+import com.aethersim.simulation.LogicState;
+
+abstract class MeshCollapsedFunction extends SimulatedTemplate<MeshCollapsedFunction.State> {
+
+    Chip createChip() {
+        // Each collapsed instance needs its own state, so it gets a chip of its own
+        return new CollapsedChip(this);
+    }
+
+    State createState() {
+        return new State();
+    }
+
+    @Override
+    public void initialize(Chip chip) { /* do nothing */ }
+
+    @Override
+    public void dispose(Chip chip) { /* do nothing */ }
+
+    @Override
+    public State getState(Chip chip) {
+        return ((CollapsedChip) chip).state;
+    }
+
+    @Override
+    public boolean isReadingPropagatedStates() {
+        // Collapsed functions carry driven and pulled states separately, so they need to know whether each input was
+        // actually driven, even when it was also pulled to the same state
+        return true;
+    }
+
+    static LogicState getDrivenState(LogicState propagatedActualState) {
+        return propagatedActualState == LogicState.UNCONNECTED ? LogicState.UNKNOWN : propagatedActualState;
+    }
+
+    static LogicState getRectifiedState(LogicState propagatedActualState, LogicState suggestedState) {
+        // The state a vertex settles to, which is what transistors and tables switch on
+        return propagatedActualState == LogicState.UNCONNECTED ? suggestedState : propagatedActualState;
+    }
+
+    static LogicState getPulledState(LogicState suggestedState) {
+        return suggestedState == LogicState.UNCONNECTED ? LogicState.UNKNOWN : suggestedState;
+    }
+
+    static class State extends ChipState {
+
+        @Override
+        public void serialize(DataMap data, DataContext context) { /* do nothing */ }
+
+        @Override
+        public void deserialize(DataMap data, DataContext context) { /* do nothing */ }
+    }
+
+    private static class CollapsedChip extends Chip {
+
+        private final State state;
+
+        private CollapsedChip(MeshCollapsedFunction collapsedFunction) {
+            this.state = collapsedFunction.createState();
+            setChipTemplate(collapsedFunction);
+        }
+    }
+}
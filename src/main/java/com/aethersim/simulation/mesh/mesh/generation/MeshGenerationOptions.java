@@ -0,0 +1,44 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+public class MeshGenerationOptions {
+
+    // Collapsing switch networks trades the exact switching delays of each transistor for gate-level speed
+    private boolean collapsingSwitchNetworks = true;
+    // Characterizing templates replaces small combinational templates with a lookup in their truth tables, which
+    // costs an exhaustive simulation of each template up front and loses their settling delays
+    private boolean characterizingTemplates = false;
+    // Stamping large designs across the fork-join pool produces exactly the same mesh as stamping them on the
+    // calling thread, just sooner
+    private boolean stampingInParallel = true;
+
+    public boolean isCollapsingSwitchNetworks() {
+        return collapsingSwitchNetworks;
+    }
+
+    public void setCollapsingSwitchNetworks(boolean collapsingSwitchNetworks) {
+        this.collapsingSwitchNetworks = collapsingSwitchNetworks;
+    }
+
+    public boolean isCharacterizingTemplates() {
+        return characterizingTemplates;
+    }
+
+    public void setCharacterizingTemplates(boolean characterizingTemplates) {
+        this.characterizingTemplates = characterizingTemplates;
+    }
+
+    public boolean isStampingInParallel() {
+        return stampingInParallel;
+    }
+
+    public void setStampingInParallel(boolean stampingInParallel) {
+        this.stampingInParallel = stampingInParallel;
+    }
+
+    public static MeshGenerationOptions switchLevel() {
+        // Keep every transistor as its own connector, which simulates exactly how the design switches
+        MeshGenerationOptions options = new MeshGenerationOptions();
+        options.setCollapsingSwitchNetworks(false);
+        return options;
+    }
+}
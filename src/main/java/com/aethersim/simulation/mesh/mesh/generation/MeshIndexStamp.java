@@ -0,0 +1,94 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.templates.SimulatedTemplate;
+
+public class MeshIndexStamp extends MeshStamp {
+
+    // Stamps only the indices of the mesh's elements, without creating vertices, edges, or connectors, so compiled
+    // forms of the mesh can be built without holding the whole object graph in memory
+    private final int vertexCount;
+    private final int[] connectorDeciders;
+    private final boolean[] connectorsActiveLow;
+    private final int[] edgeStarts;
+    private final int[] edgeEnds;
+    private final Chip[] functionChips;
+    private final SimulatedTemplate<?>[] functionTemplates;
+    private final MeshInstance[] functionInstances;
+    private MeshInstance instance;
+
+    MeshIndexStamp(int vertexCount, int connectorCount, int functionCount) {
+        this.vertexCount = vertexCount;
+        this.connectorDeciders = new int[connectorCount];
+        this.connectorsActiveLow = new boolean[connectorCount];
+        this.edgeStarts = new int[connectorCount];
+        this.edgeEnds = new int[connectorCount];
+        this.functionChips = new Chip[functionCount];
+        this.functionTemplates = new SimulatedTemplate<?>[functionCount];
+        this.functionInstances = new MeshInstance[functionCount];
+    }
+
+    @Override
+    void stampConnector(int connectorSlot, int decider, boolean activeLow, int start, int end) {
+        connectorDeciders[connectorSlot] = decider;
+        connectorsActiveLow[connectorSlot] = activeLow;
+        edgeStarts[connectorSlot] = start;
+        edgeEnds[connectorSlot] = end;
+    }
+
+    @Override
+    void stampFunction(int functionSlot, MeshInstance instance, Chip chip, SimulatedTemplate<?> simulatedTemplate) {
+        functionChips[functionSlot] = chip;
+        functionTemplates[functionSlot] = simulatedTemplate;
+        functionInstances[functionSlot] = instance;
+    }
+
+    public MeshInstance getInstance() {
+        return instance;
+    }
+
+    void setInstance(MeshInstance instance) {
+        this.instance = instance;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getConnectorCount() {
+        return connectorDeciders.length;
+    }
+
+    public int getConnectorDecider(int connector) {
+        return connectorDeciders[connector];
+    }
+
+    public boolean isConnectorActiveLow(int connector) {
+        return connectorsActiveLow[connector];
+    }
+
+    public int getEdgeStart(int connector) {
+        // Each connector belongs to exactly one edge
+        return edgeStarts[connector];
+    }
+
+    public int getEdgeEnd(int connector) {
+        return edgeEnds[connector];
+    }
+
+    public int getFunctionCount() {
+        return functionChips.length;
+    }
+
+    public Chip getFunctionChip(int function) {
+        return functionChips[function];
+    }
+
+    public SimulatedTemplate<?> getFunctionTemplate(int function) {
+        return functionTemplates[function];
+    }
+
+    public MeshInstance getFunctionInstance(int function) {
+        return functionInstances[function];
+    }
+}
@@ -0,0 +1,61 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.wires.WireNode;
+import com.aethersim.designs.wires.WireSegment;
+
+public class MeshInstance {
+
+    // Each instance is identified by its index in a depth-first walk of the instance tree, and resolves the local
+    // vertices of its template into indices in the vertex table shared by the whole tree
+    private final int id;
+    private final MeshTemplate template;
+    private final int[] boundary;
+    private final int internalOffset;
+    private final MeshInstance[] chipInstances;
+
+    MeshInstance(int id, MeshTemplate template, int[] boundary, int internalOffset, MeshInstance[] chipInstances) {
+        this.id = id;
+        this.template = template;
+        this.boundary = boundary;
+        this.internalOffset = internalOffset;
+        this.chipInstances = chipInstances;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    MeshTemplate getTemplate() {
+        return template;
+    }
+
+    public int getVertexIndex(Pin pin) {
+        return resolve(template.getPinVertex(pin));
+    }
+
+    public int getVertexIndex(WireNode wireNode) {
+        return resolve(template.getWireNodeVertex(wireNode));
+    }
+
+    public int getVertexIndex(WireSegment wireSegment) {
+        return resolve(template.getWireSegmentVertex(wireSegment));
+    }
+
+    public MeshInstance getChipInstance(Chip chip) {
+        // Built-in chips don't have any chips inside them
+        if (chipInstances == null)
+            return null;
+        int index = template.getChipIndex(chip);
+        return index < 0 ? null : chipInstances[index];
+    }
+
+    int resolve(int vertex) {
+        // Vertices on the template's pins are shared with the parent, and all others are offset into this instance's
+        // block of the vertex table.  Elements that aren't part of the template have no vertex.
+        if (vertex < 0)
+            return -1;
+        return vertex < boundary.length ? boundary[vertex] : internalOffset + vertex - boundary.length;
+    }
+}
@@ -0,0 +1,365 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshEdge;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+
+import java.util.*;
+
+public class MeshPartitioner {
+
+    // Partitions may be this much heavier than the average partition during refinement
+    private static final double BALANCE_TOLERANCE = 1.05;
+    private static final int MAXIMUM_REFINEMENT_PASSES = 8;
+    // Patched partitions are kept until the heaviest is this much heavier than the average partition
+    private static final double REPARTITION_IMBALANCE = 1.25;
+
+    public static MeshPartitioning partition(MeshSimulationConfig simulationConfig, int partitionCount) {
+        // Assign a dense index to every vertex so the graph can be stored in arrays
+        MeshVertex[] vertices = simulationConfig.getMeshVertices().toArray(new MeshVertex[0]);
+        Map<MeshVertex, Integer> vertexIndices = new IdentityHashMap<>();
+        for (int index = 0; index < vertices.length; index++)
+            vertexIndices.put(vertices[index], index);
+
+        // Build an undirected graph of the vertices, connecting vertices joined by transistor edges, the deciders
+        // of transistors to the vertices they switch, and the inputs and outputs of each function.  The edges are
+        // first collected as pairs of indices, and then packed into a compressed sparse row adjacency.
+        EdgeList edges = new EdgeList();
+        for (int index = 0; index < vertices.length; index++) {
+            for (MeshEdge edge : vertices[index].getOutgoingEdges()) {
+                int endpoint = vertexIndices.get(edge.endpoint());
+                int decider = vertexIndices.get(edge.connector().getDecider());
+                edges.add(index, endpoint);
+                edges.add(decider, endpoint);
+            }
+        }
+        for (MeshFunction<?> function : simulationConfig.getMeshChips())
+            for (MeshVertex input : function.getInputVertices().values())
+                for (MeshVertex output : function.getOutputVertices().values())
+                    edges.add(vertexIndices.get(input), vertexIndices.get(output));
+        int totalEdges = edges.size;
+        int[] neighborOffsets = new int[vertices.length + 1];
+        int[] neighbors = buildAdjacency(edges, neighborOffsets);
+
+        // Weight each vertex by the work it takes to propagate states through it
+        long[] weights = new long[vertices.length];
+        long totalWeight = 0;
+        for (int index = 0; index < vertices.length; index++) {
+            weights[index] = getWeight(vertices[index]);
+            totalWeight += weights[index];
+        }
+
+        // Grow the initial partitions as contiguous slices of a breadth-first ordering, which keeps vertices
+        // that talk to one another in the same partition, and then refine the boundaries between them
+        int[] partitions = growPartitions(neighborOffsets, neighbors, weights, totalWeight, partitionCount);
+        long[] partitionLoads = new long[partitionCount];
+        for (int index = 0; index < vertices.length; index++)
+            partitionLoads[partitions[index]] += weights[index];
+        refinePartitions(neighborOffsets, neighbors, weights, partitions, partitionLoads, totalWeight);
+
+        // Build the partition lists, assigning connectors to the partition of their decider and functions to the
+        // partition of their first output (or input, if they have no outputs)
+        List<Set<MeshVertex>> vertexPartitions = createPartitionSets(partitionCount);
+        List<Set<MeshConnector>> connectorPartitions = createPartitionSets(partitionCount);
+        List<Set<MeshFunction<?>>> functionPartitions = createPartitionSets(partitionCount);
+        for (int index = 0; index < vertices.length; index++) {
+            vertices[index].setPartition(partitions[index]);
+            vertexPartitions.get(partitions[index]).add(vertices[index]);
+        }
+        for (MeshConnector connector : simulationConfig.getMeshConnectors())
+            connectorPartitions.get(connector.getDecider().getPartition()).add(connector);
+        for (MeshFunction<?> function : simulationConfig.getMeshChips()) {
+            function.setPartition(getFunctionPartition(function));
+            functionPartitions.get(function.getPartition()).add(function);
+        }
+
+        // Count the number of edges that cross between partitions
+        int cutEdges = 0;
+        for (int index = 0; index < vertices.length; index++)
+            for (int offset = neighborOffsets[index]; offset < neighborOffsets[index + 1]; offset++)
+                if (partitions[neighbors[offset]] != partitions[index])
+                    cutEdges++;
+
+        // Each cut edge was counted from both of its endpoints
+        return new MeshPartitioning(vertexPartitions, connectorPartitions, functionPartitions, partitionLoads, cutEdges / 2, totalEdges);
+    }
+
+    public static boolean patch(MeshPartitioning partitioning, MeshPatch patch) {
+        // Drop everything that was removed from the mesh, as well as the functions and connectors that moved (which
+        // are placed again below)
+        for (MeshVertex vertex : patch.getRemovedVertices())
+            partitioning.removeVertex(vertex, getWeight(vertex));
+        for (MeshFunction<?> function : patch.getRemovedFunctions())
+            partitioning.removeFunction(function);
+        for (MeshFunction<?> function : patch.getChangedFunctions())
+            partitioning.removeFunction(function);
+        for (MeshConnector connector : patch.getRemovedConnectors())
+            partitioning.removeConnector(connector);
+        for (MeshConnector connector : patch.getChangedConnectors())
+            partitioning.removeConnector(connector);
+
+        // Connect the added vertices to their neighbors through the edges and functions that were added or moved
+        Set<MeshVertex> pendingVertices = Collections.newSetFromMap(new IdentityHashMap<>());
+        pendingVertices.addAll(patch.getAddedVertices());
+        Map<MeshVertex, List<MeshVertex>> neighbors = new IdentityHashMap<>();
+        for (Map.Entry<MeshEdge, MeshVertex> entry : patch.getChangedEdges().entrySet()) {
+            MeshVertex endpoint = entry.getKey().endpoint();
+            connect(neighbors, pendingVertices, endpoint, entry.getKey().connector().getDecider());
+            if (entry.getValue() != null)
+                connect(neighbors, pendingVertices, endpoint, entry.getValue());
+        }
+        for (MeshFunction<?> function : patch.getAddedFunctions())
+            connectFunction(neighbors, pendingVertices, function);
+        for (MeshFunction<?> function : patch.getChangedFunctions())
+            connectFunction(neighbors, pendingVertices, function);
+
+        // Place each added vertex in the partition of a neighbor that was already placed, working outwards from the
+        // existing vertices.  Vertices with no placed neighbors start in the lightest partition, and pull the rest of
+        // their neighbors in after them.
+        long maximumLoad = (long) Math.ceil(REPARTITION_IMBALANCE * getTotalLoad(partitioning) / partitioning.getPartitionCount());
+        Deque<MeshVertex> remainingVertices = new ArrayDeque<>();
+        for (MeshVertex vertex : patch.getAddedVertices())
+            for (MeshVertex neighbor : neighbors.getOrDefault(vertex, List.of()))
+                if (!pendingVertices.contains(neighbor))
+                    remainingVertices.add(vertex);
+        Iterator<MeshVertex> addedVertices = patch.getAddedVertices().iterator();
+        while (!pendingVertices.isEmpty()) {
+            if (remainingVertices.isEmpty()) {
+                MeshVertex vertex = addedVertices.next();
+                if (pendingVertices.contains(vertex))
+                    remainingVertices.add(vertex);
+                continue;
+            }
+            MeshVertex vertex = remainingVertices.poll();
+            if (!pendingVertices.remove(vertex))
+                continue;
+
+            int partition = -1;
+            for (MeshVertex neighbor : neighbors.getOrDefault(vertex, List.of())) {
+                if (pendingVertices.contains(neighbor))
+                    remainingVertices.add(neighbor);
+                else if (partition < 0 && partitioning.getPartitionLoad(neighbor.getPartition()) < maximumLoad)
+                    partition = neighbor.getPartition();
+            }
+            partitioning.addVertex(vertex, partition < 0 ? getLightestPartition(partitioning) : partition, getWeight(vertex));
+        }
+
+        // Place the functions and connectors the same way the partitioner does
+        for (MeshFunction<?> function : patch.getAddedFunctions())
+            partitioning.addFunction(function, getFunctionPartition(function));
+        for (MeshFunction<?> function : patch.getChangedFunctions())
+            partitioning.addFunction(function, getFunctionPartition(function));
+        for (MeshConnector connector : patch.getAddedConnectors())
+            partitioning.addConnector(connector, connector.getDecider().getPartition());
+        for (MeshConnector connector : patch.getChangedConnectors())
+            partitioning.addConnector(connector, connector.getDecider().getPartition());
+
+        // If the patches have left the partitions too uneven, the mesh should be partitioned again
+        return partitioning.getLoadImbalance() <= REPARTITION_IMBALANCE;
+    }
+
+    private static void connect(Map<MeshVertex, List<MeshVertex>> neighbors, Set<MeshVertex> pendingVertices, MeshVertex vertex, MeshVertex otherVertex) {
+        // Only the neighbors of vertices that still need to be placed are needed
+        if (vertex == otherVertex)
+            return;
+        if (pendingVertices.contains(vertex))
+            neighbors.computeIfAbsent(vertex, key -> new ArrayList<>()).add(otherVertex);
+        if (pendingVertices.contains(otherVertex))
+            neighbors.computeIfAbsent(otherVertex, key -> new ArrayList<>()).add(vertex);
+    }
+
+    private static void connectFunction(Map<MeshVertex, List<MeshVertex>> neighbors, Set<MeshVertex> pendingVertices, MeshFunction<?> function) {
+        // Connecting every vertex of the function to one of them is enough to keep them together
+        MeshVertex firstVertex = null;
+        for (MeshVertex vertex : function.getOutputVertices().values()) {
+            if (firstVertex == null)
+                firstVertex = vertex;
+            connect(neighbors, pendingVertices, firstVertex, vertex);
+        }
+        for (MeshVertex vertex : function.getInputVertices().values()) {
+            if (firstVertex == null)
+                firstVertex = vertex;
+            connect(neighbors, pendingVertices, firstVertex, vertex);
+        }
+    }
+
+    private static int getFunctionPartition(MeshFunction<?> function) {
+        // Functions belong to the partition of their first output (or input, if they have no outputs)
+        Iterator<MeshVertex> vertexIterator = function.getOutputVertices().isEmpty()
+                ? function.getInputVertices().values().iterator()
+                : function.getOutputVertices().values().iterator();
+        return vertexIterator.hasNext() ? vertexIterator.next().getPartition() : 0;
+    }
+
+    private static long getWeight(MeshVertex vertex) {
+        return 1 + vertex.getOutgoingEdges().size();
+    }
+
+    private static long getTotalLoad(MeshPartitioning partitioning) {
+        long totalLoad = 0;
+        for (int partition = 0; partition < partitioning.getPartitionCount(); partition++)
+            totalLoad += partitioning.getPartitionLoad(partition);
+        return totalLoad;
+    }
+
+    private static int getLightestPartition(MeshPartitioning partitioning) {
+        int lightestPartition = 0;
+        for (int partition = 1; partition < partitioning.getPartitionCount(); partition++)
+            if (partitioning.getPartitionLoad(partition) < partitioning.getPartitionLoad(lightestPartition))
+                lightestPartition = partition;
+        return lightestPartition;
+    }
+
+    private static int[] buildAdjacency(EdgeList edges, int[] neighborOffsets) {
+        // Count the degree of each vertex, shifted by one so the prefix sum leaves each vertex's starting offset
+        for (int edge = 0; edge < edges.size; edge++) {
+            neighborOffsets[edges.sources[edge] + 1]++;
+            neighborOffsets[edges.targets[edge] + 1]++;
+        }
+        for (int vertex = 1; vertex < neighborOffsets.length; vertex++)
+            neighborOffsets[vertex] += neighborOffsets[vertex - 1];
+
+        // Fill in both directions of every edge, using a cursor per vertex
+        int[] neighbors = new int[neighborOffsets[neighborOffsets.length - 1]];
+        int[] cursors = Arrays.copyOf(neighborOffsets, neighborOffsets.length - 1);
+        for (int edge = 0; edge < edges.size; edge++) {
+            int source = edges.sources[edge], target = edges.targets[edge];
+            neighbors[cursors[source]++] = target;
+            neighbors[cursors[target]++] = source;
+        }
+        return neighbors;
+    }
+
+    private static int[] growPartitions(int[] neighborOffsets, int[] neighbors, long[] weights, long totalWeight, int partitionCount) {
+        int vertexCount = weights.length;
+        int[] partitions = new int[vertexCount];
+        boolean[] visited = new boolean[vertexCount];
+
+        // Every vertex is queued exactly once, so a single array can serve as the queue for all components
+        int[] remainingVertices = new int[vertexCount];
+        int queueHead = 0, queueTail = 0;
+
+        // Visit every connected component in breadth-first order, filling partitions up to their share of the
+        // total weight before moving on to the next one
+        int partition = 0;
+        long partitionWeight = 0;
+        long targetWeight = (totalWeight + partitionCount - 1) / partitionCount;
+        for (int start = 0; start < vertexCount; start++) {
+            if (visited[start])
+                continue;
+            visited[start] = true;
+            remainingVertices[queueTail++] = start;
+
+            while (queueHead < queueTail) {
+                int vertex = remainingVertices[queueHead++];
+                // Move on to the next partition once this one is full, or when this vertex would overshoot the
+                // target by more than leaving it out would undershoot it (so heavy vertices like power rails
+                // don't pile up in the same partition)
+                boolean overshoots = partitionWeight > 0 && partitionWeight + weights[vertex] - targetWeight > targetWeight - partitionWeight;
+                if ((partitionWeight >= targetWeight || overshoots) && partition < partitionCount - 1) {
+                    partition++;
+                    partitionWeight = 0;
+                }
+                partitions[vertex] = partition;
+                partitionWeight += weights[vertex];
+
+                for (int offset = neighborOffsets[vertex]; offset < neighborOffsets[vertex + 1]; offset++) {
+                    int neighbor = neighbors[offset];
+                    if (!visited[neighbor]) {
+                        visited[neighbor] = true;
+                        remainingVertices[queueTail++] = neighbor;
+                    }
+                }
+            }
+        }
+
+        return partitions;
+    }
+
+    private static void refinePartitions(int[] neighborOffsets, int[] neighbors, long[] weights, int[] partitions, long[] partitionLoads, long totalWeight) {
+        int partitionCount = partitionLoads.length;
+        if (partitionCount < 2)
+            return;
+
+        // Repeatedly move boundary vertices to the neighboring partition that reduces the cut the most, as long as
+        // that keeps the destination partition within the balance tolerance (a greedy Fiduccia-Mattheyses pass)
+        long maximumLoad = (long) Math.ceil(BALANCE_TOLERANCE * totalWeight / partitionCount);
+        int[] connections = new int[partitionCount];
+        for (int pass = 0; pass < MAXIMUM_REFINEMENT_PASSES; pass++) {
+            int moves = 0;
+            for (int vertex = 0; vertex < weights.length; vertex++) {
+                int partition = partitions[vertex];
+                int firstNeighbor = neighborOffsets[vertex], lastNeighbor = neighborOffsets[vertex + 1];
+
+                // Count the connections from this vertex to each partition
+                boolean boundary = false;
+                for (int offset = firstNeighbor; offset < lastNeighbor; offset++) {
+                    int neighbor = neighbors[offset];
+                    connections[partitions[neighbor]]++;
+                    if (partitions[neighbor] != partition)
+                        boundary = true;
+                }
+
+                if (boundary) {
+                    // Find the partition with the highest gain that can still accept this vertex.  If this vertex's
+                    // partition is overloaded, allow moves that increase the cut in order to restore the balance.
+                    int bestPartition = partition;
+                    int bestGain = partitionLoads[partition] > maximumLoad ? Integer.MIN_VALUE : 0;
+                    for (int offset = firstNeighbor; offset < lastNeighbor; offset++) {
+                        int candidate = partitions[neighbors[offset]];
+                        int gain = connections[candidate] - connections[partition];
+                        if (candidate != partition && gain > bestGain && partitionLoads[candidate] + weights[vertex] <= maximumLoad) {
+                            bestPartition = candidate;
+                            bestGain = gain;
+                        }
+                    }
+
+                    if (bestPartition != partition) {
+                        partitionLoads[partition] -= weights[vertex];
+                        partitionLoads[bestPartition] += weights[vertex];
+                        partitions[vertex] = bestPartition;
+                        moves++;
+                    }
+                }
+
+                // Clear the connection counts for the next vertex
+                for (int offset = firstNeighbor; offset < lastNeighbor; offset++)
+                    connections[partitions[neighbors[offset]]] = 0;
+                connections[partition] = 0;
+            }
+
+            // If no vertices moved, the partitions can't be improved any further
+            if (moves == 0)
+                return;
+        }
+    }
+
+    private static <T> List<Set<T>> createPartitionSets(int partitionCount) {
+        // Partitions are patched as the mesh is edited, so they're kept as sets that elements can be removed from
+        List<Set<T>> partitionSets = new ArrayList<>(partitionCount);
+        for (int partition = 0; partition < partitionCount; partition++)
+            partitionSets.add(new LinkedHashSet<>());
+        return partitionSets;
+    }
+
+    private static class EdgeList {
+
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private int size = 0;
+
+        private void add(int vertex, int otherVertex) {
+            // Vertices don't need to be connected to themselves
+            if (vertex == otherVertex)
+                return;
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            sources[size] = vertex;
+            targets[size] = otherVertex;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+
+import java.util.List;
+import java.util.Set;
+
+public class MeshPartitioning {
+
+    private final List<Set<MeshVertex>> vertexPartitions;
+    private final List<Set<MeshConnector>> connectorPartitions;
+    private final List<Set<MeshFunction<?>>> functionPartitions;
+    private final long[] partitionLoads;
+    private final int cutEdges;
+    private final int totalEdges;
+
+    // Patches place new elements without partitioning the mesh again, so this counts the vertices placed since
+    private int patchedVertices = 0;
+
+    public MeshPartitioning(List<Set<MeshVertex>> vertexPartitions, List<Set<MeshConnector>> connectorPartitions,
+                            List<Set<MeshFunction<?>>> functionPartitions, long[] partitionLoads,
+                            int cutEdges, int totalEdges) {
+        this.vertexPartitions = vertexPartitions;
+        this.connectorPartitions = connectorPartitions;
+        this.functionPartitions = functionPartitions;
+        this.partitionLoads = partitionLoads;
+        this.cutEdges = cutEdges;
+        this.totalEdges = totalEdges;
+    }
+
+    public int getPartitionCount() {
+        return vertexPartitions.size();
+    }
+
+    public Set<MeshVertex> getVertices(int partition) {
+        return vertexPartitions.get(partition);
+    }
+
+    public Set<MeshConnector> getConnectors(int partition) {
+        return connectorPartitions.get(partition);
+    }
+
+    public Set<MeshFunction<?>> getFunctions(int partition) {
+        return functionPartitions.get(partition);
+    }
+
+    public long getPartitionLoad(int partition) {
+        return partitionLoads[partition];
+    }
+
+    public int getPatchedVertices() {
+        return patchedVertices;
+    }
+
+    public int getCutEdges() {
+        return cutEdges;
+    }
+
+    public int getTotalEdges() {
+        return totalEdges;
+    }
+
+    public double getLoadImbalance() {
+        // The imbalance is the ratio between the heaviest partition and the average partition (1.0 is perfect)
+        long totalLoad = 0, maximumLoad = 0;
+        for (long load : partitionLoads) {
+            totalLoad += load;
+            maximumLoad = Math.max(maximumLoad, load);
+        }
+        return totalLoad > 0 ? maximumLoad * (double) partitionLoads.length / totalLoad : 1.0;
+    }
+
+    public String getSummary() {
+        // The edge counts are from when the mesh was last partitioned, since patches don't count cut edges
+        return String.format(
+                "%d partitions, %d of %d edges cut (%.1f%%), load imbalance %.3f, %d vertices patched",
+                getPartitionCount(),
+                cutEdges,
+                totalEdges,
+                totalEdges > 0 ? 100.0 * cutEdges / totalEdges : 0.0,
+                getLoadImbalance(),
+                patchedVertices
+        );
+    }
+
+    public String getReport() {
+        // Start with the summary, and then list the details of each partition
+        StringBuilder report = new StringBuilder(getSummary());
+        for (int partition = 0; partition < getPartitionCount(); partition++)
+            report.append(String.format(
+                    "%n  partition %d: %d vertices, %d connectors, %d functions (load %d)",
+                    partition,
+                    vertexPartitions.get(partition).size(),
+                    connectorPartitions.get(partition).size(),
+                    functionPartitions.get(partition).size(),
+                    partitionLoads[partition]
+            ));
+        return report.toString();
+    }
+
+    void addVertex(MeshVertex vertex, int partition, long weight) {
+        vertex.setPartition(partition);
+        vertexPartitions.get(partition).add(vertex);
+        partitionLoads[partition] += weight;
+        patchedVertices++;
+    }
+
+    void removeVertex(MeshVertex vertex, long weight) {
+        // Loads are only estimated once the mesh has been patched, so don't let them drop below zero
+        int partition = vertex.getPartition();
+        if (vertexPartitions.get(partition).remove(vertex))
+            partitionLoads[partition] = Math.max(0, partitionLoads[partition] - weight);
+    }
+
+    void addConnector(MeshConnector connector, int partition) {
+        connectorPartitions.get(partition).add(connector);
+    }
+
+    void removeConnector(MeshConnector connector) {
+        // Connectors may have changed deciders since they were placed, so check every partition
+        for (Set<MeshConnector> partition : connectorPartitions)
+            if (partition.remove(connector))
+                return;
+    }
+
+    void addFunction(MeshFunction<?> function, int partition) {
+        function.setPartition(partition);
+        functionPartitions.get(partition).add(function);
+    }
+
+    void removeFunction(MeshFunction<?> function) {
+        // Functions may have changed vertices since they were placed, so check every partition
+        for (Set<MeshFunction<?>> partition : functionPartitions)
+            if (partition.remove(function))
+                return;
+    }
+}
@@ -0,0 +1,109 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshEdge;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class MeshPatch {
+
+    private final Set<MeshVertex> addedVertices = new LinkedHashSet<>();
+    private final Set<MeshVertex> removedVertices = new LinkedHashSet<>();
+    private final Set<MeshVertex> changedVertices = new LinkedHashSet<>();
+    private final Set<MeshFunction<?>> addedFunctions = new LinkedHashSet<>();
+    private final Set<MeshFunction<?>> removedFunctions = new LinkedHashSet<>();
+    private final Set<MeshFunction<?>> changedFunctions = new LinkedHashSet<>();
+    private final Set<MeshConnector> addedConnectors = new LinkedHashSet<>();
+    private final Set<MeshConnector> removedConnectors = new LinkedHashSet<>();
+    private final Set<MeshConnector> changedConnectors = new LinkedHashSet<>();
+    // Maps each added or moved edge to the vertex it now starts at (or null if only its endpoint moved)
+    private final Map<MeshEdge, MeshVertex> changedEdges = new LinkedHashMap<>();
+
+    public Set<MeshVertex> getAddedVertices() {
+        return addedVertices;
+    }
+
+    public Set<MeshVertex> getRemovedVertices() {
+        return removedVertices;
+    }
+
+    public Set<MeshVertex> getChangedVertices() {
+        return changedVertices;
+    }
+
+    public Set<MeshFunction<?>> getAddedFunctions() {
+        return addedFunctions;
+    }
+
+    public Set<MeshFunction<?>> getRemovedFunctions() {
+        return removedFunctions;
+    }
+
+    public Set<MeshFunction<?>> getChangedFunctions() {
+        return changedFunctions;
+    }
+
+    public Set<MeshConnector> getAddedConnectors() {
+        return addedConnectors;
+    }
+
+    public Set<MeshConnector> getRemovedConnectors() {
+        return removedConnectors;
+    }
+
+    public Set<MeshConnector> getChangedConnectors() {
+        return changedConnectors;
+    }
+
+    public Map<MeshEdge, MeshVertex> getChangedEdges() {
+        return changedEdges;
+    }
+
+    public boolean isEmpty() {
+        return addedVertices.isEmpty() && removedVertices.isEmpty() && changedVertices.isEmpty()
+                && addedFunctions.isEmpty() && removedFunctions.isEmpty() && changedFunctions.isEmpty()
+                && addedConnectors.isEmpty() && removedConnectors.isEmpty() && changedConnectors.isEmpty()
+                && changedEdges.isEmpty();
+    }
+
+    void addVertex(MeshVertex vertex) {
+        // A vertex removed and added back in the same patch was never really removed
+        if (!removedVertices.remove(vertex))
+            addedVertices.add(vertex);
+    }
+
+    void removeVertex(MeshVertex vertex) {
+        changedVertices.remove(vertex);
+        if (!addedVertices.remove(vertex))
+            removedVertices.add(vertex);
+    }
+
+    void changeVertex(MeshVertex vertex) {
+        if (!addedVertices.contains(vertex) && !removedVertices.contains(vertex))
+            changedVertices.add(vertex);
+    }
+
+    void changeEdge(MeshEdge edge, MeshVertex start) {
+        // Keep the latest start of the edge, unless this change only moved its endpoint
+        if (start != null)
+            changedEdges.put(edge, start);
+        else
+            changedEdges.putIfAbsent(edge, null);
+    }
+
+    void finish() {
+        // Elements that were only added in this patch don't also need to be treated as changed, and the vertices
+        // changed along with others that were removed no longer exist
+        changedFunctions.removeAll(addedFunctions);
+        changedFunctions.removeAll(removedFunctions);
+        changedConnectors.removeAll(addedConnectors);
+        changedConnectors.removeAll(removedConnectors);
+        changedVertices.removeAll(removedVertices);
+        changedEdges.keySet().removeIf(edge -> removedConnectors.contains(edge.connector()));
+    }
+}
@@ -0,0 +1,652 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.ChipPin;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.wires.WireNode;
+import com.aethersim.designs.wires.WireRoutable;
+import com.aethersim.designs.wires.WireSegment;
+import com.aethersim.logging.AetherSimLogging;
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.SimulatedDesign;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+import com.aethersim.simulation.mesh.mesh.*;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+public class MeshPatcher {
+
+    private final Design design;
+    private final MeshGenerationOptions options;
+    private final MeshSimulationConfig simulationConfig;
+    private final PatchedDesign topLevelDesign = new PatchedDesign();
+
+    private final Map<Chip, ChipMesh> chipMeshes = new LinkedHashMap<>();
+    private final Map<Pin, MeshFragment> pinFragments = new LinkedHashMap<>();
+
+    // The top-level wires are indexed by the endpoints they had at the last update, so finding what changed only takes
+    // a comparison.  Each net keeps the fragments and wires it was joined from, so only the nets touched by a change
+    // have to be extracted again.
+    private final Set<WireNode> wireNodes = new HashSet<>();
+    private final Map<WireSegment, List<WireRoutable>> segmentEndpoints = new HashMap<>();
+    private final Map<WireRoutable, List<WireSegment>> endpointSegments = new HashMap<>();
+    private final Map<WireNode, MeshNet> nodeNets = new HashMap<>();
+    private final Map<WireSegment, MeshNet> segmentNets = new HashMap<>();
+    private MeshPatch patch;
+
+    public MeshPatcher(Design design) {
+        this(design, new MeshGenerationOptions());
+    }
+
+    public MeshPatcher(Design design, MeshGenerationOptions options) {
+        this(design, MeshGenerator.generate(design, MeshGenerator.DEFAULT_PARTITION_COUNT, options), options);
+    }
+
+    public MeshPatcher(Design design, MeshSimulationConfig simulationConfig, MeshGenerationOptions options) {
+        // Patches are applied to a mesh generated from the whole design, so there is only one way meshes are generated
+        if (!(simulationConfig.getTopLevelSimulatedDesign() instanceof MeshSimulatedDesign generatedDesign))
+            throw new MeshException("Only meshes generated from a top-level design can be patched.");
+        this.design = design;
+        this.options = options;
+        this.simulationConfig = simulationConfig;
+        patch = new MeshPatch();
+
+        // Each of the design's pins and each vertex on the pins of each chip is a fragment of a top-level net.  Chips
+        // keep looking up their vertices in the generated vertex table until one of their fragments is moved.
+        MeshInstance instance = generatedDesign.getInstance();
+        MeshVertex[] vertices = generatedDesign.getVertices();
+        List<Object> elements = new ArrayList<>();
+        for (Pin pin : design.getPins())
+            elements.add(addPinFragment(pin, vertices[instance.getVertexIndex(pin)]));
+
+        // Each chip's functions and connectors were stamped in one run, in the same order as the chips
+        Iterator<MeshFunction<?>> functions = simulationConfig.getMeshChips().iterator();
+        Iterator<MeshConnector> connectors = simulationConfig.getMeshConnectors().iterator();
+        for (Chip chip : design.getChips()) {
+            MeshInstance chipInstance = instance.getChipInstance(chip);
+            ChipMesh chipMesh = new ChipMesh(chip, chipInstance.getTemplate(), new MeshSimulatedDesign(chipInstance, vertices));
+            for (int function = 0; function < chipMesh.meshTemplate.getFunctionCount(); function++)
+                chipMesh.functions.add(functions.next());
+            for (int connector = 0; connector < chipMesh.meshTemplate.getConnectorCount(); connector++)
+                chipMesh.connectors.add(connectors.next());
+            chipMeshes.put(chip, chipMesh);
+            topLevelDesign.chipMapping.put(chip, chipMesh.simulatedDesign);
+            elements.addAll(chipMesh.fragments);
+        }
+
+        // Join the fragments into the nets they were generated with, which leaves every vertex where it is
+        for (WireNode node : design.getWireNodes()) {
+            wireNodes.add(node);
+            elements.add(node);
+        }
+        for (WireSegment segment : design.getWireSegments()) {
+            indexSegment(segment);
+            elements.add(segment);
+        }
+        connectNets(new LinkedHashSet<>(), elements);
+        simulationConfig.setTopLevelSimulatedDesign(topLevelDesign);
+    }
+
+    public Design getDesign() {
+        return design;
+    }
+
+    public MeshSimulationConfig getSimulationConfig() {
+        return simulationConfig;
+    }
+
+    public MeshPatch update() {
+        // Keep track of everything that changes, so the simulation can update only what it derived from those parts
+        patch = new MeshPatch();
+        Set<MeshNet> changedNets = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Object> addedElements = new ArrayList<>();
+
+        // Remove the meshes for any chips that were removed from the design (or whose template was changed), and
+        // generate meshes for any chips that were added
+        Set<Chip> chips = new LinkedHashSet<>(design.getChips());
+        int removedChips = 0, addedChips = 0;
+        // Templates may have been edited since the last update, so they're only compiled once per update
+        Map<ChipTemplate, MeshTemplate> meshTemplates = new IdentityHashMap<>();
+        for (Iterator<Map.Entry<Chip, ChipMesh>> iterator = chipMeshes.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Chip, ChipMesh> entry = iterator.next();
+            if (!chips.contains(entry.getKey()) || entry.getValue().template != entry.getKey().getChipTemplate()) {
+                removeChip(entry.getValue(), changedNets);
+                iterator.remove();
+                removedChips++;
+            }
+        }
+        for (Chip chip : chips) {
+            if (!chipMeshes.containsKey(chip)) {
+                ChipMesh chipMesh = generateChip(chip, meshTemplates);
+                chipMeshes.put(chip, chipMesh);
+                addedElements.addAll(chipMesh.fragments);
+                addedChips++;
+            }
+        }
+
+        // Do the same for the design's own pins, which each start out with their own vertex
+        Set<Pin> pins = new LinkedHashSet<>(design.getPins());
+        for (Iterator<Map.Entry<Pin, MeshFragment>> iterator = pinFragments.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Pin, MeshFragment> entry = iterator.next();
+            if (!pins.contains(entry.getKey())) {
+                topLevelDesign.pinMapping.remove(entry.getKey());
+                removeFragment(entry.getValue(), changedNets);
+                iterator.remove();
+            }
+        }
+        for (Pin pin : pins) {
+            if (!pinFragments.containsKey(pin)) {
+                MeshVertex vertex = new MeshVertex();
+                simulationConfig.getMeshVertices().add(vertex);
+                patch.addVertex(vertex);
+                addedElements.add(addPinFragment(pin, vertex));
+            }
+        }
+
+        // Wires may have been changed as well, so take apart the nets of any wires that were removed or reconnected
+        // and join the fragments back together around them
+        updateWires(changedNets, addedElements);
+        int changedNetCount = connectNets(changedNets, addedElements);
+
+        AetherSimLogging.getSimulationLogger().debug(
+                "Patched mesh for top-level design ({} chips removed, {} chips added, {} nets changed).",
+                removedChips, addedChips, changedNetCount
+        );
+
+        // Anything that changed may have moved states around, so snapshots of the mesh before the patch no longer fit it
+        patch.finish();
+        if (!patch.isEmpty())
+            simulationConfig.invalidateFingerprint();
+        return patch;
+    }
+
+    private MeshFragment addPinFragment(Pin pin, MeshVertex vertex) {
+        MeshFragment fragment = new MeshFragment(null, 0, vertex);
+        fragment.pins.add(new ChipPin(null, pin));
+        fragment.references.add(netVertex -> topLevelDesign.pinMapping.put(pin, netVertex));
+        topLevelDesign.pinMapping.put(pin, vertex);
+        pinFragments.put(pin, fragment);
+        return fragment;
+    }
+
+    private ChipMesh generateChip(Chip chip, Map<ChipTemplate, MeshTemplate> meshTemplates) {
+        // Generate the chip's mesh on its own, as if it were the top-level chip, so it can be added to and removed
+        // from the overall mesh in one piece
+        MeshSimulationConfig chipConfig = new MeshSimulationConfig();
+        chipConfig.continueConnectorIndices(simulationConfig);
+        MeshTemplate meshTemplate = MeshTemplate.compile(chip.getChipTemplate(), meshTemplates, options);
+        MeshSimulatedDesign chipSimulatedDesign = meshTemplate.instantiate(chipConfig, chip, options.isStampingInParallel());
+        simulationConfig.continueConnectorIndices(chipConfig);
+
+        // Add the chip's mesh elements to the overall mesh
+        ChipMesh chipMesh = new ChipMesh(chip, meshTemplate, chipSimulatedDesign);
+        chipMesh.functions.addAll(chipConfig.getMeshChips());
+        chipMesh.connectors.addAll(chipConfig.getMeshConnectors());
+        simulationConfig.getMeshVertices().addAll(chipConfig.getMeshVertices());
+        simulationConfig.getMeshChips().addAll(chipConfig.getMeshChips());
+        simulationConfig.getMeshConnectors().addAll(chipConfig.getMeshConnectors());
+        topLevelDesign.chipMapping.put(chip, chipSimulatedDesign);
+        for (MeshVertex vertex : chipConfig.getMeshVertices()) {
+            patch.addVertex(vertex);
+            for (MeshEdge edge : vertex.getOutgoingEdges())
+                patch.changeEdge(edge, vertex);
+        }
+        patch.getAddedFunctions().addAll(chipConfig.getMeshChips());
+        patch.getAddedConnectors().addAll(chipConfig.getMeshConnectors());
+        return chipMesh;
+    }
+
+    private void removeChip(ChipMesh chipMesh, Set<MeshNet> changedNets) {
+        // The chip's fragments may share a vertex with fragments from other chips, so find which of the edges on them
+        // are the chip's own first
+        resolve(chipMesh);
+        topLevelDesign.chipMapping.remove(chipMesh.chip);
+        MeshVertex[] vertices = chipMesh.simulatedDesign.getVertices();
+        for (int vertex = chipMesh.meshTemplate.getBoundaryCount(); vertex < vertices.length; vertex++) {
+            simulationConfig.getMeshVertices().remove(vertices[vertex]);
+            patch.removeVertex(vertices[vertex]);
+        }
+        for (MeshFunction<?> function : chipMesh.functions)
+            simulationConfig.getMeshChips().remove(function);
+        for (MeshConnector connector : chipMesh.connectors)
+            simulationConfig.getMeshConnectors().remove(connector);
+        patch.getRemovedFunctions().addAll(chipMesh.functions);
+        patch.getRemovedConnectors().addAll(chipMesh.connectors);
+
+        // Only detach the chip's edges from the vertices of its fragments.  Vertices that are no longer used are
+        // removed once the nets are connected again.
+        for (MeshFragment fragment : chipMesh.fragments) {
+            for (MeshEdge edge : fragment.outgoingEdges)
+                fragment.vertex.getOutgoingEdges().remove(edge);
+            patch.changeVertex(fragment.vertex);
+            removeFragment(fragment, changedNets);
+        }
+    }
+
+    private void removeFragment(MeshFragment fragment, Set<MeshNet> changedNets) {
+        fragment.net.fragments.remove(fragment);
+        changedNets.add(fragment.net);
+    }
+
+    private void resolve(ChipMesh chipMesh) {
+        // Details about which functions, connectors, and edges are on a chip's fragments are only needed once the
+        // fragments move, so they aren't found for chips that are never patched
+        if (chipMesh.resolved)
+            return;
+        chipMesh.resolved = true;
+
+        // Stamp the indices of the chip's elements on their own, which tells which of the chip's pins each element is
+        // on, even where the generated mesh joined several of its pins into one net.  The chip also gets a vertex
+        // table of its own, so moving its fragments leaves the chips it was generated with alone.
+        MeshIndexStamp stamp = chipMesh.meshTemplate.instantiateIndices(chipMesh.chip, options.isStampingInParallel());
+        MeshInstance instance = chipMesh.simulatedDesign.getInstance();
+        MeshVertex[] generatedVertices = chipMesh.simulatedDesign.getVertices();
+        MeshVertex[] vertices = new MeshVertex[stamp.getVertexCount()];
+        for (int vertex = 0; vertex < vertices.length; vertex++)
+            vertices[vertex] = generatedVertices[instance.resolve(vertex)];
+        chipMesh.simulatedDesign = new MeshSimulatedDesign(stamp.getInstance(), vertices);
+        topLevelDesign.chipMapping.put(chipMesh.chip, chipMesh.simulatedDesign);
+
+        // Everything in the chip's hierarchy finds the vertex through the chip's vertex table, so only that entry
+        // needs to change when a fragment is moved
+        MeshFragment[] boundaryFragments = new MeshFragment[chipMesh.meshTemplate.getBoundaryCount()];
+        for (MeshFragment fragment : chipMesh.fragments) {
+            boundaryFragments[fragment.boundaryVertex] = fragment;
+            fragment.references.add(vertex -> vertices[fragment.boundaryVertex] = vertex);
+        }
+        for (int function = 0; function < chipMesh.functions.size(); function++) {
+            MeshFunction<?> meshFunction = chipMesh.functions.get(function);
+            MeshInstance functionInstance = stamp.getFunctionInstance(function);
+            collectMappings(meshFunction, meshFunction.getInputVertices(), functionInstance, boundaryFragments);
+            collectMappings(meshFunction, meshFunction.getOutputVertices(), functionInstance, boundaryFragments);
+        }
+
+        // Find the edges of the connectors on the fragments by looking through the edges that start at their vertices
+        Set<MeshConnector> boundaryConnectors = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<MeshVertex> edgeStarts = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int connector = 0; connector < chipMesh.connectors.size(); connector++) {
+            MeshConnector meshConnector = chipMesh.connectors.get(connector);
+            if (stamp.getConnectorDecider(connector) < boundaryFragments.length)
+                boundaryFragments[stamp.getConnectorDecider(connector)].deciders.add(meshConnector);
+            if (stamp.getEdgeStart(connector) < boundaryFragments.length || stamp.getEdgeEnd(connector) < boundaryFragments.length) {
+                boundaryConnectors.add(meshConnector);
+                edgeStarts.add(vertices[stamp.getEdgeStart(connector)]);
+            }
+        }
+        Map<MeshConnector, MeshEdge> edges = new IdentityHashMap<>();
+        for (MeshVertex vertex : edgeStarts)
+            for (MeshEdge edge : vertex.getOutgoingEdges())
+                if (boundaryConnectors.contains(edge.connector()))
+                    edges.put(edge.connector(), edge);
+        for (int connector = 0; connector < chipMesh.connectors.size(); connector++) {
+            MeshEdge edge = edges.get(chipMesh.connectors.get(connector));
+            if (edge == null)
+                continue;
+            if (stamp.getEdgeStart(connector) < boundaryFragments.length)
+                boundaryFragments[stamp.getEdgeStart(connector)].outgoingEdges.add(edge);
+            if (stamp.getEdgeEnd(connector) < boundaryFragments.length)
+                boundaryFragments[stamp.getEdgeEnd(connector)].incomingEdges.add(edge);
+        }
+    }
+
+    private void updateWires(Set<MeshNet> changedNets, List<Object> addedElements) {
+        // Take removed nodes out of their nets
+        Set<WireNode> nodes = new HashSet<>(design.getWireNodes());
+        for (Iterator<WireNode> iterator = wireNodes.iterator(); iterator.hasNext(); ) {
+            WireNode node = iterator.next();
+            if (!nodes.contains(node)) {
+                iterator.remove();
+                MeshNet net = nodeNets.remove(node);
+                net.wireNodes.remove(node);
+                changedNets.add(net);
+                topLevelDesign.wireNodeMapping.remove(node);
+            }
+        }
+        for (WireNode node : nodes)
+            if (wireNodes.add(node))
+                addedElements.add(node);
+
+        // Segments that were removed or reconnected are taken out of their nets, and reconnected segments are added
+        // back along with new ones
+        Set<WireSegment> segments = design.getWireSegments();
+        for (Iterator<Map.Entry<WireSegment, List<WireRoutable>>> iterator = segmentEndpoints.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<WireSegment, List<WireRoutable>> entry = iterator.next();
+            WireSegment segment = entry.getKey();
+            if (segments.contains(segment) && entry.getValue().equals(segment.getEndpoints()))
+                continue;
+            iterator.remove();
+            for (WireRoutable endpoint : entry.getValue()) {
+                List<WireSegment> connectedSegments = endpointSegments.get(endpoint);
+                if (connectedSegments != null && connectedSegments.remove(segment) && connectedSegments.isEmpty())
+                    endpointSegments.remove(endpoint);
+            }
+            MeshNet net = segmentNets.remove(segment);
+            net.wireSegments.remove(segment);
+            changedNets.add(net);
+            topLevelDesign.wireSegmentMapping.remove(segment);
+        }
+        for (WireSegment segment : segments) {
+            if (!segmentEndpoints.containsKey(segment)) {
+                indexSegment(segment);
+                addedElements.add(segment);
+            }
+        }
+    }
+
+    private void indexSegment(WireSegment segment) {
+        segmentEndpoints.put(segment, new ArrayList<>(segment.getEndpoints()));
+        for (WireRoutable endpoint : segment.getEndpoints())
+            if (endpoint != null)
+                endpointSegments.computeIfAbsent(endpoint, key -> new ArrayList<>()).add(segment);
+    }
+
+    private int connectNets(Set<MeshNet> changedNets, List<Object> addedElements) {
+        // Everything that was in a changed net is joined again along with everything that was added.  Other nets can
+        // only be reached through an added or reconnected wire, in which case they're joined again as well.
+        List<Object> elements = new ArrayList<>();
+        Set<MeshVertex> releasedVertices = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MeshNet net : changedNets) {
+            elements.addAll(net.fragments);
+            elements.addAll(net.wireNodes);
+            elements.addAll(net.wireSegments);
+            if (net.vertex != null)
+                releasedVertices.add(net.vertex);
+        }
+        for (Object element : addedElements) {
+            elements.add(element);
+            if (element instanceof MeshFragment fragment)
+                releasedVertices.add(fragment.vertex);
+        }
+
+        // Find each net by following the wires from one of its elements
+        List<MeshNet> nets = new ArrayList<>();
+        Set<Object> visitedElements = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> pendingElements = new ArrayDeque<>();
+        for (Object element : elements) {
+            if (!visitedElements.add(element))
+                continue;
+            MeshNet net = new MeshNet();
+            pendingElements.add(element);
+            while (!pendingElements.isEmpty()) {
+                Object pendingElement = pendingElements.poll();
+                MeshNet previousNet;
+                if (pendingElement instanceof MeshFragment fragment) {
+                    previousNet = fragment.net;
+                    net.addFragment(fragment);
+                    for (ChipPin pin : fragment.pins)
+                        visitSegments(endpointSegments.get(pin), visitedElements, pendingElements);
+                } else if (pendingElement instanceof WireNode node) {
+                    previousNet = nodeNets.get(node);
+                    net.wireNodes.add(node);
+                    visitSegments(endpointSegments.get(node), visitedElements, pendingElements);
+                } else {
+                    WireSegment segment = (WireSegment) pendingElement;
+                    previousNet = segmentNets.get(segment);
+                    net.wireSegments.add(segment);
+                    for (WireRoutable endpoint : segment.getEndpoints()) {
+                        Object connectedElement = null;
+                        if (endpoint instanceof WireNode node && wireNodes.contains(node))
+                            connectedElement = node;
+                        else if (endpoint instanceof ChipPin pin)
+                            connectedElement = getFragment(pin);
+                        if (connectedElement != null && visitedElements.add(connectedElement))
+                            pendingElements.add(connectedElement);
+                    }
+                }
+
+                // If the net reached a net that didn't change, that net is being joined to others, so its vertex is
+                // up for grabs as well
+                if (previousNet != null && changedNets.add(previousNet) && previousNet.vertex != null)
+                    releasedVertices.add(previousNet.vertex);
+            }
+
+            nets.add(net);
+        }
+
+        // Nets that keep the most fragments on one vertex claim their vertices first, so the largest part of a net
+        // that was split keeps its vertex (and state)
+        int changedNetCount = 0;
+        Set<MeshVertex> claimedVertices = Collections.newSetFromMap(new IdentityHashMap<>());
+        nets.sort(Comparator.comparingInt((MeshNet net) -> net.largestVertexCount).reversed());
+        for (MeshNet net : nets)
+            if (claimNet(net, claimedVertices))
+                changedNetCount++;
+
+        // Remove the vertices no net uses anymore
+        for (MeshVertex vertex : releasedVertices) {
+            if (!claimedVertices.contains(vertex)) {
+                simulationConfig.getMeshVertices().remove(vertex);
+                patch.removeVertex(vertex);
+            }
+        }
+        return changedNetCount;
+    }
+
+    private static void visitSegments(List<WireSegment> segments, Set<Object> visitedElements, Deque<Object> pendingElements) {
+        if (segments == null)
+            return;
+        for (WireSegment segment : segments)
+            if (visitedElements.add(segment))
+                pendingElements.add(segment);
+    }
+
+    private boolean claimNet(MeshNet net, Set<MeshVertex> claimedVertices) {
+        // Give the net a single vertex if it connects any fragments.  Reuse the vertex that most of the net's
+        // fragments already share, so nets that weren't changed keep their vertex (and state), and nets that were
+        // joined keep their largest part.
+        boolean changed = false;
+        if (!net.fragments.isEmpty()) {
+            MeshVertex netVertex = null;
+            int netVertexCount = 0;
+            for (Map.Entry<MeshVertex, Integer> entry : net.vertexCounts.entrySet()) {
+                if (entry.getValue() > netVertexCount && !claimedVertices.contains(entry.getKey())) {
+                    netVertex = entry.getKey();
+                    netVertexCount = entry.getValue();
+                }
+            }
+            if (netVertex == null) {
+                netVertex = new MeshVertex();
+                simulationConfig.getMeshVertices().add(netVertex);
+                patch.addVertex(netVertex);
+            }
+            claimedVertices.add(netVertex);
+            net.vertex = netVertex;
+
+            changed = netVertexCount != net.fragments.size();
+            for (MeshFragment fragment : net.fragments) {
+                fragment.net = net;
+                if (fragment.vertex == netVertex)
+                    continue;
+                if (fragment.chipMesh != null)
+                    resolve(fragment.chipMesh);
+                fragment.moveTo(netVertex, patch);
+            }
+        }
+
+        // Map the net's wires to its vertex (or to nothing, if it doesn't connect any pins)
+        for (WireNode node : net.wireNodes) {
+            nodeNets.put(node, net);
+            if (net.vertex != null)
+                topLevelDesign.wireNodeMapping.put(node, net.vertex);
+            else
+                topLevelDesign.wireNodeMapping.remove(node);
+        }
+        for (WireSegment segment : net.wireSegments) {
+            segmentNets.put(segment, net);
+            if (net.vertex != null)
+                topLevelDesign.wireSegmentMapping.put(segment, net.vertex);
+            else
+                topLevelDesign.wireSegmentMapping.remove(segment);
+        }
+        return changed;
+    }
+
+    private MeshFragment getFragment(ChipPin pin) {
+        // Pins without a chip are the design's own pins
+        if (pin.getChip() == null)
+            return pinFragments.get(pin.getPin());
+        ChipMesh chipMesh = chipMeshes.get(pin.getChip());
+        return chipMesh == null ? null : chipMesh.pinFragments.get(pin.getPin());
+    }
+
+    private static <K extends Pin> void collectMappings(MeshFunction<?> function, Map<K, MeshVertex> mapping, MeshInstance instance, MeshFragment[] boundaryFragments) {
+        // Record every mapping of a pin to one of the fragments, along with the function it belongs to
+        for (K pin : mapping.keySet()) {
+            int vertex = instance.getVertexIndex(pin);
+            if (vertex >= 0 && vertex < boundaryFragments.length) {
+                MeshFragment fragment = boundaryFragments[vertex];
+                fragment.references.add(netVertex -> mapping.put(pin, netVertex));
+                fragment.functions.add(function);
+            }
+        }
+    }
+
+    private static class ChipMesh {
+
+        private final Chip chip;
+        private final ChipTemplate template;
+        private final MeshTemplate meshTemplate;
+        private final List<MeshFunction<?>> functions = new ArrayList<>();
+        private final List<MeshConnector> connectors = new ArrayList<>();
+        private final Map<Pin, MeshFragment> pinFragments = new HashMap<>();
+        private final List<MeshFragment> fragments = new ArrayList<>();
+        private MeshSimulatedDesign simulatedDesign;
+        private boolean resolved = false;
+
+        private ChipMesh(Chip chip, MeshTemplate meshTemplate, MeshSimulatedDesign simulatedDesign) {
+            this.chip = chip;
+            this.template = chip.getChipTemplate();
+            this.meshTemplate = meshTemplate;
+            this.simulatedDesign = simulatedDesign;
+
+            // Each vertex on the chip's pins is a fragment of a top-level net.  These fragments are the only vertices
+            // that may be merged with others.
+            MeshFragment[] boundaryFragments = new MeshFragment[meshTemplate.getBoundaryCount()];
+            for (Pin pin : template.getPins()) {
+                int boundaryVertex = meshTemplate.getPinVertex(pin);
+                if (boundaryVertex < 0)
+                    continue;
+                MeshFragment fragment = boundaryFragments[boundaryVertex];
+                if (fragment == null) {
+                    fragment = new MeshFragment(this, boundaryVertex, simulatedDesign.getVertexForPin(pin));
+                    boundaryFragments[boundaryVertex] = fragment;
+                    fragments.add(fragment);
+                }
+                fragment.pins.add(new ChipPin(chip, pin));
+                pinFragments.put(pin, fragment);
+            }
+        }
+    }
+
+    private static class MeshFragment {
+
+        // Chip fragments are found by the vertex they are on the chip's pins, and all fragments are found by the pins
+        // wires connect to
+        private final ChipMesh chipMesh;
+        private final int boundaryVertex;
+        private final List<ChipPin> pins = new ArrayList<>();
+        private MeshVertex vertex;
+        private MeshNet net;
+        private final List<Consumer<MeshVertex>> references = new ArrayList<>();
+        private final Set<MeshFunction<?>> functions = new LinkedHashSet<>();
+        private final List<MeshConnector> deciders = new ArrayList<>();
+        private final List<MeshEdge> outgoingEdges = new ArrayList<>();
+        private final List<MeshEdge> incomingEdges = new ArrayList<>();
+
+        private MeshFragment(ChipMesh chipMesh, int boundaryVertex, MeshVertex vertex) {
+            this.chipMesh = chipMesh;
+            this.boundaryVertex = boundaryVertex;
+            this.vertex = vertex;
+        }
+
+        private void moveTo(MeshVertex netVertex, MeshPatch patch) {
+            if (vertex == netVertex)
+                return;
+
+            // Point everything that referred to the old vertex at the net's vertex instead, and record everything
+            // that moved in the patch
+            for (Consumer<MeshVertex> reference : references)
+                reference.accept(netVertex);
+            patch.getChangedFunctions().addAll(functions);
+            for (MeshConnector connector : deciders) {
+                connector.setDecider(netVertex);
+                patch.getChangedConnectors().add(connector);
+            }
+            for (MeshEdge edge : outgoingEdges) {
+                vertex.getOutgoingEdges().remove(edge);
+                netVertex.getOutgoingEdges().add(edge);
+                patch.changeEdge(edge, netVertex);
+            }
+            for (MeshEdge edge : incomingEdges) {
+                edge.setEndpoint(netVertex);
+                patch.changeEdge(edge, null);
+            }
+            patch.changeVertex(vertex);
+            patch.changeVertex(netVertex);
+            vertex = netVertex;
+        }
+    }
+
+    private static class MeshNet {
+
+        // The fragments and wires joined into the net, and the vertex they share (which is null if the net's wires
+        // don't connect any pins)
+        private final Set<MeshFragment> fragments = new LinkedHashSet<>();
+        private final Set<WireNode> wireNodes = new LinkedHashSet<>();
+        private final Set<WireSegment> wireSegments = new LinkedHashSet<>();
+        private MeshVertex vertex;
+
+        // While the net is being joined, the number of its fragments on each vertex they were on before
+        private final Map<MeshVertex, Integer> vertexCounts = new LinkedHashMap<>();
+        private int largestVertexCount = 0;
+
+        private void addFragment(MeshFragment fragment) {
+            fragments.add(fragment);
+            largestVertexCount = Math.max(largestVertexCount, vertexCounts.merge(fragment.vertex, 1, Integer::sum));
+        }
+    }
+
+    private static class PatchedDesign extends SimulatedDesign {
+
+        // The top level of the design changes as it's edited, so its elements are mapped directly
+        private final Map<Pin, MeshVertex> pinMapping = new HashMap<>();
+        private final Map<WireNode, MeshVertex> wireNodeMapping = new HashMap<>();
+        private final Map<WireSegment, MeshVertex> wireSegmentMapping = new HashMap<>();
+        private final Map<Chip, MeshSimulatedDesign> chipMapping = new HashMap<>();
+
+        @Override
+        public LogicState getStateForPin(Pin pin) {
+            return getState(pinMapping.get(pin));
+        }
+
+        @Override
+        public LogicState getStateForWireNode(WireNode wireNode) {
+            return getState(wireNodeMapping.get(wireNode));
+        }
+
+        @Override
+        public LogicState getStateForWireSegment(WireSegment wireSegment) {
+            return getState(wireSegmentMapping.get(wireSegment));
+        }
+
+        @Override
+        public SimulatedDesign getSimulatedChipDesign(Chip chip) {
+            MeshSimulatedDesign design = chipMapping.get(chip);
+            if (design != null)
+                return design;
+            else
+                return none();
+        }
+
+        private static LogicState getState(MeshVertex vertex) {
+            // Default to UNCONNECTED if no vertex found
+            if (vertex == null)
+                return LogicState.UNCONNECTED;
+            else
+                return vertex.getActualState();
+        }
+    }
+}
@@ -1,25 +1,35 @@
 package com.aethersim.simulation.mesh.mesh.generation;
 
+import com.aethersim.simulation.SimulatedDesign;
 import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshEdge;
 import com.aethersim.simulation.mesh.mesh.MeshFunction;
-import com.aethersim.simulation.mesh.mesh.MeshSimulatedDesign;
 import com.aethersim.simulation.mesh.mesh.MeshVertex;
 
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 public class MeshSimulationConfig {
 
-    private MeshSimulatedDesign topLevelSimulatedDesign;
+    private SimulatedDesign topLevelSimulatedDesign;
     private final Set<MeshVertex> meshVertices = new LinkedHashSet<>();
     private final Set<MeshFunction<?>> meshFunctions = new LinkedHashSet<>();
     private final Set<MeshConnector> meshConnectors = new LinkedHashSet<>();
+    private MeshPartitioning partitioning;
+    private int nextConnectorIndex = 0;
 
-    public MeshSimulatedDesign getTopLevelSimulatedDesign() {
+    // The fingerprint of the mesh's structure is computed the first time it's needed, and kept until the mesh is
+    // patched
+    private long fingerprint;
+    private boolean fingerprinted = false;
+
+    public SimulatedDesign getTopLevelSimulatedDesign() {
         return topLevelSimulatedDesign;
     }
 
-    public void setTopLevelSimulatedDesign(MeshSimulatedDesign topLevelSimulatedDesign) {
+    public void setTopLevelSimulatedDesign(SimulatedDesign topLevelSimulatedDesign) {
         this.topLevelSimulatedDesign = topLevelSimulatedDesign;
     }
 
@@ -34,4 +44,82 @@ public class MeshSimulationConfig {
     public Set<MeshConnector> getMeshConnectors() {
         return meshConnectors;
     }
+
+    int reserveConnectorIndices(int count) {
+        // Connector indices are never reused, so they stay the same when the mesh is patched
+        int firstConnectorIndex = nextConnectorIndex;
+        nextConnectorIndex += count;
+        return firstConnectorIndex;
+    }
+
+    void continueConnectorIndices(MeshSimulationConfig simulationConfig) {
+        // Carry on numbering connectors from wherever the other configuration left off
+        nextConnectorIndex = simulationConfig.nextConnectorIndex;
+    }
+
+    public long getFingerprint() {
+        if (!fingerprinted) {
+            fingerprint = computeFingerprint();
+            fingerprinted = true;
+        }
+        return fingerprint;
+    }
+
+    void invalidateFingerprint() {
+        fingerprinted = false;
+    }
+
+    private long computeFingerprint() {
+        // Number the vertices and connectors by their positions in the mesh, which is the order their states are
+        // stored in snapshots
+        Map<MeshVertex, Integer> vertexIndices = new IdentityHashMap<>(2 * meshVertices.size());
+        for (MeshVertex vertex : meshVertices)
+            vertexIndices.put(vertex, vertexIndices.size());
+        Map<MeshConnector, Integer> connectorIndices = new IdentityHashMap<>(2 * meshConnectors.size());
+        for (MeshConnector connector : meshConnectors)
+            connectorIndices.put(connector, connectorIndices.size());
+
+        // Hash each connector with its decider, each edge with its endpoints and connector, and each function with its
+        // template and the vertices on its pins.  The order of a vertex's edges doesn't change where anything is
+        // stored, so they're added together rather than hashed in order.
+        long hash = mix(meshVertices.size());
+        for (MeshConnector connector : meshConnectors)
+            hash = mix(hash ^ ((long) indexOf(vertexIndices, connector.getDecider()) << 1 | (connector.isActiveLow() ? 1 : 0)));
+        for (MeshVertex vertex : meshVertices) {
+            long edgeHash = 0;
+            for (MeshEdge edge : vertex.getOutgoingEdges())
+                edgeHash += mix((long) indexOf(vertexIndices, edge.endpoint()) << 32 ^ indexOf(connectorIndices, edge.connector()));
+            hash = mix(hash ^ edgeHash);
+        }
+        for (MeshFunction<?> function : meshFunctions) {
+            hash = mix(hash ^ function.getSimulatedTemplate().getClass().getName().hashCode());
+            for (MeshVertex vertex : function.getInputVertices().values())
+                hash = mix(hash ^ indexOf(vertexIndices, vertex));
+            for (MeshVertex vertex : function.getOutputVertices().values())
+                hash = mix(hash ^ ~indexOf(vertexIndices, vertex));
+        }
+        return hash;
+    }
+
+    private static <T> int indexOf(Map<T, Integer> indices, T element) {
+        // Elements outside of the mesh don't have a position in it
+        Integer index = indices.get(element);
+        return index != null ? index : -1;
+    }
+
+    private static long mix(long value) {
+        // This is the SplitMix64 finalizer (with its increment), which spreads every input bit across the whole output
+        value += 0x9E3779B97F4A7C15L;
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    public MeshPartitioning getPartitioning() {
+        return partitioning;
+    }
+
+    public void setPartitioning(MeshPartitioning partitioning) {
+        this.partitioning = partitioning;
+    }
 }
@@ -0,0 +1,26 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.templates.SimulatedTemplate;
+
+abstract class MeshStamp {
+
+    // Built-in chips are stamped in parallel, so each one gets a slot for the connector or function it generates,
+    // reserved in depth-first order.  Stamps only write to their own slots, so chips can be stamped in any order and
+    // still produce exactly the same mesh as if they were stamped one at a time.  Vertices are identified by their
+    // index in the vertex table shared by the whole instance tree.
+
+    private boolean parallel = true;
+
+    boolean isParallel() {
+        return parallel;
+    }
+
+    void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    abstract void stampConnector(int connectorSlot, int decider, boolean activeLow, int start, int end);
+
+    abstract void stampFunction(int functionSlot, MeshInstance instance, Chip chip, SimulatedTemplate<?> simulatedTemplate);
+}
@@ -0,0 +1,205 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Pin;
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.netlist.BitSlicedTemplate;
+
+import java.util.Arrays;
+
+class MeshSwitchNetwork extends MeshCollapsedFunction implements BitSlicedTemplate<MeshCollapsedFunction.State> {
+
+    // Transistors are numbered in the order of the design's chips, and vertices are the local vertices of the template
+    // the network was collapsed from.  Sources are the vertices that states flow out of (such as power rails), and
+    // outputs are the vertices on the template's pins that states flow into.
+    private final int vertexCount;
+    private final int[] bases;
+    private final boolean[] activeLow;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[][] outgoingTransistors;
+    private final int[] sources;
+    private final int[] outputs;
+
+    // Slots of the pins the function reads and drives for each base, source, and output
+    private final int[] baseSlots;
+    private final int[] sourceSlots;
+    private final int[] outputSlots;
+
+    MeshSwitchNetwork(int vertexCount, int[] bases, boolean[] activeLow, int[] starts, int[] ends, int[] sources, int[] outputs, Pin[] vertexPins) {
+        this.vertexCount = vertexCount;
+        this.bases = bases;
+        this.activeLow = activeLow;
+        this.starts = starts;
+        this.ends = ends;
+        this.sources = sources;
+        this.outputs = outputs;
+
+        // Index the transistors by the vertex they conduct from
+        int[] outgoingCounts = new int[vertexCount];
+        for (int start : starts)
+            outgoingCounts[start]++;
+        this.outgoingTransistors = new int[vertexCount][];
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+            outgoingTransistors[vertex] = new int[outgoingCounts[vertex]];
+        Arrays.fill(outgoingCounts, 0);
+        for (int transistor = 0; transistor < starts.length; transistor++)
+            outgoingTransistors[starts[transistor]][outgoingCounts[starts[transistor]]++] = transistor;
+
+        // The function reads the bases and sources, and drives the outputs
+        for (int base : bases)
+            getInputPins().add(vertexPins[base]);
+        for (int source : sources)
+            getInputPins().add(vertexPins[source]);
+        for (int output : outputs)
+            getOutputPins().add(vertexPins[output]);
+        this.baseSlots = Arrays.stream(bases).map(base -> getInputPins().getSlot(vertexPins[base])).toArray();
+        this.sourceSlots = Arrays.stream(sources).map(source -> getInputPins().getSlot(vertexPins[source])).toArray();
+        this.outputSlots = Arrays.stream(outputs).map(output -> getOutputPins().getSlot(vertexPins[output])).toArray();
+    }
+
+    @Override
+    public void simulate(State state) {
+        SwitchState switchState = (SwitchState) state;
+        if (switchState.conducting == null) {
+            switchState.conducting = new boolean[bases.length];
+            switchState.drivenStates = new LogicState[vertexCount];
+            switchState.pulledStates = new LogicState[vertexCount];
+            switchState.stack = new int[vertexCount];
+            switchState.visited = new boolean[vertexCount];
+        }
+        boolean[] conducting = switchState.conducting;
+        LogicState[] drivenStates = switchState.drivenStates;
+        LogicState[] pulledStates = switchState.pulledStates;
+        int[] stack = switchState.stack;
+        boolean[] visited = switchState.visited;
+
+        // Work out which transistors conduct from the states of their bases
+        for (int transistor = 0; transistor < bases.length; transistor++) {
+            LogicState baseState = getRectifiedState(state.getDrivenInputState(baseSlots[transistor]), state.getPulledInputState(baseSlots[transistor]));
+            conducting[transistor] = baseState == (activeLow[transistor] ? LogicState.LOW : LogicState.HIGH);
+        }
+
+        // Carry the states of each source through the conducting transistors, combining them the same way vertices
+        // combine the states propagated into them
+        Arrays.fill(drivenStates, LogicState.UNKNOWN);
+        Arrays.fill(pulledStates, LogicState.UNKNOWN);
+        for (int index = 0; index < sources.length; index++) {
+            int source = sources[index];
+            LogicState drivenState = getDrivenState(state.getDrivenInputState(sourceSlots[index]));
+            LogicState pulledState = getPulledState(state.getPulledInputState(sourceSlots[index]));
+            if (drivenState == LogicState.UNKNOWN && pulledState == LogicState.UNKNOWN)
+                continue;
+
+            Arrays.fill(visited, false);
+            int stackSize = 0;
+            stack[stackSize++] = source;
+            visited[source] = true;
+            while (stackSize > 0) {
+                int vertex = stack[--stackSize];
+                for (int transistor : outgoingTransistors[vertex]) {
+                    int end = ends[transistor];
+                    if (!conducting[transistor] || visited[end])
+                        continue;
+                    visited[end] = true;
+                    drivenStates[end] = combine(drivenStates[end], drivenState);
+                    pulledStates[end] = combine(pulledStates[end], pulledState);
+                    stack[stackSize++] = end;
+                }
+            }
+        }
+
+        // Outputs that no source reaches are left unknown, so they aren't driven at all
+        for (int index = 0; index < outputs.length; index++) {
+            state.setDrivenOutputState(outputSlots[index], drivenStates[outputs[index]]);
+            state.setPulledOutputState(outputSlots[index], pulledStates[outputs[index]]);
+        }
+    }
+
+    @Override
+    State createState() {
+        return new SwitchState();
+    }
+
+    @Override
+    public void simulateLanes(State state, long[] inputPlanes, long[] outputPlanes) {
+        SwitchState switchState = (SwitchState) state;
+        if (switchState.conductingLanes == null) {
+            switchState.conductingLanes = new long[bases.length];
+            switchState.reachedLanes = new long[vertexCount];
+        }
+        long[] conductingLanes = switchState.conductingLanes;
+        long[] reachedLanes = switchState.reachedLanes;
+
+        // Work out the lanes in which each transistor conducts from the rectified states of their bases (in lanes
+        // where a base isn't driven, it takes its suggested state)
+        for (int transistor = 0; transistor < bases.length; transistor++) {
+            int basePlane = baseSlots[transistor] * 4;
+            long unconnected = ~(inputPlanes[basePlane] | inputPlanes[basePlane + 1]);
+            long low = inputPlanes[basePlane] | (inputPlanes[basePlane + 2] & unconnected);
+            long high = inputPlanes[basePlane + 1] | (inputPlanes[basePlane + 3] & unconnected);
+            conductingLanes[transistor] = activeLow[transistor] ? low & ~high : high & ~low;
+        }
+
+        for (int index = 0; index < sources.length; index++) {
+            int source = sources[index];
+            int sourcePlane = sourceSlots[index] * 4;
+            // The actual planes hold the states propagated into the source, so they are only set where it was driven
+            long drivenLow = inputPlanes[sourcePlane], drivenHigh = inputPlanes[sourcePlane + 1];
+            long suggestedLow = inputPlanes[sourcePlane + 2], suggestedHigh = inputPlanes[sourcePlane + 3];
+            if ((drivenLow | drivenHigh | suggestedLow | suggestedHigh) == 0)
+                continue;
+
+            // Find the lanes in which each vertex can be reached from the source through conducting transistors,
+            // repeating until no more vertices are reached
+            Arrays.fill(reachedLanes, 0);
+            reachedLanes[source] = -1L;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int transistor = 0; transistor < starts.length; transistor++) {
+                    int end = ends[transistor];
+                    long reached = reachedLanes[starts[transistor]] & conductingLanes[transistor] & ~reachedLanes[end];
+                    if (reached != 0) {
+                        reachedLanes[end] |= reached;
+                        changed = true;
+                    }
+                }
+            }
+
+            // Merge the source's states into every output it reaches (merging bit planes is a bitwise OR, which
+            // matches combine()), but not into the source itself
+            for (int output = 0; output < outputs.length; output++) {
+                if (outputs[output] == source)
+                    continue;
+                long reached = reachedLanes[outputs[output]];
+                int outputPlane = outputSlots[output] * 4;
+                outputPlanes[outputPlane] |= drivenLow & reached;
+                outputPlanes[outputPlane + 1] |= drivenHigh & reached;
+                outputPlanes[outputPlane + 2] |= suggestedLow & reached;
+                outputPlanes[outputPlane + 3] |= suggestedHigh & reached;
+            }
+        }
+    }
+
+    private static LogicState combine(LogicState currentState, LogicState newState) {
+        if (newState == LogicState.UNKNOWN || currentState == LogicState.CONFLICTED)
+            return currentState;
+        if (currentState.isExclusive() && newState.isExclusive() && currentState != newState)
+            return LogicState.CONFLICTED;
+        return newState;
+    }
+
+    private static class SwitchState extends State {
+
+        // Scratch space for simulating a single lane, allocated the first time it is needed and cleared on every
+        // simulation.  Each instance has its own state, so instances simulated on different threads never share it.
+        private boolean[] conducting;
+        private LogicState[] drivenStates, pulledStates;
+        private int[] stack;
+        private boolean[] visited;
+
+        // Scratch space for simulating all lanes at once, allocated the first time it is needed
+        private long[] conductingLanes;
+        private long[] reachedLanes;
+    }
+}
@@ -0,0 +1,551 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.ChipPin;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.DesignedTemplate;
+import com.aethersim.designs.templates.SimulatedTemplate;
+import com.aethersim.designs.templates.TransistorTemplate;
+import com.aethersim.designs.wires.WireNode;
+import com.aethersim.designs.wires.WireSegment;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+import com.aethersim.simulation.mesh.mesh.MeshSimulatedDesign;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.RecursiveAction;
+
+class MeshTemplate {
+
+    // Chips are stamped on the calling thread until their subtrees hold more instances than this, and only bigger
+    // subtrees are split across the fork-join pool
+    private static final int PARALLEL_STAMP_THRESHOLD = 1024;
+
+    // Switch networks are evaluated by searching through their transistors, so only small ones are collapsed
+    private static final int MAXIMUM_COLLAPSED_TRANSISTORS = 16;
+
+    // Vertices are numbered locally within a template.  The first vertices are the ones on the template's pins, which
+    // are shared with the design the template is placed in, and the rest are internal to each instance.  Internal
+    // vertices are numbered contiguously, so an instance can place them anywhere by offsetting their indices.
+    private final int vertexCount;
+    private final int boundaryCount;
+    private final Map<Pin, Integer> pinVertices = new HashMap<>();
+    private final Map<WireNode, Integer> wireNodeVertices = new HashMap<>();
+    private final Map<WireSegment, Integer> wireSegmentVertices = new HashMap<>();
+
+    // Each vertex on the template's pins is read and driven through the first pin on it by functions that replace the
+    // template's contents.  Templates with the same content hash simulate identically, no matter which templates
+    // they were compiled from.
+    private final Pin[] boundaryPins;
+    private final String contentHash;
+
+    // For each chip in the template's design, the local vertices of the chip's pins and the start of the block of
+    // local vertices used for the chip's internal vertices.  These are null for built-in chips.
+    private final Chip[] chips;
+    private final Map<Chip, Integer> chipIndices = new HashMap<>();
+    private final MeshTemplate[] chipTemplates;
+    private final int[][] chipBoundaryVertices;
+    private final int[] chipInternalOffsets;
+
+    // The number of instances, connectors, and functions each instance of the template creates, and where each chip's
+    // share of them starts.  Instances are numbered depth-first, so these let any subtree be stamped independently.
+    private final int instanceCount;
+    private final int connectorCount;
+    private final int functionCount;
+    private final int[] chipInstanceOffsets;
+    private final int[] chipConnectorOffsets;
+    private final int[] chipFunctionOffsets;
+
+    // Templates that are collapsed into a single function (like small networks of transistors) keep that function
+    // here.  This is null for all other templates.
+    private final MeshCollapsedFunction collapsedFunction;
+
+    private MeshTemplate(ChipTemplate chipTemplate) {
+        // Built-in chips have one vertex for each pin, and nothing else
+        this.vertexCount = chipTemplate.getPins().size();
+        this.boundaryCount = chipTemplate.getPins().size();
+        for (Pin pin : chipTemplate.getPins())
+            pinVertices.put(pin, pinVertices.size());
+        this.boundaryPins = chipTemplate.getPins().toArray(new Pin[0]);
+        String id = chipTemplate.getId() != null ? chipTemplate.getId() : Integer.toHexString(System.identityHashCode(chipTemplate));
+        this.contentHash = "builtin:" + chipTemplate.getClass().getName() + ":" + id;
+        this.chips = null;
+        this.chipTemplates = null;
+        this.chipBoundaryVertices = null;
+        this.chipInternalOffsets = null;
+
+        // Transistors generate a connector and simulated templates generate a function
+        this.instanceCount = 1;
+        this.connectorCount = chipTemplate instanceof TransistorTemplate ? 1 : 0;
+        this.functionCount = chipTemplate instanceof SimulatedTemplate<?> ? 1 : 0;
+        this.chipInstanceOffsets = null;
+        this.chipConnectorOffsets = null;
+        this.chipFunctionOffsets = null;
+        this.collapsedFunction = null;
+    }
+
+    private MeshTemplate(MeshTemplate meshTemplate, MeshCollapsedFunction collapsedFunction) {
+        // Collapsed templates only keep the vertices on their pins, and generate one function in place of everything
+        // inside them, so any wires inside the template no longer have states of their own
+        this.vertexCount = meshTemplate.boundaryCount;
+        this.boundaryCount = meshTemplate.boundaryCount;
+        this.pinVertices.putAll(meshTemplate.pinVertices);
+        meshTemplate.wireNodeVertices.forEach((wireNode, vertex) -> {
+            if (vertex < boundaryCount)
+                wireNodeVertices.put(wireNode, vertex);
+        });
+        meshTemplate.wireSegmentVertices.forEach((wireSegment, vertex) -> {
+            if (vertex < boundaryCount)
+                wireSegmentVertices.put(wireSegment, vertex);
+        });
+        this.boundaryPins = meshTemplate.boundaryPins;
+        this.contentHash = meshTemplate.contentHash;
+        this.chips = null;
+        this.chipTemplates = null;
+        this.chipBoundaryVertices = null;
+        this.chipInternalOffsets = null;
+        this.instanceCount = 1;
+        this.connectorCount = 0;
+        this.functionCount = 1;
+        this.chipInstanceOffsets = null;
+        this.chipConnectorOffsets = null;
+        this.chipFunctionOffsets = null;
+        this.collapsedFunction = collapsedFunction;
+    }
+
+    private MeshTemplate(int vertexCount, int boundaryCount, Pin[] boundaryPins, String contentHash, Chip[] chips, MeshTemplate[] chipTemplates, int[] chipInternalOffsets) {
+        this.vertexCount = vertexCount;
+        this.boundaryCount = boundaryCount;
+        this.boundaryPins = boundaryPins;
+        this.contentHash = contentHash;
+        this.chips = chips;
+        this.chipTemplates = chipTemplates;
+        this.chipBoundaryVertices = new int[chips.length][];
+        this.chipInternalOffsets = chipInternalOffsets;
+
+        this.chipInstanceOffsets = new int[chips.length + 1];
+        this.chipConnectorOffsets = new int[chips.length + 1];
+        this.chipFunctionOffsets = new int[chips.length + 1];
+        for (int index = 0; index < chips.length; index++) {
+            chipInstanceOffsets[index + 1] = chipInstanceOffsets[index] + chipTemplates[index].instanceCount;
+            chipConnectorOffsets[index + 1] = chipConnectorOffsets[index] + chipTemplates[index].connectorCount;
+            chipFunctionOffsets[index + 1] = chipFunctionOffsets[index] + chipTemplates[index].functionCount;
+        }
+        this.instanceCount = 1 + chipInstanceOffsets[chips.length];
+        this.connectorCount = chipConnectorOffsets[chips.length];
+        this.functionCount = chipFunctionOffsets[chips.length];
+        this.collapsedFunction = null;
+    }
+
+    int getVertexCount() {
+        return vertexCount;
+    }
+
+    int getBoundaryCount() {
+        return boundaryCount;
+    }
+
+    int getConnectorCount() {
+        return connectorCount;
+    }
+
+    int getFunctionCount() {
+        return functionCount;
+    }
+
+    String getContentHash() {
+        return contentHash;
+    }
+
+    int getPinVertex(Pin pin) {
+        return pinVertices.getOrDefault(pin, -1);
+    }
+
+    int getWireNodeVertex(WireNode wireNode) {
+        return wireNodeVertices.getOrDefault(wireNode, -1);
+    }
+
+    int getWireSegmentVertex(WireSegment wireSegment) {
+        return wireSegmentVertices.getOrDefault(wireSegment, -1);
+    }
+
+    int getChipIndex(Chip chip) {
+        return chipIndices.getOrDefault(chip, -1);
+    }
+
+    MeshSimulatedDesign instantiate(MeshSimulationConfig simulationConfig, Chip chip) {
+        return instantiate(simulationConfig, chip, true);
+    }
+
+    MeshSimulatedDesign instantiate(MeshSimulationConfig simulationConfig, Chip chip, boolean parallel) {
+        // Create the vertex table for the instance up front
+        MeshVertex[] vertices = new MeshVertex[vertexCount];
+        Arrays.parallelSetAll(vertices, vertex -> new MeshVertex());
+        simulationConfig.getMeshVertices().addAll(Arrays.asList(vertices));
+
+        // Stamp the template's elements onto the vertex table, and then add what the built-in chips generated to the
+        // simulation configuration
+        MeshVertexStamp stamp = new MeshVertexStamp(vertices, simulationConfig.reserveConnectorIndices(connectorCount), connectorCount, functionCount);
+        stamp.setParallel(parallel);
+        MeshInstance instance = stampRoot(stamp, chip);
+        stamp.apply(simulationConfig);
+        return new MeshSimulatedDesign(instance, vertices);
+    }
+
+    MeshIndexStamp instantiateIndices(Chip chip, boolean parallel) {
+        // Stamp only the indices of the template's elements, which needs no vertices at all
+        MeshIndexStamp stamp = new MeshIndexStamp(vertexCount, connectorCount, functionCount);
+        stamp.setParallel(parallel);
+        stamp.setInstance(stampRoot(stamp, chip));
+        return stamp;
+    }
+
+    private MeshInstance stampRoot(MeshStamp stamp, Chip chip) {
+        // The root instance's pins are the first vertices in the table
+        int[] boundary = new int[boundaryCount];
+        for (int vertex = 0; vertex < boundaryCount; vertex++)
+            boundary[vertex] = vertex;
+        return stamp(stamp, chip, boundary, boundaryCount, 0, 0, 0);
+    }
+
+    private MeshInstance stamp(MeshStamp stamp, Chip chip, int[] boundary, int internalOffset, int id, int connectorSlot, int functionSlot) {
+        // If the template has no chips, this is a built-in chip or a collapsed template, so it provides the actual
+        // connectors and functions
+        if (chips == null) {
+            MeshInstance instance = new MeshInstance(id, this, boundary, internalOffset, null);
+            if (collapsedFunction != null)
+                MeshGenerator.generateFromCollapsedFunction(instance, stamp, collapsedFunction, functionSlot);
+            else
+                MeshGenerator.generateFromBuiltinChip(instance, stamp, chip, connectorSlot, functionSlot);
+            return instance;
+        }
+
+        // Stamp each chip, splitting large subtrees across the fork-join pool
+        MeshInstance[] chipInstances = new MeshInstance[chips.length];
+        ChipStampTask task = new ChipStampTask(stamp, boundary, internalOffset, id, connectorSlot, functionSlot, chipInstances, 0, chips.length);
+        if (stamp.isParallel() && instanceCount > PARALLEL_STAMP_THRESHOLD)
+            task.invoke();
+        else
+            task.stampChips();
+        return new MeshInstance(id, this, boundary, internalOffset, chipInstances);
+    }
+
+    private int resolve(int vertex, int[] boundary, int internalOffset) {
+        return vertex < boundaryCount ? boundary[vertex] : internalOffset + vertex - boundaryCount;
+    }
+
+    static MeshTemplate compile(ChipTemplate chipTemplate, Map<ChipTemplate, MeshTemplate> meshTemplates, MeshGenerationOptions options) {
+        // Each template is only compiled once, no matter how many chips use it
+        compileAll(List.of(chipTemplate), meshTemplates, options);
+        return meshTemplates.get(chipTemplate);
+    }
+
+    static MeshTemplate compile(Design design, Map<ChipTemplate, MeshTemplate> meshTemplates, MeshGenerationOptions options) {
+        // The top-level design is never collapsed, so all of its elements keep their own vertices
+        compileAll(design.getChips().stream().map(Chip::getChipTemplate).toList(), meshTemplates, options);
+        return compileDesign(design, meshTemplates, false);
+    }
+
+    private static void compileAll(Collection<ChipTemplate> chipTemplates, Map<ChipTemplate, MeshTemplate> meshTemplates, MeshGenerationOptions options) {
+        // Sort the templates that haven't been compiled yet into levels, so that each template only uses templates
+        // from lower levels
+        Map<ChipTemplate, Integer> templateLevels = new IdentityHashMap<>();
+        List<List<DesignedTemplate>> levels = new ArrayList<>();
+        for (ChipTemplate chipTemplate : chipTemplates)
+            findLevel(chipTemplate, meshTemplates, templateLevels, levels);
+
+        // The templates in a level don't depend on one another, so each level is compiled in parallel (which includes
+        // extracting the wire sets from each template's design).  The compiled templates are only added to the map
+        // once the whole level is done, so the map is never written to while it's being read.
+        for (List<DesignedTemplate> level : levels) {
+            List<MeshTemplate> compiledTemplates = level.parallelStream()
+                    .map(designedTemplate -> compileDesign(designedTemplate.getDesign(), meshTemplates, options.isCollapsingSwitchNetworks()))
+                    .map(meshTemplate -> options.isCharacterizingTemplates() ? characterize(meshTemplate) : meshTemplate)
+                    .toList();
+            for (int index = 0; index < level.size(); index++)
+                meshTemplates.put(level.get(index), compiledTemplates.get(index));
+        }
+    }
+
+    private static MeshTemplate characterize(MeshTemplate meshTemplate) {
+        // Templates that are already built-in or collapsed are as cheap to simulate as a table would be
+        if (meshTemplate.chips == null)
+            return meshTemplate;
+
+        // If the template is small and combinational, replace its contents with a lookup in its truth table
+        MeshTruthTable truthTable = MeshTruthTable.get(meshTemplate);
+        if (truthTable == null)
+            return meshTemplate;
+        return new MeshTemplate(meshTemplate, new MeshTruthTableFunction(truthTable, meshTemplate.boundaryPins));
+    }
+
+    private static int findLevel(ChipTemplate chipTemplate, Map<ChipTemplate, MeshTemplate> meshTemplates, Map<ChipTemplate, Integer> templateLevels, List<List<DesignedTemplate>> levels) {
+        // Templates that have already been compiled don't need a level
+        if (meshTemplates.containsKey(chipTemplate))
+            return -1;
+        Integer level = templateLevels.get(chipTemplate);
+        if (level != null)
+            return level;
+
+        // Built-in templates are cheap to compile, so they're compiled straight away
+        if (!(chipTemplate instanceof DesignedTemplate designedTemplate)) {
+            meshTemplates.put(chipTemplate, new MeshTemplate(chipTemplate));
+            return -1;
+        }
+
+        // Designed templates go in the level above the highest level of the templates they use
+        level = 0;
+        for (Chip chip : designedTemplate.getDesign().getChips())
+            level = Math.max(level, findLevel(chip.getChipTemplate(), meshTemplates, templateLevels, levels) + 1);
+        templateLevels.put(chipTemplate, level);
+        while (levels.size() <= level)
+            levels.add(new ArrayList<>());
+        levels.get(level).add(designedTemplate);
+        return level;
+    }
+
+    private static MeshTemplate compileDesign(Design design, Map<ChipTemplate, MeshTemplate> meshTemplates, boolean collapsible) {
+        // Give each of the design's pins a slot, followed by a slot for each vertex on the pins of each chip
+        List<Pin> pins = new ArrayList<>(design.getPins());
+        Map<Pin, Integer> pinSlots = new HashMap<>();
+        for (Pin pin : pins)
+            pinSlots.put(pin, pinSlots.size());
+        Chip[] chips = design.getChips().toArray(new Chip[0]);
+        MeshTemplate[] chipTemplates = new MeshTemplate[chips.length];
+        Map<Chip, Integer> chipIndices = new HashMap<>();
+        int[] chipSlots = new int[chips.length];
+        int slotCount = pins.size();
+        for (int index = 0; index < chips.length; index++) {
+            chipTemplates[index] = meshTemplates.get(chips[index].getChipTemplate());
+            chipIndices.put(chips[index], index);
+            chipSlots[index] = slotCount;
+            slotCount += chipTemplates[index].boundaryCount;
+        }
+
+        // Join the slots connected by each set of wires, keeping one slot for each set so its wires can be mapped
+        int[] parents = new int[slotCount];
+        for (int slot = 0; slot < slotCount; slot++)
+            parents[slot] = slot;
+        Set<MeshWireSet> wireSets = MeshWireSet.generate(design);
+        Map<MeshWireSet, Integer> wireSetSlots = new LinkedHashMap<>();
+        for (MeshWireSet wireSet : wireSets) {
+            int firstSlot = -1;
+            for (ChipPin pin : wireSet.getConnectedPins()) {
+                int slot = findSlot(pin, pinSlots, chipIndices, chipSlots, chipTemplates);
+                if (slot < 0)
+                    continue;
+                if (firstSlot < 0)
+                    firstSlot = slot;
+                else
+                    parents[find(parents, slot)] = find(parents, firstSlot);
+            }
+            if (firstSlot >= 0)
+                wireSetSlots.put(wireSet, firstSlot);
+        }
+
+        // Number the joined slots, starting with the ones on the design's pins so those are the template's boundary
+        int[] slotVertices = new int[slotCount];
+        int[] rootVertices = new int[slotCount];
+        Arrays.fill(rootVertices, -1);
+        int vertexCount = 0, boundaryCount = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int root = find(parents, slot);
+            if (rootVertices[root] < 0)
+                rootVertices[root] = vertexCount++;
+            slotVertices[slot] = rootVertices[root];
+            if (slot == pins.size() - 1)
+                boundaryCount = vertexCount;
+        }
+
+        // Each vertex on the design's pins is read and driven through the first pin on it
+        Pin[] boundaryPins = new Pin[boundaryCount];
+        for (int slot = 0; slot < pins.size(); slot++) {
+            if (boundaryPins[slotVertices[slot]] == null)
+                boundaryPins[slotVertices[slot]] = pins.get(slot);
+        }
+
+        // If the design is a small network of transistors, it will be collapsed into a single function
+        MeshSwitchNetwork switchNetwork = collapsible ? findSwitchNetwork(boundaryPins, slotVertices, vertexCount, chips, chipTemplates, chipSlots) : null;
+        String contentHash = hashContent(slotVertices, pins.size(), boundaryCount, chipTemplates, chipSlots);
+
+        // Each chip's internal vertices follow in one contiguous block
+        int[] chipInternalOffsets = new int[chips.length];
+        for (int index = 0; index < chips.length; index++) {
+            chipInternalOffsets[index] = vertexCount;
+            vertexCount += chipTemplates[index].vertexCount - chipTemplates[index].boundaryCount;
+        }
+
+        // Record the local vertices of all the design's elements
+        MeshTemplate meshTemplate = new MeshTemplate(vertexCount, boundaryCount, boundaryPins, contentHash, chips, chipTemplates, chipInternalOffsets);
+        for (Pin pin : pins)
+            meshTemplate.pinVertices.put(pin, slotVertices[pinSlots.get(pin)]);
+        meshTemplate.chipIndices.putAll(chipIndices);
+        for (int index = 0; index < chips.length; index++)
+            meshTemplate.chipBoundaryVertices[index] = Arrays.copyOfRange(slotVertices, chipSlots[index], chipSlots[index] + chipTemplates[index].boundaryCount);
+        for (Map.Entry<MeshWireSet, Integer> entry : wireSetSlots.entrySet()) {
+            int vertex = slotVertices[entry.getValue()];
+            for (WireNode node : entry.getKey().getWireNodes())
+                meshTemplate.wireNodeVertices.put(node, vertex);
+            for (WireSegment segment : entry.getKey().getWireSegments())
+                meshTemplate.wireSegmentVertices.put(segment, vertex);
+        }
+
+        return switchNetwork != null ? new MeshTemplate(meshTemplate, switchNetwork) : meshTemplate;
+    }
+
+    private class ChipStampTask extends RecursiveAction {
+
+        // Stamps a range of the template's chips for one instance of the template
+        private final MeshStamp stamp;
+        private final int[] boundary;
+        private final int internalOffset;
+        private final int id;
+        private final int connectorSlot;
+        private final int functionSlot;
+        private final MeshInstance[] chipInstances;
+        private final int from, to;
+
+        private ChipStampTask(MeshStamp stamp, int[] boundary, int internalOffset, int id, int connectorSlot, int functionSlot, MeshInstance[] chipInstances, int from, int to) {
+            this.stamp = stamp;
+            this.boundary = boundary;
+            this.internalOffset = internalOffset;
+            this.id = id;
+            this.connectorSlot = connectorSlot;
+            this.functionSlot = functionSlot;
+            this.chipInstances = chipInstances;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            // Keep halving the range while it holds enough instances to be worth splitting
+            if (to - from > 1 && chipInstanceOffsets[to] - chipInstanceOffsets[from] > PARALLEL_STAMP_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new ChipStampTask(stamp, boundary, internalOffset, id, connectorSlot, functionSlot, chipInstances, from, middle),
+                        new ChipStampTask(stamp, boundary, internalOffset, id, connectorSlot, functionSlot, chipInstances, middle, to)
+                );
+            } else {
+                stampChips();
+            }
+        }
+
+        private void stampChips() {
+            // Translate each chip's local vertices into indices in the vertex table.  Instances, connectors, and
+            // functions are numbered as if the whole tree were stamped depth-first.
+            for (int index = from; index < to; index++) {
+                MeshTemplate chipTemplate = chipTemplates[index];
+                int[] chipBoundary = new int[chipTemplate.boundaryCount];
+                for (int vertex = 0; vertex < chipBoundary.length; vertex++)
+                    chipBoundary[vertex] = resolve(chipBoundaryVertices[index][vertex], boundary, internalOffset);
+                int chipInternalOffset = internalOffset + chipInternalOffsets[index] - boundaryCount;
+                chipInstances[index] = chipTemplate.stamp(
+                        stamp,
+                        chips[index],
+                        chipBoundary,
+                        chipInternalOffset,
+                        id + 1 + chipInstanceOffsets[index],
+                        connectorSlot + chipConnectorOffsets[index],
+                        functionSlot + chipFunctionOffsets[index]
+                );
+            }
+        }
+    }
+
+    private static MeshSwitchNetwork findSwitchNetwork(Pin[] boundaryPins, int[] slotVertices, int vertexCount, Chip[] chips, MeshTemplate[] chipTemplates, int[] chipSlots) {
+        // Only designs made entirely of a few transistors can be collapsed
+        if (chips.length == 0 || chips.length > MAXIMUM_COLLAPSED_TRANSISTORS)
+            return null;
+        int[] bases = new int[chips.length];
+        boolean[] activeLow = new boolean[chips.length];
+        int[] starts = new int[chips.length];
+        int[] ends = new int[chips.length];
+        boolean[] driven = new boolean[vertexCount];
+        for (int index = 0; index < chips.length; index++) {
+            if (!(chips[index].getChipTemplate() instanceof TransistorTemplate template))
+                return null;
+            bases[index] = slotVertices[chipSlots[index] + chipTemplates[index].getPinVertex(template.getBase())];
+            activeLow[index] = template.isActiveLow();
+            starts[index] = slotVertices[chipSlots[index] + chipTemplates[index].getPinVertex(template.getActiveSignalInput())];
+            ends[index] = slotVertices[chipSlots[index] + chipTemplates[index].getPinVertex(template.getActiveSignalOutput())];
+            driven[ends[index]] = true;
+        }
+
+        // The network can't switch itself (which would make it sequential), so every base has to be on the design's
+        // pins and not be driven by any transistor.  States enter the network at the vertices that transistors
+        // conduct from but that no transistor drives, which also have to be on the design's pins.
+        int boundaryCount = boundaryPins.length;
+        Set<Integer> sources = new TreeSet<>();
+        Set<Integer> outputs = new TreeSet<>();
+        for (int index = 0; index < chips.length; index++) {
+            if (bases[index] >= boundaryCount || driven[bases[index]])
+                return null;
+            if (!driven[starts[index]]) {
+                if (starts[index] >= boundaryCount)
+                    return null;
+                sources.add(starts[index]);
+            }
+            if (ends[index] < boundaryCount)
+                outputs.add(ends[index]);
+        }
+        if (outputs.isEmpty())
+            return null;
+
+        return new MeshSwitchNetwork(
+                vertexCount,
+                bases,
+                activeLow,
+                starts,
+                ends,
+                sources.stream().mapToInt(Integer::intValue).toArray(),
+                outputs.stream().mapToInt(Integer::intValue).toArray(),
+                boundaryPins
+        );
+    }
+
+    private static String hashContent(int[] slotVertices, int pinCount, int boundaryCount, MeshTemplate[] chipTemplates, int[] chipSlots) {
+        // The local vertices of the design's pins and chips, along with the content of each chip's template, determine
+        // everything about how the template simulates
+        StringBuilder content = new StringBuilder().append(boundaryCount);
+        for (int slot = 0; slot < pinCount; slot++)
+            content.append(',').append(slotVertices[slot]);
+        for (int index = 0; index < chipTemplates.length; index++) {
+            content.append(';').append(chipTemplates[index].contentHash);
+            for (int slot = chipSlots[index]; slot < chipSlots[index] + chipTemplates[index].boundaryCount; slot++)
+                content.append(',').append(slotVertices[slot]);
+        }
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new MeshException("Could not hash the content of a template.", e);
+        }
+    }
+
+    private static int findSlot(ChipPin pin, Map<Pin, Integer> pinSlots, Map<Chip, Integer> chipIndices, int[] chipSlots, MeshTemplate[] chipTemplates) {
+        // Pins without a chip are the design's own pins
+        if (pin.getChip() == null)
+            return pinSlots.getOrDefault(pin.getPin(), -1);
+        Integer index = chipIndices.get(pin.getChip());
+        if (index == null)
+            return -1;
+        Integer vertex = chipTemplates[index].pinVertices.get(pin.getPin());
+        return vertex == null ? -1 : chipSlots[index] + vertex;
+    }
+
+    private static int find(int[] parents, int slot) {
+        // Find the root of the set, halving the path on the way
+        while (parents[slot] != slot) {
+            parents[slot] = parents[parents[slot]];
+            slot = parents[slot];
+        }
+        return slot;
+    }
+}
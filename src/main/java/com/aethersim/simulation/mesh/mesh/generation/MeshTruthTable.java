@@ -0,0 +1,256 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.templates.ConstantTemplate;
+import com.aethersim.logging.AetherSimLogging;
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.mesh.mesh.MeshEdge;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshSimulatedDesign;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.netlist.BatchNetlist;
+import com.aethersim.simulation.netlist.NetlistCompiler;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+class MeshTruthTable {
+
+    static final int MAXIMUM_INPUTS = 16;
+    private static final int MAXIMUM_SETTLE_TICKS = 1000;
+    private static final int QUIET_TICKS = 3;
+
+    private static final LogicState[] STATES = LogicState.values();
+
+    // Templates with the same content simulate the same way, so they share a table (or the lack of one) for the rest
+    // of the session
+    private static final Map<String, Optional<MeshTruthTable>> TRUTH_TABLES = new ConcurrentHashMap<>();
+
+    // Inputs and outputs are local vertices on the template's pins.  States are stored as ordinals, with the states of
+    // all outputs for each combination of inputs stored together.  The input with index n is bit n of a combination.
+    // The settle ticks are the most ticks the template took to settle for any combination when simulated in full.
+    private final int[] inputs;
+    private final int[] outputs;
+    private final byte[] drivenStates;
+    private final byte[] pulledStates;
+    private final int settleTicks;
+
+    private MeshTruthTable(int[] inputs, int[] outputs, byte[] drivenStates, byte[] pulledStates, int settleTicks) {
+        this.inputs = inputs;
+        this.outputs = outputs;
+        this.drivenStates = drivenStates;
+        this.pulledStates = pulledStates;
+        this.settleTicks = settleTicks;
+    }
+
+    int[] getInputs() {
+        return inputs;
+    }
+
+    int[] getOutputs() {
+        return outputs;
+    }
+
+    LogicState getDrivenState(int combination, int output) {
+        return STATES[drivenStates[combination * outputs.length + output]];
+    }
+
+    LogicState getPulledState(int combination, int output) {
+        return STATES[pulledStates[combination * outputs.length + output]];
+    }
+
+    int getSettleTicks() {
+        return settleTicks;
+    }
+
+    static MeshTruthTable get(MeshTemplate meshTemplate) {
+        // Characterizing a template is expensive, so it is done outside the map to avoid blocking other templates
+        Optional<MeshTruthTable> truthTable = TRUTH_TABLES.get(meshTemplate.getContentHash());
+        if (truthTable == null) {
+            truthTable = Optional.ofNullable(characterize(meshTemplate));
+            TRUTH_TABLES.putIfAbsent(meshTemplate.getContentHash(), truthTable);
+        }
+        return truthTable.orElse(null);
+    }
+
+    private static MeshTruthTable characterize(MeshTemplate meshTemplate) {
+        // Stamp out a copy of the template on its own, so it can be simulated for every combination of inputs
+        MeshSimulationConfig simulationConfig = new MeshSimulationConfig();
+        MeshSimulatedDesign simulatedDesign = meshTemplate.instantiate(simulationConfig, null);
+        simulationConfig.setTopLevelSimulatedDesign(simulatedDesign);
+        MeshVertex[] vertices = simulatedDesign.getVertices();
+        Map<MeshVertex, Integer> vertexIndices = new IdentityHashMap<>();
+        for (MeshVertex vertex : vertices)
+            vertexIndices.put(vertex, vertexIndices.size());
+
+        // Build the graph of which vertices affect which others.  Functions that keep state of their own (or read
+        // anything other than their inputs) can't be captured in a table.
+        List<List<Integer>> successors = new ArrayList<>();
+        for (int vertex = 0; vertex < vertices.length; vertex++)
+            successors.add(new ArrayList<>());
+        boolean[] driven = new boolean[vertices.length];
+        boolean[] read = new boolean[vertices.length];
+        for (int vertex = 0; vertex < vertices.length; vertex++) {
+            for (MeshEdge edge : vertices[vertex].getOutgoingEdges()) {
+                int end = vertexIndices.get(edge.endpoint());
+                int decider = vertexIndices.get(edge.connector().getDecider());
+                successors.get(vertex).add(end);
+                successors.get(decider).add(end);
+                driven[end] = true;
+                read[vertex] = true;
+                read[decider] = true;
+            }
+        }
+        for (MeshFunction<?> meshFunction : simulationConfig.getMeshChips()) {
+            if (!(meshFunction.getSimulatedTemplate() instanceof MeshCollapsedFunction) && !(meshFunction.getSimulatedTemplate() instanceof ConstantTemplate))
+                return null;
+            for (MeshVertex output : meshFunction.getOutputVertices().values()) {
+                driven[vertexIndices.get(output)] = true;
+                for (MeshVertex input : meshFunction.getInputVertices().values()) {
+                    successors.get(vertexIndices.get(input)).add(vertexIndices.get(output));
+                    read[vertexIndices.get(input)] = true;
+                }
+            }
+        }
+        if (hasCycle(successors))
+            return null;
+
+        // Inputs are the pins the template only reads from, and outputs are the pins it only drives.  Pins that are
+        // both driven and read inside the template would see states from outside of it, so they can't be tabled.
+        List<Integer> inputList = new ArrayList<>();
+        List<Integer> outputList = new ArrayList<>();
+        for (int vertex = 0; vertex < meshTemplate.getBoundaryCount(); vertex++) {
+            if (driven[vertex] && read[vertex])
+                return null;
+            else if (driven[vertex])
+                outputList.add(vertex);
+            else if (read[vertex])
+                inputList.add(vertex);
+        }
+        if (inputList.size() > MAXIMUM_INPUTS || outputList.isEmpty())
+            return null;
+        int[] inputs = inputList.stream().mapToInt(Integer::intValue).toArray();
+        int[] outputs = outputList.stream().mapToInt(Integer::intValue).toArray();
+
+        // Drive each input from a chip of its own, which lets each lane of a batch netlist try a different combination
+        Chip[] inputChips = new Chip[inputs.length];
+        for (int input = 0; input < inputs.length; input++) {
+            InputDriver inputDriver = new InputDriver();
+            inputChips[input] = inputDriver.createChip();
+            MeshFunction<?> meshFunction = new MeshFunction<>(inputChips[input], inputDriver);
+            meshFunction.getOutputVertices().put(InputDriver.OUTPUT, vertices[inputs[input]]);
+            simulationConfig.getMeshChips().add(meshFunction);
+        }
+        BatchNetlist batchNetlist = new BatchNetlist(NetlistCompiler.compile(simulationConfig));
+
+        // Simulate each batch of combinations until every vertex settles, and record the states of the outputs
+        int combinationCount = 1 << inputs.length;
+        byte[] drivenStates = new byte[combinationCount * outputs.length];
+        byte[] pulledStates = new byte[combinationCount * outputs.length];
+        int settleTicks = 0;
+        for (int firstCombination = 0; firstCombination < combinationCount; firstCombination += BatchNetlist.LANES) {
+            int laneCount = Math.min(BatchNetlist.LANES, combinationCount - firstCombination);
+            for (int lane = 0; lane < BatchNetlist.LANES; lane++) {
+                // Lanes past the last combination repeat it, so they settle along with the others
+                int combination = firstCombination + Math.min(lane, laneCount - 1);
+                for (int input = 0; input < inputs.length; input++)
+                    batchNetlist.setDrivenState(inputChips[input], lane, ((combination >>> input) & 1) != 0 ? LogicState.HIGH : LogicState.LOW);
+            }
+
+            int ticks = settle(batchNetlist, vertices.length);
+            if (ticks < 0) {
+                AetherSimLogging.getSimulationLogger().debug("Template {} did not settle, so it will not be characterized.", meshTemplate.getContentHash());
+                return null;
+            }
+            settleTicks = Math.max(settleTicks, ticks);
+
+            for (int lane = 0; lane < laneCount; lane++) {
+                for (int output = 0; output < outputs.length; output++) {
+                    LogicState propagatedActualState = batchNetlist.getPropagatedActualState(outputs[output], lane);
+                    LogicState suggestedState = batchNetlist.getSuggestedState(outputs[output], lane);
+                    int index = (firstCombination + lane) * outputs.length + output;
+                    drivenStates[index] = (byte) MeshCollapsedFunction.getDrivenState(propagatedActualState).ordinal();
+                    pulledStates[index] = (byte) MeshCollapsedFunction.getPulledState(suggestedState).ordinal();
+                }
+            }
+        }
+
+        AetherSimLogging.getSimulationLogger().debug(
+                "Characterized template {} ({} inputs, {} outputs, settles within {} ticks).",
+                meshTemplate.getContentHash(),
+                inputs.length,
+                outputs.length,
+                settleTicks
+        );
+        return new MeshTruthTable(inputs, outputs, drivenStates, pulledStates, settleTicks);
+    }
+
+    private static int settle(BatchNetlist batchNetlist, int vertexCount) {
+        // Each batch starts from the same connector states, and is settled once no vertex changes for a few ticks and
+        // no connector is still counting down its delay
+        batchNetlist.reset();
+        long[] lowLanes = new long[vertexCount];
+        long[] highLanes = new long[vertexCount];
+        int lastChange = 0;
+        for (int tick = 1; tick <= MAXIMUM_SETTLE_TICKS; tick++) {
+            batchNetlist.tick();
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                long low = batchNetlist.getActualLowLanes(vertex);
+                long high = batchNetlist.getActualHighLanes(vertex);
+                if (low != lowLanes[vertex] || high != highLanes[vertex]) {
+                    lowLanes[vertex] = low;
+                    highLanes[vertex] = high;
+                    lastChange = tick;
+                }
+            }
+            if (tick - lastChange >= QUIET_TICKS && !batchNetlist.isSwitching())
+                return lastChange;
+        }
+        return -1;
+    }
+
+    private static boolean hasCycle(List<List<Integer>> successors) {
+        // Iterative depth-first search, where vertices on the current path are marked as visiting
+        byte[] marks = new byte[successors.size()];
+        int[] stack = new int[successors.size()];
+        int[] positions = new int[successors.size()];
+        for (int root = 0; root < successors.size(); root++) {
+            if (marks[root] != 0)
+                continue;
+            int stackSize = 0;
+            stack[stackSize++] = root;
+            marks[root] = 1;
+            while (stackSize > 0) {
+                int vertex = stack[stackSize - 1];
+                if (positions[vertex] < successors.get(vertex).size()) {
+                    int successor = successors.get(vertex).get(positions[vertex]++);
+                    if (marks[successor] == 1)
+                        return true;
+                    if (marks[successor] == 0) {
+                        marks[successor] = 1;
+                        stack[stackSize++] = successor;
+                    }
+                } else {
+                    marks[vertex] = 2;
+                    stackSize--;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static class InputDriver extends MeshCollapsedFunction {
+
+        private static final Pin OUTPUT = new Pin();
+
+        private InputDriver() {
+            getOutputPins().add(OUTPUT);
+        }
+
+        @Override
+        public void simulate(State state) {
+            // The batch netlist overrides the driven state in each lane
+        }
+    }
+}
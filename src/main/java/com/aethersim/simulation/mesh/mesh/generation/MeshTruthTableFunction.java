@@ -0,0 +1,45 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Pin;
+import com.aethersim.simulation.LogicState;
+
+class MeshTruthTableFunction extends MeshCollapsedFunction {
+
+    private final MeshTruthTable truthTable;
+
+    MeshTruthTableFunction(MeshTruthTable truthTable, Pin[] vertexPins) {
+        this.truthTable = truthTable;
+
+        // The function reads and drives the first pin on each of the table's vertices.  Each vertex has its own pin,
+        // so the slot of each pin is the same as its index in the table.
+        for (int input : truthTable.getInputs())
+            getInputPins().add(vertexPins[input]);
+        for (int output : truthTable.getOutputs())
+            getOutputPins().add(vertexPins[output]);
+    }
+
+    @Override
+    public void simulate(State state) {
+        // The table only covers inputs that are low or high, so anything else leaves the outputs undriven
+        int inputCount = truthTable.getInputs().length;
+        int outputCount = truthTable.getOutputs().length;
+        int combination = 0;
+        for (int input = 0; input < inputCount; input++) {
+            LogicState inputState = getRectifiedState(state.getDrivenInputState(input), state.getPulledInputState(input));
+            if (inputState == LogicState.HIGH) {
+                combination |= 1 << input;
+            } else if (inputState != LogicState.LOW) {
+                for (int output = 0; output < outputCount; output++) {
+                    state.setDrivenOutputState(output, LogicState.UNKNOWN);
+                    state.setPulledOutputState(output, LogicState.UNKNOWN);
+                }
+                return;
+            }
+        }
+
+        for (int output = 0; output < outputCount; output++) {
+            state.setDrivenOutputState(output, truthTable.getDrivenState(combination, output));
+            state.setPulledOutputState(output, truthTable.getPulledState(combination, output));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.templates.SimulatedTemplate;
+import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshEdge;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+
+class MeshVertexStamp extends MeshStamp {
+
+    // Stamps the mesh's object graph.  Nothing is added to the shared vertices or the simulation configuration until
+    // stamping finishes, which leaves the mesh exactly as it would be if the chips were stamped one at a time.
+    private final MeshVertex[] vertices;
+    private final int firstConnectorIndex;
+    private final MeshVertex[] edgeStarts;
+    private final MeshEdge[] edges;
+    private final MeshFunction<?>[] functions;
+
+    MeshVertexStamp(MeshVertex[] vertices, int firstConnectorIndex, int connectorCount, int functionCount) {
+        this.vertices = vertices;
+        this.firstConnectorIndex = firstConnectorIndex;
+        this.edgeStarts = new MeshVertex[connectorCount];
+        this.edges = new MeshEdge[connectorCount];
+        this.functions = new MeshFunction<?>[functionCount];
+    }
+
+    @Override
+    void stampConnector(int connectorSlot, int decider, boolean activeLow, int start, int end) {
+        // Create a mesh connector for the transistor (indexed in depth-first order, which keeps switching delays the
+        // same between runs), and an edge for it, which is attached to the start vertex once stamping finishes
+        MeshConnector connector = new MeshConnector(firstConnectorIndex + connectorSlot, vertices[decider], activeLow);
+        edgeStarts[connectorSlot] = vertices[start];
+        edges[connectorSlot] = new MeshEdge(vertices[end], connector);
+    }
+
+    @Override
+    void stampFunction(int functionSlot, MeshInstance instance, Chip chip, SimulatedTemplate<?> simulatedTemplate) {
+        functions[functionSlot] = MeshGenerator.generateFunction(instance, vertices, chip, simulatedTemplate);
+    }
+
+    void apply(MeshSimulationConfig simulationConfig) {
+        // Attach the edges and register everything in slot order
+        for (int slot = 0; slot < edges.length; slot++) {
+            edgeStarts[slot].getOutgoingEdges().add(edges[slot]);
+            simulationConfig.getMeshConnectors().add(edges[slot].connector());
+        }
+        for (MeshFunction<?> function : functions)
+            simulationConfig.getMeshChips().add(function);
+    }
+}
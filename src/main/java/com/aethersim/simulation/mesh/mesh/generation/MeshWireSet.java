@@ -3,11 +3,10 @@ package com.aethersim.simulation.mesh.mesh.generation;
 import com.aethersim.designs.ChipPin;
 import com.aethersim.designs.Design;
 import com.aethersim.designs.wires.WireNode;
+import com.aethersim.designs.wires.WireRoutable;
 import com.aethersim.designs.wires.WireSegment;
 
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public class MeshWireSet {
@@ -51,60 +50,53 @@ public class MeshWireSet {
     }
 
     public static Set<MeshWireSet> generate(Design design) {
-        Set<MeshWireSet> results = new LinkedHashSet<>();
-
-        Set<WireNode> allNodes = new LinkedHashSet<>(design.getWireNodes());
-        Set<WireSegment> allSegments = new LinkedHashSet<>(design.getWireSegments());
-
-        // Iterate over all nodes in the design, and generate a set of all segments and other nodes connected to
-        // that node.  For each set of unique nodes/segments, create a new wire set
-        while (!allNodes.isEmpty()) {
-            Set<WireNode> nodes = new LinkedHashSet<>();
-            Set<WireSegment> segments = new LinkedHashSet<>();
-
-            // Pick a random starting node of the nodes remaining
-            WireNode startNode = allNodes.iterator().next();
-            generate(allNodes, allSegments, nodes, segments, startNode);
-
-            // Generate a new wire set and add it to the set of results
-            results.add(new MeshWireSet(nodes, segments));
+        // Number every node, followed by every segment, so connected wire elements can be joined using a union-find
+        WireNode[] nodes = design.getWireNodes().toArray(new WireNode[0]);
+        WireSegment[] segments = design.getWireSegments().toArray(new WireSegment[0]);
+        Map<WireNode, Integer> nodeIndices = new HashMap<>();
+        for (WireNode node : nodes)
+            nodeIndices.put(node, nodeIndices.size());
+        int[] parents = new int[nodes.length + segments.length];
+        for (int index = 0; index < parents.length; index++)
+            parents[index] = index;
+
+        // Join each segment to the nodes at its endpoints, which joins all the segments attached to the same node
+        // without ever comparing segments to one another
+        for (int segment = 0; segment < segments.length; segment++) {
+            for (WireRoutable endpoint : segments[segment].getEndpoints()) {
+                Integer node = endpoint instanceof WireNode ? nodeIndices.get(endpoint) : null;
+                if (node != null)
+                    parents[find(parents, nodes.length + segment)] = find(parents, node);
+            }
         }
 
-        // If we're all out of nodes, check if we have segments remaining.  These will be standalone
-        // mesh wire sets that connect pin->pin
-        for (WireSegment wireSegment : allSegments) {
-            results.add(new MeshWireSet(Set.of(), Set.of(wireSegment)));
+        // Group the nodes and segments by the set they were joined into.  Sets containing nodes come first, in node
+        // order, followed by the segments that connect pins directly to one another.
+        Map<Integer, Set<WireNode>> setNodes = new LinkedHashMap<>();
+        Map<Integer, Set<WireSegment>> setSegments = new LinkedHashMap<>();
+        for (int node = 0; node < nodes.length; node++) {
+            int root = find(parents, node);
+            setNodes.computeIfAbsent(root, key -> new LinkedHashSet<>()).add(nodes[node]);
+            setSegments.computeIfAbsent(root, key -> new LinkedHashSet<>());
+        }
+        for (int segment = 0; segment < segments.length; segment++) {
+            int root = find(parents, nodes.length + segment);
+            setNodes.computeIfAbsent(root, key -> Set.of());
+            setSegments.computeIfAbsent(root, key -> new LinkedHashSet<>()).add(segments[segment]);
         }
 
+        Set<MeshWireSet> results = new LinkedHashSet<>();
+        for (Map.Entry<Integer, Set<WireNode>> entry : setNodes.entrySet())
+            results.add(new MeshWireSet(entry.getValue(), setSegments.get(entry.getKey())));
         return results;
     }
 
-    private static void generate(final Set<WireNode> remainingNodes, final Set<WireSegment> remainingSegments,
-                                 final Set<WireNode> resultNodes, final Set<WireSegment> resultSegments,
-                                 WireNode startNode) {
-        // Remove the wire node from the set of remaining nodes (so we don't iterate through it again)
-        remainingNodes.remove(startNode);
-        // Add the node to the results, and generate a list of segments connected to this node
-        resultNodes.add(startNode);
-        Set<WireSegment> connectedSegments = remainingSegments.stream()
-                .filter(wireSegment -> wireSegment.getEndpoints().contains(startNode))
-                .collect(Collectors.toSet());
-
-        // Add the found sets to the result set, and then remove them from the set of remaining segments
-        resultSegments.addAll(connectedSegments);
-        remainingSegments.removeAll(connectedSegments);
-
-        // Now, iterate over all other node endpoints that are still in the remaining set of nodes
-        connectedSegments.stream()
-                .map(WireSegment::getEndpoints)
-                .flatMap(List::stream)
-                .filter(endpoint -> endpoint instanceof WireNode)
-                .map(endpoint -> (WireNode) endpoint)
-                .filter(remainingNodes::contains)
-                .forEach(wireNode -> generate(
-                        remainingNodes, remainingSegments,
-                        resultNodes, resultSegments,
-                        wireNode
-                ));
+    private static int find(int[] parents, int index) {
+        // Find the root of the set, halving the path on the way
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
     }
 }
@@ -0,0 +1,319 @@
+package com.aethersim.simulation.mesh.snapshots;
+
+import com.aethersim.simulation.ChipState;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class MeshHistory {
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1024;
+    public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+    // Each change in the delta log is packed into a long, with the kind of element in the top two bits, the index of
+    // the vertex or connector (or the offset into the chip states) in the middle, and its new state in the low 16 bits
+    private static final int VERTEX = 0, CONNECTOR = 1, CHIP = 2;
+    private static final int KIND_SHIFT = 62;
+    private static final int INDEX_SHIFT = 16;
+    private static final long INDEX_MASK = (1L << (KIND_SHIFT - INDEX_SHIFT)) - 1;
+    private static final long[] NO_CHANGES = new long[0];
+
+    // Approximate heap overhead of each tick's delta array, used when accounting memory
+    private static final int DELTA_OVERHEAD = 24;
+
+    private final int checkpointInterval;
+    private final long memoryBudget;
+
+    // The states as of the latest recorded tick, which each new tick is compared against
+    private short[] vertexStates = new short[0];
+    private short[] connectorStates = new short[0];
+    private byte[] chipStates = new byte[0];
+    private ByteBuffer chipStateBuffer = ByteBuffer.allocate(0);
+    private int functionCount = 0;
+    private long fingerprint = 0;
+
+    // The position of each vertex and connector, and the offset of each function's chip state, so that ticks which
+    // only touched part of the mesh can be recorded without going through the rest of it
+    private final Map<MeshVertex, Integer> vertexIndices = new IdentityHashMap<>();
+    private final Map<MeshConnector, Integer> connectorIndices = new IdentityHashMap<>();
+    private final Map<MeshFunction<?>, Integer> chipStateOffsets = new IdentityHashMap<>();
+
+    // Checkpoints are stored oldest first, and the first one is always at the earliest tick in the history.  Entry n of
+    // the delta log holds the changes from tick (earliest + n) to the tick after it.
+    private final Deque<MeshSnapshot> checkpoints = new ArrayDeque<>();
+    private final List<long[]> deltas = new ArrayList<>();
+    private long earliestTick = 0;
+    private long memoryUsage = 0;
+
+    // Scratch space for the changes found during a tick
+    private long[] changes = new long[64];
+
+    public MeshHistory() {
+        this(DEFAULT_CHECKPOINT_INTERVAL, DEFAULT_MEMORY_BUDGET);
+    }
+
+    public MeshHistory(int checkpointInterval, long memoryBudget) {
+        if (checkpointInterval <= 0 || memoryBudget <= 0)
+            throw new IllegalArgumentException("Checkpoint intervals and memory budgets must be positive.");
+        this.checkpointInterval = checkpointInterval;
+        this.memoryBudget = memoryBudget;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    public int getCheckpointCount() {
+        return checkpoints.size();
+    }
+
+    public long getEarliestTick() {
+        return earliestTick;
+    }
+
+    public long getLatestTick() {
+        return earliestTick + deltas.size();
+    }
+
+    public void start(MeshSimulationConfig simulationConfig, long tick) {
+        // Discard all history, and start again from the current state of the mesh
+        MeshSnapshot snapshot = MeshSnapshot.capture(simulationConfig, tick);
+        vertexStates = snapshot.getVertexStates().clone();
+        connectorStates = snapshot.getConnectorStates().clone();
+        chipStates = snapshot.getChipStates().clone();
+        chipStateBuffer = ByteBuffer.allocate(chipStates.length);
+        functionCount = snapshot.getFunctionCount();
+        fingerprint = snapshot.getFingerprint();
+
+        vertexIndices.clear();
+        for (MeshVertex vertex : simulationConfig.getMeshVertices())
+            vertexIndices.put(vertex, vertexIndices.size());
+        connectorIndices.clear();
+        for (MeshConnector connector : simulationConfig.getMeshConnectors())
+            connectorIndices.put(connector, connectorIndices.size());
+        chipStateOffsets.clear();
+        int offset = 0;
+        for (MeshFunction<?> function : simulationConfig.getMeshChips()) {
+            chipStateOffsets.put(function, offset);
+            offset += 4 + MeshSnapshot.snapshotSizeOf(function.getState());
+        }
+
+        checkpoints.clear();
+        deltas.clear();
+        checkpoints.add(snapshot);
+        earliestTick = tick;
+        memoryUsage = 2 * snapshot.getSize();
+    }
+
+    public void record(MeshSimulationConfig simulationConfig, long tick) {
+        // If ticks were skipped (or the mesh changed shape), the log can't bridge the gap, so start again
+        if (!continues(simulationConfig, tick) || MeshSnapshot.getChipStateSize(simulationConfig) != chipStates.length) {
+            start(simulationConfig, tick);
+            return;
+        }
+
+        // Compare every element against its state on the last tick, keeping the ones that changed
+        int changeCount = 0;
+        int index = 0;
+        for (MeshVertex vertex : simulationConfig.getMeshVertices()) {
+            short state = vertex.getSnapshotState();
+            if (state != vertexStates[index]) {
+                vertexStates[index] = state;
+                changeCount = addChange(changeCount, VERTEX, index, state);
+            }
+            index++;
+        }
+        index = 0;
+        for (MeshConnector connector : simulationConfig.getMeshConnectors()) {
+            short state = connector.getSnapshotState();
+            if (state != connectorStates[index]) {
+                connectorStates[index] = state;
+                changeCount = addChange(changeCount, CONNECTOR, index, state);
+            }
+            index++;
+        }
+
+        // Chip states are written into a scratch buffer and compared byte by byte
+        chipStateBuffer.clear();
+        MeshSnapshot.writeChipStates(simulationConfig, chipStateBuffer);
+        byte[] newChipStates = chipStateBuffer.array();
+        for (int offset = 0; offset < chipStates.length; offset++) {
+            if (newChipStates[offset] != chipStates[offset]) {
+                chipStates[offset] = newChipStates[offset];
+                changeCount = addChange(changeCount, CHIP, offset, newChipStates[offset]);
+            }
+        }
+
+        addDelta(tick, changeCount);
+    }
+
+    public void record(MeshSimulationConfig simulationConfig, long tick, List<MeshVertex> vertices, List<MeshConnector> connectors, List<MeshFunction<?>> functions) {
+        // Record a tick that only touched the specified elements, which is all that could have changed during it, so
+        // the cost of recording follows the activity in the mesh rather than its size
+        if (!continues(simulationConfig, tick)) {
+            start(simulationConfig, tick);
+            return;
+        }
+
+        int changeCount = 0;
+        for (int touched = 0; touched < vertices.size(); touched++) {
+            MeshVertex vertex = vertices.get(touched);
+            int index = vertexIndices.get(vertex);
+            short state = vertex.getSnapshotState();
+            if (state != vertexStates[index]) {
+                vertexStates[index] = state;
+                changeCount = addChange(changeCount, VERTEX, index, state);
+            }
+        }
+        for (int touched = 0; touched < connectors.size(); touched++) {
+            MeshConnector connector = connectors.get(touched);
+            int index = connectorIndices.get(connector);
+            short state = connector.getSnapshotState();
+            if (state != connectorStates[index]) {
+                connectorStates[index] = state;
+                changeCount = addChange(changeCount, CONNECTOR, index, state);
+            }
+        }
+
+        // Each chip state is written into the scratch buffer at its own offset, and compared byte by byte
+        for (int touched = 0; touched < functions.size(); touched++) {
+            MeshFunction<?> function = functions.get(touched);
+            int offset = chipStateOffsets.get(function);
+            ChipState state = function.getState();
+            int size = MeshSnapshot.snapshotSizeOf(state);
+            if (size != ByteBuffer.wrap(chipStates).getInt(offset)) {
+                // The chip's state was replaced with one of a different size, so the layout of the states changed
+                start(simulationConfig, tick);
+                return;
+            }
+            if (size == 0)
+                continue;
+            chipStateBuffer.clear().position(offset + 4);
+            state.writeSnapshot(chipStateBuffer);
+            byte[] newChipStates = chipStateBuffer.array();
+            for (int index = offset + 4; index < offset + 4 + size; index++) {
+                if (newChipStates[index] != chipStates[index]) {
+                    chipStates[index] = newChipStates[index];
+                    changeCount = addChange(changeCount, CHIP, index, newChipStates[index]);
+                }
+            }
+        }
+
+        addDelta(tick, changeCount);
+    }
+
+    private boolean continues(MeshSimulationConfig simulationConfig, long tick) {
+        // The log can only carry on from the latest tick, in a mesh with the same layout
+        return tick == getLatestTick() + 1 && simulationConfig.getFingerprint() == fingerprint
+                && simulationConfig.getMeshVertices().size() == vertexStates.length
+                && simulationConfig.getMeshConnectors().size() == connectorStates.length
+                && simulationConfig.getMeshChips().size() == functionCount;
+    }
+
+    private void addDelta(long tick, int changeCount) {
+        long[] delta = changeCount == 0 ? NO_CHANGES : Arrays.copyOf(changes, changeCount);
+        deltas.add(delta);
+        memoryUsage += sizeOf(delta);
+
+        // Take a checkpoint every few ticks, so seeking never has to replay more than one interval of the log
+        if (tick - checkpoints.getLast().getTick() >= checkpointInterval)
+            addCheckpoint();
+
+        evict();
+    }
+
+    public MeshSnapshot seek(long tick) {
+        if (tick < getEarliestTick() || tick > getLatestTick())
+            throw new MeshException("Tick " + tick + " is not in the simulation history (ticks " + getEarliestTick() + " to " + getLatestTick() + ").");
+
+        // Start from the latest checkpoint at or before the tick, and replay the log up to the tick
+        MeshSnapshot checkpoint = checkpoints.getFirst();
+        for (Iterator<MeshSnapshot> iterator = checkpoints.descendingIterator(); iterator.hasNext(); ) {
+            MeshSnapshot candidate = iterator.next();
+            if (candidate.getTick() <= tick) {
+                checkpoint = candidate;
+                break;
+            }
+        }
+        short[] seekVertexStates = checkpoint.getVertexStates().clone();
+        short[] seekConnectorStates = checkpoint.getConnectorStates().clone();
+        byte[] seekChipStates = checkpoint.getChipStates().clone();
+        for (long deltaTick = checkpoint.getTick(); deltaTick < tick; deltaTick++) {
+            for (long change : deltas.get((int) (deltaTick - earliestTick))) {
+                int index = (int) ((change >>> INDEX_SHIFT) & INDEX_MASK);
+                switch ((int) (change >>> KIND_SHIFT)) {
+                    case VERTEX -> seekVertexStates[index] = (short) change;
+                    case CONNECTOR -> seekConnectorStates[index] = (short) change;
+                    default -> seekChipStates[index] = (byte) change;
+                }
+            }
+        }
+
+        // The simulation carries on from the tick it seeks to, so anything recorded after it is discarded
+        while (checkpoints.getLast().getTick() > tick)
+            memoryUsage -= checkpoints.removeLast().getSize();
+        List<long[]> discardedDeltas = deltas.subList((int) (tick - earliestTick), deltas.size());
+        for (long[] delta : discardedDeltas)
+            memoryUsage -= sizeOf(delta);
+        discardedDeltas.clear();
+        vertexStates = seekVertexStates.clone();
+        connectorStates = seekConnectorStates.clone();
+        chipStates = seekChipStates.clone();
+
+        return new MeshSnapshot(tick, fingerprint, seekVertexStates, seekConnectorStates, functionCount, seekChipStates);
+    }
+
+    private void addCheckpoint() {
+        MeshSnapshot checkpoint = new MeshSnapshot(getLatestTick(), fingerprint, vertexStates.clone(), connectorStates.clone(), functionCount, chipStates.clone());
+        checkpoints.add(checkpoint);
+        memoryUsage += checkpoint.getSize();
+    }
+
+    private void evict() {
+        // If the log alone has outgrown the budget, checkpoint the latest tick early so the rest can be dropped
+        if (memoryUsage > memoryBudget && checkpoints.size() == 1 && !deltas.isEmpty())
+            addCheckpoint();
+
+        // Drop the oldest checkpoint (and the part of the log that follows it) until the history fits in its budget,
+        // but always keep the latest checkpoint so the recent past can still be reached
+        while (memoryUsage > memoryBudget && checkpoints.size() > 1) {
+            memoryUsage -= checkpoints.removeFirst().getSize();
+            List<long[]> evictedDeltas = deltas.subList(0, (int) (checkpoints.getFirst().getTick() - earliestTick));
+            for (long[] delta : evictedDeltas)
+                memoryUsage -= sizeOf(delta);
+            evictedDeltas.clear();
+            earliestTick = checkpoints.getFirst().getTick();
+        }
+    }
+
+    private int addChange(int changeCount, int kind, int index, int state) {
+        if (changeCount == changes.length)
+            changes = Arrays.copyOf(changes, 2 * changes.length);
+        changes[changeCount] = (long) kind << KIND_SHIFT | (long) index << INDEX_SHIFT | (state & 0xFFFF);
+        return changeCount + 1;
+    }
+
+    private static long sizeOf(long[] delta) {
+        return DELTA_OVERHEAD + 8L * delta.length;
+    }
+}
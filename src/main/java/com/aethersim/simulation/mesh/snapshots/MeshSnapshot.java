@@ -0,0 +1,265 @@
+package com.aethersim.simulation.mesh.snapshots;
+
+import com.aethersim.simulation.ChipState;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class MeshSnapshot {
+
+    // Snapshot files start with a fixed-size header, followed by the vertex states, the connector states, and the
+    // chip states.  If the snapshot is compressed, everything after the header is a single deflate stream.  States
+    // are stored by position, so the header also holds the fingerprint of the mesh they were taken from.
+    private static final int MAGIC = 0x41534D53;
+    private static final byte VERSION = 2;
+    private static final byte COMPRESSED = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 8 + 8 + 5 * 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final long tick;
+    private final long fingerprint;
+    private final short[] vertexStates;
+    private final short[] connectorStates;
+
+    // The state of each function's chip is stored in order, prefixed by its size (functions without states have a
+    // size of zero)
+    private final int functionCount;
+    private final byte[] chipStates;
+
+    MeshSnapshot(long tick, long fingerprint, short[] vertexStates, short[] connectorStates, int functionCount, byte[] chipStates) {
+        this.tick = tick;
+        this.fingerprint = fingerprint;
+        this.vertexStates = vertexStates;
+        this.connectorStates = connectorStates;
+        this.functionCount = functionCount;
+        this.chipStates = chipStates;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getVertexCount() {
+        return vertexStates.length;
+    }
+
+    public int getConnectorCount() {
+        return connectorStates.length;
+    }
+
+    public int getFunctionCount() {
+        return functionCount;
+    }
+
+    public long getSize() {
+        // The number of bytes of state stored in the snapshot
+        return 2L * vertexStates.length + 2L * connectorStates.length + chipStates.length;
+    }
+
+    short[] getVertexStates() {
+        return vertexStates;
+    }
+
+    short[] getConnectorStates() {
+        return connectorStates;
+    }
+
+    byte[] getChipStates() {
+        return chipStates;
+    }
+
+    public static MeshSnapshot capture(MeshSimulationConfig simulationConfig, long tick) {
+        short[] vertexStates = new short[simulationConfig.getMeshVertices().size()];
+        int index = 0;
+        for (MeshVertex vertex : simulationConfig.getMeshVertices())
+            vertexStates[index++] = vertex.getSnapshotState();
+
+        short[] connectorStates = new short[simulationConfig.getMeshConnectors().size()];
+        index = 0;
+        for (MeshConnector connector : simulationConfig.getMeshConnectors())
+            connectorStates[index++] = connector.getSnapshotState();
+
+        // Size the chip states up front, so they can be written straight into a single array
+        ByteBuffer chipStates = ByteBuffer.allocate(getChipStateSize(simulationConfig));
+        writeChipStates(simulationConfig, chipStates);
+
+        return new MeshSnapshot(tick, simulationConfig.getFingerprint(), vertexStates, connectorStates, simulationConfig.getMeshChips().size(), chipStates.array());
+    }
+
+    static int getChipStateSize(MeshSimulationConfig simulationConfig) {
+        int chipStateSize = 0;
+        for (MeshFunction<?> function : simulationConfig.getMeshChips())
+            chipStateSize += 4 + snapshotSizeOf(function.getState());
+        return chipStateSize;
+    }
+
+    static void writeChipStates(MeshSimulationConfig simulationConfig, ByteBuffer chipStates) {
+        for (MeshFunction<?> function : simulationConfig.getMeshChips()) {
+            ChipState state = function.getState();
+            chipStates.putInt(snapshotSizeOf(state));
+            if (state != null)
+                state.writeSnapshot(chipStates);
+        }
+    }
+
+    public void restore(MeshSimulationConfig simulationConfig) {
+        // Make sure the snapshot matches the mesh before changing anything, so a mismatched snapshot leaves the
+        // simulation as it was.  Meshes with the same number of elements can still be laid out differently, so the
+        // fingerprints have to match as well.
+        if (simulationConfig.getFingerprint() != fingerprint
+                || simulationConfig.getMeshVertices().size() != vertexStates.length
+                || simulationConfig.getMeshConnectors().size() != connectorStates.length
+                || simulationConfig.getMeshChips().size() != functionCount)
+            throw new MeshException("Snapshot was taken from a different mesh (" + describe() + ").");
+        ByteBuffer chipStates = ByteBuffer.wrap(this.chipStates);
+        for (MeshFunction<?> function : simulationConfig.getMeshChips()) {
+            int size = chipStates.getInt();
+            if (size != snapshotSizeOf(function.getState()))
+                throw new MeshException("Snapshot was taken from a different mesh (the state of chip " + function.getChip().getId() + " does not match).");
+            chipStates.position(chipStates.position() + size);
+        }
+
+        int index = 0;
+        for (MeshVertex vertex : simulationConfig.getMeshVertices())
+            vertex.restoreSnapshotState(vertexStates[index++]);
+        index = 0;
+        for (MeshConnector connector : simulationConfig.getMeshConnectors())
+            connector.restoreSnapshotState(connectorStates[index++]);
+        chipStates.rewind();
+        for (MeshFunction<?> function : simulationConfig.getMeshChips()) {
+            int size = chipStates.getInt();
+            if (size > 0)
+                function.getState().readSnapshot(chipStates);
+        }
+    }
+
+    public void write(WritableByteChannel channel, boolean compressed) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC)
+                .put(VERSION)
+                .put(compressed ? COMPRESSED : 0)
+                .putLong(tick)
+                .putLong(fingerprint)
+                .putInt(vertexStates.length)
+                .putInt(connectorStates.length)
+                .putInt(functionCount)
+                .putInt(chipStates.length)
+                .putInt(Math.toIntExact(getSize()));
+        writeFully(channel, header.flip());
+
+        ByteBuffer payload = ByteBuffer.allocate(Math.toIntExact(getSize()));
+        payload.asShortBuffer().put(vertexStates).put(connectorStates);
+        payload.position(2 * (vertexStates.length + connectorStates.length)).put(chipStates).flip();
+        if (!compressed) {
+            writeFully(channel, payload);
+            return;
+        }
+
+        // Favor speed over size, since vertex and connector states are repetitive enough to compress well anyway
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+            while (!deflater.finished()) {
+                deflater.deflate(output);
+                writeFully(channel, output.flip());
+                output.clear();
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static MeshSnapshot read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header);
+        header.flip();
+        if (header.getInt() != MAGIC)
+            throw new MeshException("Data is not a mesh snapshot.");
+        byte version = header.get();
+        if (version != VERSION)
+            throw new MeshException("Mesh snapshot version " + version + " is not supported.");
+        boolean compressed = (header.get() & COMPRESSED) != 0;
+        long tick = header.getLong();
+        long fingerprint = header.getLong();
+        int vertexCount = header.getInt();
+        int connectorCount = header.getInt();
+        int functionCount = header.getInt();
+        int chipStateSize = header.getInt();
+        int payloadSize = header.getInt();
+        if (vertexCount < 0 || connectorCount < 0 || functionCount < 0 || chipStateSize < 0
+                || payloadSize != 2L * vertexCount + 2L * connectorCount + chipStateSize)
+            throw new MeshException("Mesh snapshot header is corrupted.");
+
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+        if (compressed)
+            inflateFully(channel, payload);
+        else
+            readFully(channel, payload);
+        payload.flip();
+
+        short[] vertexStates = new short[vertexCount];
+        short[] connectorStates = new short[connectorCount];
+        payload.asShortBuffer().get(vertexStates).get(connectorStates);
+        byte[] chipStates = new byte[chipStateSize];
+        payload.position(2 * (vertexCount + connectorCount)).get(chipStates);
+        return new MeshSnapshot(tick, fingerprint, vertexStates, connectorStates, functionCount, chipStates);
+    }
+
+    private String describe() {
+        return vertexStates.length + " vertices, " + connectorStates.length + " connectors, " + functionCount + " functions";
+    }
+
+    static int snapshotSizeOf(ChipState state) {
+        return state != null ? state.getSnapshotSize() : 0;
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0)
+                throw new EOFException("Mesh snapshot ended unexpectedly.");
+    }
+
+    private static void inflateFully(ReadableByteChannel channel, ByteBuffer payload) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+            while (payload.hasRemaining()) {
+                if (inflater.finished())
+                    throw new MeshException("Mesh snapshot is shorter than its header describes.");
+                if (inflater.needsInput()) {
+                    input.clear();
+                    if (channel.read(input) < 0)
+                        throw new EOFException("Mesh snapshot ended unexpectedly.");
+                    inflater.setInput(input.flip());
+                }
+                inflater.inflate(payload);
+            }
+        } catch (DataFormatException e) {
+            throw new MeshException("Mesh snapshot is corrupted.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.aethersim.simulation.mesh.threading;
+
+import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshEdge;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.mesh.mesh.generation.MeshPatch;
+import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+
+import java.util.*;
+
+public class MeshActivityIndex {
+
+    private final Set<MeshFunction<?>> sourceFunctions = new LinkedHashSet<>();
+    private final Map<MeshVertex, List<MeshFunction<?>>> readingFunctions = new HashMap<>();
+    private final Map<MeshVertex, List<MeshFunction<?>>> drivingFunctions = new HashMap<>();
+    private final Map<MeshVertex, List<MeshConnector>> decidedConnectors = new HashMap<>();
+    private final Map<MeshConnector, List<MeshVertex>> switchedVertices = new HashMap<>();
+    private final Map<MeshVertex, List<MeshEdge>> incomingEdges = new HashMap<>();
+    private final Deque<MeshVertex> searchStack = new ArrayDeque<>();
+
+    // Patches move elements between vertices, so the index remembers where it filed each one in order to remove it
+    // again without searching the whole index
+    private final Map<MeshFunction<?>, IndexedFunction> indexedFunctions = new HashMap<>();
+    private final Map<MeshConnector, MeshVertex> indexedDeciders = new HashMap<>();
+    private final Map<MeshEdge, IndexedEdge> indexedEdges = new HashMap<>();
+    private final Map<MeshConnector, List<MeshEdge>> connectorEdges = new HashMap<>();
+
+    public MeshActivityIndex(MeshSimulationConfig simulationConfig) {
+        // Map all vertices to the functions that read from them or drive them.  Functions without inputs
+        // can change on their own (e.g., toggles), so those are kept separately.
+        for (MeshFunction<?> function : simulationConfig.getMeshChips())
+            addFunction(function);
+
+        // Map all decider vertices to their connectors
+        for (MeshConnector connector : simulationConfig.getMeshConnectors())
+            addConnector(connector);
+
+        // Map all connectors to the vertices they switch, and build the reversed edges for each vertex (where the
+        // endpoint of each reversed edge is the vertex the original edge started at)
+        for (MeshVertex vertex : simulationConfig.getMeshVertices())
+            for (MeshEdge edge : vertex.getOutgoingEdges())
+                addEdge(vertex, edge);
+    }
+
+    public void update(MeshPatch patch) {
+        // Drop everything that was removed from the mesh, along with the edges of removed connectors
+        for (MeshFunction<?> function : patch.getRemovedFunctions())
+            removeFunction(function);
+        for (MeshConnector connector : patch.getRemovedConnectors()) {
+            removeConnector(connector);
+            List<MeshEdge> edges = connectorEdges.remove(connector);
+            if (edges != null)
+                for (MeshEdge edge : edges)
+                    removeEdge(edge);
+        }
+
+        // File everything that was added or moved under the vertices it now refers to
+        for (MeshFunction<?> function : patch.getChangedFunctions()) {
+            removeFunction(function);
+            addFunction(function);
+        }
+        for (MeshFunction<?> function : patch.getAddedFunctions())
+            addFunction(function);
+        for (MeshConnector connector : patch.getChangedConnectors()) {
+            removeConnector(connector);
+            addConnector(connector);
+        }
+        for (MeshConnector connector : patch.getAddedConnectors())
+            addConnector(connector);
+        for (Map.Entry<MeshEdge, MeshVertex> entry : patch.getChangedEdges().entrySet()) {
+            // If only the edge's endpoint moved, it still starts where it did before
+            MeshVertex start = removeEdge(entry.getKey());
+            if (entry.getValue() != null)
+                start = entry.getValue();
+            if (start != null)
+                addEdge(start, entry.getKey());
+        }
+    }
+
+    public Set<MeshFunction<?>> getSourceFunctions() {
+        return sourceFunctions;
+    }
+
+    public List<MeshFunction<?>> getReadingFunctions(MeshVertex vertex) {
+        return readingFunctions.getOrDefault(vertex, List.of());
+    }
+
+    public List<MeshFunction<?>> getDrivingFunctions(MeshVertex vertex) {
+        return drivingFunctions.getOrDefault(vertex, List.of());
+    }
+
+    public List<MeshConnector> getDecidedConnectors(MeshVertex vertex) {
+        return decidedConnectors.getOrDefault(vertex, List.of());
+    }
+
+    public List<MeshVertex> getSwitchedVertices(MeshConnector connector) {
+        return switchedVertices.getOrDefault(connector, List.of());
+    }
+
+    public List<MeshEdge> getIncomingEdges(MeshVertex vertex) {
+        return incomingEdges.getOrDefault(vertex, List.of());
+    }
+
+    public void addDownstreamVertices(List<MeshVertex> vertices, Set<MeshVertex> downstreamVertices, List<MeshVertex> downstreamOrder) {
+        // Find all vertices reachable from the specified vertices through connected edges (including the
+        // specified vertices themselves), since those are the only vertices their states can propagate to.  The
+        // results are added to the specified collections (and the search reuses its own stack), so this doesn't
+        // allocate once the collections have grown to fit.
+        for (MeshVertex vertex : vertices)
+            if (downstreamVertices.add(vertex))
+                downstreamOrder.add(vertex);
+        for (int index = 0; index < downstreamOrder.size(); index++)
+            searchStack.push(downstreamOrder.get(index));
+        while (!searchStack.isEmpty()) {
+            MeshVertex vertex = searchStack.pop();
+            for (MeshEdge edge : vertex.getOutgoingEdges()) {
+                if (edge.isConnected() && downstreamVertices.add(edge.endpoint())) {
+                    downstreamOrder.add(edge.endpoint());
+                    searchStack.push(edge.endpoint());
+                }
+            }
+        }
+    }
+
+    private void addFunction(MeshFunction<?> function) {
+        IndexedFunction indexedFunction = new IndexedFunction(
+                new ArrayList<>(new LinkedHashSet<>(function.getInputVertices().values())),
+                new ArrayList<>(new LinkedHashSet<>(function.getOutputVertices().values()))
+        );
+        indexedFunctions.put(function, indexedFunction);
+        if (function.getInputVertices().isEmpty())
+            sourceFunctions.add(function);
+        for (MeshVertex vertex : indexedFunction.inputs())
+            readingFunctions.computeIfAbsent(vertex, key -> new ArrayList<>()).add(function);
+        for (MeshVertex vertex : indexedFunction.outputs())
+            drivingFunctions.computeIfAbsent(vertex, key -> new ArrayList<>()).add(function);
+    }
+
+    private void removeFunction(MeshFunction<?> function) {
+        IndexedFunction indexedFunction = indexedFunctions.remove(function);
+        if (indexedFunction == null)
+            return;
+        sourceFunctions.remove(function);
+        for (MeshVertex vertex : indexedFunction.inputs())
+            removeEntry(readingFunctions, vertex, function);
+        for (MeshVertex vertex : indexedFunction.outputs())
+            removeEntry(drivingFunctions, vertex, function);
+    }
+
+    private void addConnector(MeshConnector connector) {
+        indexedDeciders.put(connector, connector.getDecider());
+        decidedConnectors.computeIfAbsent(connector.getDecider(), key -> new ArrayList<>()).add(connector);
+    }
+
+    private void removeConnector(MeshConnector connector) {
+        MeshVertex decider = indexedDeciders.remove(connector);
+        if (decider != null)
+            removeEntry(decidedConnectors, decider, connector);
+    }
+
+    private void addEdge(MeshVertex start, MeshEdge edge) {
+        MeshEdge reversedEdge = new MeshEdge(start, edge.connector());
+        indexedEdges.put(edge, new IndexedEdge(edge.endpoint(), reversedEdge));
+        connectorEdges.computeIfAbsent(edge.connector(), key -> new ArrayList<>()).add(edge);
+        switchedVertices.computeIfAbsent(edge.connector(), key -> new ArrayList<>()).add(edge.endpoint());
+        incomingEdges.computeIfAbsent(edge.endpoint(), key -> new ArrayList<>()).add(reversedEdge);
+    }
+
+    private MeshVertex removeEdge(MeshEdge edge) {
+        // Returns the vertex the edge started at when it was indexed (or null if it wasn't indexed)
+        IndexedEdge indexedEdge = indexedEdges.remove(edge);
+        if (indexedEdge == null)
+            return null;
+        List<MeshEdge> edges = connectorEdges.get(edge.connector());
+        if (edges != null)
+            edges.remove(edge);
+        removeEntry(switchedVertices, edge.connector(), indexedEdge.endpoint());
+        removeEntry(incomingEdges, indexedEdge.endpoint(), indexedEdge.reversedEdge());
+        return indexedEdge.reversedEdge().endpoint();
+    }
+
+    private static <K, V> void removeEntry(Map<K, List<V>> map, K key, V value) {
+        // Remove a single occurrence of the value, and drop the list once it's empty
+        List<V> values = map.get(key);
+        if (values == null)
+            return;
+        values.remove(value);
+        if (values.isEmpty())
+            map.remove(key);
+    }
+
+    private record IndexedFunction(List<MeshVertex> inputs, List<MeshVertex> outputs) {
+    }
+
+    private record IndexedEdge(MeshVertex endpoint, MeshEdge reversedEdge) {
+    }
+}
@@ -0,0 +1,228 @@
+package com.aethersim.simulation.mesh.threading;
+
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+
+import java.util.*;
+
+public class MeshCompiledNetwork {
+
+    // Functions are stored in level order, so every function comes after all the functions that drive its inputs.
+    // Vertices are stored with the level of the last function that drives them, so they can be settled as soon as
+    // that level has been evaluated (vertices that nothing drives are at level 0).  The schedule is walked from these
+    // flat arrays rather than emitted as a generated class, since there is no bytecode generator to build one with.
+    private final MeshVertex[] vertices;
+    private final MeshFunction<?>[] functions;
+    private final int[][] functionInputs;
+    private final int[][] functionOutputs;
+    private final MeshFunction<?>[][] drivingFunctions;
+    private final int[] levelFunctionStarts;
+    private final int[] levelVertexStarts;
+    private final int[] levelVertices;
+
+    // Vertices whose drivers produced new outputs, and vertices whose states changed, during the current pass
+    private final boolean[] recompute;
+    private final boolean[] changed;
+    private final int[] changedVertices;
+    private int changedCount = 0;
+
+    // The vertices settled and functions evaluated during the current pass, which are the only parts of the mesh it
+    // could have changed
+    private final List<MeshVertex> settledVertices = new ArrayList<>();
+    private final List<MeshFunction<?>> evaluatedFunctions = new ArrayList<>();
+
+    // The first pass after compiling or resetting settles every vertex, rather than just the ones that changed
+    private boolean settleAll = true;
+
+    private MeshCompiledNetwork(MeshVertex[] vertices, MeshFunction<?>[] functions, int[][] functionInputs, int[][] functionOutputs,
+                                MeshFunction<?>[][] drivingFunctions, int[] levelFunctionStarts, int[] levelVertexStarts, int[] levelVertices) {
+        this.vertices = vertices;
+        this.functions = functions;
+        this.functionInputs = functionInputs;
+        this.functionOutputs = functionOutputs;
+        this.drivingFunctions = drivingFunctions;
+        this.levelFunctionStarts = levelFunctionStarts;
+        this.levelVertexStarts = levelVertexStarts;
+        this.levelVertices = levelVertices;
+        this.recompute = new boolean[vertices.length];
+        this.changed = new boolean[vertices.length];
+        this.changedVertices = new int[vertices.length];
+    }
+
+    public int getFunctionCount() {
+        return functions.length;
+    }
+
+    public int getLevelCount() {
+        return levelFunctionStarts.length - 1;
+    }
+
+    public List<MeshVertex> getSettledVertices() {
+        return settledVertices;
+    }
+
+    public List<MeshFunction<?>> getEvaluatedFunctions() {
+        return evaluatedFunctions;
+    }
+
+    public void reset() {
+        settleAll = true;
+    }
+
+    public int tick() {
+        // Clear the vertices that changed during the last pass
+        for (int index = 0; index < changedCount; index++)
+            changed[changedVertices[index]] = false;
+        changedCount = 0;
+        settledVertices.clear();
+        evaluatedFunctions.clear();
+
+        // Vertices that nothing drives never change once they've been settled
+        if (settleAll)
+            for (int index = levelVertexStarts[0]; index < levelVertexStarts[1]; index++)
+                settle(levelVertices[index]);
+
+        for (int level = 1; level < levelVertexStarts.length - 1; level++) {
+            // Evaluate the functions on this level whose inputs changed earlier in the pass, as well as functions
+            // without inputs (which may have changed on their own)
+            for (int function = levelFunctionStarts[level]; function < levelFunctionStarts[level + 1]; function++) {
+                if (!settleAll && functionInputs[function].length > 0 && !hasChangedInput(function))
+                    continue;
+                evaluatedFunctions.add(functions[function]);
+                if (functions[function].evaluate())
+                    for (int output : functionOutputs[function])
+                        recompute[output] = true;
+            }
+
+            // Settle the vertices whose last driver is on this level, so the functions on later levels can read them
+            for (int index = levelVertexStarts[level]; index < levelVertexStarts[level + 1]; index++) {
+                int vertex = levelVertices[index];
+                if (!settleAll && !recompute[vertex])
+                    continue;
+                recompute[vertex] = false;
+                for (MeshFunction<?> function : drivingFunctions[vertex])
+                    function.applyOutputs(vertices[vertex]);
+                settle(vertex);
+            }
+        }
+
+        settleAll = false;
+        return changedCount;
+    }
+
+    private boolean hasChangedInput(int function) {
+        for (int input : functionInputs[function])
+            if (changed[input])
+                return true;
+        return false;
+    }
+
+    private void settle(int vertex) {
+        vertices[vertex].rectifyStates();
+        settledVertices.add(vertices[vertex]);
+        if (vertices[vertex].hasStateChanged()) {
+            changed[vertex] = true;
+            changedVertices[changedCount++] = vertex;
+        }
+    }
+
+    public static MeshCompiledNetwork compile(MeshSimulationConfig simulationConfig) {
+        // Only networks made entirely of functions can be evaluated in a single pass, since connectors switch over
+        // several ticks
+        if (!simulationConfig.getMeshConnectors().isEmpty())
+            return null;
+
+        // Assign an index to each vertex and function, and find which functions read and drive each vertex
+        MeshVertex[] vertices = simulationConfig.getMeshVertices().toArray(new MeshVertex[0]);
+        Map<MeshVertex, Integer> vertexIndices = new IdentityHashMap<>();
+        for (MeshVertex vertex : vertices)
+            vertexIndices.put(vertex, vertexIndices.size());
+        MeshFunction<?>[] meshFunctions = simulationConfig.getMeshChips().toArray(new MeshFunction<?>[0]);
+        int[][] inputs = new int[meshFunctions.length][];
+        int[][] outputs = new int[meshFunctions.length][];
+        List<List<Integer>> readers = new ArrayList<>();
+        List<List<Integer>> drivers = new ArrayList<>();
+        for (int vertex = 0; vertex < vertices.length; vertex++) {
+            readers.add(new ArrayList<>());
+            drivers.add(new ArrayList<>());
+        }
+        for (int function = 0; function < meshFunctions.length; function++) {
+            inputs[function] = indicesOf(vertexIndices, meshFunctions[function].getInputVertices().values());
+            outputs[function] = indicesOf(vertexIndices, meshFunctions[function].getOutputVertices().values());
+            for (int input : inputs[function])
+                readers.get(input).add(function);
+            for (int output : outputs[function])
+                drivers.get(output).add(function);
+        }
+
+        // Levelize the functions, where each function is one level past the functions that drive its inputs.  If
+        // some functions are never reached, they are part of a feedback loop, which can't be evaluated in one pass.
+        int[] remainingDrivers = new int[meshFunctions.length];
+        for (int function = 0; function < meshFunctions.length; function++)
+            for (int input : inputs[function])
+                remainingDrivers[function] += drivers.get(input).size();
+        int[] functionLevels = new int[meshFunctions.length];
+        int[] vertexLevels = new int[vertices.length];
+        Deque<Integer> readyFunctions = new ArrayDeque<>();
+        for (int function = 0; function < meshFunctions.length; function++) {
+            functionLevels[function] = 1;
+            if (remainingDrivers[function] == 0)
+                readyFunctions.add(function);
+        }
+        int levelCount = 1;
+        int levelizedCount = 0;
+        while (!readyFunctions.isEmpty()) {
+            int function = readyFunctions.poll();
+            levelizedCount++;
+            levelCount = Math.max(levelCount, functionLevels[function] + 1);
+            for (int output : outputs[function]) {
+                vertexLevels[output] = Math.max(vertexLevels[output], functionLevels[function]);
+                for (int reader : readers.get(output)) {
+                    functionLevels[reader] = Math.max(functionLevels[reader], functionLevels[function] + 1);
+                    if (--remainingDrivers[reader] == 0)
+                        readyFunctions.add(reader);
+                }
+            }
+        }
+        if (levelizedCount < meshFunctions.length)
+            return null;
+
+        // Sort the functions and vertices by level
+        int[] levelFunctionStarts = new int[levelCount + 1];
+        int[] levelVertexStarts = new int[levelCount + 1];
+        for (int level : functionLevels)
+            levelFunctionStarts[level + 1]++;
+        for (int level : vertexLevels)
+            levelVertexStarts[level + 1]++;
+        for (int level = 0; level < levelCount; level++) {
+            levelFunctionStarts[level + 1] += levelFunctionStarts[level];
+            levelVertexStarts[level + 1] += levelVertexStarts[level];
+        }
+
+        MeshFunction<?>[] functions = new MeshFunction<?>[meshFunctions.length];
+        int[][] functionInputs = new int[meshFunctions.length][];
+        int[][] functionOutputs = new int[meshFunctions.length][];
+        int[] functionPositions = Arrays.copyOf(levelFunctionStarts, levelCount);
+        for (int function = 0; function < meshFunctions.length; function++) {
+            int position = functionPositions[functionLevels[function]]++;
+            functions[position] = meshFunctions[function];
+            functionInputs[position] = inputs[function];
+            functionOutputs[position] = outputs[function];
+        }
+        int[] levelVertices = new int[vertices.length];
+        int[] vertexPositions = Arrays.copyOf(levelVertexStarts, levelCount);
+        MeshFunction<?>[][] drivingFunctions = new MeshFunction<?>[vertices.length][];
+        for (int vertex = 0; vertex < vertices.length; vertex++) {
+            levelVertices[vertexPositions[vertexLevels[vertex]]++] = vertex;
+            drivingFunctions[vertex] = drivers.get(vertex).stream().map(function -> meshFunctions[function]).toArray(MeshFunction<?>[]::new);
+        }
+
+        return new MeshCompiledNetwork(vertices, functions, functionInputs, functionOutputs, drivingFunctions, levelFunctionStarts, levelVertexStarts, levelVertices);
+    }
+
+    private static int[] indicesOf(Map<MeshVertex, Integer> vertexIndices, Collection<MeshVertex> vertices) {
+        // A function can read or drive a vertex through more than one pin, but it only needs to be counted once
+        return new LinkedHashSet<>(vertices).stream().mapToInt(vertexIndices::get).toArray();
+    }
+}
@@ -0,0 +1,12 @@
+package com.aethersim.simulation.mesh.threading;
+
+public enum MeshSchedulingMode {
+
+    // Every function, connector, and vertex is processed on every tick
+    FULL,
+    // Only functions, connectors, and vertices affected by changes from the previous tick are processed
+    EVENT_DRIVEN,
+    // Networks of functions without feedback are evaluated in a single levelized pass per tick, and all other meshes
+    // fall back to event-driven scheduling
+    COMPILED
+}
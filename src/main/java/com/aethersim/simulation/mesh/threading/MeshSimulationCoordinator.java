@@ -1,38 +1,183 @@
 package com.aethersim.simulation.mesh.threading;
 
+import com.aethersim.logging.AetherSimLogging;
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.SwitchingDelays;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
 import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshEdge;
 import com.aethersim.simulation.mesh.mesh.MeshFunction;
 import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerator;
+import com.aethersim.simulation.mesh.mesh.generation.MeshPartitioner;
+import com.aethersim.simulation.mesh.mesh.generation.MeshPatch;
+import com.aethersim.simulation.mesh.mesh.generation.MeshPartitioning;
 import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+import com.aethersim.simulation.mesh.snapshots.MeshHistory;
+import com.aethersim.simulation.mesh.snapshots.MeshSnapshot;
+import com.aethersim.simulation.metrics.SimulationMetrics;
+import com.aethersim.simulation.metrics.SimulationPhase;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 public class MeshSimulationCoordinator {
 
-    private ExecutorService threadPool = null;
+    private final int workerCount;
 
-    private final List<Future<Boolean>> booleanFutures = new ArrayList<>();
-    private final List<Future<?>> voidFutures = new ArrayList<>();
+    private MeshWorkerPool workerPool = null;
 
-    private final List<MeshStateProcessor> queuedMeshStateProcessors = new ArrayList<>();
+    // Each worker owns a fixed partition of the functions, connectors, and vertices in the mesh.  State processors
+    // are delivered to the inbox of the worker that owns their vertex, so only updates to vertices on the boundary
+    // of a partition are exchanged between workers.
+    private List<Set<MeshFunction<?>>> functionPartitions = List.of();
+    private List<Set<MeshConnector>> connectorPartitions = List.of();
+    private List<Set<MeshVertex>> vertexPartitions = List.of();
+    private final boolean[] workerChanges;
+    private final long[] workerFunctionTimes;
+    private final long[] workerConnectorTimes;
+    private final List<ConcurrentLinkedQueue<MeshStateProcessor>> inboxes = new ArrayList<>();
+    private final AtomicInteger pendingProcessors = new AtomicInteger();
+
+    // Idle workers can optionally take processors from the inboxes of other workers.  This balances uneven
+    // propagation, but the taken processors write to vertices in another worker's partition, so it is disabled by
+    // default to keep each partition's vertices with the worker that owns them.
+    private boolean stealingWork = false;
 
     private MeshSimulationConfig simulationConfig;
 
+    private MeshSchedulingMode schedulingMode = MeshSchedulingMode.FULL;
+    private MeshActivityIndex activityIndex = null;
+    private boolean recomputeAllVertices = false;
+
+    // Event-driven scheduling keeps its working sets between ticks, so it doesn't allocate new ones every tick.
+    // Identity sets are backed by flat tables, so adding to them doesn't allocate either.
+    private final Set<MeshFunction<?>> activeFunctions = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<MeshConnector> activeConnectors = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<MeshFunction<?>> scheduledFunctions = new ArrayList<>();
+    private final List<MeshConnector> scheduledConnectors = new ArrayList<>();
+    private final List<List<MeshFunction<?>>> workerScheduledFunctions = new ArrayList<>();
+    private final List<List<MeshConnector>> workerScheduledConnectors = new ArrayList<>();
+    private final List<List<MeshVertex>> workerAffectedVertices = new ArrayList<>();
+    private final List<List<MeshVertex>> workerChangedVertices = new ArrayList<>();
+    private final List<List<MeshConnector>> workerSwitchingConnectors = new ArrayList<>();
+    private final Set<MeshVertex> affectedVertices = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<MeshVertex> affectedVertexOrder = new ArrayList<>();
+    private final List<MeshVertex> patchedVertices = new ArrayList<>();
+    private final IntConsumer activeTask = this::tickActiveWorker;
+    private final IntConsumer inboxTask = this::processInbox;
+    private final IntConsumer rectifyTask = this::rectifyAffectedVertices;
+    private MeshCompiledNetwork compiledNetwork = null;
+
+    // Tracks whether any vertex states changed during the last tick, which is used to detect when the mesh is stable
+    private boolean lastTickChanged = true;
+
+    // Counts ticks since the mesh was configured or reset, which determines the switching delays of connectors
+    private long tickCount = 0;
+    private long tickKey;
+
+    // If history is being kept, every tick is recorded so the simulation can seek back to it
+    private MeshHistory history = null;
+
+    private SimulationMetrics metrics = SimulationMetrics.getGlobal();
+    private boolean measuring = false;
+
+    public MeshSimulationCoordinator() {
+        this(MeshGenerator.DEFAULT_PARTITION_COUNT);
+    }
+
+    public MeshSimulationCoordinator(int workerCount) {
+        this.workerCount = workerCount;
+        this.workerChanges = new boolean[workerCount];
+        this.workerFunctionTimes = new long[workerCount];
+        this.workerConnectorTimes = new long[workerCount];
+        for (int worker = 0; worker < workerCount; worker++) {
+            inboxes.add(new ConcurrentLinkedQueue<>());
+            workerChangedVertices.add(new ArrayList<>());
+            workerSwitchingConnectors.add(new ArrayList<>());
+            workerScheduledFunctions.add(new ArrayList<>());
+            workerScheduledConnectors.add(new ArrayList<>());
+            workerAffectedVertices.add(new ArrayList<>());
+        }
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
     public void start() {
-        // If the thread pool needs to be initialized, initialize it
-        if (threadPool == null)
-            threadPool = Executors.newFixedThreadPool(8); // TODO
+        // If the worker pool needs to be initialized, initialize it
+        if (workerPool == null) {
+            workerPool = new MeshWorkerPool(workerCount);
+            workerPool.start();
+        }
     }
 
     public void configure(MeshSimulationConfig simulationConfig) {
         this.simulationConfig = simulationConfig;
+        this.tickCount = 0;
+        configurePartitions();
+        configureActivityIndex();
+        restartHistory();
+    }
+
+    public void refresh(MeshPatch patch) {
+        // The mesh was patched, so update the partitions and the activity index for the parts that changed, but keep
+        // counting ticks (and keep all vertex and connector states) so the simulation carries on where it was
+        if (simulationConfig == null)
+            return;
+        MeshPartitioning partitioning = simulationConfig.getPartitioning();
+        if (partitioning != null && partitioning.getPartitionCount() == workerCount && !MeshPartitioner.patch(partitioning, patch)) {
+            AetherSimLogging.getSimulationLogger().debug("Patched mesh partitions became unbalanced, so the mesh will be partitioned again.");
+            simulationConfig.setPartitioning(null);
+        }
+        configurePartitions();
+
+        // Compiled networks are compiled again from scratch, since any patch may introduce connectors or feedback
+        if (activityIndex != null) {
+            activityIndex.update(patch);
+            activatePatch(patch);
+        } else {
+            configureActivityIndex();
+        }
+        lastTickChanged = true;
+        restartHistory();
+    }
+
+    public MeshSchedulingMode getSchedulingMode() {
+        return schedulingMode;
+    }
+
+    public void setSchedulingMode(MeshSchedulingMode schedulingMode) {
+        this.schedulingMode = schedulingMode;
+        configureActivityIndex();
+    }
+
+    public boolean isStealingWork() {
+        return stealingWork;
+    }
+
+    public void setStealingWork(boolean stealingWork) {
+        this.stealingWork = stealingWork;
+    }
+
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(SimulationMetrics metrics) {
+        this.metrics = metrics;
     }
 
     public void stop() {
-        threadPool.shutdown();
-        threadPool = null;
+        workerPool.stop();
+        workerPool = null;
     }
 
     public void reset() {
@@ -43,21 +188,83 @@ public class MeshSimulationCoordinator {
         // Reset all mesh connectors back to their default states
         for (MeshConnector connector : simulationConfig.getMeshConnectors())
             connector.reset();
+
+        // Compiled networks have no connectors, but every vertex is settled again on the next pass
+        if (compiledNetwork != null)
+            compiledNetwork.reset();
+
+        // Since connectors may have changed, everything needs to be processed again in event-driven mode
+        if (activityIndex != null)
+            activateAll();
+        lastTickChanged = true;
+        tickCount = 0;
+        restartHistory();
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public MeshSnapshot snapshot() {
+        if (simulationConfig == null)
+            throw new MeshException("Snapshots cannot be taken before a mesh is configured.");
+        return MeshSnapshot.capture(simulationConfig, tickCount);
+    }
+
+    public void restore(MeshSnapshot snapshot) {
+        if (simulationConfig == null)
+            throw new MeshException("Snapshots cannot be restored before a mesh is configured.");
+        restoreStates(snapshot);
+        restartHistory();
     }
 
-    public synchronized void queue(MeshStateProcessor processor) {
-        // Add the processor to the queued list of processors
-        queuedMeshStateProcessors.add(processor);
+    public MeshHistory getHistory() {
+        return history;
     }
 
-    public synchronized void queueNow(Runnable runnable) {
-        // Submit the runnable to the thread pool
-        voidFutures.add(threadPool.submit(runnable));
+    public void setHistory(MeshHistory history) {
+        this.history = history;
+        restartHistory();
+    }
+
+    public void seek(long tick) {
+        if (history == null || simulationConfig == null)
+            throw new MeshException("The simulation can only seek to earlier ticks while history is being kept.");
+        restoreStates(history.seek(tick));
+    }
+
+    private void restoreStates(MeshSnapshot snapshot) {
+        snapshot.restore(simulationConfig);
+
+        // Snapshots don't store what the schedulers were tracking, so (like resetting) everything is processed
+        // again on the next tick, starting from the restored states
+        if (compiledNetwork != null)
+            compiledNetwork.reset();
+        if (activityIndex != null)
+            activateAll();
+        lastTickChanged = true;
+        tickCount = snapshot.getTick();
+    }
+
+    public boolean isStable() {
+        // The mesh is stable once a tick passes without any vertex state changes and no connectors are still switching
+        // (since those may update vertices on a later tick)
+        if (simulationConfig == null)
+            return true;
+        if (lastTickChanged)
+            return false;
+        if (activityIndex != null)
+            return activeConnectors.isEmpty() && !recomputeAllVertices;
+        for (MeshConnector connector : simulationConfig.getMeshConnectors())
+            if (connector.isSwitching())
+                return false;
+        return true;
     }
 
-    public synchronized void queueNow(Callable<Boolean> callable) {
-        // Submit the runnable to the thread pool
-        booleanFutures.add(threadPool.submit(callable));
+    public void queue(MeshStateProcessor processor) {
+        // Deliver the processor to the inbox of the worker that owns its vertex
+        pendingProcessors.incrementAndGet();
+        inboxes.get(processor.getVertex().getPartition()).add(processor);
     }
 
     public void tick() {
@@ -65,68 +272,430 @@ public class MeshSimulationCoordinator {
         if (simulationConfig == null)
             return;
 
-        // To start, queue all mesh chips and connectors for updates
-        for (final MeshFunction<?> chip : simulationConfig.getMeshChips())
-            queueNow(() -> chip.tick(MeshSimulationCoordinator.this));
+        // Only read the clock if metrics are enabled (this is checked once per tick, so workers see a consistent value)
+        measuring = metrics.isEnabled();
+        long tickStartTime = measuring ? System.nanoTime() : 0;
+        tickKey = SwitchingDelays.getTickKey(tickCount++);
 
-        for (MeshConnector connector : simulationConfig.getMeshConnectors())
-            queueNow(connector::tick);
+        // In compiled mode, evaluate the whole network in one pass.  In event-driven mode, only process the parts of
+        // the mesh that are affected by changes.
+        if (compiledNetwork != null)
+            tickCompiled();
+        else if (activityIndex != null)
+            tickActive();
+        else
+            tickAll();
+
+        // Ticks that only processed part of the mesh are recorded from the elements they touched, since nothing else
+        // could have changed
+        if (history != null) {
+            if (compiledNetwork != null)
+                history.record(simulationConfig, tickCount, compiledNetwork.getSettledVertices(), List.of(), compiledNetwork.getEvaluatedFunctions());
+            else if (activityIndex != null)
+                history.record(simulationConfig, tickCount, affectedVertexOrder, scheduledConnectors, scheduledFunctions);
+            else
+                history.record(simulationConfig, tickCount);
+        }
+
+        if (measuring)
+            metrics.recordTick(System.nanoTime() - tickStartTime);
+    }
 
-        // Wait for all currently-executing workers to finish.  If we don't need to update any vertices
-        // (e.g., if nothing changed) then exit early after clearing queued processors
-        if(!waitForBooleanTaskCompletion()) {
-            queuedMeshStateProcessors.clear();
+    private void tickAll() {
+        // To start, tick all mesh chips and connectors in each worker's partition
+        runWorkers(worker -> {
+            boolean propagateChanges = false;
+            long startTime = measuring ? System.nanoTime() : 0;
+            for (MeshFunction<?> chip : functionPartitions.get(worker))
+                if (chip.tick(this))
+                    propagateChanges = true;
+            long functionEndTime = measuring ? System.nanoTime() : 0;
+
+            int switchedConnectors = 0;
+            for (MeshConnector connector : connectorPartitions.get(worker)) {
+                if (connector.tick(tickKey)) {
+                    propagateChanges = true;
+                    switchedConnectors++;
+                }
+            }
+            workerChanges[worker] = propagateChanges;
+
+            if (measuring) {
+                workerFunctionTimes[worker] = functionEndTime - startTime;
+                workerConnectorTimes[worker] = System.nanoTime() - functionEndTime;
+                metrics.addSwitchedConnectors(switchedConnectors);
+            }
+        });
+        recordWorkerPhases();
+
+        // If we don't need to update any vertices (e.g., if nothing changed) then exit early
+        boolean propagateChanges = false;
+        for (boolean changes : workerChanges)
+            propagateChanges |= changes;
+        lastTickChanged = false;
+        if (!propagateChanges)
             return;
+
+        // Next, process all queued mesh state processors until none remain
+        long propagationStartTime = measuring ? System.nanoTime() : 0;
+        runWorkers(inboxTask);
+
+        // Finally, rectify all vertices in each worker's partition, keeping track of whether any of them changed
+        long rectifyStartTime = measuring ? System.nanoTime() : 0;
+        runWorkers(worker -> {
+            int changedVertices = 0;
+            for (MeshVertex vertex : vertexPartitions.get(worker)) {
+                vertex.rectifyStates();
+                if (vertex.hasStateChanged())
+                    changedVertices++;
+            }
+            workerChanges[worker] = changedVertices > 0;
+            if (measuring)
+                metrics.addChangedVertices(changedVertices);
+        });
+        for (boolean changes : workerChanges)
+            lastTickChanged |= changes;
+
+        if (measuring) {
+            metrics.recordPhase(SimulationPhase.PROPAGATION, rectifyStartTime - propagationStartTime);
+            metrics.recordPhase(SimulationPhase.RECTIFY, System.nanoTime() - rectifyStartTime);
         }
+    }
 
-        // Next, submit all queued mesh state processors
-        for (MeshStateProcessor processor : queuedMeshStateProcessors)
-            queueNow(processor);
-        queuedMeshStateProcessors.clear();
+    private void tickCompiled() {
+        // The compiled network is evaluated level by level on the calling thread, so each function sees the outputs
+        // of the functions before it in the same tick
+        long startTime = measuring ? System.nanoTime() : 0;
+        int changedVertices = compiledNetwork.tick();
+        lastTickChanged = changedVertices > 0;
 
-        // Wait for all currently-executing workers to finish
-        waitForVoidTaskCompletion();
+        if (measuring) {
+            metrics.addChangedVertices(changedVertices);
+            metrics.recordPhase(SimulationPhase.FUNCTION_TICK, System.nanoTime() - startTime);
+        }
+    }
 
-        // Finally, queue rectifiers for all vertices
-        for (MeshVertex vertex : simulationConfig.getMeshVertices())
-            queueNow(vertex::rectifyStates);
+    private void tickActive() {
+        // To start, evaluate all functions whose inputs changed, as well as functions without inputs (which may
+        // have changed on their own).  Also tick all connectors whose deciders changed or whose delays are
+        // still counting down.  The buffers are reused from tick to tick, so scheduling doesn't allocate once they
+        // have grown to fit the activity in the mesh.  Each worker is given the work in its own partition, with
+        // connectors belonging to the partition of their decider.
+        scheduledFunctions.clear();
+        scheduledConnectors.clear();
+        for (int worker = 0; worker < workerCount; worker++) {
+            workerScheduledFunctions.get(worker).clear();
+            workerScheduledConnectors.get(worker).clear();
+            workerAffectedVertices.get(worker).clear();
+        }
+        for (MeshFunction<?> function : activeFunctions)
+            scheduleFunction(function);
+        for (MeshFunction<?> function : activityIndex.getSourceFunctions())
+            if (!activeFunctions.contains(function))
+                scheduleFunction(function);
+        for (MeshConnector connector : activeConnectors) {
+            scheduledConnectors.add(connector);
+            workerScheduledConnectors.get(connector.getDecider().getPartition()).add(connector);
+        }
+        activeFunctions.clear();
+        activeConnectors.clear();
+        affectedVertices.clear();
+        affectedVertexOrder.clear();
+
+        // Each worker keeps track of the vertices that may need new states due to changed function outputs or
+        // connectors, and of the connectors that are still switching
+        runWorkers(activeTask);
+        recordWorkerPhases();
+        boolean verticesChanged = false;
+        for (int worker = 0; worker < workerCount; worker++) {
+            verticesChanged |= !workerChangedVertices.get(worker).isEmpty();
+            for (MeshConnector connector : workerSwitchingConnectors.get(worker))
+                activeConnectors.add(connector);
+        }
+
+        // If no vertices need to be updated, all states remain the same as the last tick, so exit early
+        lastTickChanged = false;
+        if (!verticesChanged && !recomputeAllVertices && patchedVertices.isEmpty())
+            return;
+
+        // Determine which vertices can be affected by the changes
+        long propagationStartTime = measuring ? System.nanoTime() : 0;
+        if (recomputeAllVertices) {
+            for (MeshVertex vertex : simulationConfig.getMeshVertices())
+                if (affectedVertices.add(vertex))
+                    affectedVertexOrder.add(vertex);
+        } else {
+            for (int worker = 0; worker < workerCount; worker++)
+                activityIndex.addDownstreamVertices(workerChangedVertices.get(worker), affectedVertices, affectedVertexOrder);
+            activityIndex.addDownstreamVertices(patchedVertices, affectedVertices, affectedVertexOrder);
+        }
+        recomputeAllVertices = false;
+        patchedVertices.clear();
+
+        // Queue processors for the affected vertices using the last outputs of the functions that drive them
+        // and the states propagated into unaffected vertices that connect to them
+        for (int index = 0; index < affectedVertexOrder.size(); index++) {
+            MeshVertex vertex = affectedVertexOrder.get(index);
+            List<MeshFunction<?>> drivingFunctions = activityIndex.getDrivingFunctions(vertex);
+            for (int function = 0; function < drivingFunctions.size(); function++)
+                drivingFunctions.get(function).queueOutputs(this, vertex);
+
+            List<MeshEdge> incomingEdges = activityIndex.getIncomingEdges(vertex);
+            for (int edgeIndex = 0; edgeIndex < incomingEdges.size(); edgeIndex++) {
+                MeshEdge edge = incomingEdges.get(edgeIndex);
+                MeshVertex upstreamVertex = edge.endpoint();
+                if (!edge.isConnected() || affectedVertices.contains(upstreamVertex))
+                    continue;
+
+                // Unconnected propagated states were never set, so skip them the same way unknown states are
+                LogicState actualState = propagatedState(upstreamVertex.getPropagatedActualState());
+                LogicState suggestedState = propagatedState(upstreamVertex.getPropagatedSuggestedState());
+                if (vertex.compareStates(actualState, suggestedState))
+                    queue(new MeshStateProcessor(this, vertex, actualState, suggestedState));
+            }
+        }
+
+        // Next, process all queued mesh state processors until none remain
+        runWorkers(inboxTask);
+
+        // Rectify all affected vertices, each by the worker that owns it
+        long rectifyStartTime = measuring ? System.nanoTime() : 0;
+        for (int index = 0; index < affectedVertexOrder.size(); index++) {
+            MeshVertex vertex = affectedVertexOrder.get(index);
+            workerAffectedVertices.get(vertex.getPartition()).add(vertex);
+        }
+        runWorkers(rectifyTask);
+
+        // Finally, activate all functions and connectors that read from vertices that changed
+        int changedVertexCount = 0;
+        for (int index = 0; index < affectedVertexOrder.size(); index++) {
+            MeshVertex vertex = affectedVertexOrder.get(index);
+            if (!vertex.hasStateChanged())
+                continue;
+            lastTickChanged = true;
+            changedVertexCount++;
+            List<MeshFunction<?>> readingFunctions = activityIndex.getReadingFunctions(vertex);
+            for (int function = 0; function < readingFunctions.size(); function++)
+                activeFunctions.add(readingFunctions.get(function));
+            List<MeshConnector> decidedConnectors = activityIndex.getDecidedConnectors(vertex);
+            for (int connector = 0; connector < decidedConnectors.size(); connector++)
+                activeConnectors.add(decidedConnectors.get(connector));
+        }
 
-        // Wait for all currently-executing workers to finish
-        waitForVoidTaskCompletion();
+        if (measuring) {
+            metrics.addChangedVertices(changedVertexCount);
+            metrics.recordPhase(SimulationPhase.PROPAGATION, rectifyStartTime - propagationStartTime);
+            metrics.recordPhase(SimulationPhase.RECTIFY, System.nanoTime() - rectifyStartTime);
+        }
     }
 
-    private boolean waitForBooleanTaskCompletion() {
-        boolean result = false;
-        // Wait for all currently-executing workers to finish
-        // Enhanced for-loops aren't used here to avoid concurrency issues (where futures potentially
-        // get added to the end of the list while we're still reading through it)
-        for (int index = 0; index < booleanFutures.size(); index++) {
-            try {
-                if (booleanFutures.get(index).get())
-                    result = true;
-            } catch (InterruptedException | ExecutionException e) {
-                // TODO
-                throw new RuntimeException(e);
+    private void tickActiveWorker(int worker) {
+        List<MeshVertex> changedVertices = workerChangedVertices.get(worker);
+        List<MeshConnector> switchingConnectors = workerSwitchingConnectors.get(worker);
+        changedVertices.clear();
+        switchingConnectors.clear();
+
+        long startTime = measuring ? System.nanoTime() : 0;
+        List<MeshFunction<?>> functions = workerScheduledFunctions.get(worker);
+        for (int index = 0; index < functions.size(); index++) {
+            MeshFunction<?> function = functions.get(index);
+            if (function.evaluate())
+                for (MeshVertex vertex : function.getOutputSlotVertices())
+                    if (vertex != null)
+                        changedVertices.add(vertex);
+        }
+        long functionEndTime = measuring ? System.nanoTime() : 0;
+
+        int switchedConnectors = 0;
+        List<MeshConnector> connectors = workerScheduledConnectors.get(worker);
+        for (int index = 0; index < connectors.size(); index++) {
+            MeshConnector connector = connectors.get(index);
+            if (connector.tick(tickKey)) {
+                changedVertices.addAll(activityIndex.getSwitchedVertices(connector));
+                switchedConnectors++;
             }
+            // If the connector is still switching, it needs to be ticked again next tick
+            if (connector.isSwitching())
+                switchingConnectors.add(connector);
         }
-        // Clear futures from list
-        booleanFutures.clear();
-        return result;
-    }
-
-    private void waitForVoidTaskCompletion() {
-        // Wait for all currently-executing workers to finish
-        // Enhanced for-loops aren't used here to avoid concurrency issues (where futures potentially
-        // get added to the end of the list while we're still reading through it)
-        for (int index = 0; index < voidFutures.size(); index++) {
-            try {
-                voidFutures.get(index).get();
-            } catch (InterruptedException | ExecutionException e) {
-                // TODO
-                throw new RuntimeException(e);
+
+        if (measuring) {
+            workerFunctionTimes[worker] = functionEndTime - startTime;
+            workerConnectorTimes[worker] = System.nanoTime() - functionEndTime;
+            metrics.addSwitchedConnectors(switchedConnectors);
+        }
+    }
+
+    private void scheduleFunction(MeshFunction<?> function) {
+        scheduledFunctions.add(function);
+        workerScheduledFunctions.get(function.getPartition()).add(function);
+    }
+
+    private void rectifyAffectedVertices(int worker) {
+        List<MeshVertex> vertices = workerAffectedVertices.get(worker);
+        for (int index = 0; index < vertices.size(); index++)
+            vertices.get(index).rectifyStates();
+    }
+
+    private void recordWorkerPhases() {
+        // Workers run each phase in parallel, so the phase takes as long as the slowest worker
+        if (!measuring)
+            return;
+        long functionTime = 0, connectorTime = 0;
+        for (int worker = 0; worker < workerCount; worker++) {
+            functionTime = Math.max(functionTime, workerFunctionTimes[worker]);
+            connectorTime = Math.max(connectorTime, workerConnectorTimes[worker]);
+        }
+        metrics.recordPhase(SimulationPhase.FUNCTION_TICK, functionTime);
+        metrics.recordPhase(SimulationPhase.CONNECTOR_TICK, connectorTime);
+    }
+
+    private void runWorkers(IntConsumer task) {
+        try {
+            workerPool.run(task);
+        } catch (MeshException e) {
+            // If a worker failed, any processors it left behind belong to a tick that will never finish, so discard
+            // them to keep them from leaking into later ticks
+            for (ConcurrentLinkedQueue<MeshStateProcessor> inbox : inboxes)
+                inbox.clear();
+            pendingProcessors.set(0);
+
+            // The tick was left half-finished, so process everything again on the next one
+            if (activityIndex != null)
+                activateAll();
+            lastTickChanged = true;
+            throw e;
+        }
+    }
+
+    private void processInbox(int worker) {
+        ConcurrentLinkedQueue<MeshStateProcessor> inbox = inboxes.get(worker);
+        int processed = 0;
+        while (true) {
+            // Process the worker's own inbox first, and help other workers once it is empty if stealing is enabled
+            MeshStateProcessor processor = inbox.poll();
+            if (processor == null && stealingWork)
+                processor = pollOtherInboxes(worker);
+
+            if (processor != null) {
+                // Running the processor queues any follow-up processors before this one is marked as complete, so
+                // the pending count only reaches zero once propagation has finished
+                try {
+                    processor.run();
+                } finally {
+                    // If the processor fails, it still has to be marked as complete, or the other workers would wait
+                    // for it forever
+                    pendingProcessors.decrementAndGet();
+                }
+                processed++;
+            } else if (pendingProcessors.get() == 0) {
+                if (measuring)
+                    metrics.addPropagatedTasks(processed);
+                return;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private MeshStateProcessor pollOtherInboxes(int worker) {
+        for (int offset = 1; offset < workerCount; offset++) {
+            MeshStateProcessor processor = inboxes.get((worker + offset) % workerCount).poll();
+            if (processor != null)
+                return processor;
+        }
+        return null;
+    }
+
+    private void configurePartitions() {
+        functionPartitions = new ArrayList<>();
+        connectorPartitions = new ArrayList<>();
+        vertexPartitions = new ArrayList<>();
+        if (simulationConfig == null)
+            return;
+
+        // Each worker owns one region of the mesh.  If the mesh wasn't partitioned for this number of workers,
+        // partition it again.
+        MeshPartitioning partitioning = simulationConfig.getPartitioning();
+        if (partitioning == null || partitioning.getPartitionCount() != workerCount) {
+            partitioning = MeshPartitioner.partition(simulationConfig, workerCount);
+            simulationConfig.setPartitioning(partitioning);
+        }
+
+        for (int worker = 0; worker < workerCount; worker++) {
+            functionPartitions.add(partitioning.getFunctions(worker));
+            connectorPartitions.add(partitioning.getConnectors(worker));
+            vertexPartitions.add(partitioning.getVertices(worker));
+        }
+    }
+
+    private void configureActivityIndex() {
+        // The activity index is only needed for event-driven scheduling
+        compiledNetwork = null;
+        if (simulationConfig == null || schedulingMode == MeshSchedulingMode.FULL) {
+            activityIndex = null;
+            return;
+        }
+
+        // Compiled scheduling only works for networks of functions without feedback, so anything else is scheduled
+        // as events instead
+        if (schedulingMode == MeshSchedulingMode.COMPILED) {
+            compiledNetwork = MeshCompiledNetwork.compile(simulationConfig);
+            if (compiledNetwork != null) {
+                activityIndex = null;
+                AetherSimLogging.getSimulationLogger().info(
+                        "Compiled mesh into {} levels ({} functions).",
+                        compiledNetwork.getLevelCount(),
+                        compiledNetwork.getFunctionCount()
+                );
+                return;
             }
+            AetherSimLogging.getSimulationLogger().info("Mesh has connectors or feedback, so it will be simulated using event-driven scheduling.");
         }
-        // Clear futures from list
-        voidFutures.clear();
+
+        activityIndex = new MeshActivityIndex(simulationConfig);
+        activateAll();
+    }
+
+    private void restartHistory() {
+        if (history != null && simulationConfig != null)
+            history.start(simulationConfig, tickCount);
+    }
+
+    private void activateAll() {
+        // Process every function, connector, and vertex on the next tick, discarding any stored function outputs
+        for (MeshFunction<?> function : simulationConfig.getMeshChips())
+            function.clearOutputs();
+        activeFunctions.addAll(simulationConfig.getMeshChips());
+        activeConnectors.addAll(simulationConfig.getMeshConnectors());
+        patchedVertices.clear();
+        recomputeAllVertices = true;
+    }
+
+    private void activatePatch(MeshPatch patch) {
+        // Forget anything that was removed, and process everything the patch added or moved on the next tick,
+        // discarding the stored outputs of those functions
+        activeFunctions.removeAll(patch.getRemovedFunctions());
+        activeConnectors.removeAll(patch.getRemovedConnectors());
+        for (MeshFunction<?> function : patch.getAddedFunctions()) {
+            function.clearOutputs();
+            activeFunctions.add(function);
+        }
+        for (MeshFunction<?> function : patch.getChangedFunctions()) {
+            function.clearOutputs();
+            activeFunctions.add(function);
+        }
+        activeConnectors.addAll(patch.getAddedConnectors());
+        activeConnectors.addAll(patch.getChangedConnectors());
+        for (MeshEdge edge : patch.getChangedEdges().keySet())
+            activeConnectors.add(edge.connector());
+
+        // The vertices that were added or lost connections need new states, along with everything downstream of them
+        patchedVertices.addAll(patch.getAddedVertices());
+        patchedVertices.addAll(patch.getChangedVertices());
+    }
+
+    private static LogicState propagatedState(LogicState state) {
+        return state == LogicState.UNCONNECTED ? LogicState.UNKNOWN : state;
     }
 }
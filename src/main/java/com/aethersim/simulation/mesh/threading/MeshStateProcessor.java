@@ -17,13 +17,14 @@ public class MeshStateProcessor implements Runnable {
         this.desiredSuggestedState = desiredSuggestedState;
     }
 
+    public MeshVertex getVertex() {
+        return vertex;
+    }
+
     @Override
     public void run() {
-        // First, set the state of the current vertex
-        if (desiredActualState != LogicState.UNKNOWN)
-            vertex.setActualState(desiredActualState);
-        if (desiredSuggestedState != LogicState.UNKNOWN)
-            vertex.setSuggestedState(desiredSuggestedState);
+        // First, merge the states into the current vertex (unknown states are left out)
+        vertex.mergeStates(desiredActualState, desiredSuggestedState);
 
         // Next, re-queue updates to all connected vertices that don't already have the specified value
         for (MeshEdge edge : vertex.getOutgoingEdges()) {
@@ -33,7 +34,7 @@ public class MeshStateProcessor implements Runnable {
 
             // Check if the vertex needs to be updated
             if (edge.endpoint().compareStates(desiredActualState, desiredSuggestedState))
-                coordinator.queueNow(new MeshStateProcessor(coordinator, edge.endpoint(), desiredActualState, desiredSuggestedState));
+                coordinator.queue(new MeshStateProcessor(coordinator, edge.endpoint(), desiredActualState, desiredSuggestedState));
         }
     }
 }
@@ -0,0 +1,89 @@
+package com.aethersim.simulation.mesh.threading;
+
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+
+import java.util.concurrent.Phaser;
+import java.util.function.IntConsumer;
+
+public class MeshWorkerPool {
+
+    private final int workerCount;
+    private final Thread[] workers;
+    // The coordinating thread and all workers are registered with the phaser.  Each call to run() uses two phases:
+    // one to release the workers into the task, and one to wait for all of them to finish it.
+    private final Phaser phaser;
+
+    private volatile IntConsumer task = null;
+    private volatile boolean running = false;
+    private volatile Throwable failure = null;
+
+    public MeshWorkerPool(int workerCount) {
+        this.workerCount = workerCount;
+        this.workers = new Thread[workerCount];
+        this.phaser = new Phaser(workerCount + 1);
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public void start() {
+        running = true;
+        for (int worker = 0; worker < workerCount; worker++) {
+            final int workerIndex = worker;
+            workers[worker] = new Thread(() -> runWorker(workerIndex), "Simulation-Worker-" + worker);
+            workers[worker].setDaemon(true);
+            workers[worker].start();
+        }
+    }
+
+    public void stop() {
+        // Release the workers without a task so that they exit their loops
+        running = false;
+        task = null;
+        phaser.arriveAndDeregister();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public void run(IntConsumer task) {
+        // Publish the task and release all workers into it, then wait for all of them to finish
+        this.task = task;
+        phaser.arriveAndAwaitAdvance();
+        phaser.arriveAndAwaitAdvance();
+        this.task = null;
+
+        // If any worker failed, rethrow the failure on the coordinating thread
+        Throwable workerFailure = failure;
+        if (workerFailure != null) {
+            failure = null;
+            throw new MeshException("A simulation worker encountered an error.", workerFailure);
+        }
+    }
+
+    private void runWorker(int worker) {
+        while (true) {
+            // Wait until the coordinating thread releases a task (or stops the pool)
+            phaser.arriveAndAwaitAdvance();
+            if (!running) {
+                phaser.arriveAndDeregister();
+                return;
+            }
+
+            try {
+                task.accept(worker);
+            } catch (Throwable e) {
+                failure = e;
+            }
+
+            // Signal that this worker has finished the task
+            phaser.arriveAndAwaitAdvance();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.aethersim.simulation.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code LatencyHistogram} records durations into log-linear buckets, so percentiles can be read at any time
+ * without storing individual samples.  Each power of two is split into {@value #SUB_BUCKETS} buckets, so
+ * percentiles are accurate to within about 6%.
+ * <p>
+ * Recording a duration is lock-free and does not allocate, so it is cheap enough to do on every tick.
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long duration) {
+        // Negative durations can only come from clock errors, so count them as zero
+        duration = Math.max(0, duration);
+        counts.incrementAndGet(bucketIndex(duration));
+        count.increment();
+        total.add(duration);
+        if (duration > max.get())
+            max.accumulateAndGet(duration, Math::max);
+    }
+
+    public void reset() {
+        for (int index = 0; index < BUCKETS; index++)
+            counts.set(index, 0);
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    public long getPercentile(double percentile) {
+        // Find the bucket containing the requested rank, and report its upper bound (capped at the largest value
+        // recorded, since the bucket may be much wider than the values in it)
+        long recorded = 0;
+        for (int index = 0; index < BUCKETS; index++)
+            recorded += counts.get(index);
+        if (recorded == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            seen += counts.get(index);
+            if (seen >= rank)
+                return Math.min(bucketUpperBound(index), getMax());
+        }
+        return getMax();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMean() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) total.sum() / recorded;
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    @Override
+    public long getP90() {
+        return getPercentile(90);
+    }
+
+    @Override
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    @Override
+    public long getP999() {
+        return getPercentile(99.9);
+    }
+
+    private static int bucketIndex(long value) {
+        // Small values get a bucket each, and larger values are bucketed by their highest bit and the bits below it
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,21 @@
+package com.aethersim.simulation.metrics;
+
+/**
+ * The JMX view of a {@link LatencyHistogram}.  All durations are in nanoseconds.
+ */
+public interface LatencyHistogramMXBean {
+
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getP999();
+}
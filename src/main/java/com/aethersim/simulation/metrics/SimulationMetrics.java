@@ -0,0 +1,132 @@
+package com.aethersim.simulation.metrics;
+
+import com.aethersim.logging.AetherSimLogging;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code SimulationMetrics} collects timing and activity measurements from a simulator while it runs.  Tick and
+ * phase durations are recorded in {@link LatencyHistogram}s, and activity is counted with striped counters, so
+ * simulation workers can record measurements concurrently without contending with each other.
+ * <p>
+ * Simulators record into the {@linkplain #getGlobal() global} metrics by default, which can be published as JMX
+ * MBeans under the {@code com.aethersim} domain so percentiles can be watched with tools like JConsole.
+ */
+public class SimulationMetrics implements SimulationMetricsMXBean {
+
+    public static final String JMX_DOMAIN = "com.aethersim";
+
+    private static final SimulationMetrics GLOBAL = new SimulationMetrics();
+
+    private volatile boolean enabled = true;
+
+    private final LatencyHistogram tickLatency = new LatencyHistogram();
+    private final Map<SimulationPhase, LatencyHistogram> phaseLatencies = new EnumMap<>(SimulationPhase.class);
+    private final LongAdder propagatedTasks = new LongAdder();
+    private final LongAdder changedVertices = new LongAdder();
+    private final LongAdder switchedConnectors = new LongAdder();
+
+    public SimulationMetrics() {
+        for (SimulationPhase phase : SimulationPhase.values())
+            phaseLatencies.put(phase, new LatencyHistogram());
+    }
+
+    public static SimulationMetrics getGlobal() {
+        return GLOBAL;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void recordTick(long duration) {
+        tickLatency.record(duration);
+    }
+
+    public void recordPhase(SimulationPhase phase, long duration) {
+        phaseLatencies.get(phase).record(duration);
+    }
+
+    public void addPropagatedTasks(long tasks) {
+        propagatedTasks.add(tasks);
+    }
+
+    public void addChangedVertices(long vertices) {
+        changedVertices.add(vertices);
+    }
+
+    public void addSwitchedConnectors(long connectors) {
+        switchedConnectors.add(connectors);
+    }
+
+    public LatencyHistogram getTickLatency() {
+        return tickLatency;
+    }
+
+    public LatencyHistogram getPhaseLatency(SimulationPhase phase) {
+        return phaseLatencies.get(phase);
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickLatency.getCount();
+    }
+
+    @Override
+    public long getPropagatedTaskCount() {
+        return propagatedTasks.sum();
+    }
+
+    @Override
+    public long getChangedVertexCount() {
+        return changedVertices.sum();
+    }
+
+    @Override
+    public long getSwitchedConnectorCount() {
+        return switchedConnectors.sum();
+    }
+
+    @Override
+    public void reset() {
+        tickLatency.reset();
+        for (LatencyHistogram histogram : phaseLatencies.values())
+            histogram.reset();
+        propagatedTasks.reset();
+        changedVertices.reset();
+        switchedConnectors.reset();
+    }
+
+    public void register(MBeanServer server) throws JMException {
+        // Register the counters, and then each histogram as its own MBean beneath them
+        server.registerMBean(this, new ObjectName(JMX_DOMAIN, "type", "SimulationMetrics"));
+        server.registerMBean(tickLatency, histogramName("tick"));
+        for (Map.Entry<SimulationPhase, LatencyHistogram> entry : phaseLatencies.entrySet())
+            server.registerMBean(entry.getValue(), histogramName(entry.getKey().getId()));
+    }
+
+    public static void registerGlobal() {
+        try {
+            GLOBAL.register(ManagementFactory.getPlatformMBeanServer());
+        } catch (JMException e) {
+            // Metrics are only for monitoring, so log a warning and continue without them
+            AetherSimLogging.getSimulationLogger().warn("Could not register simulation metrics with JMX.", e);
+        }
+    }
+
+    private static ObjectName histogramName(String name) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=SimulationMetrics,latency=" + name);
+    }
+}
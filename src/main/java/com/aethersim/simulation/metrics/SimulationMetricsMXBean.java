@@ -0,0 +1,22 @@
+package com.aethersim.simulation.metrics;
+
+/**
+ * The JMX view of {@link SimulationMetrics}.  Tick and phase latencies are published as separate
+ * {@link LatencyHistogramMXBean}s.
+ */
+public interface SimulationMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getTickCount();
+
+    long getPropagatedTaskCount();
+
+    long getChangedVertexCount();
+
+    long getSwitchedConnectorCount();
+
+    void reset();
+}
@@ -0,0 +1,23 @@
+package com.aethersim.simulation.metrics;
+
+public enum SimulationPhase {
+
+    // Functions (chips) evaluate their inputs and queue their outputs
+    FUNCTION_TICK("function_tick"),
+    // Connectors (transistors) update their delays and switch
+    CONNECTOR_TICK("connector_tick"),
+    // Queued states are propagated through the connected vertices
+    PROPAGATION("propagation"),
+    // Vertices settle on their final states for the tick
+    RECTIFY("rectify");
+
+    private final String id;
+
+    SimulationPhase(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,447 @@
+package com.aethersim.simulation.netlist;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.simulation.ChipState;
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.SwitchingDelays;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A {@code BatchNetlist} simulates {@value #LANES} independent copies ("lanes") of a compiled {@link Netlist} at
+ * once.  Each vertex stores its states as bit planes in {@code long} words, where bit {@code n} of each word belongs
+ * to lane {@code n}.  A state is encoded using two planes: one that is set if the state has a low component and one
+ * that is set if it has a high component.  This means {@link LogicState#UNCONNECTED} is {@code 00},
+ * {@link LogicState#LOW} is {@code 10}, {@link LogicState#HIGH} is {@code 01}, and {@link LogicState#CONFLICTED}
+ * is {@code 11}, so merging two states is a bitwise OR and all lanes advance together using bitwise operations.
+ * <p>
+ * Transistor connectors follow the same switching rules as the scalar {@link Netlist}, including its delays.  A
+ * connector's delay only depends on the tick and the connector (see {@link SwitchingDelays}), so every lane in which it
+ * starts switching on the same tick waits the same number of ticks, and each lane matches a scalar netlist ticked
+ * with the same inputs.  Chips with simulated templates are evaluated once per lane (or once for all lanes if they have no inputs), unless their templates are
+ * {@link BitSlicedTemplate}s (such as collapsed switch networks), which evaluate every lane at once.  The outputs of
+ * chips without inputs (such as toggles) can be overridden per lane to apply different input vectors to each copy of
+ * the design.
+ * <p>
+ * Each lane keeps its own copy of the state of every other chip with inputs, stored as a {@link ChipState} snapshot, so
+ * chips that remember states between ticks (such as latches) behave independently in each lane.  Lanes start from
+ * the chip's state when the batch netlist is created or reset, and the chip's own state is left as it was.
+ */
+public class BatchNetlist {
+
+    /**
+     * The number of independent copies of the design simulated by a batch netlist
+     */
+    public static final int LANES = Long.SIZE;
+
+    private static final long ALL_LANES = -1L;
+
+    private final Netlist netlist;
+    private final int vertexCount;
+
+    // Committed states for each vertex, as low/high planes for the actual and suggested states
+    private final long[] actualLow, actualHigh, suggestedLow, suggestedHigh;
+    // States propagated during the current tick
+    private final long[] simulatedActualLow, simulatedActualHigh, simulatedSuggestedLow, simulatedSuggestedHigh;
+
+    // Actual states propagated into each vertex before they were rectified, which are unconnected unless driven
+    private final long[] propagatedActualLow, propagatedActualHigh;
+
+    // Connector state, where each bit is the state of the connector in one lane
+    private final long[] connectorsConnected, connectorsConnecting;
+    // Lanes in which each connector is waiting for its delay to finish, indexed by the remaining delay
+    private final long[][] connectorDelays;
+
+    // Per-lane overrides for the driven outputs of functions without inputs
+    private final long[] overrideLanes, overrideLow, overrideHigh;
+
+    // Snapshots of the chip state of each function with inputs in every lane (null for functions without inputs or
+    // without a state), and scratch space to keep the chip's own state in while the lanes are simulated
+    private final ByteBuffer[] laneStates;
+    private final ByteBuffer sharedState;
+
+    // Scratch space for the input and output planes of a single function (four planes per input or output)
+    private final long[] inputPlanes, outputPlanes;
+
+    // Worklist of vertices whose propagated states changed
+    private final int[] worklist;
+    private final boolean[] queued;
+    private int worklistSize = 0;
+
+    // Ticks are counted the same way as in the scalar netlist, so connectors are given the same delays
+    private long tickCount = 0;
+    private long tickKey;
+
+    public BatchNetlist(Netlist netlist) {
+        this.netlist = netlist;
+        this.vertexCount = netlist.getVertexCount();
+
+        this.actualLow = new long[vertexCount];
+        this.actualHigh = new long[vertexCount];
+        this.suggestedLow = new long[vertexCount];
+        this.suggestedHigh = new long[vertexCount];
+        this.simulatedActualLow = new long[vertexCount];
+        this.simulatedActualHigh = new long[vertexCount];
+        this.simulatedSuggestedLow = new long[vertexCount];
+        this.simulatedSuggestedHigh = new long[vertexCount];
+        this.propagatedActualLow = new long[vertexCount];
+        this.propagatedActualHigh = new long[vertexCount];
+
+        int connectorCount = netlist.getConnectorCount();
+        this.connectorsConnected = new long[connectorCount];
+        this.connectorsConnecting = new long[connectorCount];
+        this.connectorDelays = new long[Netlist.MAXIMUM_RANDOM_DELAY + 1][connectorCount];
+
+        int functionCount = netlist.getFunctionCount();
+        this.overrideLanes = new long[functionCount];
+        this.overrideLow = new long[functionCount];
+        this.overrideHigh = new long[functionCount];
+
+        this.laneStates = new ByteBuffer[functionCount];
+        int maximumInputs = 0, maximumOutputs = 0, maximumSnapshotSize = 0;
+        for (int function = 0; function < functionCount; function++) {
+            NetlistFunction<?> netlistFunction = netlist.getFunctions()[function];
+            maximumInputs = Math.max(maximumInputs, netlistFunction.getInputVertices().length);
+            maximumOutputs = Math.max(maximumOutputs, netlistFunction.getOutputVertices().length);
+            if (netlistFunction.getInputPins().length > 0 && netlistFunction.getState() != null
+                    && !(netlistFunction.getSimulatedTemplate() instanceof BitSlicedTemplate)) {
+                int snapshotSize = netlistFunction.getState().getSnapshotSize();
+                laneStates[function] = ByteBuffer.allocate(snapshotSize * LANES);
+                maximumSnapshotSize = Math.max(maximumSnapshotSize, snapshotSize);
+            }
+        }
+        this.sharedState = ByteBuffer.allocate(maximumSnapshotSize);
+        this.inputPlanes = new long[maximumInputs * 4];
+        this.outputPlanes = new long[maximumOutputs * 4];
+
+        this.worklist = new int[vertexCount];
+        this.queued = new boolean[vertexCount];
+
+        reset();
+    }
+
+    public Netlist getNetlist() {
+        return netlist;
+    }
+
+    public LogicState getActualState(int vertex, int lane) {
+        return decode(actualLow[vertex] >>> lane, actualHigh[vertex] >>> lane);
+    }
+
+    public LogicState getSuggestedState(int vertex, int lane) {
+        return decode(suggestedLow[vertex] >>> lane, suggestedHigh[vertex] >>> lane);
+    }
+
+    public LogicState getPropagatedActualState(int vertex, int lane) {
+        return decode(propagatedActualLow[vertex] >>> lane, propagatedActualHigh[vertex] >>> lane);
+    }
+
+    public long getActualLowLanes(int vertex) {
+        return actualLow[vertex];
+    }
+
+    public long getActualHighLanes(int vertex) {
+        return actualHigh[vertex];
+    }
+
+    public boolean isConnected(int connector, int lane) {
+        return ((connectorsConnected[connector] >>> lane) & 1) != 0;
+    }
+
+    /**
+     * This method overrides the driven output of a chip without inputs (such as a toggle) in a single lane.  Passing
+     * {@code null} as the state removes the override, so that the chip's own output is used again in that lane.
+     *
+     * @param chip  the {@link Chip} to override the output for
+     * @param lane  the lane to override the output in
+     * @param state the {@link LogicState} to drive in that lane, or {@code null} to remove the override
+     */
+    public void setDrivenState(Chip chip, int lane, LogicState state) {
+        if (lane < 0 || lane >= LANES)
+            throw new MeshException("Batch lanes must be between 0 and " + (LANES - 1) + ".");
+
+        // Apply the override to all input-less functions for the chip
+        boolean found = false;
+        NetlistFunction<?>[] functions = netlist.getFunctions();
+        for (int function = 0; function < functions.length; function++) {
+            if (functions[function].getChip() != chip || functions[function].getInputPins().length > 0)
+                continue;
+
+            long laneBit = 1L << lane;
+            overrideLanes[function] = state != null ? overrideLanes[function] | laneBit : overrideLanes[function] & ~laneBit;
+            overrideLow[function] = hasLow(state) ? overrideLow[function] | laneBit : overrideLow[function] & ~laneBit;
+            overrideHigh[function] = hasHigh(state) ? overrideHigh[function] | laneBit : overrideHigh[function] & ~laneBit;
+            found = true;
+        }
+
+        if (!found)
+            throw new MeshException("Only the outputs of simulated chips without inputs can be set per lane.");
+    }
+
+    public void reset() {
+        // Reset all connectors back to their default states (connected in all lanes only if they are active-low)
+        for (int connector = 0; connector < connectorsConnected.length; connector++) {
+            long defaultLanes = netlist.isActiveLow(connector) ? ALL_LANES : 0;
+            connectorsConnected[connector] = defaultLanes;
+            connectorsConnecting[connector] = defaultLanes;
+        }
+        for (long[] delays : connectorDelays)
+            Arrays.fill(delays, 0);
+        tickCount = 0;
+
+        // Start every lane from the current state of each chip
+        NetlistFunction<?>[] functions = netlist.getFunctions();
+        for (int function = 0; function < functions.length; function++) {
+            ByteBuffer laneState = laneStates[function];
+            if (laneState == null)
+                continue;
+            laneState.clear();
+            for (int lane = 0; lane < LANES; lane++)
+                functions[function].getState().writeSnapshot(laneState);
+        }
+    }
+
+    public boolean isSwitching() {
+        // Connectors that are still counting down their delays will change the states of some lanes on a later tick
+        for (long[] delays : connectorDelays)
+            for (long lanes : delays)
+                if (lanes != 0)
+                    return true;
+        return false;
+    }
+
+    public void tick() {
+        tickKey = SwitchingDelays.getTickKey(tickCount++);
+
+        // To start, clear the propagated states from the last tick
+        Arrays.fill(simulatedActualLow, 0);
+        Arrays.fill(simulatedActualHigh, 0);
+        Arrays.fill(simulatedSuggestedLow, 0);
+        Arrays.fill(simulatedSuggestedHigh, 0);
+
+        // Evaluate all functions and connectors, keeping track of the lanes in which something needs to propagate
+        long activeLanes = 0;
+        for (int function = 0; function < netlist.getFunctionCount(); function++)
+            activeLanes |= tickFunction(function, netlist.getFunctions()[function]);
+        for (int connector = 0; connector < connectorsConnected.length; connector++)
+            activeLanes |= tickConnector(connector);
+
+        // If nothing changed in any lane, all states remain the same
+        if (activeLanes == 0)
+            return;
+
+        // Next, propagate states through connected edges until none of them change
+        propagate();
+
+        // Finally, rectify the states of all vertices in the lanes that were active this tick
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+            rectify(vertex, activeLanes);
+    }
+
+    private long tickFunction(int function, NetlistFunction<?> netlistFunction) {
+        int[] outputVertices = netlistFunction.getOutputVertices();
+        Arrays.fill(outputPlanes, 0, outputVertices.length * 4, 0);
+
+        // Functions without inputs produce the same output in every lane, so only simulate them once, and bit-sliced
+        // functions simulate all lanes at once.  Otherwise, simulate the function separately for each lane.
+        if (netlistFunction.getInputPins().length == 0) {
+            simulate(netlistFunction, -1, outputPlanes);
+        } else if (netlistFunction.getSimulatedTemplate() instanceof BitSlicedTemplate<?>) {
+            simulateLanes(netlistFunction, outputPlanes);
+        } else {
+            ByteBuffer laneState = laneStates[function];
+            if (laneState == null) {
+                for (int lane = 0; lane < LANES; lane++)
+                    simulate(netlistFunction, lane, outputPlanes);
+            } else {
+                // Swap each lane's state into the chip's state while simulating that lane, and put the chip's own
+                // state back afterwards
+                ChipState state = netlistFunction.getState();
+                int snapshotSize = laneState.capacity() / LANES;
+                sharedState.clear();
+                state.writeSnapshot(sharedState);
+                for (int lane = 0; lane < LANES; lane++) {
+                    state.readSnapshot(laneState.position(lane * snapshotSize));
+                    simulate(netlistFunction, lane, outputPlanes);
+                    state.writeSnapshot(laneState.position(lane * snapshotSize));
+                }
+                state.readSnapshot(sharedState.flip());
+            }
+        }
+
+        // Apply any overridden driven states
+        long overridden = overrideLanes[function];
+        if (overridden != 0) {
+            for (int output = 0; output < outputVertices.length; output++) {
+                outputPlanes[output * 4] = (outputPlanes[output * 4] & ~overridden) | (overrideLow[function] & overridden);
+                outputPlanes[output * 4 + 1] = (outputPlanes[output * 4 + 1] & ~overridden) | (overrideHigh[function] & overridden);
+            }
+        }
+
+        // Merge the outputs into their vertices and queue the vertices for propagation
+        long activeLanes = 0;
+        for (int output = 0; output < outputVertices.length; output++) {
+            long lanes = outputPlanes[output * 4] | outputPlanes[output * 4 + 1] | outputPlanes[output * 4 + 2] | outputPlanes[output * 4 + 3];
+            if (lanes == 0)
+                continue;
+
+            int vertex = outputVertices[output];
+            simulatedActualLow[vertex] |= outputPlanes[output * 4];
+            simulatedActualHigh[vertex] |= outputPlanes[output * 4 + 1];
+            simulatedSuggestedLow[vertex] |= outputPlanes[output * 4 + 2];
+            simulatedSuggestedHigh[vertex] |= outputPlanes[output * 4 + 3];
+            enqueue(vertex);
+            activeLanes |= lanes;
+        }
+
+        return activeLanes;
+    }
+
+    private <T extends ChipState> void simulate(NetlistFunction<T> netlistFunction, int lane, long[] outputPlanes) {
+        // Fill in the inputs of the chip state from the current lane (pins are stored in slot order, so each index is
+        // also a slot)
+        T state = netlistFunction.getState();
+        int[] inputVertices = netlistFunction.getInputVertices();
+        boolean propagated = netlistFunction.getSimulatedTemplate().isReadingPropagatedStates();
+        for (int input = 0; input < inputVertices.length; input++) {
+            state.setDrivenInputState(input, propagated ? getPropagatedActualState(inputVertices[input], lane) : getActualState(inputVertices[input], lane));
+            state.setPulledInputState(input, getSuggestedState(inputVertices[input], lane));
+        }
+
+        // Pass the state to the template simulate() method to perform the computation
+        netlistFunction.getSimulatedTemplate().simulate(state);
+
+        // Store the output states in the lane (or all lanes if the lane is negative)
+        long laneBits = lane < 0 ? ALL_LANES : 1L << lane;
+        int outputCount = netlistFunction.getOutputPins().length;
+        for (int output = 0; output < outputCount; output++) {
+            LogicState drivenState = state.getDrivenOutputState(output);
+            LogicState pulledState = state.getPulledOutputState(output);
+            if (hasLow(drivenState))
+                outputPlanes[output * 4] |= laneBits;
+            if (hasHigh(drivenState))
+                outputPlanes[output * 4 + 1] |= laneBits;
+            if (hasLow(pulledState))
+                outputPlanes[output * 4 + 2] |= laneBits;
+            if (hasHigh(pulledState))
+                outputPlanes[output * 4 + 3] |= laneBits;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends ChipState> void simulateLanes(NetlistFunction<T> netlistFunction, long[] outputPlanes) {
+        // Fill in the input planes from the current states of the input vertices (pins are stored in slot order, so
+        // each index is also a slot)
+        int[] inputVertices = netlistFunction.getInputVertices();
+        boolean propagated = netlistFunction.getSimulatedTemplate().isReadingPropagatedStates();
+        for (int input = 0; input < inputVertices.length; input++) {
+            int vertex = inputVertices[input];
+            inputPlanes[input * 4] = propagated ? propagatedActualLow[vertex] : actualLow[vertex];
+            inputPlanes[input * 4 + 1] = propagated ? propagatedActualHigh[vertex] : actualHigh[vertex];
+            inputPlanes[input * 4 + 2] = suggestedLow[vertex];
+            inputPlanes[input * 4 + 3] = suggestedHigh[vertex];
+        }
+
+        ((BitSlicedTemplate<T>) netlistFunction.getSimulatedTemplate()).simulateLanes(netlistFunction.getState(), inputPlanes, outputPlanes);
+    }
+
+    private long tickConnector(int connector) {
+        // Determine the lanes in which the decider is active (exclusively low or high, depending on the connector)
+        int decider = netlist.getConnectorDeciders()[connector];
+        long deciderActive = netlist.isActiveLow(connector)
+                ? actualLow[decider] & ~actualHigh[decider]
+                : actualHigh[decider] & ~actualLow[decider];
+
+        // In lanes where the decider changed, start the delay over.  In lanes where the delay has finished,
+        // update the connection state.
+        long changedLanes = connectorsConnecting[connector] ^ deciderActive;
+        connectorsConnecting[connector] = deciderActive;
+        long finishedLanes = connectorDelays[0][connector] & ~changedLanes;
+        connectorsConnected[connector] = (connectorsConnected[connector] & ~finishedLanes) | (deciderActive & finishedLanes);
+
+        // Count down the delays in all other lanes, and start the delay in the lanes that changed
+        int maximumDelay = Netlist.MAXIMUM_RANDOM_DELAY;
+        for (int delay = 0; delay < maximumDelay; delay++)
+            connectorDelays[delay][connector] = connectorDelays[delay + 1][connector] & ~changedLanes;
+        connectorDelays[maximumDelay][connector] = 0;
+        if (changedLanes != 0)
+            connectorDelays[SwitchingDelays.getDelay(tickKey, connector, maximumDelay)][connector] |= changedLanes;
+
+        return finishedLanes;
+    }
+
+    private void propagate() {
+        int[] edgeOffsets = netlist.getEdgeOffsets();
+        int[] edgeTargets = netlist.getEdgeTargets();
+        int[] edgeConnectors = netlist.getEdgeConnectors();
+
+        while (worklistSize > 0) {
+            // Pull the most recently-queued vertex from the worklist
+            int vertex = worklist[--worklistSize];
+            queued[vertex] = false;
+
+            // Merge the states of this vertex into all endpoints in the lanes where their edges are connected
+            for (int edge = edgeOffsets[vertex]; edge < edgeOffsets[vertex + 1]; edge++) {
+                long connected = connectorsConnected[edgeConnectors[edge]];
+                if (connected == 0)
+                    continue;
+
+                int endpoint = edgeTargets[edge];
+                long newActualLow = simulatedActualLow[endpoint] | (simulatedActualLow[vertex] & connected);
+                long newActualHigh = simulatedActualHigh[endpoint] | (simulatedActualHigh[vertex] & connected);
+                long newSuggestedLow = simulatedSuggestedLow[endpoint] | (simulatedSuggestedLow[vertex] & connected);
+                long newSuggestedHigh = simulatedSuggestedHigh[endpoint] | (simulatedSuggestedHigh[vertex] & connected);
+
+                // Only continue propagating if this changed the endpoint in any lane
+                if (newActualLow != simulatedActualLow[endpoint] || newActualHigh != simulatedActualHigh[endpoint]
+                        || newSuggestedLow != simulatedSuggestedLow[endpoint] || newSuggestedHigh != simulatedSuggestedHigh[endpoint]) {
+                    simulatedActualLow[endpoint] = newActualLow;
+                    simulatedActualHigh[endpoint] = newActualHigh;
+                    simulatedSuggestedLow[endpoint] = newSuggestedLow;
+                    simulatedSuggestedHigh[endpoint] = newSuggestedHigh;
+                    enqueue(endpoint);
+                }
+            }
+        }
+    }
+
+    private void rectify(int vertex, long activeLanes) {
+        // In lanes where the "actual" state is unconnected, set it to the suggested state
+        long unconnected = ~(simulatedActualLow[vertex] | simulatedActualHigh[vertex]);
+        long rectifiedLow = simulatedActualLow[vertex] | (simulatedSuggestedLow[vertex] & unconnected);
+        long rectifiedHigh = simulatedActualHigh[vertex] | (simulatedSuggestedHigh[vertex] & unconnected);
+
+        // Commit the states in active lanes, and keep the previous states in all other lanes
+        propagatedActualLow[vertex] = (propagatedActualLow[vertex] & ~activeLanes) | (simulatedActualLow[vertex] & activeLanes);
+        propagatedActualHigh[vertex] = (propagatedActualHigh[vertex] & ~activeLanes) | (simulatedActualHigh[vertex] & activeLanes);
+        actualLow[vertex] = (actualLow[vertex] & ~activeLanes) | (rectifiedLow & activeLanes);
+        actualHigh[vertex] = (actualHigh[vertex] & ~activeLanes) | (rectifiedHigh & activeLanes);
+        suggestedLow[vertex] = (suggestedLow[vertex] & ~activeLanes) | (simulatedSuggestedLow[vertex] & activeLanes);
+        suggestedHigh[vertex] = (suggestedHigh[vertex] & ~activeLanes) | (simulatedSuggestedHigh[vertex] & activeLanes);
+    }
+
+    private void enqueue(int vertex) {
+        if (queued[vertex])
+            return;
+        queued[vertex] = true;
+        worklist[worklistSize++] = vertex;
+    }
+
+    private static boolean hasLow(LogicState state) {
+        return state == LogicState.LOW || state == LogicState.CONFLICTED;
+    }
+
+    private static boolean hasHigh(LogicState state) {
+        return state == LogicState.HIGH || state == LogicState.CONFLICTED;
+    }
+
+    private static LogicState decode(long low, long high) {
+        // Only the lowest bit of each plane is used, since the lane is shifted into that position
+        if ((low & 1) != 0)
+            return (high & 1) != 0 ? LogicState.CONFLICTED : LogicState.LOW;
+        else
+            return (high & 1) != 0 ? LogicState.HIGH : LogicState.UNCONNECTED;
+    }
+}
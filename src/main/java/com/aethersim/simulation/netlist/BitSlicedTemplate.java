@@ -0,0 +1,31 @@
+package com.aethersim.simulation.netlist;
+
+import com.aethersim.simulation.ChipState;
+
+/**
+ * A {@code BitSlicedTemplate} is a simulated template that can evaluate all lanes of a {@link BatchNetlist} at once
+ * using bitwise operations, rather than being simulated separately for each lane.  Only templates whose outputs
+ * depend on nothing but their current inputs can be bit-sliced, since a single chip state is shared by every lane.
+ * <p>
+ * States are passed as bit planes in the same encoding used by {@link BatchNetlist}, where bit {@code n} of each
+ * plane belongs to lane {@code n}.  Each input slot has four consecutive planes, holding the low and high components
+ * of its actual state followed by the low and high components of its suggested state (for templates that
+ * {@linkplain com.aethersim.designs.templates.SimulatedTemplate#isReadingPropagatedStates() read propagated states},
+ * the actual state is the one propagated into the vertex before it was rectified).  Each output slot also has four
+ * consecutive planes, holding the low and high components of its driven state followed by the low and high
+ * components of its pulled state.
+ *
+ * @param <T> the type of {@link ChipState} used by the template
+ */
+public interface BitSlicedTemplate<T extends ChipState> {
+
+    /**
+     * This method simulates the template in every lane at once.  The output planes are cleared before this method is
+     * called, and any outputs that aren't driven or pulled in a lane should be left clear in that lane.
+     *
+     * @param state        the {@link ChipState} of the chip being simulated, which may be used as scratch space
+     * @param inputPlanes  the planes for each input slot (four planes per slot)
+     * @param outputPlanes the planes to fill in for each output slot (four planes per slot)
+     */
+    void simulateLanes(T state, long[] inputPlanes, long[] outputPlanes);
+}
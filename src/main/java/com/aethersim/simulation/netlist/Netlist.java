@@ -0,0 +1,348 @@
+package com.aethersim.simulation.netlist;
+
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.SwitchingDelays;
+
+import java.util.Arrays;
+
+/**
+ * A {@code Netlist} is the compiled, struct-of-arrays form of a simulation mesh.  Vertices are identified by
+ * {@code int} indices, outgoing edges are stored in compressed sparse row (CSR) arrays, connector state and delays
+ * are held in primitive arrays, and the logic states of each vertex are packed into a single {@code byte}.
+ * <p>
+ * Each packed state stores the ordinal of the "actual" {@link LogicState} in its low three bits and the ordinal of
+ * the "suggested" {@link LogicState} in the next three bits.  The rules used to merge, compare, and rectify states
+ * are identical to those used by the object-based mesh, so both simulators produce the same results for the same
+ * design.
+ */
+public class Netlist {
+
+    /**
+     * The maximum number of ticks a connector can take to switch after its decider changes
+     */
+    public static final int MAXIMUM_RANDOM_DELAY = 3;
+
+    // Cached logic state values (indexed by ordinal) so that unpacking states does not allocate
+    static final LogicState[] LOGIC_STATES = LogicState.values();
+
+    // Logic state ordinals, used directly to avoid dereferencing enum constants on the hot path
+    static final int LOW = LogicState.LOW.ordinal();
+    static final int HIGH = LogicState.HIGH.ordinal();
+    static final int UNCONNECTED = LogicState.UNCONNECTED.ordinal();
+    static final int CONFLICTED = LogicState.CONFLICTED.ordinal();
+    static final int UNKNOWN = LogicState.UNKNOWN.ordinal();
+
+    // Whether each logic state (indexed by ordinal) is exclusive
+    private static final boolean[] EXCLUSIVE = new boolean[LOGIC_STATES.length];
+
+    static {
+        for (LogicState state : LOGIC_STATES)
+            EXCLUSIVE[state.ordinal()] = state.isExclusive();
+    }
+
+    // Bit layout of packed vertex states
+    static final int STATE_BITS = 3;
+    static final int STATE_MASK = (1 << STATE_BITS) - 1;
+    static final byte UNCONNECTED_STATE = pack(UNCONNECTED, UNCONNECTED);
+
+    // Bit layout of connector flags
+    static final int CONNECTOR_ACTIVE_LOW = 1;
+    static final int CONNECTOR_CONNECTED = 1 << 1;
+    static final int CONNECTOR_CONNECTING = 1 << 2;
+
+    private final int vertexCount;
+    private final byte[] states;
+    private final byte[] simulatedStates;
+
+    // The actual state propagated into each vertex before it was rectified, which is unconnected unless something drove it
+    private final byte[] propagatedActualStates;
+
+    private final int[] edgeOffsets;
+    private final int[] edgeTargets;
+    private final int[] edgeConnectors;
+
+    private final int[] connectorDeciders;
+    private final byte[] connectorFlags;
+    private final byte[] connectorDelays;
+
+    private final NetlistFunction<?>[] functions;
+
+    // Counts ticks since the netlist was created or reset, which determines the switching delays of connectors
+    private long tickCount = 0;
+    private long tickKey;
+
+    // Worklist of pending state propagations (a vertex index paired with the packed desired states)
+    private int[] worklistVertices = new int[64];
+    private byte[] worklistStates = new byte[64];
+    private int worklistSize = 0;
+
+    // Tracks whether any vertex states changed during the last tick, which is used to detect when the netlist is stable
+    private boolean lastTickChanged = true;
+
+    private NetlistSimulatedDesign topLevelSimulatedDesign;
+
+    Netlist(int vertexCount, int[] edgeOffsets, int[] edgeTargets, int[] edgeConnectors,
+            int[] connectorDeciders, byte[] connectorFlags, NetlistFunction<?>[] functions) {
+        this.vertexCount = vertexCount;
+        this.states = new byte[vertexCount];
+        this.simulatedStates = new byte[vertexCount];
+        this.propagatedActualStates = new byte[vertexCount];
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.edgeConnectors = edgeConnectors;
+        this.connectorDeciders = connectorDeciders;
+        this.connectorFlags = connectorFlags;
+        this.connectorDelays = new byte[connectorDeciders.length];
+        this.functions = functions;
+
+        // All vertices start out unconnected, and all connectors start out in their default states
+        Arrays.fill(states, UNCONNECTED_STATE);
+        Arrays.fill(simulatedStates, UNCONNECTED_STATE);
+        Arrays.fill(propagatedActualStates, (byte) UNCONNECTED);
+        reset();
+    }
+
+    public NetlistSimulatedDesign getTopLevelSimulatedDesign() {
+        return topLevelSimulatedDesign;
+    }
+
+    void setTopLevelSimulatedDesign(NetlistSimulatedDesign topLevelSimulatedDesign) {
+        this.topLevelSimulatedDesign = topLevelSimulatedDesign;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeTargets.length;
+    }
+
+    public int getConnectorCount() {
+        return connectorDeciders.length;
+    }
+
+    public int getFunctionCount() {
+        return functions.length;
+    }
+
+    int[] getEdgeOffsets() {
+        return edgeOffsets;
+    }
+
+    int[] getEdgeTargets() {
+        return edgeTargets;
+    }
+
+    int[] getEdgeConnectors() {
+        return edgeConnectors;
+    }
+
+    int[] getConnectorDeciders() {
+        return connectorDeciders;
+    }
+
+    boolean isActiveLow(int connector) {
+        return (connectorFlags[connector] & CONNECTOR_ACTIVE_LOW) != 0;
+    }
+
+    NetlistFunction<?>[] getFunctions() {
+        return functions;
+    }
+
+    public LogicState getActualState(int vertex) {
+        return LOGIC_STATES[states[vertex] & STATE_MASK];
+    }
+
+    public LogicState getSuggestedState(int vertex) {
+        return LOGIC_STATES[(states[vertex] >> STATE_BITS) & STATE_MASK];
+    }
+
+    public LogicState getPropagatedActualState(int vertex) {
+        return LOGIC_STATES[propagatedActualStates[vertex]];
+    }
+
+    public boolean isConnected(int connector) {
+        return (connectorFlags[connector] & CONNECTOR_CONNECTED) != 0;
+    }
+
+    public void reset() {
+        // Reset all connectors back to their default states (connected only if they are active-low)
+        for (int connector = 0; connector < connectorFlags.length; connector++) {
+            int flags = connectorFlags[connector] & CONNECTOR_ACTIVE_LOW;
+            if (flags != 0)
+                flags |= CONNECTOR_CONNECTED | CONNECTOR_CONNECTING;
+            connectorFlags[connector] = (byte) flags;
+            connectorDelays[connector] = -1;
+        }
+        lastTickChanged = true;
+        tickCount = 0;
+    }
+
+    public boolean isStable() {
+        // The netlist is stable once a tick passes without any vertex state changes and no connectors are still switching
+        // (since those may update vertices on a later tick)
+        if (lastTickChanged)
+            return false;
+        for (byte delay : connectorDelays)
+            if (delay >= 0)
+                return false;
+        return true;
+    }
+
+    public void tick() {
+        tickKey = SwitchingDelays.getTickKey(tickCount++);
+
+        // To start, tick all functions and connectors, which queue any state propagations that are necessary
+        boolean propagateChanges = false;
+        for (NetlistFunction<?> function : functions)
+            if (function.tick(this))
+                propagateChanges = true;
+
+        for (int connector = 0; connector < connectorFlags.length; connector++)
+            if (tickConnector(connector))
+                propagateChanges = true;
+
+        // If we don't need to update any vertices (e.g., if nothing changed) then exit early after clearing
+        // queued propagations
+        lastTickChanged = propagateChanges;
+        if (!propagateChanges) {
+            worklistSize = 0;
+            return;
+        }
+
+        // Next, process all queued propagations until none remain
+        propagate();
+
+        // Finally, rectify the states of all vertices
+        boolean statesChanged = false;
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+            if (rectify(vertex))
+                statesChanged = true;
+        lastTickChanged = statesChanged;
+    }
+
+    boolean compareStates(int vertex, int otherActualState, int otherSuggestedState) {
+        int simulatedState = simulatedStates[vertex];
+        int simulatedActualState = simulatedState & STATE_MASK;
+        int simulatedSuggestedState = (simulatedState >> STATE_BITS) & STATE_MASK;
+
+        // If this vertex is already conflicted, there is no need to update it again
+        if (simulatedActualState == CONFLICTED)
+            return false;
+
+        // If the new actual state differs from the current one, it needs to be updated unless the new state is unknown
+        if (otherActualState != UNKNOWN && simulatedActualState != otherActualState)
+            return true;
+
+        // If the suggested state is already conflicted, there is no need to update it again
+        if (simulatedSuggestedState == CONFLICTED)
+            return false;
+
+        // If the new suggested state differs from the current one, it needs to be updated unless the new state
+        // is unknown.  Otherwise, there are no discrepancies, so it doesn't need to be updated
+        return otherSuggestedState != UNKNOWN && simulatedSuggestedState != otherSuggestedState;
+    }
+
+    void queue(int vertex, int desiredActualState, int desiredSuggestedState) {
+        // Grow the worklist if necessary
+        if (worklistSize == worklistVertices.length) {
+            worklistVertices = Arrays.copyOf(worklistVertices, worklistSize * 2);
+            worklistStates = Arrays.copyOf(worklistStates, worklistSize * 2);
+        }
+
+        worklistVertices[worklistSize] = vertex;
+        worklistStates[worklistSize] = pack(desiredActualState, desiredSuggestedState);
+        worklistSize++;
+    }
+
+    private boolean tickConnector(int connector) {
+        int flags = connectorFlags[connector];
+        boolean activeLow = (flags & CONNECTOR_ACTIVE_LOW) != 0;
+        boolean connecting = (flags & CONNECTOR_CONNECTING) != 0;
+        boolean deciderActive = (states[connectorDeciders[connector]] & STATE_MASK) == (activeLow ? LOW : HIGH);
+
+        // If the state has changed, reset the delay.  Otherwise, if the delay is still counting, handle this tick.
+        boolean propagateChanges = false;
+        if (connecting != deciderActive) {
+            connectorFlags[connector] = (byte) (flags ^ CONNECTOR_CONNECTING);
+            connectorDelays[connector] = (byte) SwitchingDelays.getDelay(tickKey, connector, MAXIMUM_RANDOM_DELAY);
+        } else if (connectorDelays[connector] >= 0) {
+            // If the current delay is 0, we've reached the end of the delay, so set the status
+            if (connectorDelays[connector] == 0) {
+                connectorFlags[connector] = (byte) (connecting
+                        ? flags | CONNECTOR_CONNECTED
+                        : flags & ~CONNECTOR_CONNECTED);
+                propagateChanges = true;
+            }
+
+            // Decrement the delay
+            connectorDelays[connector]--;
+        }
+
+        return propagateChanges;
+    }
+
+    private void propagate() {
+        while (worklistSize > 0) {
+            // Pull the most recently-queued propagation from the worklist
+            worklistSize--;
+            int vertex = worklistVertices[worklistSize];
+            int desiredState = worklistStates[worklistSize];
+            int desiredActualState = desiredState & STATE_MASK;
+            int desiredSuggestedState = (desiredState >> STATE_BITS) & STATE_MASK;
+
+            // First, merge the desired states into the current vertex
+            int simulatedState = simulatedStates[vertex];
+            int simulatedActualState = simulatedState & STATE_MASK;
+            int simulatedSuggestedState = (simulatedState >> STATE_BITS) & STATE_MASK;
+            if (desiredActualState != UNKNOWN)
+                simulatedActualState = merge(simulatedActualState, desiredActualState);
+            if (desiredSuggestedState != UNKNOWN)
+                simulatedSuggestedState = merge(simulatedSuggestedState, desiredSuggestedState);
+            simulatedStates[vertex] = pack(simulatedActualState, simulatedSuggestedState);
+
+            // Next, queue updates to all connected vertices that don't already have the specified value
+            for (int edge = edgeOffsets[vertex]; edge < edgeOffsets[vertex + 1]; edge++) {
+                if ((connectorFlags[edgeConnectors[edge]] & CONNECTOR_CONNECTED) == 0)
+                    continue;
+
+                int endpoint = edgeTargets[edge];
+                if (compareStates(endpoint, desiredActualState, desiredSuggestedState))
+                    queue(endpoint, desiredActualState, desiredSuggestedState);
+            }
+        }
+    }
+
+    private boolean rectify(int vertex) {
+        int simulatedState = simulatedStates[vertex];
+        int simulatedActualState = simulatedState & STATE_MASK;
+        int simulatedSuggestedState = (simulatedState >> STATE_BITS) & STATE_MASK;
+        propagatedActualStates[vertex] = (byte) simulatedActualState;
+
+        // If the "actual" state is unconnected, set it to the suggested state
+        if (simulatedActualState == UNCONNECTED)
+            simulatedActualState = simulatedSuggestedState;
+
+        // Set the current states to the simulated states, and clear the simulated states for the next tick
+        byte state = pack(simulatedActualState, simulatedSuggestedState);
+        boolean stateChanged = states[vertex] != state;
+        states[vertex] = state;
+        simulatedStates[vertex] = UNCONNECTED_STATE;
+        return stateChanged;
+    }
+
+    private static int merge(int simulatedState, int incomingState) {
+        // If the state of this vertex is conflicted, do not overwrite it
+        if (simulatedState == CONFLICTED)
+            return simulatedState;
+        // If this has an exclusive logical state, and the incoming state is different, set it as conflicted
+        if (EXCLUSIVE[simulatedState] && EXCLUSIVE[incomingState] && simulatedState != incomingState)
+            return CONFLICTED;
+        return incomingState;
+    }
+
+    static byte pack(int actualState, int suggestedState) {
+        return (byte) (actualState | (suggestedState << STATE_BITS));
+    }
+}
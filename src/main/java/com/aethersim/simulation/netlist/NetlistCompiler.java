@@ -0,0 +1,199 @@
+package com.aethersim.simulation.netlist;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.templates.SimulatedTemplate;
+import com.aethersim.logging.AetherSimLogging;
+import com.aethersim.simulation.ChipState;
+import com.aethersim.simulation.SimulatedDesign;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+import com.aethersim.simulation.mesh.mesh.*;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerationOptions;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerator;
+import com.aethersim.simulation.mesh.mesh.generation.MeshIndexStamp;
+import com.aethersim.simulation.mesh.mesh.generation.MeshInstance;
+import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The {@code NetlistCompiler} builds a {@link Netlist} for a design.  Designs are compiled directly from the indices
+ * stamped out by mesh generation, so the mesh's vertices, edges, and connectors are never created.  Existing meshes
+ * can also be compiled, after which the netlist holds no references to the mesh, so the mesh can be garbage
+ * collected.
+ */
+public class NetlistCompiler {
+
+    /**
+     * This method compiles the specified design into a {@link Netlist} without generating its mesh.  At its peak,
+     * compilation holds the compiled templates, the instance tree, and four {@code int}-sized entries per transistor
+     * alongside the netlist's own arrays.
+     *
+     * @param design  The {@link Design} to compile
+     * @param options The {@link MeshGenerationOptions} to compile the design's templates with
+     * @return The compiled {@link Netlist}
+     */
+    public static Netlist compile(Design design, MeshGenerationOptions options) {
+        MeshIndexStamp stamp = MeshGenerator.generateIndices(design, options);
+        int vertexCount = stamp.getVertexCount();
+
+        // Each connector belongs to a single edge, and edges are attached to their start vertices in connector order
+        // (the same order a generated mesh attaches them in), so the CSR arrays can be filled in one pass once the
+        // edges of each vertex have been counted
+        int connectorCount = stamp.getConnectorCount();
+        int[] connectorDeciders = new int[connectorCount];
+        byte[] connectorFlags = new byte[connectorCount];
+        int[] edgeOffsets = new int[vertexCount + 1];
+        for (int connector = 0; connector < connectorCount; connector++) {
+            connectorDeciders[connector] = stamp.getConnectorDecider(connector);
+            connectorFlags[connector] = (byte) (stamp.isConnectorActiveLow(connector) ? Netlist.CONNECTOR_ACTIVE_LOW : 0);
+            edgeOffsets[stamp.getEdgeStart(connector) + 1]++;
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+            edgeOffsets[vertex + 1] += edgeOffsets[vertex];
+
+        int[] edgeTargets = new int[connectorCount];
+        int[] edgeConnectors = new int[connectorCount];
+        int[] edgeCursors = Arrays.copyOf(edgeOffsets, vertexCount);
+        for (int connector = 0; connector < connectorCount; connector++) {
+            int edge = edgeCursors[stamp.getEdgeStart(connector)]++;
+            edgeTargets[edge] = stamp.getEdgeEnd(connector);
+            edgeConnectors[edge] = connector;
+        }
+
+        // Functions refer to vertex indices through their instances
+        NetlistFunction<?>[] functions = new NetlistFunction<?>[stamp.getFunctionCount()];
+        for (int function = 0; function < functions.length; function++)
+            functions[function] = compileFunction(stamp.getFunctionInstance(function), stamp.getFunctionChip(function), stamp.getFunctionTemplate(function));
+
+        Netlist netlist = new Netlist(vertexCount, edgeOffsets, edgeTargets, edgeConnectors, connectorDeciders, connectorFlags, functions);
+
+        // The netlist's vertices are numbered the same as the vertex table, so the instance tree maps onto them directly
+        int[] tableIndices = new int[vertexCount];
+        Arrays.setAll(tableIndices, index -> index);
+        netlist.setTopLevelSimulatedDesign(new NetlistSimulatedDesign(netlist, stamp.getInstance(), tableIndices));
+
+        logCompiled(netlist);
+        return netlist;
+    }
+
+    public static Netlist compile(MeshSimulationConfig simulationConfig) {
+        // Assign a dense index to every vertex and connector in the mesh
+        Map<MeshVertex, Integer> vertexIndices = new IdentityHashMap<>();
+        for (MeshVertex vertex : simulationConfig.getMeshVertices())
+            vertexIndices.put(vertex, vertexIndices.size());
+
+        Map<MeshConnector, Integer> connectorIndices = new IdentityHashMap<>();
+        int[] connectorDeciders = new int[simulationConfig.getMeshConnectors().size()];
+        byte[] connectorFlags = new byte[connectorDeciders.length];
+        for (MeshConnector connector : simulationConfig.getMeshConnectors()) {
+            int connectorIndex = connectorIndices.size();
+            connectorIndices.put(connector, connectorIndex);
+            connectorDeciders[connectorIndex] = indexOf(vertexIndices, connector.getDecider());
+            connectorFlags[connectorIndex] = (byte) (connector.isActiveLow() ? Netlist.CONNECTOR_ACTIVE_LOW : 0);
+        }
+
+        // Build the CSR edge arrays.  Edge offsets are calculated first so that the targets and connectors for each
+        // vertex can be written directly into their final positions.
+        int vertexCount = vertexIndices.size();
+        int[] edgeOffsets = new int[vertexCount + 1];
+        for (Map.Entry<MeshVertex, Integer> entry : vertexIndices.entrySet())
+            edgeOffsets[entry.getValue() + 1] = entry.getKey().getOutgoingEdges().size();
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+            edgeOffsets[vertex + 1] += edgeOffsets[vertex];
+
+        int[] edgeTargets = new int[edgeOffsets[vertexCount]];
+        int[] edgeConnectors = new int[edgeTargets.length];
+        for (Map.Entry<MeshVertex, Integer> entry : vertexIndices.entrySet()) {
+            int edge = edgeOffsets[entry.getValue()];
+            for (MeshEdge meshEdge : entry.getKey().getOutgoingEdges()) {
+                edgeTargets[edge] = indexOf(vertexIndices, meshEdge.endpoint());
+                Integer connectorIndex = connectorIndices.get(meshEdge.connector());
+                if (connectorIndex == null)
+                    throw new MeshException("Simulation mesh edges must use connectors registered in the mesh.");
+                edgeConnectors[edge] = connectorIndex;
+                edge++;
+            }
+        }
+
+        // Compile all functions so that they refer to vertex indices instead of vertices
+        NetlistFunction<?>[] functions = new NetlistFunction<?>[simulationConfig.getMeshChips().size()];
+        int functionIndex = 0;
+        for (MeshFunction<?> meshFunction : simulationConfig.getMeshChips())
+            functions[functionIndex++] = compileFunction(vertexIndices, meshFunction);
+
+        Netlist netlist = new Netlist(vertexCount, edgeOffsets, edgeTargets, edgeConnectors, connectorDeciders, connectorFlags, functions);
+
+        // Build the simulated design tree so the netlist states can be mapped back to design elements
+        netlist.setTopLevelSimulatedDesign(compileSimulatedDesign(netlist, vertexIndices, simulationConfig.getTopLevelSimulatedDesign()));
+
+        logCompiled(netlist);
+        return netlist;
+    }
+
+    private static <T extends ChipState> NetlistFunction<T> compileFunction(MeshInstance instance, Chip chip, SimulatedTemplate<T> simulatedTemplate) {
+        Pin[] inputPins = simulatedTemplate.getInputPins().toArray(new Pin[0]);
+        int[] inputVertices = new int[inputPins.length];
+        for (int index = 0; index < inputPins.length; index++)
+            inputVertices[index] = instance.getVertexIndex(inputPins[index]);
+
+        Pin[] outputPins = simulatedTemplate.getOutputPins().toArray(new Pin[0]);
+        int[] outputVertices = new int[outputPins.length];
+        for (int index = 0; index < outputPins.length; index++)
+            outputVertices[index] = instance.getVertexIndex(outputPins[index]);
+
+        // Make sure the state has a slot for each of the template's pins, the same way mesh functions do
+        T state = simulatedTemplate.getState(chip);
+        if (state != null)
+            state.bind(simulatedTemplate);
+        return new NetlistFunction<>(chip, simulatedTemplate, state, inputPins, inputVertices, outputPins, outputVertices);
+    }
+
+    private static void logCompiled(Netlist netlist) {
+        // Log details about the compiled netlist
+        AetherSimLogging.getSimulationLogger().info(
+                "Compiled netlist for top-level design ({} vertices, {} edges, and {} functions).",
+                netlist.getVertexCount(),
+                netlist.getEdgeCount(),
+                netlist.getFunctionCount()
+        );
+    }
+
+    private static <T extends ChipState> NetlistFunction<T> compileFunction(Map<MeshVertex, Integer> vertexIndices, MeshFunction<T> meshFunction) {
+        Pin[] inputPins = meshFunction.getSimulatedTemplate().getInputPins().toArray(new Pin[0]);
+        int[] inputVertices = new int[inputPins.length];
+        for (int index = 0; index < inputPins.length; index++)
+            inputVertices[index] = indexOf(vertexIndices, meshFunction.getInputVertices().get(inputPins[index]));
+
+        Pin[] outputPins = meshFunction.getSimulatedTemplate().getOutputPins().toArray(new Pin[0]);
+        int[] outputVertices = new int[outputPins.length];
+        for (int index = 0; index < outputPins.length; index++)
+            outputVertices[index] = indexOf(vertexIndices, meshFunction.getOutputVertices().get(outputPins[index]));
+
+        return new NetlistFunction<>(meshFunction.getChip(), meshFunction.getSimulatedTemplate(), meshFunction.getState(), inputPins, inputVertices, outputPins, outputVertices);
+    }
+
+    private static NetlistSimulatedDesign compileSimulatedDesign(Netlist netlist, Map<MeshVertex, Integer> vertexIndices, SimulatedDesign simulatedDesign) {
+        // Netlists are only compiled from generated meshes, which share a single vertex table across the whole design
+        if (!(simulatedDesign instanceof MeshSimulatedDesign meshDesign))
+            throw new MeshException("Netlists can only be compiled from generated simulation meshes.");
+
+        // Replace the vertices in the table with their indices, so the instance tree can be shared with the netlist
+        MeshVertex[] vertices = meshDesign.getVertices();
+        int[] tableIndices = new int[vertices.length];
+        for (int index = 0; index < vertices.length; index++)
+            tableIndices[index] = indexOf(vertexIndices, vertices[index]);
+
+        return new NetlistSimulatedDesign(netlist, meshDesign.getInstance(), tableIndices);
+    }
+
+    private static int indexOf(Map<MeshVertex, Integer> vertexIndices, MeshVertex vertex) {
+        Integer index = vertexIndices.get(vertex);
+        if (index == null)
+            throw new MeshException("Simulation mesh elements must refer to vertices registered in the mesh.");
+        return index;
+    }
+}
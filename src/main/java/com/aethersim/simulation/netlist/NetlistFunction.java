@@ -0,0 +1,102 @@
+package com.aethersim.simulation.netlist;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.templates.SimulatedTemplate;
+import com.aethersim.simulation.ChipState;
+import com.aethersim.simulation.LogicState;
+
+public class NetlistFunction<T extends ChipState> {
+
+    private final Chip chip;
+    private final SimulatedTemplate<T> simulatedTemplate;
+    // The chip's state is taken when the function is compiled, and only looked up again if it is replaced
+    private T state;
+    private int stateVersion;
+
+    private final Pin[] inputPins;
+    private final int[] inputVertices;
+    private final Pin[] outputPins;
+    private final int[] outputVertices;
+
+    NetlistFunction(Chip chip, SimulatedTemplate<T> simulatedTemplate, T state, Pin[] inputPins, int[] inputVertices, Pin[] outputPins, int[] outputVertices) {
+        this.chip = chip;
+        this.simulatedTemplate = simulatedTemplate;
+        this.state = state;
+        this.stateVersion = chip.getStateVersion();
+        this.inputPins = inputPins;
+        this.inputVertices = inputVertices;
+        this.outputPins = outputPins;
+        this.outputVertices = outputVertices;
+    }
+
+    public Chip getChip() {
+        return chip;
+    }
+
+    public SimulatedTemplate<T> getSimulatedTemplate() {
+        return simulatedTemplate;
+    }
+
+    T getState() {
+        // If the chip had no state when the function was compiled, or its state has been replaced since, resolve it
+        // again (making sure it has a slot for each of the template's pins)
+        if (state == null || stateVersion != chip.getStateVersion()) {
+            stateVersion = chip.getStateVersion();
+            state = simulatedTemplate.getState(chip);
+            if (state != null)
+                state.bind(simulatedTemplate);
+        }
+        return state;
+    }
+
+    Pin[] getInputPins() {
+        return inputPins;
+    }
+
+    int[] getInputVertices() {
+        return inputVertices;
+    }
+
+    Pin[] getOutputPins() {
+        return outputPins;
+    }
+
+    int[] getOutputVertices() {
+        return outputVertices;
+    }
+
+    boolean tick(Netlist netlist) {
+        // For each input pin, set its value based on the state of the vertex (pins are stored in slot order, so each
+        // index is also a slot)
+        T state = getState();
+        boolean propagated = simulatedTemplate.isReadingPropagatedStates();
+        for (int index = 0; index < inputPins.length; index++) {
+            int vertex = inputVertices[index];
+            state.setDrivenInputState(index, propagated ? netlist.getPropagatedActualState(vertex) : netlist.getActualState(vertex));
+            state.setPulledInputState(index, netlist.getSuggestedState(vertex));
+        }
+
+        // Pass the state to the template simulate() method to perform the computation
+        simulatedTemplate.simulate(state);
+
+        // Queue simulated updated states based on the output pins
+        boolean propagateChanges = false;
+        for (int index = 0; index < outputPins.length; index++) {
+            int actualState = ordinal(state.getDrivenOutputState(index));
+            int suggestedState = ordinal(state.getPulledOutputState(index));
+            // If the states are different, queue an update
+            if (netlist.compareStates(outputVertices[index], actualState, suggestedState)) {
+                netlist.queue(outputVertices[index], actualState, suggestedState);
+                propagateChanges = true;
+            }
+        }
+
+        return propagateChanges;
+    }
+
+    private static int ordinal(LogicState state) {
+        // Treat null states as unknown, as chip states do when they are set
+        return state != null ? state.ordinal() : Netlist.UNKNOWN;
+    }
+}
@@ -0,0 +1,71 @@
+package com.aethersim.simulation.netlist;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.wires.WireNode;
+import com.aethersim.designs.wires.WireSegment;
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.SimulatedDesign;
+import com.aethersim.simulation.mesh.mesh.generation.MeshInstance;
+
+public class NetlistSimulatedDesign extends SimulatedDesign {
+
+    // The netlist shares the instance tree built during mesh generation, mapping each entry of the mesh's vertex table
+    // to the index of its netlist vertex
+    private final Netlist netlist;
+    private final MeshInstance instance;
+    private final int[] vertexIndices;
+
+    NetlistSimulatedDesign(Netlist netlist, MeshInstance instance, int[] vertexIndices) {
+        this.netlist = netlist;
+        this.instance = instance;
+        this.vertexIndices = vertexIndices;
+    }
+
+    /**
+     * This method returns the index of the netlist vertex attached to the specified {@link Pin}, or {@code -1}
+     * if the pin is not part of this design.
+     *
+     * @param pin the {@link Pin} to retrieve the vertex for
+     * @return The index of the vertex attached to the pin, or {@code -1} if there is none
+     */
+    public int getVertexForPin(Pin pin) {
+        return getVertex(instance.getVertexIndex(pin));
+    }
+
+    @Override
+    public LogicState getStateForPin(Pin pin) {
+        return getState(getVertexForPin(pin));
+    }
+
+    @Override
+    public LogicState getStateForWireNode(WireNode wireNode) {
+        return getState(getVertex(instance.getVertexIndex(wireNode)));
+    }
+
+    @Override
+    public LogicState getStateForWireSegment(WireSegment wireSegment) {
+        return getState(getVertex(instance.getVertexIndex(wireSegment)));
+    }
+
+    @Override
+    public SimulatedDesign getSimulatedChipDesign(Chip chip) {
+        MeshInstance chipInstance = instance.getChipInstance(chip);
+        if (chipInstance != null)
+            return new NetlistSimulatedDesign(netlist, chipInstance, vertexIndices);
+        else
+            return none();
+    }
+
+    private int getVertex(int index) {
+        return index < 0 ? -1 : vertexIndices[index];
+    }
+
+    private LogicState getState(int vertex) {
+        // Default to UNCONNECTED if no vertex found
+        if (vertex < 0)
+            return LogicState.UNCONNECTED;
+        else
+            return netlist.getActualState(vertex);
+    }
+}
@@ -0,0 +1,88 @@
+package com.aethersim.simulation.netlist;
+
+import com.aethersim.designs.Design;
+import com.aethersim.simulation.SimulatedDesign;
+import com.aethersim.simulation.Simulator;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerationOptions;
+
+/**
+ * The {@code NetlistSimulator} is a simulation module that runs designs on a compiled {@link Netlist} rather than
+ * on the object graph used by the mesh simulator.  It uses the same switching rules as the mesh simulator, but
+ * stores all simulation state in primitive arrays and ticks on a single thread, which keeps both the heap footprint
+ * and the per-tick pointer-chasing low for large transistor-level designs.
+ */
+public class NetlistSimulator extends Simulator {
+
+    private final MeshGenerationOptions options;
+    // The netlist is replaced on the thread that initializes designs while the timer thread ticks it, so it is only
+    // swapped or used while holding the simulator's lock (and is volatile so it can be read without one)
+    private volatile Netlist netlist;
+
+    /**
+     * This constructor creates a netlist simulator that compiles designs with the default
+     * {@link MeshGenerationOptions}.
+     */
+    public NetlistSimulator() {
+        this(new MeshGenerationOptions());
+    }
+
+    /**
+     * This constructor creates a netlist simulator that compiles designs with the specified options.
+     *
+     * @param options The {@link MeshGenerationOptions} to compile designs with
+     */
+    public NetlistSimulator(MeshGenerationOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * This method returns the {@link Netlist} compiled by the last call to {@link #initialize(Design)}, or
+     * {@code null} if no design has been initialized.
+     *
+     * @return The current {@link Netlist}, or {@code null} if there is none
+     */
+    public Netlist getNetlist() {
+        return netlist;
+    }
+
+    @Override
+    public synchronized SimulatedDesign initialize(Design design) {
+        // Compile the design straight into a netlist, without generating (or partitioning) its mesh.  The previous
+        // netlist is released first, so the two are never held at once.
+        netlist = null;
+        netlist = NetlistCompiler.compile(design, options);
+        // Return the compiled simulated design
+        return netlist.getTopLevelSimulatedDesign();
+    }
+
+    @Override
+    public void start() {
+        // The netlist is ticked on the calling thread, so there are no resources to allocate
+    }
+
+    @Override
+    public void stop() {
+        // The netlist is ticked on the calling thread, so there are no resources to dispose of
+    }
+
+    @Override
+    public synchronized void tick() {
+        // If there is no netlist, we have nothing to simulate
+        Netlist netlist = this.netlist;
+        if (netlist != null)
+            netlist.tick();
+    }
+
+    @Override
+    public synchronized boolean isStable() {
+        Netlist netlist = this.netlist;
+        return netlist == null || netlist.isStable();
+    }
+
+    @Override
+    public synchronized void reset() {
+        Netlist netlist = this.netlist;
+        if (netlist != null)
+            netlist.reset();
+    }
+}
@@ -1,23 +1,40 @@
 package com.aethersim.simulation.timing;
 
-import com.aethersim.logging.AetherSimLogging;
 import com.aethersim.simulation.Simulator;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 public class SimulationTickTimer {
 
-    private long targetCycleDuration;
+    // If the timer falls further behind than this many cycles, it skips ahead rather than running the missed ticks
+    private static final int MAXIMUM_CATCH_UP_CYCLES = 100;
+    // How long an unthrottled timer waits between cycles when it has no simulator to tick
+    private static final long IDLE_PARK_DURATION = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private volatile SimulationTimingMode timingMode;
+    private volatile long targetCycleDuration;
+    private volatile int ticksPerCycle = 1;
     private Simulator newSimulator = null, currentSimulator = null, oldSimulator = null;
+    private final TickRateMeter tickRateMeter = new TickRateMeter();
     private final Runnable runnable;
 
     private volatile boolean running;
-    private volatile long currentCycleStartTime;
+    private long nextCycleStartTime;
 
     // Gets set to true by simulation manager to indicate that the reset() method of the simulator
     // itself should be called
     private volatile boolean simulationResetFlag = false;
+    // Gets set to true when the timing settings change, so the cycle schedule starts over from the current time
+    private volatile boolean scheduleResetFlag = true;
 
     public SimulationTickTimer(long targetCycleDuration) {
-        this.targetCycleDuration = targetCycleDuration;
+        this(SimulationTimingMode.FIXED_RATE, TimeUnit.MILLISECONDS.toNanos(targetCycleDuration));
+    }
+
+    public SimulationTickTimer(SimulationTimingMode timingMode, long targetCycleDurationNanos) {
+        this.timingMode = timingMode;
+        this.targetCycleDuration = targetCycleDurationNanos;
         this.runnable = () -> {
             // While the worker loop is running, continue
             while (running) {
@@ -43,11 +60,22 @@ public class SimulationTickTimer {
                         currentSimulator.reset();
                 }
 
-                // Set the initial cycle start time for this tick
-                currentCycleStartTime = System.currentTimeMillis();
-                // Call the simulator tick method
-                if (currentSimulator != null)
-                    currentSimulator.tick();
+                // If the timing settings changed, restart the cycle schedule from now
+                if (scheduleResetFlag) {
+                    scheduleResetFlag = false;
+                    nextCycleStartTime = System.nanoTime();
+                }
+
+                // Call the simulator tick method once per cycle, or several times if ticks are batched (stopping
+                // early if the timer is stopped partway through the batch)
+                int ticks = this.timingMode == SimulationTimingMode.BATCHED ? ticksPerCycle : 1;
+                int tick = 0;
+                while (tick < ticks && running) {
+                    if (currentSimulator != null)
+                        currentSimulator.tick();
+                    tick++;
+                }
+                tickRateMeter.record(tick, System.nanoTime());
                 // Synchronize the tick time
                 synchronize();
             }
@@ -58,26 +86,37 @@ public class SimulationTickTimer {
         };
     }
 
-    private synchronized void synchronize() {
-        // Calculate the duration of the current tick
-        long currentTickDuration = System.currentTimeMillis() - currentCycleStartTime;
-        // Determine the delay (if any) that is necessary to hit the target tick duration
-        long timeToDelay = targetCycleDuration - currentTickDuration;
-        // Sleep the thread for that duration, unless it is 0 or below
-        if (timeToDelay > 0){
-            try {
-                Thread.sleep(timeToDelay);
-            } catch (InterruptedException e) {
-                // Log an error and continue
-                AetherSimLogging.getSimulationLogger().warn("The simulation timing thread encountered an error while synchronizing ticks.", e);
-            }
+    private void synchronize() {
+        // Unthrottled ticks run back-to-back, so there is nothing to wait for unless there is no simulator to tick, in
+        // which case the thread parks briefly rather than spinning
+        if (timingMode == SimulationTimingMode.UNTHROTTLED) {
+            if (currentSimulator == null && newSimulator == null && running && !scheduleResetFlag)
+                LockSupport.parkNanos(this, IDLE_PARK_DURATION);
+            return;
+        }
+
+        // Schedule the next cycle relative to when this one was scheduled to start, rather than when it actually
+        // did, so that cycles which run late are made up by the following ones
+        nextCycleStartTime += targetCycleDuration;
+        long currentTime = System.nanoTime();
+        if (currentTime - nextCycleStartTime > MAXIMUM_CATCH_UP_CYCLES * targetCycleDuration) {
+            // If the simulation has fallen too far behind to catch up, drop the missed cycles instead
+            nextCycleStartTime = currentTime;
+            return;
         }
+
+        // Park the thread until the next cycle is due (parking can return early, so check the time again)
+        long timeToDelay;
+        while ((timeToDelay = nextCycleStartTime - System.nanoTime()) > 0 && running && !scheduleResetFlag)
+            LockSupport.parkNanos(this, timeToDelay);
     }
 
     public void start() {
         // Initialize thread
         Thread timingThread = new Thread(runnable, "Simulation-Timer");
-        // Start the thread
+        // Start the thread with a fresh schedule and tick rate
+        tickRateMeter.reset(System.nanoTime());
+        scheduleResetFlag = true;
         running = true;
         timingThread.start();
     }
@@ -95,8 +134,43 @@ public class SimulationTickTimer {
         this.simulationResetFlag = resetFlag;
     }
 
+    public SimulationTimingMode getTimingMode() {
+        return timingMode;
+    }
+
+    public void setTimingMode(SimulationTimingMode timingMode) {
+        this.timingMode = timingMode;
+        this.scheduleResetFlag = true;
+    }
+
     public void setTargetCycleDuration(long targetCycleDuration) {
-        this.targetCycleDuration = targetCycleDuration;
+        setTargetCycleDurationNanos(TimeUnit.MILLISECONDS.toNanos(targetCycleDuration));
+    }
+
+    public long getTargetCycleDurationNanos() {
+        return targetCycleDuration;
+    }
+
+    public void setTargetCycleDurationNanos(long targetCycleDuration) {
+        this.targetCycleDuration = Math.max(1, targetCycleDuration);
+        this.scheduleResetFlag = true;
+    }
+
+    public int getTicksPerCycle() {
+        return ticksPerCycle;
+    }
+
+    public void setTicksPerCycle(int ticksPerCycle) {
+        this.ticksPerCycle = Math.max(1, ticksPerCycle);
+    }
+
+    public long getTickCount() {
+        return tickRateMeter.getTickCount();
+    }
+
+    public double getAchievedTickRate() {
+        // Once the timer has stopped, it is no longer achieving any rate
+        return running ? tickRateMeter.getTickRate() : 0;
     }
 
     public void setSimulator(Simulator simulator) {
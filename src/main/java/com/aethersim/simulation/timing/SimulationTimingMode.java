@@ -0,0 +1,11 @@
+package com.aethersim.simulation.timing;
+
+public enum SimulationTimingMode {
+
+    // Ticks run back-to-back, as fast as the simulator allows
+    UNTHROTTLED,
+    // One tick runs per cycle, and ticks that fall behind schedule are caught up without waiting
+    FIXED_RATE,
+    // Several ticks run together each cycle, so fast tick rates aren't limited by how precisely the thread can sleep
+    BATCHED
+}
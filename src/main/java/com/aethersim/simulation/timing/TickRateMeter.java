@@ -0,0 +1,59 @@
+package com.aethersim.simulation.timing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code TickRateMeter} measures the tick rate a simulation actually achieves.  Ticks are counted over a short
+ * window, and the rate is updated each time a window ends, so it follows changes in speed without jittering on every
+ * tick.
+ * <p>
+ * Ticks must be recorded from a single thread, but the rate and tick count can be read from any thread.
+ */
+public class TickRateMeter {
+
+    public static final long DEFAULT_WINDOW = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final long window;
+
+    private long windowStartTime;
+    private long windowTicks;
+    private volatile long tickCount;
+    private volatile double tickRate;
+
+    public TickRateMeter() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public TickRateMeter(long window) {
+        this.window = window;
+        reset(System.nanoTime());
+    }
+
+    public void reset(long time) {
+        windowStartTime = time;
+        windowTicks = 0;
+        tickCount = 0;
+        tickRate = 0;
+    }
+
+    public void record(int ticks, long time) {
+        tickCount += ticks;
+        windowTicks += ticks;
+
+        // Once the window has ended, calculate the rate over it and start the next one
+        long elapsedTime = time - windowStartTime;
+        if (elapsedTime >= window) {
+            tickRate = windowTicks * (double) TimeUnit.SECONDS.toNanos(1) / elapsedTime;
+            windowStartTime = time;
+            windowTicks = 0;
+        }
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public double getTickRate() {
+        return tickRate;
+    }
+}
@@ -0,0 +1,46 @@
+package com.aethersim.simulation.waveforms;
+
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.SimulatedDesign;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@code SimulationProbe} reads the simulated {@link LogicState} of a single design element, such as a pin or a
+ * wire.  Probes are created through the {@code probe} methods of {@link SimulatedDesign}, and only read their element
+ * when they are sampled, so design elements without probes add no cost to the simulation.
+ */
+public class SimulationProbe {
+
+    private final String name;
+    private final Supplier<LogicState> reader;
+
+    /**
+     * This constructor creates a probe that reads its state using the specified supplier.
+     *
+     * @param name   the name to record the probe's states under
+     * @param reader the {@link Supplier} that reads the current {@link LogicState} of the probed element
+     */
+    public SimulationProbe(String name, Supplier<LogicState> reader) {
+        this.name = name;
+        this.reader = reader;
+    }
+
+    /**
+     * This method returns the name that the probe's states are recorded under.
+     *
+     * @return The name of the probe
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * This method reads the current simulated {@link LogicState} of the probed element.
+     *
+     * @return The current {@link LogicState} of the probed element
+     */
+    public LogicState read() {
+        return reader.get();
+    }
+}
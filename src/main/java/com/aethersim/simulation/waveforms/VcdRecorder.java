@@ -0,0 +1,200 @@
+package com.aethersim.simulation.waveforms;
+
+import com.aethersim.logging.AetherSimLogging;
+import com.aethersim.simulation.LogicState;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@code VcdRecorder} records the states of a set of {@link SimulationProbe}s into a Value Change Dump (VCD) file,
+ * as defined by IEEE 1364.  Each call to {@link #sample(long)} compares the probes against their last recorded states,
+ * and queues any changes in a fixed-size buffer.  A background thread streams the queued changes to the file, so
+ * memory use stays bounded no matter how long the simulation runs.  If the writer falls behind, sampling waits for it
+ * to catch up.
+ * <p>
+ * Samples must be taken from a single thread (usually the thread that ticks the simulator), in increasing tick order.
+ */
+public class VcdRecorder implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final LogicState[] STATES = LogicState.values();
+    private static final int DRAIN_SIZE = 1024;
+
+    private final SimulationProbe[] probes;
+    private final String[] identifiers;
+    private final byte[] lastStates;
+    private final WaveformBuffer buffer;
+    private final BufferedWriter writer;
+    private final Thread writerThread;
+
+    private boolean sampled = false;
+    private volatile boolean closed = false;
+    private volatile IOException writeException;
+
+    /**
+     * This constructor creates a recorder with the default buffer capacity.
+     *
+     * @param path   the {@link Path} of the VCD file to write
+     * @param probes the {@link SimulationProbe}s to record
+     * @throws IOException If the file cannot be opened
+     */
+    public VcdRecorder(Path path, List<SimulationProbe> probes) throws IOException {
+        this(path, probes, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * This constructor creates a recorder that buffers up to the specified number of state changes before sampling
+     * waits for the writer.
+     *
+     * @param path     the {@link Path} of the VCD file to write
+     * @param probes   the {@link SimulationProbe}s to record
+     * @param capacity the number of state changes to buffer
+     * @throws IOException If the file cannot be opened
+     */
+    public VcdRecorder(Path path, List<SimulationProbe> probes, int capacity) throws IOException {
+        if (probes.size() > WaveformBuffer.MAXIMUM_PROBES)
+            throw new IllegalArgumentException("A waveform can record at most " + WaveformBuffer.MAXIMUM_PROBES + " probes.");
+
+        this.probes = probes.toArray(new SimulationProbe[0]);
+        this.identifiers = new String[this.probes.length];
+        this.lastStates = new byte[this.probes.length];
+        for (int probe = 0; probe < this.probes.length; probe++)
+            identifiers[probe] = identifierFor(probe);
+        this.buffer = new WaveformBuffer(capacity);
+
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII);
+        try {
+            writeHeader();
+        } catch (IOException e) {
+            writer.close();
+            throw e;
+        }
+
+        this.writerThread = new Thread(this::writeChanges, "AetherSim-VCD-Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * This method reads every probe and queues the states that changed since the last sample.  The first sample
+     * records the states of all probes.
+     *
+     * @param tick the simulation tick the states belong to
+     */
+    public void sample(long tick) {
+        if (closed)
+            throw new IllegalStateException("Samples cannot be recorded after the recorder is closed.");
+
+        for (int probe = 0; probe < probes.length; probe++) {
+            byte state = (byte) probes[probe].read().ordinal();
+            if (!sampled || state != lastStates[probe]) {
+                lastStates[probe] = state;
+                buffer.put(tick, probe, state);
+            }
+        }
+        sampled = true;
+    }
+
+    /**
+     * This method waits for all queued changes to be written, and then closes the VCD file.
+     *
+     * @throws IOException If any changes could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+
+        if (writeException != null)
+            throw writeException;
+    }
+
+    private void writeHeader() throws IOException {
+        writer.write("$version AetherSim $end\n");
+        writer.write("$timescale 1 ns $end\n");
+        writer.write("$scope module top $end\n");
+        for (int probe = 0; probe < probes.length; probe++)
+            writer.write("$var wire 1 " + identifiers[probe] + " " + sanitize(probes[probe].getName()) + " $end\n");
+        writer.write("$upscope $end\n");
+        writer.write("$enddefinitions $end\n");
+    }
+
+    private void writeChanges() {
+        long[] entries = new long[DRAIN_SIZE];
+        long currentTick = -1;
+        try {
+            while (true) {
+                // Check whether the recorder was closed before draining, so nothing sampled before closing is missed
+                boolean finished = closed;
+                int count = buffer.drain(entries);
+                for (int index = 0; index < count; index++) {
+                    long tick = WaveformBuffer.tickOf(entries[index]);
+                    if (tick != currentTick) {
+                        writer.write("#" + tick + "\n");
+                        currentTick = tick;
+                    }
+                    writer.write(valueFor(STATES[WaveformBuffer.stateOf(entries[index])]));
+                    writer.write(identifiers[WaveformBuffer.probeOf(entries[index])]);
+                    writer.write('\n');
+                }
+
+                if (count == 0) {
+                    if (finished)
+                        break;
+                    LockSupport.parkNanos(100_000);
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            AetherSimLogging.getSimulationLogger().error("Could not write waveform changes.", e);
+            writeException = e;
+
+            // Keep draining the buffer, so sampling never waits on a writer that has failed
+            while (!closed || !buffer.isEmpty())
+                if (buffer.drain(entries) == 0)
+                    LockSupport.parkNanos(100_000);
+        }
+    }
+
+    private static char valueFor(LogicState state) {
+        return switch (state) {
+            case LOW -> '0';
+            case HIGH -> '1';
+            case UNCONNECTED -> 'z';
+            default -> 'x';
+        };
+    }
+
+    private static String identifierFor(int probe) {
+        // Identifiers are written in base 94, using the printable ASCII characters from '!' to '~'
+        StringBuilder identifier = new StringBuilder();
+        do {
+            identifier.append((char) ('!' + probe % 94));
+            probe /= 94;
+        } while (probe > 0);
+        return identifier.toString();
+    }
+
+    private static String sanitize(String name) {
+        // Names can't contain whitespace in a VCD file
+        if (name == null || name.isBlank())
+            return "unnamed";
+        return name.strip().replaceAll("\\s+", "_");
+    }
+}
@@ -0,0 +1,80 @@
+package com.aethersim.simulation.waveforms;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+class WaveformBuffer {
+
+    // Each entry packs the tick, the index of the probe, and the ordinal of its new state into a single long
+    static final int STATE_BITS = 3;
+    static final int PROBE_BITS = 21;
+    static final int MAXIMUM_PROBES = 1 << PROBE_BITS;
+
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle HEAD, TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(WaveformBuffer.class, "head", long.class);
+            TAIL = lookup.findVarHandle(WaveformBuffer.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // The buffer has a single producer (the thread ticking the simulator) and a single consumer (the writer), so
+    // each side only ever writes its own position.  The producer waits for space when the buffer is full, which keeps
+    // memory bounded no matter how quickly states change.
+    private final long[] entries;
+    private final int mask;
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile long head = 0;
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile long tail = 0;
+
+    WaveformBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.entries = new long[size];
+        this.mask = size - 1;
+    }
+
+    void put(long tick, int probe, int state) {
+        long position = (long) TAIL.getOpaque(this);
+        while (position - (long) HEAD.getAcquire(this) >= entries.length)
+            LockSupport.parkNanos(1000);
+        ENTRIES.setOpaque(entries, (int) (position & mask), pack(tick, probe, state));
+        TAIL.setRelease(this, position + 1);
+    }
+
+    int drain(long[] output) {
+        // Copy out as many entries as are available and fit, then free up their space for the producer
+        long position = (long) HEAD.getOpaque(this);
+        int count = (int) Math.min(output.length, (long) TAIL.getAcquire(this) - position);
+        for (int index = 0; index < count; index++)
+            output[index] = (long) ENTRIES.getOpaque(entries, (int) ((position + index) & mask));
+        HEAD.setRelease(this, position + count);
+        return count;
+    }
+
+    boolean isEmpty() {
+        return (long) HEAD.getAcquire(this) == (long) TAIL.getAcquire(this);
+    }
+
+    static long pack(long tick, int probe, int state) {
+        return (tick << (PROBE_BITS + STATE_BITS)) | ((long) probe << STATE_BITS) | state;
+    }
+
+    static long tickOf(long entry) {
+        return entry >>> (PROBE_BITS + STATE_BITS);
+    }
+
+    static int probeOf(long entry) {
+        return (int) (entry >>> STATE_BITS) & (MAXIMUM_PROBES - 1);
+    }
+
+    static int stateOf(long entry) {
+        return (int) entry & ((1 << STATE_BITS) - 1);
+    }
+}
@@ -381,7 +381,7 @@ public class DesignEditor extends UIComponent implements UIInteractable, UIFocus
                 selectedAddingChip.acceptTransform();
                 design.addChip(selectedAddingChip);
                 renderer.generate(design);
-                simulatedDesign = Simulation.initialize(design);
+                simulatedDesign = Simulation.update(design);
                 selectedAddingChip = null;
             } else if (hoveredLeftDesignEdge || hoveredRightDesignEdge || hoveredTopDesignEdge || hoveredBottomDesignEdge) {
                 if (hoveredLeftDesignEdge)
@@ -421,7 +421,7 @@ public class DesignEditor extends UIComponent implements UIInteractable, UIFocus
                     design.addWireSegment(addingWire.getStart().getLocation(), addingWire.getEnd().getLocation(), waypoints);
                     addingWire = null;
                     addingWireEnd = null;
-                    simulatedDesign = Simulation.initialize(design);
+                    simulatedDesign = Simulation.update(design);
                     renderer.generate(design);
                 }
             } else if (addingWire != null && Arrays.stream(addingWire.getRouteWaypoints()).noneMatch(waypoint -> waypoint.getLocation().equals(new Point(gridMouseX, gridMouseY)))) {
@@ -452,7 +452,7 @@ public class DesignEditor extends UIComponent implements UIInteractable, UIFocus
 
                 design.removeWireSegment(segment);
                 design.rerouteWires();
-                simulatedDesign = Simulation.initialize(design);
+                simulatedDesign = Simulation.update(design);
                 renderer.generate(design);
             }
         }
@@ -13,6 +13,7 @@ import com.aethersim.simulation.Simulation;
 import com.aethersim.simulation.mesh.MeshSimulator;
 import com.aethersim.simulation.mesh.mesh.MeshSimulatedDesign;
 import com.aethersim.simulation.mesh.threading.MeshSimulationCoordinator;
+import com.aethersim.simulation.netlist.NetlistSimulator;
 import com.aethersim.ui.render.designs.DesignEditor;
 import com.aethersim.ui.toolkit.UITheme;
 import com.aethersim.ui.toolkit.UIWindow;
@@ -354,7 +355,11 @@ public class AetherSimWindow {
 
 
 
-        Simulation.setSimulator(new MeshSimulator());
+        // Use the compiled netlist simulator if requested, otherwise default to the mesh simulator
+        if ("netlist".equals(System.getProperty("aethersim.simulator")))
+            Simulation.setSimulator(new NetlistSimulator());
+        else
+            Simulation.setSimulator(new MeshSimulator());
         Simulation.start();
         SimulatedDesign simulatedDesign = Simulation.initialize(testDesign);
 
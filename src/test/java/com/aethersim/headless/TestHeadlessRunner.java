@@ -0,0 +1,103 @@
+package com.aethersim.headless;
+
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.projects.Project;
+import com.aethersim.projects.io.ProjectIO;
+import com.aethersim.tests.annotations.AetherSimTest;
+import com.aethersim.tests.annotations.AetherSimTests;
+import com.aethersim.tests.annotations.SimulationTests;
+import com.aethersim.tests.designs.TestDesigns;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@SimulationTests
+@AetherSimTests("Headless Runner")
+public class TestHeadlessRunner {
+
+    @TempDir
+    static Path directory;
+
+    static File projectFile;
+
+    @BeforeAll
+    static void writeProject() {
+        TestDesigns.registerTemplates();
+
+        // Write a project containing a three-stage inverter chain driven by a top-level pin
+        Design design = TestDesigns.createInverterChain(new Pin(), new Pin(), 3);
+        Project project = new Project();
+        project.setId("headless_test");
+        project.setName("Headless Test");
+        project.setDesign(design);
+        projectFile = directory.resolve("headless_test.asproj").toFile();
+        ProjectIO.write(project, projectFile);
+    }
+
+    @AetherSimTest("Stimulus Until Stable")
+    void testStimulus() throws IOException {
+        // Drive the input high, and then low again, so the output should settle high
+        Path stimulusFile = directory.resolve("stimulus.txt");
+        Files.writeString(stimulusFile, "# tick pin state\n0 a high\n30 a low\n");
+
+        for (String simulator : new String[] {"mesh", "netlist"}) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            int exitCode = run(output, projectFile.getPath(), "--stimulus", stimulusFile.toString(), "--simulator", simulator);
+            Assertions.assertEquals(HeadlessRunner.EXIT_SUCCESS, exitCode);
+            Assertions.assertTrue(output.toString().contains("(stable)"));
+            Assertions.assertTrue(output.toString().contains("  a: LOW"));
+            Assertions.assertTrue(output.toString().contains("  y: HIGH"));
+        }
+    }
+
+    @AetherSimTest("Exit Codes")
+    void testExitCodes() throws IOException {
+        // Invalid arguments should be usage errors, and missing files or pins should be input errors
+        Assertions.assertEquals(HeadlessRunner.EXIT_USAGE_ERROR, run(new ByteArrayOutputStream()));
+        Assertions.assertEquals(HeadlessRunner.EXIT_USAGE_ERROR, run(new ByteArrayOutputStream(), projectFile.getPath(), "--ticks", "zero"));
+        Assertions.assertEquals(HeadlessRunner.EXIT_INPUT_ERROR, run(new ByteArrayOutputStream(), directory.resolve("missing.asproj").toString()));
+
+        Path stimulusFile = directory.resolve("missing_pin.txt");
+        Files.writeString(stimulusFile, "0 missing high\n");
+        Assertions.assertEquals(HeadlessRunner.EXIT_INPUT_ERROR, run(new ByteArrayOutputStream(), projectFile.getPath(), "--stimulus", stimulusFile.toString()));
+
+        // A run with a fixed number of ticks should always succeed
+        Assertions.assertEquals(HeadlessRunner.EXIT_SUCCESS, run(new ByteArrayOutputStream(), projectFile.getPath(), "--ticks", "5", "--simulator", "netlist"));
+    }
+
+    @AetherSimTest("Waveform Capture")
+    void testWaveformCapture() throws IOException {
+        // Probe only the output pin, which should start high, go low once the input is driven high, and settle high
+        Path stimulusFile = directory.resolve("waveform_stimulus.txt");
+        Files.writeString(stimulusFile, "0 a high\n30 a low\n");
+        Path vcdFile = directory.resolve("waveform.vcd");
+        int exitCode = run(new ByteArrayOutputStream(), projectFile.getPath(), "--stimulus", stimulusFile.toString(), "--vcd", vcdFile.toString(), "--probe", "y");
+        Assertions.assertEquals(HeadlessRunner.EXIT_SUCCESS, exitCode);
+
+        List<String> lines = Files.readAllLines(vcdFile);
+        Assertions.assertTrue(lines.contains("$var wire 1 ! y $end"));
+        Assertions.assertFalse(lines.stream().anyMatch(line -> line.endsWith(" a $end")));
+        Assertions.assertTrue(lines.contains("$enddefinitions $end"));
+        Assertions.assertTrue(lines.contains("#0"));
+        List<String> changes = lines.stream().filter(line -> line.endsWith("!") && !line.startsWith("$")).toList();
+        Assertions.assertEquals("1!", changes.get(changes.size() - 1));
+        Assertions.assertTrue(changes.contains("0!"));
+
+        // Probing a pin that doesn't exist is an input error
+        Assertions.assertEquals(HeadlessRunner.EXIT_INPUT_ERROR, run(new ByteArrayOutputStream(), projectFile.getPath(), "--vcd", vcdFile.toString(), "--probe", "missing"));
+    }
+
+    private static int run(ByteArrayOutputStream output, String... args) {
+        PrintStream errorStream = new PrintStream(new ByteArrayOutputStream());
+        return new HeadlessRunner(new PrintStream(output), errorStream).run(args);
+    }
+}
@@ -0,0 +1,184 @@
+package com.aethersim.simulation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.templates.ChipStateTable;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.PinSlots;
+import com.aethersim.designs.templates.SimulatedTemplate;
+import com.aethersim.designs.templates.ToggleState;
+import com.aethersim.designs.templates.ToggleTemplate;
+import com.aethersim.projects.io.data.DataContext;
+import com.aethersim.projects.io.data.DataMap;
+import com.aethersim.simulation.mesh.MeshSimulator;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.netlist.NetlistSimulator;
+import com.aethersim.tests.annotations.AetherSimTest;
+import com.aethersim.tests.annotations.AetherSimTests;
+import com.aethersim.tests.annotations.SimulationTests;
+import com.aethersim.tests.designs.TestDesigns;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+
+import java.util.List;
+import java.util.Set;
+
+@SimulationTests
+@AetherSimTests("Chip States")
+public class TestChipStates {
+
+    private static final int SETTLE_TICKS = 20;
+
+    @BeforeAll
+    static void registerTemplates() {
+        TestDesigns.registerTemplates();
+    }
+
+    @AetherSimTest("Repeated Pin Slots")
+    void testRepeatedPins() {
+        // Registering a pin again keeps the slot it was first given
+        Pin first = new Pin(), second = new Pin(), unregistered = new Pin();
+        PinSlots slots = new PinSlots();
+        Assertions.assertTrue(slots.add(first));
+        Assertions.assertTrue(slots.add(second));
+        Assertions.assertFalse(slots.add(first));
+        Assertions.assertEquals(2, slots.size());
+        Assertions.assertEquals(0, slots.getSlot(first));
+        Assertions.assertEquals(1, slots.getSlot(second));
+        Assertions.assertEquals(-1, slots.getSlot(unregistered));
+        Assertions.assertSame(first, slots.getPin(0));
+        Assertions.assertEquals(List.of(first, second), List.copyOf(slots));
+
+        // A pin that is both an input and an output has a separate slot for each, so its input and output states
+        // don't overwrite each other
+        Chip chip = new Chip();
+        chip.setChipTemplate(PassTemplate.TEMPLATE);
+        PassTemplate.TEMPLATE.initialize(chip);
+        PassState state = PassTemplate.TEMPLATE.getState(chip);
+        state.bind(PassTemplate.TEMPLATE);
+        state.setDrivenInputState(PassTemplate.SHARED, LogicState.HIGH);
+        state.setDrivenOutputState(PassTemplate.SHARED, LogicState.LOW);
+        Assertions.assertEquals(LogicState.HIGH, state.getDrivenInputState(PassTemplate.SHARED));
+        Assertions.assertEquals(LogicState.LOW, state.getDrivenOutputState(PassTemplate.SHARED));
+        Assertions.assertEquals(LogicState.HIGH, state.getDrivenInputState(PassTemplate.TEMPLATE.getInputPins().getSlot(PassTemplate.SHARED)));
+        Assertions.assertEquals(LogicState.LOW, state.getDrivenOutputState(PassTemplate.TEMPLATE.getOutputPins().getSlot(PassTemplate.SHARED)));
+
+        // Pins the template doesn't have read as unknown, and setting them does nothing
+        state.setDrivenInputState(unregistered, LogicState.HIGH);
+        Assertions.assertEquals(LogicState.UNKNOWN, state.getDrivenInputState(unregistered));
+        Assertions.assertEquals(LogicState.UNKNOWN, state.getPulledOutputState(unregistered));
+
+        // Mapping a pin to a vertex again replaces its vertex in the same slot, and inputs and outputs are mapped
+        // separately
+        MeshFunction<PassState> function = new MeshFunction<>(chip, PassTemplate.TEMPLATE);
+        MeshVertex inputVertex = new MeshVertex(), replacedVertex = new MeshVertex(), outputVertex = new MeshVertex();
+        Assertions.assertNull(function.getInputVertices().put(PassTemplate.SHARED, replacedVertex));
+        Assertions.assertSame(replacedVertex, function.getInputVertices().put(PassTemplate.SHARED, inputVertex));
+        function.getInputVertices().put(PassTemplate.INPUT, new MeshVertex());
+        function.getOutputVertices().put(PassTemplate.SHARED, outputVertex);
+        Assertions.assertEquals(2, function.getInputVertices().size());
+        Assertions.assertSame(inputVertex, function.getInputVertices().get(PassTemplate.SHARED));
+        Assertions.assertSame(outputVertex, function.getOutputVertices().get(PassTemplate.SHARED));
+        Assertions.assertSame(outputVertex, function.getOutputSlotVertices()[0]);
+        Assertions.assertThrows(MeshException.class, () -> function.getInputVertices().put(unregistered, new MeshVertex()));
+    }
+
+    @AetherSimTest("Missing Chip States")
+    void testMissingStates() {
+        // A chip that hasn't been added to a design has no state yet, so its function should look the state up again
+        // once it has one
+        Chip toggle = new Chip();
+        toggle.setChipTemplate(ChipTemplate.get("toggle"));
+        ToggleTemplate template = (ToggleTemplate) toggle.getChipTemplate();
+        MeshFunction<ToggleState> function = new MeshFunction<>(toggle, template);
+        Assertions.assertNull(function.getState());
+
+        template.initialize(toggle);
+        Assertions.assertSame(template.getState(toggle), function.getState());
+        template.dispose(toggle);
+    }
+
+    @AetherSimTest("Replaced Chip States")
+    void testReplacedStates() {
+        for (boolean netlist : new boolean[] {false, true}) {
+            Pin output = new Pin();
+            Chip toggle = new Chip();
+            Design design = TestDesigns.createInverterChain(toggle, output, 1);
+            ToggleTemplate template = (ToggleTemplate) toggle.getChipTemplate();
+
+            Simulator simulator = netlist ? new NetlistSimulator() : new MeshSimulator();
+            SimulatedDesign simulatedDesign = simulator.initialize(design);
+            simulator.start();
+            try {
+                // The toggle starts low, so the output should be pulled high
+                TestDesigns.tick(simulator, SETTLE_TICKS);
+                Assertions.assertEquals(LogicState.HIGH, simulatedDesign.getStateForPin(output));
+
+                // Replace the toggle's state after the simulation was generated, and drive the new state high.  The
+                // simulation should pick up the new state rather than keep using the old one.
+                ToggleState previousState = template.getState(toggle);
+                template.initialize(toggle);
+                Assertions.assertNotSame(previousState, template.getState(toggle));
+                template.setDrivenState(toggle, LogicState.HIGH);
+                TestDesigns.tick(simulator, SETTLE_TICKS);
+                Assertions.assertEquals(LogicState.LOW, simulatedDesign.getStateForPin(output));
+            } finally {
+                simulator.stop();
+            }
+        }
+    }
+
+    private static class PassTemplate extends SimulatedTemplate<PassState> {
+
+        // The shared pin is both an input and an output, and is registered as an input twice
+        private static final Pin SHARED = new Pin();
+        private static final Pin INPUT = new Pin();
+        private static final PassTemplate TEMPLATE = new PassTemplate();
+
+        private final ChipStateTable<PassState> chipStates = new ChipStateTable<>();
+
+        private PassTemplate() {
+            SHARED.setId("shared");
+            INPUT.setId("input");
+            setId("test_pass");
+            setName("Pass");
+            setPins(Set.of(SHARED, INPUT));
+            getInputPins().add(SHARED);
+            getInputPins().add(INPUT);
+            getInputPins().add(SHARED);
+            getOutputPins().add(SHARED);
+        }
+
+        @Override
+        public void initialize(Chip chip) {
+            chipStates.put(chip, new PassState());
+        }
+
+        @Override
+        public void dispose(Chip chip) {
+            chipStates.remove(chip);
+        }
+
+        @Override
+        public PassState getState(Chip chip) {
+            return chipStates.get(chip);
+        }
+
+        @Override
+        public void simulate(PassState state) {
+            state.setDrivenOutputState(SHARED, state.getDrivenInputState(INPUT));
+        }
+    }
+
+    private static class PassState extends ChipState {
+
+        @Override
+        public void serialize(DataMap data, DataContext context) { /* do nothing */ }
+
+        @Override
+        public void deserialize(DataMap data, DataContext context) { /* do nothing */ }
+    }
+}
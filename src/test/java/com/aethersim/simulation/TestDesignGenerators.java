@@ -0,0 +1,150 @@
+package com.aethersim.simulation;
+
+import com.aethersim.designs.exceptions.DesignException;
+import com.aethersim.simulation.netlist.NetlistSimulator;
+import com.aethersim.tests.annotations.AetherSimTest;
+import com.aethersim.tests.annotations.AetherSimTests;
+import com.aethersim.tests.annotations.SimulationTests;
+import com.aethersim.tests.designs.TestDesigns;
+import com.aethersim.tests.designs.generators.DesignGenerator;
+import com.aethersim.tests.designs.generators.GeneratedDesign;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+
+@SimulationTests
+@AetherSimTests("Design Generators")
+public class TestDesignGenerators {
+
+    private static final int SETTLE_TICKS = 200;
+
+    @BeforeAll
+    static void registerTemplates() {
+        TestDesigns.registerTemplates();
+    }
+
+    @AetherSimTest("Transistor Counts")
+    void testTransistorCounts() {
+        // Use a small block size, so even small circuits are split into several levels
+        DesignGenerator generator = new DesignGenerator(4);
+        Assertions.assertEquals(2 * 100, generator.inverterChain(100).getDesign().getTransistorCount());
+        Assertions.assertEquals(36 * 10, generator.rippleCarryAdder(10).getDesign().getTransistorCount());
+        Assertions.assertEquals(36 * 7, generator.shiftRegister(7).getDesign().getTransistorCount());
+        Assertions.assertEquals(19 * 6, generator.sramArray(2, 3).getDesign().getTransistorCount());
+        Assertions.assertEquals(4 + 2 * 8, generator.ringOscillator(9).getDesign().getTransistorCount());
+
+        // Templates are shared, so millions of transistors don't require millions of designs
+        Assertions.assertEquals(4_000_000, new DesignGenerator().inverterChain(2_000_000).getDesign().getTransistorCount());
+        Assertions.assertThrows(DesignException.class, () -> generator.ringOscillator(4));
+    }
+
+    @AetherSimTest("Inverter Chain")
+    void testInverterChain() {
+        DesignGenerator generator = new DesignGenerator(4);
+        GeneratedDesign design = generator.generate(generator.inverterChain(9));
+        NetlistSimulator simulator = new NetlistSimulator();
+        SimulatedDesign simulatedDesign = simulator.initialize(design.getDesign());
+
+        // An odd number of inverters should invert the input
+        for (LogicState state : new LogicState[] {LogicState.LOW, LogicState.HIGH}) {
+            design.setInput("a", state);
+            TestDesigns.tick(simulator, SETTLE_TICKS);
+            Assertions.assertEquals(state == LogicState.LOW ? LogicState.HIGH : LogicState.LOW, design.getState(simulatedDesign, "y"));
+        }
+    }
+
+    @AetherSimTest("Ripple-Carry Adder")
+    void testAdder() {
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(4));
+        NetlistSimulator simulator = new NetlistSimulator();
+        SimulatedDesign simulatedDesign = simulator.initialize(design.getDesign());
+
+        // Check a selection of sums, including ones that carry through every bit
+        int[][] operands = {{0, 0, 0}, {3, 5, 0}, {15, 1, 0}, {9, 6, 1}, {15, 15, 1}};
+        for (int[] operand : operands) {
+            design.setInputs("a", 4, operand[0]);
+            design.setInputs("b", 4, operand[1]);
+            design.setInput("cin", operand[2] == 1 ? LogicState.HIGH : LogicState.LOW);
+            TestDesigns.tick(simulator, SETTLE_TICKS);
+
+            long sum = design.getOutputs(simulatedDesign, "s", 4);
+            if (design.getState(simulatedDesign, "cout") == LogicState.HIGH)
+                sum |= 1 << 4;
+            Assertions.assertEquals(operand[0] + operand[1] + operand[2], sum);
+        }
+    }
+
+    @AetherSimTest("Shift Register")
+    void testShiftRegister() {
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.shiftRegister(5));
+        NetlistSimulator simulator = new NetlistSimulator();
+        SimulatedDesign simulatedDesign = simulator.initialize(design.getDesign());
+
+        // Shift a pattern in, and check that it comes out five clock cycles later
+        int[] pattern = {1, 0, 1, 1, 0, 0, 1, 0, 1, 1};
+        for (int cycle = 0; cycle < pattern.length; cycle++) {
+            design.setInput("d", pattern[cycle] == 1 ? LogicState.HIGH : LogicState.LOW);
+            pulse(design, simulator, "clk1");
+            pulse(design, simulator, "clk2");
+            if (cycle >= 4)
+                Assertions.assertEquals(pattern[cycle - 4] == 1 ? LogicState.HIGH : LogicState.LOW, design.getState(simulatedDesign, "q"));
+        }
+    }
+
+    @AetherSimTest("SRAM Array")
+    void testSram() {
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.sramArray(3, 2));
+        NetlistSimulator simulator = new NetlistSimulator();
+        SimulatedDesign simulatedDesign = simulator.initialize(design.getDesign());
+
+        // Write a different value into each row
+        int[] values = {2, 1, 3};
+        for (int row = 0; row < values.length; row++) {
+            design.setInputs("d", 2, values[row]);
+            pulse(design, simulator, "we" + row);
+        }
+
+        // Read each row back onto the bit lines
+        for (int row = 0; row < values.length; row++) {
+            design.setInput("re" + row, LogicState.HIGH);
+            TestDesigns.tick(simulator, SETTLE_TICKS);
+            Assertions.assertEquals(values[row], design.getOutputs(simulatedDesign, "bl", 2));
+            design.setInput("re" + row, LogicState.LOW);
+        }
+    }
+
+    @AetherSimTest("Ring Oscillator")
+    void testRingOscillator() {
+        DesignGenerator generator = new DesignGenerator();
+        GeneratedDesign design = generator.generate(generator.ringOscillator(5));
+        NetlistSimulator simulator = new NetlistSimulator();
+        SimulatedDesign simulatedDesign = simulator.initialize(design.getDesign());
+
+        // While disabled, the ring should hold its output high
+        TestDesigns.tick(simulator, SETTLE_TICKS);
+        Assertions.assertEquals(LogicState.HIGH, design.getState(simulatedDesign, "y"));
+        Assertions.assertTrue(simulator.isStable());
+
+        // Once enabled, the output should keep switching
+        design.setInput("en", LogicState.HIGH);
+        int transitions = 0;
+        LogicState previous = design.getState(simulatedDesign, "y");
+        for (int tick = 0; tick < SETTLE_TICKS; tick++) {
+            simulator.tick();
+            LogicState current = design.getState(simulatedDesign, "y");
+            if (current != previous)
+                transitions++;
+            previous = current;
+        }
+        Assertions.assertTrue(transitions > 4, "Ring oscillator only switched " + transitions + " times.");
+    }
+
+    private static void pulse(GeneratedDesign design, Simulator simulator, String pinId) {
+        design.setInput(pinId, LogicState.HIGH);
+        TestDesigns.tick(simulator, SETTLE_TICKS);
+        design.setInput(pinId, LogicState.LOW);
+        TestDesigns.tick(simulator, SETTLE_TICKS);
+    }
+}
@@ -0,0 +1,903 @@
+package com.aethersim.simulation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.ChipPin;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.Point;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.ConstantTemplate;
+import com.aethersim.designs.templates.DesignedTemplate;
+import com.aethersim.designs.templates.ToggleTemplate;
+import com.aethersim.designs.templates.TransistorTemplate;
+import com.aethersim.designs.wires.WireNode;
+import com.aethersim.designs.wires.WireSegment;
+import com.aethersim.simulation.mesh.MeshSimulator;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+import com.aethersim.simulation.mesh.mesh.MeshConnector;
+import com.aethersim.simulation.mesh.mesh.MeshEdge;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshSimulatedDesign;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerationOptions;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerator;
+import com.aethersim.simulation.mesh.mesh.generation.MeshIndexStamp;
+import com.aethersim.simulation.mesh.mesh.generation.MeshPartitioner;
+import com.aethersim.simulation.mesh.mesh.generation.MeshPartitioning;
+import com.aethersim.simulation.mesh.mesh.generation.MeshPatch;
+import com.aethersim.simulation.mesh.mesh.generation.MeshPatcher;
+import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+import com.aethersim.simulation.mesh.mesh.generation.MeshWireSet;
+import com.aethersim.simulation.mesh.snapshots.MeshHistory;
+import com.aethersim.simulation.mesh.snapshots.MeshSnapshot;
+import com.aethersim.simulation.mesh.threading.MeshActivityIndex;
+import com.aethersim.simulation.mesh.threading.MeshSchedulingMode;
+import com.aethersim.simulation.metrics.LatencyHistogram;
+import com.aethersim.simulation.metrics.SimulationMetrics;
+import com.aethersim.simulation.metrics.SimulationPhase;
+import com.aethersim.simulation.netlist.BatchNetlist;
+import com.aethersim.simulation.netlist.Netlist;
+import com.aethersim.simulation.netlist.NetlistCompiler;
+import com.aethersim.simulation.netlist.NetlistSimulatedDesign;
+import com.aethersim.simulation.netlist.NetlistSimulator;
+import com.aethersim.tests.annotations.AetherSimTest;
+import com.aethersim.tests.annotations.AetherSimTests;
+import com.aethersim.tests.annotations.SimulationTests;
+import com.aethersim.tests.designs.TestDesigns;
+import com.aethersim.tests.designs.generators.DesignGenerator;
+import com.aethersim.tests.designs.generators.GeneratedDesign;
+import com.aethersim.utils.Direction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@SimulationTests
+@AetherSimTests("Mesh Simulator")
+public class TestMeshSimulator {
+
+    private static final int SETTLE_TICKS = 30;
+
+    @BeforeAll
+    static void registerTemplates() {
+        TestDesigns.registerTemplates();
+    }
+
+    @AetherSimTest("Event-Driven Scheduling")
+    void testEventDrivenScheduling() {
+        Pin output = new Pin();
+        Chip toggle = new Chip();
+        Design design = TestDesigns.createInverterChain(toggle, output, 3);
+
+        MeshSimulator simulator = new MeshSimulator(MeshSchedulingMode.EVENT_DRIVEN);
+        SimulatedDesign simulatedDesign = simulator.initialize(design);
+
+        // An odd number of inverters should always invert the toggle, including after the design sits idle
+        simulator.start();
+        try {
+            for (LogicState state : new LogicState[] {LogicState.LOW, LogicState.HIGH, LogicState.HIGH, LogicState.LOW}) {
+                ((ToggleTemplate) toggle.getChipTemplate()).setDrivenState(toggle, state);
+                TestDesigns.tick(simulator, SETTLE_TICKS);
+                Assertions.assertEquals(state == LogicState.LOW ? LogicState.HIGH : LogicState.LOW, simulatedDesign.getStateForPin(output));
+            }
+        } finally {
+            simulator.stop();
+        }
+    }
+
+    @AetherSimTest("Event-Driven Traces")
+    void testEventDrivenTraces() {
+        // At the switch level, connectors take a few ticks to switch, so event-driven scheduling has to keep every
+        // vertex in step with full scheduling on every tick (not just once the design settles)
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(4));
+        MeshSimulator fullSimulator = new MeshSimulator(MeshSchedulingMode.FULL, MeshGenerationOptions.switchLevel());
+        MeshSimulator eventSimulator = new MeshSimulator(MeshSchedulingMode.EVENT_DRIVEN, MeshGenerationOptions.switchLevel());
+        fullSimulator.initialize(design.getDesign());
+        eventSimulator.initialize(design.getDesign());
+        List<MeshVertex> fullVertices = new ArrayList<>(fullSimulator.getSimulationConfig().getMeshVertices());
+        List<MeshVertex> eventVertices = new ArrayList<>(eventSimulator.getSimulationConfig().getMeshVertices());
+        Assertions.assertEquals(fullVertices.size(), eventVertices.size());
+
+        fullSimulator.start();
+        eventSimulator.start();
+        try {
+            for (int[] operand : new int[][] {{0, 0}, {7, 9}, {15, 15}, {5, 2}}) {
+                design.setInputs("a", 4, operand[0]);
+                design.setInputs("b", 4, operand[1]);
+                for (int tick = 0; tick < 3 * SETTLE_TICKS; tick++) {
+                    fullSimulator.tick();
+                    eventSimulator.tick();
+                    for (int vertex = 0; vertex < fullVertices.size(); vertex++) {
+                        Assertions.assertEquals(fullVertices.get(vertex).getActualState(), eventVertices.get(vertex).getActualState());
+                        Assertions.assertEquals(fullVertices.get(vertex).getSuggestedState(), eventVertices.get(vertex).getSuggestedState());
+                    }
+                }
+            }
+        } finally {
+            fullSimulator.stop();
+            eventSimulator.stop();
+        }
+    }
+
+    @AetherSimTest("Locality-Aware Partitioning")
+    void testPartitioning() {
+        Design design = TestDesigns.createInverterChain(new Chip(), new Pin(), 8);
+        MeshSimulationConfig simulationConfig = MeshGenerator.generate(design, 2);
+        MeshPartitioning partitioning = simulationConfig.getPartitioning();
+
+        // Every element should be assigned to exactly one partition
+        int vertices = 0, connectors = 0, functions = 0;
+        for (int partition = 0; partition < partitioning.getPartitionCount(); partition++) {
+            vertices += partitioning.getVertices(partition).size();
+            connectors += partitioning.getConnectors(partition).size();
+            functions += partitioning.getFunctions(partition).size();
+        }
+        Assertions.assertEquals(2, partitioning.getPartitionCount());
+        Assertions.assertEquals(simulationConfig.getMeshVertices().size(), vertices);
+        Assertions.assertEquals(simulationConfig.getMeshConnectors().size(), connectors);
+        Assertions.assertEquals(simulationConfig.getMeshChips().size(), functions);
+
+        // The power rails are shared by every stage, but at most half of the edges should need to be cut, and
+        // both halves should carry similar loads
+        Assertions.assertTrue(partitioning.getCutEdges() <= partitioning.getTotalEdges() / 2);
+        Assertions.assertTrue(partitioning.getLoadImbalance() < 1.5);
+    }
+
+    @AetherSimTest("Patched Partitions and Activity Indices")
+    void testPatchedPartitioning() {
+        Pin output = new Pin();
+        Design design = TestDesigns.createInverterChain(new Chip(), output, 8);
+        MeshPatcher patcher = new MeshPatcher(design);
+        MeshSimulationConfig simulationConfig = patcher.getSimulationConfig();
+        MeshPartitioning partitioning = MeshPartitioner.partition(simulationConfig, 2);
+        MeshActivityIndex activityIndex = new MeshActivityIndex(simulationConfig);
+
+        // Disconnecting the output pin leaves it with a vertex of its own, which should be placed in a partition
+        WireSegment outputWire = design.getWireSegments().stream()
+                .filter(segment -> segment.getEndpoints().stream().anyMatch(endpoint -> endpoint instanceof ChipPin pin && pin.getPin() == output))
+                .findFirst()
+                .orElseThrow();
+        design.removeWireSegment(outputWire);
+        MeshPatch patch = patcher.update();
+        Assertions.assertTrue(MeshPartitioner.patch(partitioning, patch));
+        activityIndex.update(patch);
+        assertPartitioned(simulationConfig, partitioning);
+        assertIndexed(simulationConfig, activityIndex);
+
+        // Removing a stage should drop its elements, and connecting the output again should merge its vertex back
+        List<Chip> chips = new ArrayList<>(design.getChips());
+        design.removeChip(chips.get(chips.size() - 1));
+        design.addWireSegment(outputWire);
+        patch = patcher.update();
+        MeshPartitioner.patch(partitioning, patch);
+        activityIndex.update(patch);
+        assertPartitioned(simulationConfig, partitioning);
+        assertIndexed(simulationConfig, activityIndex);
+        Assertions.assertTrue(partitioning.getPatchedVertices() > 0);
+    }
+
+    @AetherSimTest("Metrics")
+    void testMetrics() throws JMException {
+        Chip toggle = new Chip();
+        Design design = TestDesigns.createInverterChain(toggle, new Pin(), 3);
+
+        for (MeshSchedulingMode schedulingMode : MeshSchedulingMode.values()) {
+            SimulationMetrics metrics = new SimulationMetrics();
+            MeshSimulator simulator = new MeshSimulator(schedulingMode);
+            simulator.setMetrics(metrics);
+            simulator.initialize(design);
+
+            // Switching the input should propagate states, switch connectors, and change vertices
+            simulator.start();
+            try {
+                ((ToggleTemplate) toggle.getChipTemplate()).setDrivenState(toggle, LogicState.HIGH);
+                TestDesigns.tick(simulator, SETTLE_TICKS);
+            } finally {
+                simulator.stop();
+            }
+            Assertions.assertEquals(SETTLE_TICKS, metrics.getTickCount());
+            Assertions.assertTrue(metrics.getPropagatedTaskCount() > 0);
+            Assertions.assertTrue(metrics.getSwitchedConnectorCount() > 0);
+            Assertions.assertTrue(metrics.getChangedVertexCount() > 0);
+            for (SimulationPhase phase : SimulationPhase.values())
+                Assertions.assertTrue(metrics.getPhaseLatency(phase).getCount() > 0);
+
+            // Disabled metrics shouldn't record anything
+            metrics.reset();
+            metrics.setEnabled(false);
+            simulator.start();
+            try {
+                TestDesigns.tick(simulator, SETTLE_TICKS);
+            } finally {
+                simulator.stop();
+            }
+            Assertions.assertEquals(0, metrics.getTickCount());
+        }
+
+        // Percentiles should be ordered, and accurate to within the bucket width
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++)
+            histogram.record(value * 1000);
+        Assertions.assertEquals(1000, histogram.getCount());
+        Assertions.assertEquals(500_000, histogram.getP50(), 500_000 / 16.0);
+        Assertions.assertEquals(990_000, histogram.getP99(), 990_000 / 16.0);
+        Assertions.assertTrue(histogram.getP50() <= histogram.getP90() && histogram.getP90() <= histogram.getP99() && histogram.getP99() <= histogram.getMax());
+
+        // The metrics should be readable through JMX
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        SimulationMetrics metrics = new SimulationMetrics();
+        metrics.recordTick(1000);
+        metrics.register(server);
+        Assertions.assertEquals(1L, server.getAttribute(new ObjectName("com.aethersim:type=SimulationMetrics"), "TickCount"));
+        Assertions.assertEquals(1000L, server.getAttribute(new ObjectName("com.aethersim:type=SimulationMetrics,latency=tick"), "Max"));
+    }
+
+    @AetherSimTest("Repeatable Switching Delays")
+    void testRepeatableDelays() {
+        // Delays should always be within range
+        for (int connector = 0; connector < 1000; connector++) {
+            int delay = SwitchingDelays.getDelay(SwitchingDelays.getTickKey(connector / 10), connector, 3);
+            Assertions.assertTrue(delay >= 1 && delay <= 3);
+        }
+
+        // With the same seed, two runs of the same design should switch on exactly the same ticks
+        Pin output = new Pin();
+        Chip toggle = new Chip();
+        Design design = TestDesigns.createInverterChain(toggle, output, 5);
+        Assertions.assertEquals(recordOutput(design, toggle, output), recordOutput(design, toggle, output));
+    }
+
+    @AetherSimTest("Incremental Updates")
+    void testIncrementalUpdates() {
+        // Patches are applied to the partitions and activity index, so check both kinds of scheduling
+        for (MeshSchedulingMode schedulingMode : new MeshSchedulingMode[] {MeshSchedulingMode.FULL, MeshSchedulingMode.EVENT_DRIVEN})
+            testIncrementalUpdates(schedulingMode);
+    }
+
+    private static void testIncrementalUpdates(MeshSchedulingMode schedulingMode) {
+        Pin output = new Pin();
+        Chip toggle = new Chip();
+        Design design = TestDesigns.createInverterChain(toggle, output, 3);
+        ToggleTemplate template = (ToggleTemplate) toggle.getChipTemplate();
+
+        // Start with the output pin disconnected from the chain
+        WireSegment outputWire = design.getWireSegments().stream()
+                .filter(segment -> segment.getEndpoints().stream().anyMatch(endpoint -> endpoint instanceof ChipPin pin && pin.getPin() == output))
+                .findFirst()
+                .orElseThrow();
+        design.removeWireSegment(outputWire);
+
+        MeshSimulator simulator = new MeshSimulator(schedulingMode);
+        SimulatedDesign simulatedDesign = simulator.initialize(design);
+        simulator.start();
+        try {
+            template.setDrivenState(toggle, LogicState.HIGH);
+            TestDesigns.tick(simulator, SETTLE_TICKS);
+            MeshVertex inputVertex = ((MeshSimulatedDesign) simulatedDesign.getSimulatedChipDesign(toggle)).getVertexForPin(ToggleTemplate.OUTPUT);
+
+            // Connecting the output should patch the existing mesh, leaving the rest of the nets (and their states) alone
+            design.addWireSegment(outputWire);
+            Assertions.assertSame(simulatedDesign, simulator.update(design));
+            Assertions.assertSame(inputVertex, ((MeshSimulatedDesign) simulatedDesign.getSimulatedChipDesign(toggle)).getVertexForPin(ToggleTemplate.OUTPUT));
+            Assertions.assertEquals(LogicState.HIGH, inputVertex.getActualState());
+            assertMatchesGenerated(design, simulator.getSimulationConfig());
+            TestDesigns.tick(simulator, SETTLE_TICKS);
+            Assertions.assertEquals(LogicState.LOW, simulatedDesign.getStateForPin(output));
+
+            // Removing the last pull-down transistor should leave the output to the pull-up transistor alone
+            List<Chip> chips = new ArrayList<>(design.getChips());
+            design.removeChip(chips.get(chips.size() - 1));
+            simulator.update(design);
+            assertMatchesGenerated(design, simulator.getSimulationConfig());
+            template.setDrivenState(toggle, LogicState.LOW);
+            TestDesigns.tick(simulator, SETTLE_TICKS);
+            Assertions.assertEquals(LogicState.HIGH, simulatedDesign.getStateForPin(output));
+        } finally {
+            simulator.stop();
+            template.setDrivenState(toggle, LogicState.LOW);
+        }
+    }
+
+    @AetherSimTest("Incremental Nets")
+    void testIncrementalNets() {
+        Pin output = new Pin();
+        Chip toggle = new Chip();
+        Design design = TestDesigns.createInverterChain(toggle, output, 8);
+        MeshPatcher patcher = new MeshPatcher(design);
+        MeshSimulationConfig simulationConfig = patcher.getSimulationConfig();
+        SimulatedDesign simulatedDesign = simulationConfig.getTopLevelSimulatedDesign();
+        MeshVertex inputVertex = getPinVertex(simulatedDesign, new ChipPin(toggle, ToggleTemplate.OUTPUT));
+
+        // Nothing has changed, so the update shouldn't touch the mesh
+        Assertions.assertTrue(patcher.update().isEmpty());
+
+        // Disconnecting the outputs of a stage splits their net, which should only add a vertex for the split half
+        List<Chip> chips = new ArrayList<>(design.getChips());
+        ChipPin collector = new ChipPin(chips.get(11), TransistorTemplate.PNP_COLLECTOR);
+        ChipPin emitter = new ChipPin(chips.get(12), TransistorTemplate.NPN_EMITTER);
+        WireSegment stageWire = design.getWireSegments().stream()
+                .filter(segment -> segment.getEndpoints().containsAll(List.of(collector, emitter)))
+                .findFirst()
+                .orElseThrow();
+        MeshVertex stageVertex = getPinVertex(simulatedDesign, collector);
+        design.removeWireSegment(stageWire);
+        MeshPatch patch = patcher.update();
+        Assertions.assertEquals(1, patch.getAddedVertices().size());
+        Assertions.assertTrue(patch.getRemovedVertices().isEmpty());
+        Assertions.assertSame(stageVertex, getPinVertex(simulatedDesign, collector));
+        Assertions.assertNotSame(stageVertex, getPinVertex(simulatedDesign, emitter));
+        Assertions.assertSame(inputVertex, getPinVertex(simulatedDesign, new ChipPin(toggle, ToggleTemplate.OUTPUT)));
+        assertNetsMatchGenerated(design, simulatedDesign);
+
+        // Joining the halves again through a wire node should merge them back onto the larger half's vertex
+        WireNode wireNode = new WireNode(new Point(66, 14));
+        design.addWireNode(wireNode);
+        design.addWireSegments(new WireSegment(design, collector, wireNode), new WireSegment(design, wireNode, emitter));
+        patch = patcher.update();
+        Assertions.assertEquals(1, patch.getRemovedVertices().size());
+        Assertions.assertTrue(patch.getAddedVertices().isEmpty());
+        Assertions.assertSame(stageVertex, getPinVertex(simulatedDesign, emitter));
+        assertNetsMatchGenerated(design, simulatedDesign);
+
+        // Moving the end of a wire should be picked up without the wire being removed and added again, taking the
+        // output pin off the last stage and onto the joined stage
+        WireSegment outputWire = design.getWireSegments().stream()
+                .filter(segment -> segment.getEnd().equals(new ChipPin(null, output)))
+                .findFirst()
+                .orElseThrow();
+        outputWire.setStart(wireNode);
+        patch = patcher.update();
+        Assertions.assertFalse(patch.isEmpty());
+        Assertions.assertSame(stageVertex, getPinVertex(simulatedDesign, emitter));
+        assertNetsMatchGenerated(design, simulatedDesign);
+
+        // Adding a stage with its wires should stamp only the new chips into the mesh
+        Chip pnp = new Chip(), npn = new Chip();
+        pnp.setChipTemplate(ChipTemplate.get("transistor_pnp"));
+        npn.setChipTemplate(ChipTemplate.get("transistor_npn"));
+        design.addChips(pnp, npn);
+        design.addWireSegments(
+                new WireSegment(design, new ChipPin(chips.get(1), ConstantTemplate.OUTPUT), new ChipPin(pnp, TransistorTemplate.PNP_EMITTER)),
+                new WireSegment(design, new ChipPin(chips.get(2), ConstantTemplate.OUTPUT), new ChipPin(npn, TransistorTemplate.NPN_COLLECTOR)),
+                new WireSegment(design, new ChipPin(null, output), new ChipPin(pnp, TransistorTemplate.PNP_BASE)),
+                new WireSegment(design, new ChipPin(null, output), new ChipPin(npn, TransistorTemplate.NPN_BASE)));
+        patch = patcher.update();
+        Assertions.assertEquals(2, patch.getAddedConnectors().size());
+        Assertions.assertSame(inputVertex, getPinVertex(simulatedDesign, new ChipPin(toggle, ToggleTemplate.OUTPUT)));
+        assertNetsMatchGenerated(design, simulatedDesign);
+        assertMatchesGenerated(design, simulationConfig);
+    }
+
+    @AetherSimTest("Wire Set Extraction")
+    void testWireSets() {
+        // Build a long chain of wire nodes between two pins, winding back and forth across the design.  The chain is
+        // far deeper than the stack would allow if wire sets were found recursively.
+        int rows = 50, columns = 100;
+        Design design = new Design();
+        design.setWidth(columns + 8);
+        design.setHeight(rows + 8);
+        Pin start = new Pin(), end = new Pin(), other = new Pin();
+        start.setDesignLocation(new Point(2, 4));
+        end.setDesignLocation(new Point(2, rows + 4));
+        other.setDesignLocation(new Point(2, 2));
+        design.addPins(start, end, other);
+
+        WireNode previous = null;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int x = row % 2 == 0 ? 3 + column : 2 + columns - column;
+                WireNode wireNode = new WireNode(new Point(x, 4 + row));
+                design.addWireNode(wireNode);
+                design.addWireSegment(new WireSegment(design, previous == null ? new ChipPin(null, start) : previous, wireNode));
+                previous = wireNode;
+            }
+        }
+        design.addWireSegment(new WireSegment(design, previous, new ChipPin(null, end)));
+
+        // A wire straight between two pins has no nodes, so it forms a set of its own
+        design.addWireSegment(new WireSegment(design, new ChipPin(null, start), new ChipPin(null, other)));
+
+        List<MeshWireSet> wireSets = new ArrayList<>(MeshWireSet.generate(design));
+        Assertions.assertEquals(2, wireSets.size());
+        Assertions.assertEquals(rows * columns, wireSets.get(0).getWireNodes().size());
+        Assertions.assertEquals(rows * columns + 1, wireSets.get(0).getWireSegments().size());
+        Assertions.assertEquals(Set.of(new ChipPin(null, start), new ChipPin(null, end)), wireSets.get(0).getConnectedPins());
+        Assertions.assertEquals(Set.of(new ChipPin(null, start), new ChipPin(null, other)), wireSets.get(1).getConnectedPins());
+    }
+
+    @AetherSimTest("Hierarchical Templates")
+    void testHierarchicalTemplates() {
+        // A small block size nests the adder several levels deep, with many instances of each template.  The adder
+        // is simulated transistor by transistor, with its gates collapsed into functions, and with its templates
+        // replaced by truth tables.
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(4));
+        MeshGenerationOptions characterizing = new MeshGenerationOptions();
+        characterizing.setCharacterizingTemplates(true);
+        int collapsedFunctions = MeshGenerator.generate(design.getDesign(), 1).getMeshChips().size();
+        int characterizedFunctions = MeshGenerator.generate(design.getDesign(), 1, characterizing).getMeshChips().size();
+        Assertions.assertTrue(characterizedFunctions < collapsedFunctions);
+
+        for (MeshGenerationOptions options : new MeshGenerationOptions[] {MeshGenerationOptions.switchLevel(), new MeshGenerationOptions(), characterizing}) {
+            MeshSimulator simulator = new MeshSimulator(MeshSchedulingMode.FULL, options);
+            SimulatedDesign simulatedDesign = simulator.initialize(design.getDesign());
+            int expectedConnectors = options.isCollapsingSwitchNetworks() ? 0 : design.getTransistorCount();
+            Assertions.assertEquals(expectedConnectors, simulator.getSimulationConfig().getMeshConnectors().size());
+
+            simulator.start();
+            try {
+                for (int[] operand : new int[][] {{0, 0, 0}, {7, 9, 0}, {15, 15, 1}}) {
+                    design.setInputs("a", 4, operand[0]);
+                    design.setInputs("b", 4, operand[1]);
+                    design.setInput("cin", operand[2] == 1 ? LogicState.HIGH : LogicState.LOW);
+                    TestDesigns.tick(simulator, 10 * SETTLE_TICKS);
+
+                    long sum = design.getOutputs(simulatedDesign, "s", 4);
+                    if (design.getState(simulatedDesign, "cout") == LogicState.HIGH)
+                        sum |= 1 << 4;
+                    Assertions.assertEquals(operand[0] + operand[1] + operand[2], sum);
+                }
+            } finally {
+                simulator.stop();
+            }
+        }
+    }
+
+    @AetherSimTest("Parallel Stamping")
+    void testParallelStamping() {
+        // At the switch level, a long shift register has enough instances for its stamping to be split across the
+        // fork-join pool, which should produce exactly the same mesh as stamping it on a single thread
+        DesignGenerator generator = new DesignGenerator();
+        GeneratedDesign design = generator.generate(generator.shiftRegister(32));
+        Assertions.assertTrue(design.getTransistorCount() > 1024);
+        MeshGenerationOptions parallel = MeshGenerationOptions.switchLevel();
+        MeshGenerationOptions serial = MeshGenerationOptions.switchLevel();
+        serial.setStampingInParallel(false);
+
+        // Stamping only the indices should give the same deciders, edges, and functions in the same slots
+        MeshIndexStamp parallelIndices = MeshGenerator.generateIndices(design.getDesign(), parallel);
+        MeshIndexStamp serialIndices = MeshGenerator.generateIndices(design.getDesign(), serial);
+        Assertions.assertEquals(serialIndices.getVertexCount(), parallelIndices.getVertexCount());
+        Assertions.assertEquals(serialIndices.getConnectorCount(), parallelIndices.getConnectorCount());
+        Assertions.assertEquals(serialIndices.getFunctionCount(), parallelIndices.getFunctionCount());
+        for (int connector = 0; connector < serialIndices.getConnectorCount(); connector++) {
+            Assertions.assertEquals(serialIndices.getConnectorDecider(connector), parallelIndices.getConnectorDecider(connector));
+            Assertions.assertEquals(serialIndices.isConnectorActiveLow(connector), parallelIndices.isConnectorActiveLow(connector));
+            Assertions.assertEquals(serialIndices.getEdgeStart(connector), parallelIndices.getEdgeStart(connector));
+            Assertions.assertEquals(serialIndices.getEdgeEnd(connector), parallelIndices.getEdgeEnd(connector));
+        }
+        for (int function = 0; function < serialIndices.getFunctionCount(); function++) {
+            Assertions.assertSame(serialIndices.getFunctionChip(function), parallelIndices.getFunctionChip(function));
+            Assertions.assertEquals(serialIndices.getFunctionInstance(function).getId(), parallelIndices.getFunctionInstance(function).getId());
+        }
+
+        // Stamping the full mesh should give the same vertices, connectors, and functions, in the same order
+        MeshSimulationConfig parallelConfig = MeshGenerator.generate(design.getDesign(), 1, parallel);
+        MeshSimulationConfig serialConfig = MeshGenerator.generate(design.getDesign(), 1, serial);
+        Assertions.assertEquals(serialConfig.getMeshVertices().size(), parallelConfig.getMeshVertices().size());
+        Assertions.assertEquals(serialConfig.getMeshConnectors().size(), parallelConfig.getMeshConnectors().size());
+        Assertions.assertEquals(serialConfig.getMeshChips().size(), parallelConfig.getMeshChips().size());
+        Assertions.assertEquals(describeMesh(serialConfig), describeMesh(parallelConfig));
+
+        // Both meshes should also agree on every vertex state on every tick, while bits are clocked into the register
+        Netlist parallelNetlist = NetlistCompiler.compile(parallelConfig);
+        Netlist serialNetlist = NetlistCompiler.compile(serialConfig);
+        for (int step = 0; step < 12; step++) {
+            design.setInput("d", step % 8 < 3 ? LogicState.HIGH : LogicState.LOW);
+            design.setInput("clk1", step % 2 == 0 ? LogicState.HIGH : LogicState.LOW);
+            design.setInput("clk2", step % 2 == 1 ? LogicState.HIGH : LogicState.LOW);
+            for (int tick = 0; tick < SETTLE_TICKS; tick++) {
+                parallelNetlist.tick();
+                serialNetlist.tick();
+                for (int vertex = 0; vertex < serialNetlist.getVertexCount(); vertex++) {
+                    Assertions.assertEquals(serialNetlist.getActualState(vertex), parallelNetlist.getActualState(vertex));
+                    Assertions.assertEquals(serialNetlist.getSuggestedState(vertex), parallelNetlist.getSuggestedState(vertex));
+                }
+            }
+        }
+    }
+
+    @AetherSimTest("Compiled Scheduling")
+    void testCompiledScheduling() {
+        // With its gates collapsed, the adder is a network of functions without feedback, so the compiled network
+        // settles every sum in a single tick.  At the switch level it has connectors, so it falls back to events.
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(4));
+        for (MeshGenerationOptions options : new MeshGenerationOptions[] {new MeshGenerationOptions(), MeshGenerationOptions.switchLevel()}) {
+            MeshSimulator simulator = new MeshSimulator(MeshSchedulingMode.COMPILED, options);
+            SimulatedDesign simulatedDesign = simulator.initialize(design.getDesign());
+
+            simulator.start();
+            try {
+                for (int[] operand : new int[][] {{0, 0, 0}, {7, 9, 0}, {15, 15, 1}, {5, 2, 1}}) {
+                    design.setInputs("a", 4, operand[0]);
+                    design.setInputs("b", 4, operand[1]);
+                    design.setInput("cin", operand[2] == 1 ? LogicState.HIGH : LogicState.LOW);
+                    TestDesigns.tick(simulator, options.isCollapsingSwitchNetworks() ? 1 : 10 * SETTLE_TICKS);
+
+                    long sum = design.getOutputs(simulatedDesign, "s", 4);
+                    if (design.getState(simulatedDesign, "cout") == LogicState.HIGH)
+                        sum |= 1 << 4;
+                    Assertions.assertEquals(operand[0] + operand[1] + operand[2], sum);
+                }
+                TestDesigns.tick(simulator, 1);
+                Assertions.assertTrue(simulator.isStable());
+            } finally {
+                simulator.stop();
+            }
+        }
+    }
+
+    @AetherSimTest("Collapsed Switch Networks")
+    void testCollapsedSwitchNetworks() {
+        // Collapsed switch networks should settle every vertex they keep to the same states as the transistors they
+        // replace, including nets that are both driven and pulled, and nets that are only pulled
+        DesignGenerator generator = new DesignGenerator(2);
+        for (GeneratedDesign design : new GeneratedDesign[] {generator.generate(generator.contendedInverters()), generator.generate(generator.rippleCarryAdder(2))}) {
+            MeshSimulator switchSimulator = new MeshSimulator(MeshSchedulingMode.FULL, MeshGenerationOptions.switchLevel());
+            MeshSimulator collapsedSimulator = new MeshSimulator(MeshSchedulingMode.FULL, new MeshGenerationOptions());
+            NetlistSimulator netlistSimulator = new NetlistSimulator();
+            SimulatedDesign switchDesign = switchSimulator.initialize(design.getDesign());
+            SimulatedDesign collapsedDesign = collapsedSimulator.initialize(design.getDesign());
+            NetlistSimulatedDesign netlistDesign = (NetlistSimulatedDesign) netlistSimulator.initialize(design.getDesign());
+            NetlistSimulatedDesign circuitDesign = (NetlistSimulatedDesign) netlistDesign.getSimulatedChipDesign(design.getCircuit());
+            List<Pin> pins = new ArrayList<>(design.getCircuit().getChipTemplate().getPins());
+
+            switchSimulator.start();
+            collapsedSimulator.start();
+            try {
+                for (LogicState input : new LogicState[] {LogicState.LOW, LogicState.HIGH}) {
+                    for (Pin pin : pins)
+                        if (pin.getChipOrientation() == Direction.LEFT)
+                            design.setInput(pin.getId(), input);
+                    TestDesigns.tick(switchSimulator, 10 * SETTLE_TICKS);
+                    TestDesigns.tick(collapsedSimulator, SETTLE_TICKS);
+                    TestDesigns.tick(netlistSimulator, SETTLE_TICKS);
+                    for (WireSegment wireSegment : design.getDesign().getWireSegments())
+                        Assertions.assertEquals(switchDesign.getStateForWireSegment(wireSegment), collapsedDesign.getStateForWireSegment(wireSegment));
+                    SimulatedDesign switchCircuit = switchDesign.getSimulatedChipDesign(design.getCircuit());
+                    assertSameVertices(((DesignedTemplate) design.getCircuit().getChipTemplate()).getDesign(),
+                            (MeshSimulatedDesign) switchCircuit, (MeshSimulatedDesign) collapsedDesign.getSimulatedChipDesign(design.getCircuit()));
+
+                    // The netlist and every lane of a batch run the same collapsed functions, so they should agree too
+                    BatchNetlist batch = new BatchNetlist(netlistSimulator.getNetlist());
+                    for (int tick = 0; tick < SETTLE_TICKS; tick++)
+                        batch.tick();
+                    for (Pin pin : pins) {
+                        LogicState expectedState = switchCircuit.getStateForPin(pin);
+                        Assertions.assertEquals(expectedState, circuitDesign.getStateForPin(pin), pin.getId());
+                        for (int lane = 0; lane < BatchNetlist.LANES; lane++)
+                            Assertions.assertEquals(expectedState, batch.getActualState(circuitDesign.getVertexForPin(pin), lane), pin.getId());
+                    }
+                }
+            } finally {
+                switchSimulator.stop();
+                collapsedSimulator.stop();
+            }
+        }
+    }
+
+    @AetherSimTest("Snapshots")
+    void testSnapshots(@TempDir Path directory) throws IOException {
+        // Take a snapshot at the switch level while the adder is still switching, so connector delays are captured
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(4));
+        MeshSimulator simulator = new MeshSimulator(MeshSchedulingMode.FULL, MeshGenerationOptions.switchLevel());
+        SimulatedDesign simulatedDesign = simulator.initialize(design.getDesign());
+        Path snapshotFile = directory.resolve("adder.snapshot");
+
+        simulator.start();
+        try {
+            design.setInputs("a", 4, 5);
+            design.setInputs("b", 4, 9);
+            TestDesigns.tick(simulator, 10 * SETTLE_TICKS);
+            design.setInputs("a", 4, 3);
+            design.setInputs("b", 4, 6);
+            TestDesigns.tick(simulator, 3);
+            simulator.saveSnapshot(snapshotFile, true);
+            MeshSnapshot snapshot = simulator.snapshot();
+            String trace = recordSum(simulator, simulatedDesign, design);
+
+            // Change the inputs, and then restore the snapshot (including the inputs) from the file and from memory
+            // after writing it without compression.  Both should replay exactly the same ticks as the first run.
+            design.setInputs("a", 4, 15);
+            design.setInputs("b", 4, 15);
+            TestDesigns.tick(simulator, 10 * SETTLE_TICKS);
+            simulator.restoreSnapshot(snapshotFile);
+            Assertions.assertEquals(trace, recordSum(simulator, simulatedDesign, design));
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            snapshot.write(Channels.newChannel(output), false);
+            simulator.restore(MeshSnapshot.read(Channels.newChannel(new ByteArrayInputStream(output.toByteArray()))));
+            Assertions.assertEquals(trace, recordSum(simulator, simulatedDesign, design));
+            Assertions.assertTrue(Files.size(snapshotFile) < output.size());
+        } finally {
+            simulator.stop();
+        }
+
+        // Snapshots can't be restored into a different mesh
+        MeshSimulator otherSimulator = new MeshSimulator();
+        otherSimulator.initialize(TestDesigns.createInverterChain(new Chip(), new Pin(), 3));
+        Assertions.assertThrows(MeshException.class, () -> otherSimulator.restoreSnapshot(snapshotFile));
+
+        // Generating the same design again lays out the same mesh, so the snapshot can be restored into it
+        MeshSimulator sameSimulator = new MeshSimulator(MeshSchedulingMode.FULL, MeshGenerationOptions.switchLevel());
+        sameSimulator.initialize(design.getDesign());
+        sameSimulator.restoreSnapshot(snapshotFile);
+
+        // Removing a chip and adding it back leaves as many elements as before, but stores their states in a different
+        // order, so the snapshot no longer fits the mesh
+        MeshSnapshot snapshot = MeshSnapshot.read(Channels.newChannel(new ByteArrayInputStream(Files.readAllBytes(snapshotFile))));
+        Chip chip = design.getDriver("a0");
+        design.getDesign().removeChip(chip);
+        simulator.update(design.getDesign());
+        design.getDesign().addChip(chip);
+        simulator.update(design.getDesign());
+        MeshSimulationConfig simulationConfig = simulator.getSimulationConfig();
+        Assertions.assertEquals(snapshot.getVertexCount(), simulationConfig.getMeshVertices().size());
+        Assertions.assertEquals(snapshot.getConnectorCount(), simulationConfig.getMeshConnectors().size());
+        Assertions.assertEquals(snapshot.getFunctionCount(), simulationConfig.getMeshChips().size());
+        Assertions.assertNotEquals(snapshot.getFingerprint(), simulationConfig.getFingerprint());
+        Assertions.assertThrows(MeshException.class, () -> simulator.restore(snapshot));
+    }
+
+    @AetherSimTest("Reverse Stepping")
+    void testReverseStepping() {
+        // Record the sum on every tick at the switch level, with the inputs changing partway through
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(4));
+        MeshSimulator simulator = new MeshSimulator(MeshSchedulingMode.EVENT_DRIVEN, MeshGenerationOptions.switchLevel());
+        SimulatedDesign simulatedDesign = simulator.initialize(design.getDesign());
+        simulator.setHistory(new MeshHistory(16, MeshHistory.DEFAULT_MEMORY_BUDGET));
+
+        simulator.start();
+        try {
+            List<Long> sums = new ArrayList<>();
+            design.setInputs("a", 4, 5);
+            design.setInputs("b", 4, 9);
+            for (int tick = 1; tick <= 200; tick++) {
+                if (tick == 100) {
+                    design.setInputs("a", 4, 3);
+                    design.setInputs("b", 4, 6);
+                }
+                simulator.tick();
+                sums.add(design.getOutputs(simulatedDesign, "s", 4));
+            }
+            Assertions.assertEquals(14, sums.get(99 - 1));
+            Assertions.assertEquals(9, sums.get(200 - 1));
+
+            // Seeking back should restore the states from that tick, including the inputs at the time
+            for (int tick : new int[] {150, 99, 37}) {
+                simulator.seek(tick);
+                Assertions.assertEquals(tick, simulator.getTickCount());
+                Assertions.assertEquals(sums.get(tick - 1), design.getOutputs(simulatedDesign, "s", 4));
+            }
+
+            // Anything recorded after the tick is discarded, and the simulation replays the same ticks from there
+            Assertions.assertEquals(37, simulator.getHistory().getLatestTick());
+            for (int tick = 38; tick <= 200; tick++) {
+                if (tick == 100) {
+                    design.setInputs("a", 4, 3);
+                    design.setInputs("b", 4, 6);
+                }
+                simulator.tick();
+                Assertions.assertEquals(sums.get(tick - 1), design.getOutputs(simulatedDesign, "s", 4));
+            }
+            simulator.stepBack(105);
+            Assertions.assertEquals(sums.get(95 - 1), design.getOutputs(simulatedDesign, "s", 4));
+
+            // With a small budget, old history is evicted and can no longer be reached
+            simulator.setHistory(new MeshHistory(16, 1));
+            TestDesigns.tick(simulator, 100);
+            MeshHistory history = simulator.getHistory();
+            Assertions.assertEquals(1, history.getCheckpointCount());
+            Assertions.assertEquals(history.getLatestTick(), history.getEarliestTick());
+            Assertions.assertThrows(MeshException.class, () -> simulator.seek(history.getEarliestTick() - 1));
+        } finally {
+            simulator.stop();
+        }
+    }
+
+    @AetherSimTest("Recorded History")
+    void testRecordedHistory() throws IOException {
+        // Event-driven and compiled ticks are recorded from only the elements they touched, so seeking back should
+        // still restore exactly the states a full snapshot saw on that tick
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(4));
+        for (MeshSchedulingMode schedulingMode : new MeshSchedulingMode[] {MeshSchedulingMode.EVENT_DRIVEN, MeshSchedulingMode.COMPILED}) {
+            MeshGenerationOptions options = schedulingMode == MeshSchedulingMode.COMPILED ? new MeshGenerationOptions() : MeshGenerationOptions.switchLevel();
+            MeshSimulator simulator = new MeshSimulator(schedulingMode, options);
+            simulator.initialize(design.getDesign());
+            simulator.setHistory(new MeshHistory(8, MeshHistory.DEFAULT_MEMORY_BUDGET));
+
+            simulator.start();
+            try {
+                List<byte[]> snapshots = new ArrayList<>();
+                for (int tick = 1; tick <= 60; tick++) {
+                    if (tick == 1 || tick == 30) {
+                        design.setInputs("a", 4, tick);
+                        design.setInputs("b", 4, 15 - tick);
+                    }
+                    simulator.tick();
+                    snapshots.add(serialize(simulator.snapshot()));
+                }
+
+                for (int tick : new int[] {60, 45, 31, 30, 17, 2}) {
+                    simulator.seek(tick);
+                    Assertions.assertArrayEquals(snapshots.get(tick - 1), serialize(simulator.snapshot()), schedulingMode + " tick " + tick);
+                }
+            } finally {
+                simulator.stop();
+            }
+        }
+    }
+
+    private static byte[] serialize(MeshSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        snapshot.write(Channels.newChannel(output), false);
+        return output.toByteArray();
+    }
+
+    private static void assertSameVertices(Design design, MeshSimulatedDesign switchDesign, MeshSimulatedDesign collapsedDesign) {
+        // Compare every net the collapsed mesh kept, and then the nets inside each chip that wasn't collapsed
+        for (WireSegment wireSegment : design.getWireSegments()) {
+            MeshVertex collapsedVertex = collapsedDesign.getVertexForWireSegment(wireSegment);
+            if (collapsedVertex == null)
+                continue;
+            MeshVertex switchVertex = switchDesign.getVertexForWireSegment(wireSegment);
+            Assertions.assertEquals(switchVertex.getActualState(), collapsedVertex.getActualState(), wireSegment.toString());
+            Assertions.assertEquals(switchVertex.getSuggestedState(), collapsedVertex.getSuggestedState(), wireSegment.toString());
+        }
+        for (Chip chip : design.getChips()) {
+            if (!(chip.getChipTemplate() instanceof DesignedTemplate designedTemplate))
+                continue;
+            if (switchDesign.getSimulatedChipDesign(chip) instanceof MeshSimulatedDesign switchChipDesign
+                    && collapsedDesign.getSimulatedChipDesign(chip) instanceof MeshSimulatedDesign collapsedChipDesign)
+                assertSameVertices(designedTemplate.getDesign(), switchChipDesign, collapsedChipDesign);
+        }
+    }
+
+    private static void assertMatchesGenerated(Design design, MeshSimulationConfig simulationConfig) {
+        // A patched mesh should have the same shape as one generated from scratch
+        MeshSimulationConfig generatedConfig = MeshGenerator.generate(design, 1);
+        Assertions.assertEquals(generatedConfig.getMeshVertices().size(), simulationConfig.getMeshVertices().size());
+        Assertions.assertEquals(generatedConfig.getMeshConnectors().size(), simulationConfig.getMeshConnectors().size());
+        Assertions.assertEquals(generatedConfig.getMeshChips().size(), simulationConfig.getMeshChips().size());
+    }
+
+    private static MeshVertex getPinVertex(SimulatedDesign simulatedDesign, ChipPin chipPin) {
+        return ((MeshSimulatedDesign) simulatedDesign.getSimulatedChipDesign(chipPin.getChip())).getVertexForPin(chipPin.getPin());
+    }
+
+    private static void assertNetsMatchGenerated(Design design, SimulatedDesign simulatedDesign) {
+        // Chip pins should share a vertex in the patched mesh exactly when they share one in a generated mesh
+        SimulatedDesign generatedDesign = MeshGenerator.generate(design, 1).getTopLevelSimulatedDesign();
+        Map<MeshVertex, MeshVertex> patchedVertices = new IdentityHashMap<>();
+        Map<MeshVertex, MeshVertex> generatedVertices = new IdentityHashMap<>();
+        for (Chip chip : design.getChips()) {
+            for (Pin pin : chip.getChipTemplate().getPins()) {
+                MeshVertex patchedVertex = getPinVertex(simulatedDesign, new ChipPin(chip, pin));
+                MeshVertex generatedVertex = getPinVertex(generatedDesign, new ChipPin(chip, pin));
+                Assertions.assertSame(generatedVertex, generatedVertices.computeIfAbsent(patchedVertex, vertex -> generatedVertex));
+                Assertions.assertSame(patchedVertex, patchedVertices.computeIfAbsent(generatedVertex, vertex -> patchedVertex));
+            }
+        }
+    }
+
+    private static void assertPartitioned(MeshSimulationConfig simulationConfig, MeshPartitioning partitioning) {
+        // Every element should be in exactly one partition, and vertices should know which one
+        Set<MeshVertex> vertices = new HashSet<>();
+        Set<MeshConnector> connectors = new HashSet<>();
+        Set<MeshFunction<?>> functions = new HashSet<>();
+        for (int partition = 0; partition < partitioning.getPartitionCount(); partition++) {
+            for (MeshVertex vertex : partitioning.getVertices(partition)) {
+                Assertions.assertEquals(partition, vertex.getPartition());
+                Assertions.assertTrue(vertices.add(vertex));
+            }
+            for (MeshConnector connector : partitioning.getConnectors(partition))
+                Assertions.assertTrue(connectors.add(connector));
+            for (MeshFunction<?> function : partitioning.getFunctions(partition))
+                Assertions.assertTrue(functions.add(function));
+        }
+        Assertions.assertEquals(simulationConfig.getMeshVertices(), vertices);
+        Assertions.assertEquals(simulationConfig.getMeshConnectors(), connectors);
+        Assertions.assertEquals(simulationConfig.getMeshChips(), functions);
+    }
+
+    private static void assertIndexed(MeshSimulationConfig simulationConfig, MeshActivityIndex activityIndex) {
+        // A patched activity index should hold the same entries as one built from scratch (although possibly in a
+        // different order)
+        MeshActivityIndex generatedIndex = new MeshActivityIndex(simulationConfig);
+        Assertions.assertEquals(generatedIndex.getSourceFunctions(), activityIndex.getSourceFunctions());
+        for (MeshVertex vertex : simulationConfig.getMeshVertices()) {
+            Assertions.assertEquals(Set.copyOf(generatedIndex.getReadingFunctions(vertex)), Set.copyOf(activityIndex.getReadingFunctions(vertex)));
+            Assertions.assertEquals(Set.copyOf(generatedIndex.getDrivingFunctions(vertex)), Set.copyOf(activityIndex.getDrivingFunctions(vertex)));
+            Assertions.assertEquals(Set.copyOf(generatedIndex.getDecidedConnectors(vertex)), Set.copyOf(activityIndex.getDecidedConnectors(vertex)));
+            Assertions.assertEquals(describeEdges(generatedIndex.getIncomingEdges(vertex)), describeEdges(activityIndex.getIncomingEdges(vertex)));
+        }
+        for (MeshConnector connector : simulationConfig.getMeshConnectors()) {
+            List<Integer> generatedVertices = generatedIndex.getSwitchedVertices(connector).stream().map(System::identityHashCode).sorted().toList();
+            List<Integer> patchedVertices = activityIndex.getSwitchedVertices(connector).stream().map(System::identityHashCode).sorted().toList();
+            Assertions.assertEquals(generatedVertices, patchedVertices);
+        }
+    }
+
+    private static List<String> describeMesh(MeshSimulationConfig simulationConfig) {
+        // Describe every element of the mesh by the indices of the vertices it uses
+        Map<MeshVertex, Integer> vertexIndices = new IdentityHashMap<>();
+        for (MeshVertex vertex : simulationConfig.getMeshVertices())
+            vertexIndices.put(vertex, vertexIndices.size());
+        List<String> description = new ArrayList<>();
+        for (MeshVertex vertex : simulationConfig.getMeshVertices()) {
+            for (MeshEdge edge : vertex.getOutgoingEdges()) {
+                MeshConnector connector = edge.connector();
+                description.add("edge " + vertexIndices.get(vertex) + "->" + vertexIndices.get(edge.endpoint()) + " connector "
+                        + connector.getIndex() + " decider " + vertexIndices.get(connector.getDecider()) + " " + connector.isActiveLow());
+            }
+        }
+        for (MeshFunction<?> function : simulationConfig.getMeshChips()) {
+            StringBuilder functionDescription = new StringBuilder("function " + System.identityHashCode(function.getChip()));
+            function.getInputVertices().forEach((pin, vertex) -> functionDescription.append(" in ").append(vertexIndices.get(vertex)));
+            function.getOutputVertices().forEach((pin, vertex) -> functionDescription.append(" out ").append(vertexIndices.get(vertex)));
+            description.add(functionDescription.toString());
+        }
+        return description;
+    }
+
+    private static List<String> describeEdges(List<MeshEdge> edges) {
+        return edges.stream()
+                .map(edge -> System.identityHashCode(edge.endpoint()) + ":" + edge.connector().getIndex())
+                .sorted()
+                .toList();
+    }
+
+    private static String recordSum(MeshSimulator simulator, SimulatedDesign simulatedDesign, GeneratedDesign design) {
+        // Record the sum and carry on every tick, which should settle at 3 + 6 without a carry
+        StringBuilder trace = new StringBuilder();
+        for (int tick = 0; tick < 10 * SETTLE_TICKS; tick++) {
+            simulator.tick();
+            trace.append(design.getOutputs(simulatedDesign, "s", 4)).append(design.getState(simulatedDesign, "cout").ordinal()).append(' ');
+        }
+        Assertions.assertTrue(trace.toString().endsWith(" 90 "));
+        return trace.toString();
+    }
+
+    private static String recordOutput(Design design, Chip toggle, Pin output) {
+        MeshSimulator simulator = new MeshSimulator();
+        SimulatedDesign simulatedDesign = simulator.initialize(design);
+
+        // Record the output on every tick while the input switches back and forth
+        StringBuilder trace = new StringBuilder();
+        ToggleTemplate template = (ToggleTemplate) toggle.getChipTemplate();
+        simulator.start();
+        try {
+            for (int tick = 0; tick < 200; tick++) {
+                if (tick % 20 == 0)
+                    template.setDrivenState(toggle, tick % 40 == 0 ? LogicState.HIGH : LogicState.LOW);
+                simulator.tick();
+                trace.append(simulatedDesign.getStateForPin(output).ordinal());
+            }
+        } finally {
+            simulator.stop();
+            template.setDrivenState(toggle, LogicState.LOW);
+        }
+        return trace.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package com.aethersim.simulation;
+
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.mesh.threading.MeshWorkerPool;
+import com.aethersim.tests.annotations.AetherSimTest;
+import com.aethersim.tests.annotations.AetherSimTests;
+import com.aethersim.tests.annotations.SimulationTests;
+import org.junit.jupiter.api.Assertions;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+@SimulationTests
+@AetherSimTests("Mesh Vertex")
+public class TestMeshVertex {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final int WORKERS = 8;
+    private static final int VERTICES = 25;
+    private static final int ROUNDS = 100;
+    private static final int MERGES_PER_WORKER = 512;
+
+    // Each vertex only has some states merged into it, so that rounds end with every possible result.  The states in
+    // each group merge to the same result in any order, so the result doesn't depend on how the workers interleave.
+    private static final LogicState[][] STATE_GROUPS = {
+            {LogicState.UNKNOWN},
+            {LogicState.LOW, LogicState.UNKNOWN},
+            {LogicState.HIGH, LogicState.UNKNOWN},
+            {LogicState.LOW, LogicState.HIGH, LogicState.UNKNOWN},
+            {LogicState.LOW, LogicState.HIGH, LogicState.CONFLICTED, LogicState.UNKNOWN}
+    };
+
+    @AetherSimTest("Concurrent State Merging")
+    void testConcurrentMerging() {
+        Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+            MeshVertex[] vertices = new MeshVertex[VERTICES];
+            for (int vertex = 0; vertex < VERTICES; vertex++)
+                vertices[vertex] = new MeshVertex();
+
+            MeshWorkerPool pool = new MeshWorkerPool(WORKERS);
+            pool.start();
+            try {
+                Random random = new Random(0);
+                for (int round = 0; round < ROUNDS; round++) {
+                    // Pick the merges each worker will make, and work out what each vertex should end up with if
+                    // they were made one at a time
+                    int[][] mergedVertices = new int[WORKERS][MERGES_PER_WORKER];
+                    LogicState[][] actualStates = new LogicState[WORKERS][MERGES_PER_WORKER];
+                    LogicState[][] suggestedStates = new LogicState[WORKERS][MERGES_PER_WORKER];
+                    LogicState[] expectedActualStates = new LogicState[VERTICES];
+                    LogicState[] expectedSuggestedStates = new LogicState[VERTICES];
+                    Arrays.fill(expectedActualStates, LogicState.UNCONNECTED);
+                    Arrays.fill(expectedSuggestedStates, LogicState.UNCONNECTED);
+                    for (int worker = 0; worker < WORKERS; worker++) {
+                        for (int merge = 0; merge < MERGES_PER_WORKER; merge++) {
+                            int vertex = random.nextInt(VERTICES);
+                            LogicState[] actualGroup = STATE_GROUPS[vertex % STATE_GROUPS.length];
+                            LogicState[] suggestedGroup = STATE_GROUPS[vertex / STATE_GROUPS.length];
+                            mergedVertices[worker][merge] = vertex;
+                            actualStates[worker][merge] = actualGroup[random.nextInt(actualGroup.length)];
+                            suggestedStates[worker][merge] = suggestedGroup[random.nextInt(suggestedGroup.length)];
+                            expectedActualStates[vertex] = merge(expectedActualStates[vertex], actualStates[worker][merge]);
+                            expectedSuggestedStates[vertex] = merge(expectedSuggestedStates[vertex], suggestedStates[worker][merge]);
+                        }
+                    }
+
+                    // Make the merges from every worker at once
+                    pool.run(worker -> {
+                        for (int merge = 0; merge < MERGES_PER_WORKER; merge++)
+                            vertices[mergedVertices[worker][merge]].mergeStates(actualStates[worker][merge], suggestedStates[worker][merge]);
+                    });
+
+                    for (int vertex = 0; vertex < VERTICES; vertex++) {
+                        // Conflicted states are sticky, so no further states should need to be merged into them
+                        if (expectedActualStates[vertex] == LogicState.CONFLICTED) {
+                            Assertions.assertFalse(vertices[vertex].compareStates(LogicState.LOW, LogicState.HIGH));
+                            Assertions.assertFalse(vertices[vertex].compareStates(LogicState.HIGH, LogicState.LOW));
+                        }
+
+                        // Rectifying should take the merged states (using the suggested state for an unconnected
+                        // actual state), and leave nothing behind for the next round
+                        vertices[vertex].rectifyStates();
+                        Assertions.assertEquals(expectedActualStates[vertex], vertices[vertex].getPropagatedActualState());
+                        Assertions.assertEquals(expectedSuggestedStates[vertex], vertices[vertex].getPropagatedSuggestedState());
+                        Assertions.assertEquals(
+                                expectedActualStates[vertex] == LogicState.UNCONNECTED ? expectedSuggestedStates[vertex] : expectedActualStates[vertex],
+                                vertices[vertex].getActualState()
+                        );
+                        Assertions.assertEquals(expectedSuggestedStates[vertex], vertices[vertex].getSuggestedState());
+                    }
+                }
+            } finally {
+                pool.stop();
+            }
+
+            // Once every vertex has been rectified, nothing should be left over from the last round
+            for (MeshVertex vertex : vertices) {
+                vertex.rectifyStates();
+                Assertions.assertEquals(LogicState.UNCONNECTED, vertex.getPropagatedActualState());
+                Assertions.assertEquals(LogicState.UNCONNECTED, vertex.getPropagatedSuggestedState());
+            }
+        });
+    }
+
+    private static LogicState merge(LogicState currentState, LogicState newState) {
+        // Unknown states are skipped, conflicts are sticky, and two different exclusive states conflict
+        if (newState == LogicState.UNKNOWN)
+            return currentState;
+        if (currentState == LogicState.CONFLICTED || newState == LogicState.CONFLICTED)
+            return LogicState.CONFLICTED;
+        if (currentState == LogicState.UNCONNECTED || currentState == newState)
+            return newState;
+        return LogicState.CONFLICTED;
+    }
+}
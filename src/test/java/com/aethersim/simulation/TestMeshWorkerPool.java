@@ -0,0 +1,210 @@
+package com.aethersim.simulation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.ToggleTemplate;
+import com.aethersim.simulation.mesh.exceptions.MeshException;
+import com.aethersim.simulation.mesh.mesh.MeshFunction;
+import com.aethersim.simulation.mesh.mesh.MeshVertex;
+import com.aethersim.simulation.mesh.mesh.generation.MeshSimulationConfig;
+import com.aethersim.simulation.mesh.threading.MeshSchedulingMode;
+import com.aethersim.simulation.mesh.threading.MeshSimulationCoordinator;
+import com.aethersim.simulation.mesh.threading.MeshWorkerPool;
+import com.aethersim.tests.annotations.AetherSimTest;
+import com.aethersim.tests.annotations.AetherSimTests;
+import com.aethersim.tests.annotations.SimulationTests;
+import com.aethersim.tests.designs.TestDesigns;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SimulationTests
+@AetherSimTests("Mesh Worker Pool")
+public class TestMeshWorkerPool {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @BeforeAll
+    static void registerTemplates() {
+        TestDesigns.registerTemplates();
+    }
+
+    @AetherSimTest("Phase Ordering")
+    void testPhaseOrdering() {
+        Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+            // Every worker should run each task exactly once, and each task should finish before the next starts
+            MeshWorkerPool pool = new MeshWorkerPool(4);
+            int[] counts = new int[pool.getWorkerCount()];
+            pool.start();
+            try {
+                for (int run = 1; run <= 100; run++) {
+                    int expected = run - 1;
+                    pool.run(worker -> {
+                        for (int count : counts)
+                            Assertions.assertTrue(count == expected || count == expected + 1);
+                        counts[worker]++;
+                    });
+                    for (int count : counts)
+                        Assertions.assertEquals(run, count);
+                }
+            } finally {
+                pool.stop();
+            }
+        });
+    }
+
+    @AetherSimTest("Stop and Start")
+    void testStopAndStart() {
+        Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+            // A stopped pool releases its workers, and a new pool can take over in its place
+            AtomicInteger total = new AtomicInteger();
+            for (int cycle = 0; cycle < 3; cycle++) {
+                MeshWorkerPool pool = new MeshWorkerPool(3);
+                pool.start();
+                pool.run(worker -> total.incrementAndGet());
+                pool.stop();
+            }
+            Assertions.assertEquals(9, total.get());
+        });
+    }
+
+    @AetherSimTest("Worker Failures")
+    void testWorkerFailures() {
+        Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+            // A failing worker should surface as an exception on the coordinating thread, and the pool should keep
+            // working afterwards
+            MeshWorkerPool pool = new MeshWorkerPool(4);
+            AtomicInteger total = new AtomicInteger();
+            pool.start();
+            try {
+                MeshException exception = Assertions.assertThrows(MeshException.class, () -> pool.run(worker -> {
+                    if (worker == 1)
+                        throw new IllegalStateException("failure");
+                }));
+                Assertions.assertInstanceOf(IllegalStateException.class, exception.getCause());
+                pool.run(worker -> total.incrementAndGet());
+                Assertions.assertEquals(4, total.get());
+            } finally {
+                pool.stop();
+            }
+        });
+    }
+
+    @AetherSimTest("Propagation Failures")
+    void testPropagationFailures() {
+        for (MeshSchedulingMode schedulingMode : new MeshSchedulingMode[] {MeshSchedulingMode.FULL, MeshSchedulingMode.EVENT_DRIVEN}) {
+            Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+                // Drive a vertex that fails the first time a state is propagated into it
+                Design design = new Design();
+                Chip toggle = new Chip();
+                toggle.setChipTemplate(ChipTemplate.get("toggle"));
+                design.addChip(toggle);
+                ((ToggleTemplate) toggle.getChipTemplate()).setDrivenState(toggle, LogicState.HIGH);
+                AtomicInteger failures = new AtomicInteger();
+                MeshVertex vertex = new MeshVertex() {
+                    @Override
+                    public void mergeStates(LogicState actualState, LogicState suggestedState) {
+                        if (failures.getAndIncrement() == 0)
+                            throw new IllegalStateException("failure");
+                        super.mergeStates(actualState, suggestedState);
+                    }
+                };
+                MeshFunction<?> function = new MeshFunction<>(toggle, (ToggleTemplate) toggle.getChipTemplate());
+                function.getOutputVertices().put(ToggleTemplate.OUTPUT, vertex);
+                MeshSimulationConfig simulationConfig = new MeshSimulationConfig();
+                simulationConfig.getMeshVertices().add(vertex);
+                simulationConfig.getMeshChips().add(function);
+
+                // The failure should surface from the tick (with several workers, so the others are left waiting for
+                // it to finish), and the next tick should recover from it
+                MeshSimulationCoordinator coordinator = new MeshSimulationCoordinator(4);
+                coordinator.setSchedulingMode(schedulingMode);
+                coordinator.configure(simulationConfig);
+                coordinator.start();
+                try {
+                    Assertions.assertThrows(MeshException.class, coordinator::tick);
+                    coordinator.tick();
+                    Assertions.assertEquals(LogicState.HIGH, vertex.getActualState());
+                } finally {
+                    coordinator.stop();
+                }
+            });
+        }
+    }
+
+    @AetherSimTest("Partitioned Scheduling")
+    void testPartitionedScheduling() {
+        Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+            // Drive separate vertices from separate toggles, recording any work done outside the worker that owns it
+            ConcurrentLinkedQueue<String> misplacedWork = new ConcurrentLinkedQueue<>();
+            AtomicInteger evaluations = new AtomicInteger();
+            Design design = new Design();
+            MeshSimulationConfig simulationConfig = new MeshSimulationConfig();
+            for (int index = 0; index < 8; index++) {
+                Chip toggle = new Chip();
+                toggle.setChipTemplate(ChipTemplate.get("toggle"));
+                design.addChip(toggle);
+                MeshVertex vertex = new MeshVertex() {
+                    @Override
+                    public void mergeStates(LogicState actualState, LogicState suggestedState) {
+                        checkWorker("merge", getPartition(), misplacedWork);
+                        super.mergeStates(actualState, suggestedState);
+                    }
+
+                    @Override
+                    public void rectifyStates() {
+                        checkWorker("rectify", getPartition(), misplacedWork);
+                        super.rectifyStates();
+                    }
+                };
+                MeshFunction<?> function = new MeshFunction<>(toggle, (ToggleTemplate) toggle.getChipTemplate()) {
+                    @Override
+                    public boolean evaluate() {
+                        checkWorker("evaluate", getPartition(), misplacedWork);
+                        evaluations.incrementAndGet();
+                        return super.evaluate();
+                    }
+                };
+                function.getOutputVertices().put(ToggleTemplate.OUTPUT, vertex);
+                simulationConfig.getMeshVertices().add(vertex);
+                simulationConfig.getMeshChips().add(function);
+            }
+
+            // Event-driven ticks should evaluate functions, merge states, and rectify vertices on the worker that owns
+            // their partition, since stealing is disabled by default
+            MeshSimulationCoordinator coordinator = new MeshSimulationCoordinator(4);
+            coordinator.setSchedulingMode(MeshSchedulingMode.EVENT_DRIVEN);
+            coordinator.configure(simulationConfig);
+            Assertions.assertFalse(coordinator.isStealingWork());
+            Set<Integer> partitions = new HashSet<>();
+            for (MeshFunction<?> function : simulationConfig.getMeshChips())
+                partitions.add(function.getPartition());
+            Assertions.assertTrue(partitions.size() > 1);
+            coordinator.start();
+            try {
+                for (int tick = 0; tick < 4; tick++) {
+                    for (MeshFunction<?> function : simulationConfig.getMeshChips())
+                        ((ToggleTemplate) function.getChip().getChipTemplate()).setDrivenState(function.getChip(), tick % 2 == 0 ? LogicState.HIGH : LogicState.LOW);
+                    coordinator.tick();
+                }
+            } finally {
+                coordinator.stop();
+            }
+            Assertions.assertEquals(32, evaluations.get());
+            Assertions.assertEquals(LogicState.LOW, simulationConfig.getMeshVertices().iterator().next().getActualState());
+            Assertions.assertTrue(misplacedWork.isEmpty(), () -> String.join(", ", misplacedWork));
+        });
+    }
+
+    private static void checkWorker(String work, int partition, ConcurrentLinkedQueue<String> misplacedWork) {
+        String expectedWorker = "Simulation-Worker-" + partition;
+        if (!expectedWorker.equals(Thread.currentThread().getName()))
+            misplacedWork.add(work + " for partition " + partition + " on " + Thread.currentThread().getName());
+    }
+}
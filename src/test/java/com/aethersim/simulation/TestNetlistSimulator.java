@@ -0,0 +1,404 @@
+package com.aethersim.simulation;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.ChipPin;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.Point;
+import com.aethersim.designs.templates.ChipStateTable;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.SimulatedTemplate;
+import com.aethersim.designs.templates.ToggleTemplate;
+import com.aethersim.designs.wires.WireSegment;
+import com.aethersim.projects.io.data.DataContext;
+import com.aethersim.projects.io.data.DataMap;
+import com.aethersim.simulation.mesh.MeshSimulator;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerationOptions;
+import com.aethersim.simulation.mesh.mesh.generation.MeshGenerator;
+import com.aethersim.simulation.netlist.BatchNetlist;
+import com.aethersim.simulation.netlist.Netlist;
+import com.aethersim.simulation.netlist.NetlistCompiler;
+import com.aethersim.simulation.netlist.NetlistSimulatedDesign;
+import com.aethersim.simulation.netlist.NetlistSimulator;
+import com.aethersim.tests.annotations.AetherSimTest;
+import com.aethersim.tests.annotations.AetherSimTests;
+import com.aethersim.tests.annotations.SimulationTests;
+import com.aethersim.tests.designs.TestDesigns;
+import com.aethersim.tests.designs.generators.DesignGenerator;
+import com.aethersim.tests.designs.generators.GeneratedDesign;
+import com.aethersim.utils.Direction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@SimulationTests
+@AetherSimTests("Netlist Simulator")
+public class TestNetlistSimulator {
+
+    private static final int SETTLE_TICKS = 20;
+    private static final int INITIALIZATIONS = 200;
+
+    @BeforeAll
+    static void registerTemplates() {
+        TestDesigns.registerTemplates();
+    }
+
+    @AetherSimTest("CMOS Inverter")
+    void testInverter() {
+        Pin output = new Pin();
+        Chip toggle = new Chip();
+        Design design = TestDesigns.createInverterChain(toggle, output, 1);
+
+        NetlistSimulator simulator = new NetlistSimulator();
+        SimulatedDesign simulatedDesign = simulator.initialize(design);
+
+        // The toggle starts low, so the output should be pulled high
+        TestDesigns.tick(simulator, SETTLE_TICKS);
+        Assertions.assertEquals(LogicState.HIGH, simulatedDesign.getStateForPin(output));
+
+        // Once the toggle is switched high, the output should switch low
+        ((ToggleTemplate) toggle.getChipTemplate()).setDrivenState(toggle, LogicState.HIGH);
+        TestDesigns.tick(simulator, SETTLE_TICKS);
+        Assertions.assertEquals(LogicState.LOW, simulatedDesign.getStateForPin(output));
+    }
+
+    @AetherSimTest("Agreement with Mesh Simulator")
+    void testMeshAgreement() {
+        Pin output = new Pin();
+        Chip toggle = new Chip();
+        Design design = TestDesigns.createInverterChain(toggle, output, 1);
+
+        NetlistSimulator netlistSimulator = new NetlistSimulator();
+        SimulatedDesign netlistDesign = netlistSimulator.initialize(design);
+        MeshSimulator meshSimulator = new MeshSimulator();
+        SimulatedDesign meshDesign = meshSimulator.initialize(design);
+
+        // Both simulators should settle on the same state for every toggle value
+        meshSimulator.start();
+        try {
+            for (LogicState state : new LogicState[] {LogicState.LOW, LogicState.HIGH, LogicState.LOW}) {
+                ((ToggleTemplate) toggle.getChipTemplate()).setDrivenState(toggle, state);
+                TestDesigns.tick(netlistSimulator, SETTLE_TICKS);
+                TestDesigns.tick(meshSimulator, SETTLE_TICKS);
+                Assertions.assertEquals(meshDesign.getStateForPin(output), netlistDesign.getStateForPin(output));
+            }
+        } finally {
+            meshSimulator.stop();
+        }
+    }
+
+    @AetherSimTest("Concurrent Initialization")
+    void testConcurrentInitialization() throws InterruptedException {
+        Pin output = new Pin();
+        Chip toggle = new Chip();
+        Design design = TestDesigns.createInverterChain(toggle, output, 8);
+
+        // Tick the simulator on another thread (as the tick timer does) while designs are initialized on this one,
+        // which should never expose a missing or partially compiled netlist to the ticking thread
+        NetlistSimulator simulator = new NetlistSimulator();
+        AtomicBoolean ticking = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread ticker = new Thread(() -> {
+            try {
+                while (ticking.get()) {
+                    simulator.tick();
+                    simulator.isStable();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "Netlist-Ticker");
+        ticker.start();
+        try {
+            SimulatedDesign simulatedDesign = null;
+            for (int initialization = 0; initialization < INITIALIZATIONS && failure.get() == null; initialization++)
+                simulatedDesign = simulator.initialize(design);
+
+            // Once initialization stops, the last netlist should settle as usual (an even number of inverters passes
+            // the toggle's low state through)
+            Thread.sleep(100);
+            Assertions.assertEquals(LogicState.LOW, simulatedDesign.getStateForPin(output));
+        } finally {
+            ticking.set(false);
+            ticker.join();
+        }
+        Assertions.assertNull(failure.get());
+    }
+
+    @AetherSimTest("Direct Compilation")
+    void testDirectCompilation() {
+        // Compiling a design straight from its stamped indices should produce the same netlist as compiling its
+        // generated mesh, both with connectors and with collapsed functions
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(4));
+        for (MeshGenerationOptions options : new MeshGenerationOptions[] {MeshGenerationOptions.switchLevel(), new MeshGenerationOptions()}) {
+            Netlist directNetlist = NetlistCompiler.compile(design.getDesign(), options);
+            Netlist meshNetlist = NetlistCompiler.compile(MeshGenerator.generate(design.getDesign(), 1, options));
+            Assertions.assertEquals(meshNetlist.getVertexCount(), directNetlist.getVertexCount());
+            Assertions.assertEquals(meshNetlist.getEdgeCount(), directNetlist.getEdgeCount());
+            Assertions.assertEquals(meshNetlist.getConnectorCount(), directNetlist.getConnectorCount());
+            Assertions.assertEquals(meshNetlist.getFunctionCount(), directNetlist.getFunctionCount());
+
+            // Both netlists should number their vertices the same way, and so agree on every vertex on every tick
+            for (int[] operand : new int[][] {{0, 0}, {7, 9}, {15, 15}}) {
+                design.setInputs("a", 4, operand[0]);
+                design.setInputs("b", 4, operand[1]);
+                for (int tick = 0; tick < 3 * SETTLE_TICKS; tick++) {
+                    directNetlist.tick();
+                    meshNetlist.tick();
+                    for (int vertex = 0; vertex < meshNetlist.getVertexCount(); vertex++) {
+                        Assertions.assertEquals(meshNetlist.getActualState(vertex), directNetlist.getActualState(vertex));
+                        Assertions.assertEquals(meshNetlist.getSuggestedState(vertex), directNetlist.getSuggestedState(vertex));
+                    }
+                }
+                Assertions.assertEquals(
+                        design.getOutputs(meshNetlist.getTopLevelSimulatedDesign(), "s", 4),
+                        design.getOutputs(directNetlist.getTopLevelSimulatedDesign(), "s", 4)
+                );
+            }
+        }
+    }
+
+    @AetherSimTest("Bit-Sliced Batch")
+    void testBatch() {
+        Pin output = new Pin();
+        Chip toggle = new Chip();
+        Design design = TestDesigns.createInverterChain(toggle, output, 3);
+
+        NetlistSimulator simulator = new NetlistSimulator();
+        NetlistSimulatedDesign simulatedDesign = (NetlistSimulatedDesign) simulator.initialize(design);
+        BatchNetlist batch = new BatchNetlist(simulator.getNetlist());
+        int outputVertex = simulatedDesign.getVertexForPin(output);
+
+        // Drive every third lane high and all others low, and check that every lane settles independently
+        for (int lane = 0; lane < BatchNetlist.LANES; lane++)
+            batch.setDrivenState(toggle, lane, lane % 3 == 0 ? LogicState.HIGH : LogicState.LOW);
+        for (int tick = 0; tick < SETTLE_TICKS; tick++)
+            batch.tick();
+        for (int lane = 0; lane < BatchNetlist.LANES; lane++)
+            Assertions.assertEquals(lane % 3 == 0 ? LogicState.LOW : LogicState.HIGH, batch.getActualState(outputVertex, lane));
+
+        // Flip a single lane, which should not affect any others
+        batch.setDrivenState(toggle, 1, LogicState.HIGH);
+        for (int tick = 0; tick < SETTLE_TICKS; tick++)
+            batch.tick();
+        Assertions.assertEquals(LogicState.LOW, batch.getActualState(outputVertex, 1));
+        Assertions.assertEquals(LogicState.HIGH, batch.getActualState(outputVertex, 2));
+    }
+
+    @AetherSimTest("Bit-Sliced Switch Networks")
+    void testBatchSwitchNetworks() {
+        // Collapsed switch networks are simulated in every lane at once, so each lane should still add its own
+        // operands the same way the scalar netlist does
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(4));
+        NetlistSimulator simulator = new NetlistSimulator();
+        NetlistSimulatedDesign simulatedDesign = (NetlistSimulatedDesign) simulator.initialize(design.getDesign());
+        NetlistSimulatedDesign circuitDesign = (NetlistSimulatedDesign) simulatedDesign.getSimulatedChipDesign(design.getCircuit());
+        BatchNetlist batch = new BatchNetlist(simulator.getNetlist());
+
+        for (int lane = 0; lane < BatchNetlist.LANES; lane++) {
+            for (int bit = 0; bit < 4; bit++) {
+                batch.setDrivenState(design.getDriver("a" + bit), lane, ((lane >>> bit) & 1) != 0 ? LogicState.HIGH : LogicState.LOW);
+                batch.setDrivenState(design.getDriver("b" + bit), lane, (((lane * 5 + 3) >>> bit) & 1) != 0 ? LogicState.HIGH : LogicState.LOW);
+            }
+        }
+        for (int tick = 0; tick < 3 * SETTLE_TICKS; tick++)
+            batch.tick();
+
+        for (int lane = 0; lane < BatchNetlist.LANES; lane++) {
+            int a = lane & 15, b = (lane * 5 + 3) & 15;
+            design.setInputs("a", 4, a);
+            design.setInputs("b", 4, b);
+            TestDesigns.tick(simulator, 3 * SETTLE_TICKS);
+            Assertions.assertEquals(a + b, design.getOutputs(simulatedDesign, "s", 4) | (design.getState(simulatedDesign, "cout") == LogicState.HIGH ? 16 : 0));
+            for (String pinId : new String[] {"s0", "s1", "s2", "s3", "cout"}) {
+                int vertex = circuitDesign.getVertexForPin(design.getPin(pinId));
+                Assertions.assertEquals(design.getState(simulatedDesign, pinId), batch.getActualState(vertex, lane));
+            }
+        }
+    }
+
+    @AetherSimTest("Switch-Level Batch Delays")
+    void testBatchSwitchingDelays() {
+        // At the switch level, connectors take varying delays to switch.  Each lane should still step through exactly
+        // the same states, tick by tick, as a scalar netlist given the same inputs.
+        DesignGenerator generator = new DesignGenerator(2);
+        GeneratedDesign design = generator.generate(generator.rippleCarryAdder(2));
+        String[] inputs = {"a0", "a1", "b0", "b1", "cin"};
+        NetlistSimulator batchSimulator = new NetlistSimulator(MeshGenerationOptions.switchLevel());
+        batchSimulator.initialize(design.getDesign());
+        BatchNetlist batch = new BatchNetlist(batchSimulator.getNetlist());
+        Assertions.assertTrue(batchSimulator.getNetlist().getConnectorCount() > 0);
+
+        // Apply every combination of inputs, once in each half of the lanes
+        for (int lane = 0; lane < BatchNetlist.LANES; lane++)
+            for (int input = 0; input < inputs.length; input++)
+                batch.setDrivenState(design.getDriver(inputs[input]), lane, ((lane >>> input) & 1) != 0 ? LogicState.HIGH : LogicState.LOW);
+        int vertexCount = batchSimulator.getNetlist().getVertexCount();
+        int ticks = 3 * SETTLE_TICKS;
+        LogicState[][][] laneStates = new LogicState[ticks][vertexCount][BatchNetlist.LANES];
+        for (int tick = 0; tick < ticks; tick++) {
+            batch.tick();
+            for (int vertex = 0; vertex < vertexCount; vertex++)
+                for (int lane = 0; lane < BatchNetlist.LANES; lane++)
+                    laneStates[tick][vertex][lane] = batch.getActualState(vertex, lane);
+        }
+        Assertions.assertFalse(batch.isSwitching());
+
+        for (int lane = 0; lane < 1 << inputs.length; lane++) {
+            for (int input = 0; input < inputs.length; input++)
+                design.setInput(inputs[input], ((lane >>> input) & 1) != 0 ? LogicState.HIGH : LogicState.LOW);
+            NetlistSimulator simulator = new NetlistSimulator(MeshGenerationOptions.switchLevel());
+            simulator.initialize(design.getDesign());
+            Netlist netlist = simulator.getNetlist();
+            for (int tick = 0; tick < ticks; tick++) {
+                netlist.tick();
+                for (int vertex = 0; vertex < vertexCount; vertex++) {
+                    Assertions.assertEquals(netlist.getActualState(vertex), laneStates[tick][vertex][lane], "lane " + lane + ", tick " + tick);
+                    Assertions.assertEquals(netlist.getActualState(vertex), laneStates[tick][vertex][lane + (1 << inputs.length)], "lane " + lane + ", tick " + tick);
+                }
+            }
+        }
+    }
+
+    @AetherSimTest("Per-Lane Chip States")
+    void testBatchChipStates() {
+        // Drive a chip that flips its output on each rising edge of its input, so its output depends on the state it
+        // remembers between ticks
+        Chip toggle = new Chip();
+        toggle.setChipTemplate(ChipTemplate.get("toggle"));
+        toggle.setLocation(new Point(2, 2));
+        Chip flipFlop = new Chip();
+        flipFlop.setChipTemplate(ToggleFlipFlopTemplate.TEMPLATE);
+        flipFlop.setLocation(new Point(10, 2));
+        Pin output = new Pin();
+        output.setId("q");
+        output.setName("Q");
+        output.setDesignLocation(new Point(20, 4));
+        output.setDesignOrientation(Direction.LEFT);
+
+        Design design = new Design();
+        design.setWidth(24);
+        design.setHeight(8);
+        design.addChips(toggle, flipFlop);
+        design.addPin(output);
+        design.addWireSegment(new WireSegment(design, new ChipPin(toggle, ToggleTemplate.OUTPUT), new ChipPin(flipFlop, ToggleFlipFlopTemplate.INPUT)));
+        design.addWireSegment(new WireSegment(design, new ChipPin(flipFlop, ToggleFlipFlopTemplate.OUTPUT), new ChipPin(null, output)));
+
+        NetlistSimulator simulator = new NetlistSimulator();
+        NetlistSimulatedDesign simulatedDesign = (NetlistSimulatedDesign) simulator.initialize(design);
+        BatchNetlist batch = new BatchNetlist(simulator.getNetlist());
+        int outputVertex = simulatedDesign.getVertexForPin(output);
+
+        // Pulse the input of each lane a different number of times, so that only lanes with an odd number of pulses
+        // end up high
+        for (int pulse = 0; pulse < 3; pulse++) {
+            for (int lane = 0; lane < BatchNetlist.LANES; lane++)
+                batch.setDrivenState(toggle, lane, pulse < lane % 4 ? LogicState.HIGH : LogicState.LOW);
+            for (int tick = 0; tick < SETTLE_TICKS; tick++)
+                batch.tick();
+            for (int lane = 0; lane < BatchNetlist.LANES; lane++)
+                batch.setDrivenState(toggle, lane, LogicState.LOW);
+            for (int tick = 0; tick < SETTLE_TICKS; tick++)
+                batch.tick();
+        }
+        for (int lane = 0; lane < BatchNetlist.LANES; lane++)
+            Assertions.assertEquals(lane % 2 == 1 ? LogicState.HIGH : LogicState.LOW, batch.getActualState(outputVertex, lane));
+
+        // The chip's own state should be untouched by the batch, and resetting the batch should start every lane from
+        // it again
+        Assertions.assertEquals(LogicState.LOW, ToggleFlipFlopTemplate.TEMPLATE.getState(flipFlop).output);
+        batch.reset();
+        for (int tick = 0; tick < SETTLE_TICKS; tick++)
+            batch.tick();
+        for (int lane = 0; lane < BatchNetlist.LANES; lane++)
+            Assertions.assertEquals(LogicState.LOW, batch.getActualState(outputVertex, lane));
+    }
+
+    private static class ToggleFlipFlopTemplate extends SimulatedTemplate<ToggleFlipFlopState> {
+
+        private static final Pin INPUT = new Pin();
+        private static final Pin OUTPUT = new Pin();
+        private static final ToggleFlipFlopTemplate TEMPLATE = new ToggleFlipFlopTemplate();
+
+        private final ChipStateTable<ToggleFlipFlopState> chipStates = new ChipStateTable<>();
+
+        private ToggleFlipFlopTemplate() {
+            INPUT.setId("t");
+            INPUT.setName("T");
+            INPUT.setChipLocation(new Point(0, 2));
+            INPUT.setChipOrientation(Direction.LEFT);
+            OUTPUT.setId("q");
+            OUTPUT.setName("Q");
+            OUTPUT.setChipLocation(new Point(4, 2));
+            OUTPUT.setChipOrientation(Direction.RIGHT);
+
+            setId("test_toggle_flip_flop");
+            setName("Toggle Flip-Flop");
+            setWidth(4);
+            setHeight(4);
+            setPins(Set.of(INPUT, OUTPUT));
+            getInputPins().add(INPUT);
+            getOutputPins().add(OUTPUT);
+        }
+
+        @Override
+        public void initialize(Chip chip) {
+            chipStates.put(chip, new ToggleFlipFlopState());
+        }
+
+        @Override
+        public void dispose(Chip chip) {
+            chipStates.remove(chip);
+        }
+
+        @Override
+        public ToggleFlipFlopState getState(Chip chip) {
+            return chipStates.get(chip);
+        }
+
+        @Override
+        public void simulate(ToggleFlipFlopState state) {
+            LogicState input = state.getDrivenInputState(0);
+            if (input == LogicState.HIGH && state.previousInput != LogicState.HIGH)
+                state.output = state.output == LogicState.HIGH ? LogicState.LOW : LogicState.HIGH;
+            state.previousInput = input;
+            state.setDrivenOutputState(0, state.output);
+        }
+    }
+
+    private static class ToggleFlipFlopState extends ChipState {
+
+        private LogicState previousInput = LogicState.LOW;
+        private LogicState output = LogicState.LOW;
+
+        @Override
+        public int getSnapshotSize() {
+            return super.getSnapshotSize() + 2;
+        }
+
+        @Override
+        public void writeSnapshot(ByteBuffer buffer) {
+            super.writeSnapshot(buffer);
+            buffer.put((byte) previousInput.ordinal()).put((byte) output.ordinal());
+        }
+
+        @Override
+        public void readSnapshot(ByteBuffer buffer) {
+            super.readSnapshot(buffer);
+            previousInput = LogicState.values()[buffer.get()];
+            output = LogicState.values()[buffer.get()];
+        }
+
+        @Override
+        public void serialize(DataMap data, DataContext context) { /* do nothing */ }
+
+        @Override
+        public void deserialize(DataMap data, DataContext context) { /* do nothing */ }
+    }
+}
@@ -4,6 +4,8 @@ import com.aethersim.designs.Design;
 import com.aethersim.simulation.SimulatedDesign;
 import com.aethersim.simulation.Simulation;
 import com.aethersim.simulation.Simulator;
+import com.aethersim.simulation.timing.SimulationTickTimer;
+import com.aethersim.simulation.timing.SimulationTimingMode;
 import com.aethersim.tests.annotations.AetherSimTest;
 import com.aethersim.tests.annotations.AetherSimTests;
 import com.aethersim.tests.annotations.SimulationTests;
@@ -14,6 +16,7 @@ import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @SimulationTests
 @AetherSimTests("Timing and Synchronization")
@@ -71,4 +74,64 @@ public class TestSimulation {
         }
         Assertions.assertEquals(1, tickCount[0]);
     }
+
+    @AetherSimTest("Timing Modes")
+    @Timeout(value = 10)
+    void testTimingModes() throws InterruptedException {
+        // A 10 ms cycle would limit a single tick per cycle to 100 ticks per second, so both of these modes should
+        // comfortably exceed that
+        Assertions.assertTrue(measureTickRate(SimulationTimingMode.UNTHROTTLED, 1) > 1000);
+        Assertions.assertTrue(measureTickRate(SimulationTimingMode.BATCHED, 50) > 1000);
+
+        // Fixed-rate ticks should stay near the target rate
+        double fixedRate = measureTickRate(SimulationTimingMode.FIXED_RATE, 1);
+        Assertions.assertTrue(fixedRate > 50 && fixedRate < 150, "Fixed-rate timer ran at " + fixedRate + " ticks/sec.");
+    }
+
+    @AetherSimTest("Idle Timer")
+    @Timeout(value = 10)
+    void testIdleTimer() throws InterruptedException {
+        // Without a simulator to tick, an unthrottled timer should park between cycles rather than spin, so it only
+        // gets through a few hundred cycles in half a second
+        SimulationTickTimer timer = new SimulationTickTimer(SimulationTimingMode.UNTHROTTLED, TimeUnit.MILLISECONDS.toNanos(10));
+        timer.start();
+        try {
+            Thread.sleep(500);
+            Assertions.assertTrue(timer.getTickCount() < 1000, "Idle timer ran " + timer.getTickCount() + " cycles.");
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private static double measureTickRate(SimulationTimingMode timingMode, int ticksPerCycle) throws InterruptedException {
+        SimulationTickTimer timer = new SimulationTickTimer(timingMode, TimeUnit.MILLISECONDS.toNanos(10));
+        timer.setTicksPerCycle(ticksPerCycle);
+        timer.setSimulator(new Simulator() {
+            @Override
+            public SimulatedDesign initialize(Design design) {
+                return SimulatedDesign.none();
+            }
+
+            @Override
+            public void start() {}
+
+            @Override
+            public void stop() {}
+
+            @Override
+            public void tick() {}
+
+            @Override
+            public void reset() {}
+        });
+
+        // Let the timer run long enough to measure a few windows
+        timer.start();
+        try {
+            Thread.sleep(1000);
+            return timer.getAchievedTickRate();
+        } finally {
+            timer.stop();
+        }
+    }
 }
@@ -0,0 +1,90 @@
+package com.aethersim.simulation.mesh.mesh.generation;
+
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.simulation.LogicState;
+import com.aethersim.tests.annotations.AetherSimTest;
+import com.aethersim.tests.annotations.AetherSimTests;
+import com.aethersim.tests.annotations.SimulationTests;
+import com.aethersim.tests.designs.TestDesigns;
+import com.aethersim.tests.designs.generators.DesignGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+
+import java.util.HashMap;
+
+@SimulationTests
+@AetherSimTests("Mesh Truth Tables")
+public class TestMeshTruthTable {
+
+    @BeforeAll
+    static void registerTemplates() {
+        TestDesigns.registerTemplates();
+    }
+
+    @AetherSimTest("NAND Truth Table")
+    void testNand() {
+        ChipTemplate nandTemplate = new DesignGenerator().nand();
+        MeshTemplate nand = compile(nandTemplate);
+        MeshTruthTable truthTable = MeshTruthTable.get(nand);
+        Assertions.assertNotNull(truthTable);
+
+        // Every pin but the output is read by the transistors, so the power pins are inputs alongside A and B
+        Assertions.assertEquals(4, truthTable.getInputs().length);
+        Assertions.assertEquals(1, truthTable.getOutputs().length);
+        Assertions.assertEquals(getPinVertex(nandTemplate, nand, "y"), truthTable.getOutputs()[0]);
+        Assertions.assertTrue(truthTable.getSettleTicks() > 0);
+
+        // With the power pins at their usual levels, the output is only low when both inputs are high
+        int[] bits = new int[4];
+        for (int input = 0; input < bits.length; input++)
+            bits[input] = 1 << input;
+        int a = findInput(nandTemplate, nand, truthTable, "a"), b = findInput(nandTemplate, nand, truthTable, "b");
+        int powered = bits[findInput(nandTemplate, nand, truthTable, DesignGenerator.VDD)];
+        for (int combination = 0; combination < 4; combination++) {
+            boolean aHigh = (combination & 1) != 0, bHigh = (combination & 2) != 0;
+            int tableCombination = powered | (aHigh ? bits[a] : 0) | (bHigh ? bits[b] : 0);
+            LogicState expectedState = aHigh && bHigh ? LogicState.LOW : LogicState.HIGH;
+            Assertions.assertEquals(expectedState, truthTable.getDrivenState(tableCombination, 0));
+        }
+    }
+
+    @AetherSimTest("Sequential Templates")
+    void testSequentialTemplates() {
+        // Latches hold their state through a feedback loop, and ring oscillators never settle, so neither can be
+        // captured in a table
+        DesignGenerator generator = new DesignGenerator();
+        Assertions.assertNull(MeshTruthTable.get(compile(generator.latch())));
+        Assertions.assertNull(MeshTruthTable.get(compile(generator.ringOscillator(3))));
+    }
+
+    @AetherSimTest("Shared Truth Tables")
+    void testSharedTables() {
+        // Separately created templates with the same content should be characterized once, and share the table
+        MeshTemplate first = compile(new DesignGenerator().nand());
+        MeshTemplate second = compile(new DesignGenerator().nand());
+        Assertions.assertEquals(first.getContentHash(), second.getContentHash());
+        Assertions.assertSame(MeshTruthTable.get(first), MeshTruthTable.get(second));
+    }
+
+    private static MeshTemplate compile(ChipTemplate chipTemplate) {
+        // Compile the template at switch level, so the table is built from its transistors
+        return MeshTemplate.compile(chipTemplate, new HashMap<>(), MeshGenerationOptions.switchLevel());
+    }
+
+    private static int getPinVertex(ChipTemplate chipTemplate, MeshTemplate meshTemplate, String pinId) {
+        return chipTemplate.getPins().stream()
+                .filter(pin -> pinId.equals(pin.getId()))
+                .mapToInt(meshTemplate::getPinVertex)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static int findInput(ChipTemplate chipTemplate, MeshTemplate meshTemplate, MeshTruthTable truthTable, String pinId) {
+        int vertex = getPinVertex(chipTemplate, meshTemplate, pinId);
+        for (int input = 0; input < truthTable.getInputs().length; input++) {
+            if (truthTable.getInputs()[input] == vertex)
+                return input;
+        }
+        throw new AssertionError("Truth table has no input on pin '" + pinId + "'.");
+    }
+}
@@ -0,0 +1,112 @@
+package com.aethersim.tests.designs;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.ChipPin;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.Point;
+import com.aethersim.designs.exceptions.DesignException;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.ConstantTemplate;
+import com.aethersim.designs.templates.ToggleTemplate;
+import com.aethersim.designs.templates.TransistorTemplate;
+import com.aethersim.designs.wires.WireSegment;
+import com.aethersim.simulation.Simulator;
+import com.aethersim.utils.Direction;
+
+public final class TestDesigns {
+
+    // Don't allow instances of this class
+    private TestDesigns() {}
+
+    public static void registerTemplates() {
+        // Native templates can only be registered once per JVM, so only register them if they're missing
+        try {
+            ChipTemplate.get("toggle");
+        } catch (DesignException e) {
+            ChipTemplate.registerNative();
+        }
+    }
+
+    public static void tick(Simulator simulator, int ticks) {
+        for (int tick = 0; tick < ticks; tick++)
+            simulator.tick();
+    }
+
+    public static Design createInverterChain(Chip toggle, Pin output, int stages) {
+        Design design = new Design();
+
+        // Drive the chain from a toggle
+        toggle.setChipTemplate(ChipTemplate.get("toggle"));
+        toggle.setLocation(new Point(2, 14));
+        design.addChip(toggle);
+
+        return createInverterChain(design, new ChipPin(toggle, ToggleTemplate.OUTPUT), output, stages);
+    }
+
+    public static Design createInverterChain(Pin input, Pin output, int stages) {
+        Design design = new Design();
+
+        // Drive the chain from a top-level pin on the left side of the design
+        input.setId("a");
+        input.setName("A");
+        input.setDesignLocation(new Point(4, 16));
+        input.setDesignOrientation(Direction.RIGHT);
+        design.addPin(input);
+
+        return createInverterChain(design, new ChipPin(null, input), output, stages);
+    }
+
+    private static Design createInverterChain(Design design, ChipPin input, Pin output, int stages) {
+        design.setWidth(26 + 12 * stages);
+        design.setHeight(32);
+
+        // Create the power rails shared by all stages
+        Chip high = createChip("driven_high", new Point(2, 2));
+        Chip low = createChip("driven_low", new Point(2, 26));
+        design.addChips(high, low);
+
+        // Create the output pin on the right side of the design
+        output.setId("y");
+        output.setName("Y");
+        output.setDesignLocation(new Point(design.getWidth() - 8, 14));
+        output.setDesignOrientation(Direction.LEFT);
+        design.addPin(output);
+
+        // Create each stage from a complementary transistor pair, where the input of each stage is the output of
+        // the previous one
+        for (int stage = 0; stage < stages; stage++) {
+            Chip pnp = createChip("transistor_pnp", new Point(14 + 12 * stage, 4));
+            Chip npn = createChip("transistor_npn", new Point(14 + 12 * stage, 22));
+            design.addChips(pnp, npn);
+
+            // Wire the pull-up network (PNP conducts from emitter to collector)
+            connect(design, new ChipPin(high, ConstantTemplate.OUTPUT), new ChipPin(pnp, TransistorTemplate.PNP_EMITTER));
+            connect(design, input, new ChipPin(pnp, TransistorTemplate.PNP_BASE));
+
+            // Wire the pull-down network (NPN conducts from collector to emitter)
+            connect(design, new ChipPin(low, ConstantTemplate.OUTPUT), new ChipPin(npn, TransistorTemplate.NPN_COLLECTOR));
+            connect(design, input, new ChipPin(npn, TransistorTemplate.NPN_BASE));
+
+            // Join the outputs of both networks
+            connect(design, new ChipPin(pnp, TransistorTemplate.PNP_COLLECTOR), new ChipPin(npn, TransistorTemplate.NPN_EMITTER));
+            input = new ChipPin(pnp, TransistorTemplate.PNP_COLLECTOR);
+        }
+
+        // Connect the last stage to the output pin
+        connect(design, input, new ChipPin(null, output));
+
+        return design;
+    }
+
+    private static Chip createChip(String templateId, Point location) {
+        Chip chip = new Chip();
+        chip.setChipTemplate(ChipTemplate.get(templateId));
+        chip.setLocation(location);
+        return chip;
+    }
+
+    private static void connect(Design design, ChipPin start, ChipPin end) {
+        design.addWireSegment(new WireSegment(design, start, end));
+    }
+}
@@ -0,0 +1,507 @@
+package com.aethersim.tests.designs.generators;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.exceptions.DesignException;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.ConstantTemplate;
+import com.aethersim.designs.templates.DesignedTemplate;
+import com.aethersim.designs.templates.ToggleTemplate;
+import com.aethersim.designs.templates.TransistorTemplate;
+import com.aethersim.utils.Direction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * The {@code DesignGenerator} builds synthetic circuits from NPN and PNP transistors for tests and benchmarks.
+ * <p>
+ * Every circuit is a {@link DesignedTemplate} with {@link #VDD} and {@link #GND} power pins, built from nested
+ * templates so that no single design holds more than a block of chips.  Templates are cached by their parameters, so
+ * a circuit with millions of transistors only contains a few dozen distinct designs, and is generated in
+ * milliseconds.  Use {@link #generate(DesignedTemplate)} to place a circuit in a top-level design with its power
+ * connected and a toggle driving each input.
+ * <p>
+ * Multi-bit pins are numbered from the least significant bit (e.g. {@code a0}, {@code a1}, ...).  Sequential
+ * circuits are clocked by two non-overlapping clocks ({@code clk1} and {@code clk2}), which keeps them correct
+ * regardless of the delays chosen by the simulator.
+ */
+public class DesignGenerator {
+
+    public static final String VDD = "vdd";
+    public static final String GND = "gnd";
+
+    public static final int DEFAULT_BLOCK_SIZE = 16;
+
+    private final int blockSize;
+    private final Map<String, DesignedTemplate> templates = new HashMap<>();
+
+    public DesignGenerator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public DesignGenerator(int blockSize) {
+        if (blockSize < 2)
+            throw new DesignException("Generated designs must allow at least 2 chips per block.");
+        this.blockSize = blockSize;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public DesignedTemplate inverter() {
+        return cached("inverter", () -> {
+            DesignLayout layout = new DesignLayout(2);
+            Chip pnp = layout.place(ChipTemplate.get("transistor_pnp"));
+            Chip npn = layout.place(ChipTemplate.get("transistor_npn"));
+            Pin a = layout.pin("a", Direction.LEFT);
+            Pin y = layout.pin("y", Direction.RIGHT);
+            Pin[] power = powerPins(layout);
+
+            // Pull the output up when the input is low, and down when it is high
+            layout.connect(pnp, TransistorTemplate.PNP_EMITTER, power[0]);
+            layout.connect(pnp, TransistorTemplate.PNP_BASE, a);
+            layout.connect(npn, TransistorTemplate.NPN_COLLECTOR, power[1]);
+            layout.connect(npn, TransistorTemplate.NPN_BASE, a);
+            layout.connect(pnp, TransistorTemplate.PNP_COLLECTOR, npn, TransistorTemplate.NPN_EMITTER);
+            layout.connect(pnp, TransistorTemplate.PNP_COLLECTOR, y);
+            return layout.build("inverter");
+        });
+    }
+
+    public DesignedTemplate nand() {
+        return cached("nand", () -> {
+            DesignLayout layout = new DesignLayout(2);
+            Chip pnpA = layout.place(ChipTemplate.get("transistor_pnp"));
+            Chip pnpB = layout.place(ChipTemplate.get("transistor_pnp"));
+            Chip npnA = layout.place(ChipTemplate.get("transistor_npn"));
+            Chip npnB = layout.place(ChipTemplate.get("transistor_npn"));
+            Pin a = layout.pin("a", Direction.LEFT);
+            Pin b = layout.pin("b", Direction.LEFT);
+            Pin y = layout.pin("y", Direction.RIGHT);
+            Pin[] power = powerPins(layout);
+
+            // The pull-up network is two parallel PNPs
+            layout.connect(pnpA, TransistorTemplate.PNP_EMITTER, power[0]);
+            layout.connect(pnpA, TransistorTemplate.PNP_BASE, a);
+            layout.connect(pnpB, TransistorTemplate.PNP_EMITTER, power[0]);
+            layout.connect(pnpB, TransistorTemplate.PNP_BASE, b);
+            layout.connect(pnpA, TransistorTemplate.PNP_COLLECTOR, y);
+            layout.connect(pnpB, TransistorTemplate.PNP_COLLECTOR, y);
+
+            // The pull-down network is two NPNs in series (ground, through B, through A, to the output)
+            layout.connect(npnB, TransistorTemplate.NPN_COLLECTOR, power[1]);
+            layout.connect(npnB, TransistorTemplate.NPN_BASE, b);
+            layout.connect(npnB, TransistorTemplate.NPN_EMITTER, npnA, TransistorTemplate.NPN_COLLECTOR);
+            layout.connect(npnA, TransistorTemplate.NPN_BASE, a);
+            layout.connect(npnA, TransistorTemplate.NPN_EMITTER, y);
+            return layout.build("nand");
+        });
+    }
+
+    public DesignedTemplate contendedInverters() {
+        return cached("contended_inverters", () -> {
+            // Two inverters on the same input, each with a pull-down on its output.  The first is powered by rails
+            // that are both driven and pulled, so its output is too.  The second is powered by rails that are only
+            // pulled, so its output is only pulled.
+            DesignLayout layout = new DesignLayout(3);
+            Chip strong = layout.place(inverter());
+            Chip weak = layout.place(inverter());
+            Chip railHigh = layout.place(ChipTemplate.get("pulled_high"));
+            Chip railLow = layout.place(ChipTemplate.get("pulled_low"));
+            Chip weakHigh = layout.place(ChipTemplate.get("pulled_high"));
+            Chip weakLow = layout.place(ChipTemplate.get("pulled_low"));
+            Chip strongPull = layout.place(ChipTemplate.get("pulled_low"));
+            Chip weakPull = layout.place(ChipTemplate.get("pulled_low"));
+            Pin a = layout.pin("a", Direction.LEFT);
+            Pin y = layout.pin("y", Direction.RIGHT);
+            Pin z = layout.pin("z", Direction.RIGHT);
+            Pin[] power = powerPins(layout);
+
+            layout.connect(strong, pin(inverter(), VDD), power[0]);
+            layout.connect(strong, pin(inverter(), GND), power[1]);
+            layout.connect(railHigh, ConstantTemplate.OUTPUT, power[0]);
+            layout.connect(railLow, ConstantTemplate.OUTPUT, power[1]);
+            layout.connect(weakHigh, ConstantTemplate.OUTPUT, weak, pin(inverter(), VDD));
+            layout.connect(weakLow, ConstantTemplate.OUTPUT, weak, pin(inverter(), GND));
+            layout.connect(strong, pin(inverter(), "a"), a);
+            layout.connect(weak, pin(inverter(), "a"), a);
+            layout.connect(strong, pin(inverter(), "y"), y);
+            layout.connect(strongPull, ConstantTemplate.OUTPUT, y);
+            layout.connect(weak, pin(inverter(), "y"), z);
+            layout.connect(weakPull, ConstantTemplate.OUTPUT, z);
+            return layout.build("contended_inverters");
+        });
+    }
+
+    public DesignedTemplate fullAdder() {
+        return cached("full_adder", () -> {
+            // Build the adder from nine NAND gates
+            DesignLayout layout = new DesignLayout(3);
+            Chip[] gates = new Chip[9];
+            for (int index = 0; index < gates.length; index++)
+                gates[index] = layout.place(nand());
+            Pin a = layout.pin("a", Direction.LEFT);
+            Pin b = layout.pin("b", Direction.LEFT);
+            Pin cin = layout.pin("cin", Direction.LEFT);
+            Pin s = layout.pin("s", Direction.RIGHT);
+            Pin cout = layout.pin("cout", Direction.RIGHT);
+            connectPower(layout, gates);
+
+            // The first four gates compute A xor B
+            Pin nandA = pin(nand(), "a"), nandB = pin(nand(), "b"), nandY = pin(nand(), "y");
+            layout.connect(gates[0], nandA, a);
+            layout.connect(gates[0], nandB, b);
+            layout.connect(gates[1], nandA, a);
+            layout.connect(gates[0], nandY, gates[1], nandB);
+            layout.connect(gates[2], nandA, b);
+            layout.connect(gates[0], nandY, gates[2], nandB);
+            layout.connect(gates[1], nandY, gates[3], nandA);
+            layout.connect(gates[2], nandY, gates[3], nandB);
+
+            // The next four compute the sum from the first XOR and the carry in
+            layout.connect(gates[3], nandY, gates[4], nandA);
+            layout.connect(gates[4], nandB, cin);
+            layout.connect(gates[3], nandY, gates[5], nandA);
+            layout.connect(gates[4], nandY, gates[5], nandB);
+            layout.connect(gates[6], nandA, cin);
+            layout.connect(gates[4], nandY, gates[6], nandB);
+            layout.connect(gates[5], nandY, gates[7], nandA);
+            layout.connect(gates[6], nandY, gates[7], nandB);
+            layout.connect(gates[7], nandY, s);
+
+            // The carry out is high if either the inputs or the first XOR and the carry in are both high
+            layout.connect(gates[4], nandY, gates[8], nandA);
+            layout.connect(gates[0], nandY, gates[8], nandB);
+            layout.connect(gates[8], nandY, cout);
+            return layout.build("full_adder");
+        });
+    }
+
+    public DesignedTemplate latch() {
+        return cached("latch", () -> {
+            // Build a gated D latch from a cross-coupled pair of NAND gates
+            DesignLayout layout = new DesignLayout(3);
+            Chip invert = layout.place(inverter());
+            Chip set = layout.place(nand());
+            Chip reset = layout.place(nand());
+            Chip output = layout.place(nand());
+            Chip complement = layout.place(nand());
+            Pin d = layout.pin("d", Direction.LEFT);
+            Pin en = layout.pin("en", Direction.LEFT);
+            Pin q = layout.pin("q", Direction.RIGHT);
+            connectPower(layout, invert, set, reset, output, complement);
+
+            // While enabled, the data input sets or resets the latch
+            Pin nandA = pin(nand(), "a"), nandB = pin(nand(), "b"), nandY = pin(nand(), "y");
+            layout.connect(invert, pin(inverter(), "a"), d);
+            layout.connect(set, nandA, d);
+            layout.connect(set, nandB, en);
+            layout.connect(invert, pin(inverter(), "y"), reset, nandA);
+            layout.connect(reset, nandB, en);
+
+            // The cross-coupled pair holds the state while the latch is disabled
+            layout.connect(set, nandY, output, nandA);
+            layout.connect(complement, nandY, output, nandB);
+            layout.connect(reset, nandY, complement, nandA);
+            layout.connect(output, nandY, complement, nandB);
+            layout.connect(output, nandY, q);
+            return layout.build("latch");
+        });
+    }
+
+    public DesignedTemplate flipFlop() {
+        return cached("flip_flop", () -> {
+            // Build a master-slave flip-flop, where the master captures on clk1 and the slave on clk2
+            DesignLayout layout = new DesignLayout(2);
+            Chip master = layout.place(latch());
+            Chip slave = layout.place(latch());
+            Pin d = layout.pin("d", Direction.LEFT);
+            Pin clk1 = layout.pin("clk1", Direction.LEFT);
+            Pin clk2 = layout.pin("clk2", Direction.LEFT);
+            Pin q = layout.pin("q", Direction.RIGHT);
+            connectPower(layout, master, slave);
+
+            layout.connect(master, pin(latch(), "d"), d);
+            layout.connect(master, pin(latch(), "en"), clk1);
+            layout.connect(master, pin(latch(), "q"), slave, pin(latch(), "d"));
+            layout.connect(slave, pin(latch(), "en"), clk2);
+            layout.connect(slave, pin(latch(), "q"), q);
+            return layout.build("flip_flop");
+        });
+    }
+
+    public DesignedTemplate sramCell() {
+        return cached("sram_cell", () -> {
+            // Store the bit in a latch that is written through the data line, and read it through a pass transistor
+            // onto the bit line (transistors only conduct in one direction here, so a single bidirectional bit line
+            // like a 6T cell uses is not possible)
+            DesignLayout layout = new DesignLayout(2);
+            Chip storage = layout.place(latch());
+            Chip read = layout.place(ChipTemplate.get("transistor_npn"));
+            Pin we = layout.pin("we", Direction.LEFT);
+            Pin re = layout.pin("re", Direction.LEFT);
+            Pin d = layout.pin("d", Direction.LEFT);
+            Pin bl = layout.pin("bl", Direction.RIGHT);
+            Pin[] power = powerPins(layout);
+
+            layout.connect(storage, pin(latch(), VDD), power[0]);
+            layout.connect(storage, pin(latch(), GND), power[1]);
+            layout.connect(storage, pin(latch(), "d"), d);
+            layout.connect(storage, pin(latch(), "en"), we);
+            layout.connect(storage, pin(latch(), "q"), read, TransistorTemplate.NPN_COLLECTOR);
+            layout.connect(read, TransistorTemplate.NPN_BASE, re);
+            layout.connect(read, TransistorTemplate.NPN_EMITTER, bl);
+            return layout.build("sram_cell");
+        });
+    }
+
+    public DesignedTemplate inverterChain(int stages) {
+        requirePositive(stages, "Inverter chains");
+        return chain("inverter_chain_" + stages, stages, inverter(), this::inverterChain, "a", "y");
+    }
+
+    public DesignedTemplate shiftRegister(int bits) {
+        requirePositive(bits, "Shift registers");
+        return chain("shift_register_" + bits, bits, flipFlop(), this::shiftRegister, "d", "q", "clk1", "clk2");
+    }
+
+    public DesignedTemplate ringOscillator(int stages) {
+        if (stages < 3 || stages % 2 == 0)
+            throw new DesignException("Ring oscillators must have an odd number of stages, and at least 3.");
+
+        return cached("ring_oscillator_" + stages, () -> {
+            // The ring is a NAND gate (so it can be held still while disabled) followed by an even number of inverters
+            DesignLayout layout = new DesignLayout(2);
+            Chip gate = layout.place(nand());
+            Chip chain = layout.place(inverterChain(stages - 1));
+            Pin en = layout.pin("en", Direction.LEFT);
+            Pin y = layout.pin("y", Direction.RIGHT);
+            connectPower(layout, gate, chain);
+
+            layout.connect(gate, pin(nand(), "a"), en);
+            layout.connect(gate, pin(nand(), "y"), chain, pin(inverterChain(stages - 1), "a"));
+            layout.connect(chain, pin(inverterChain(stages - 1), "y"), gate, pin(nand(), "b"));
+            layout.connect(chain, pin(inverterChain(stages - 1), "y"), y);
+            return layout.build("ring_oscillator_" + stages);
+        });
+    }
+
+    public DesignedTemplate rippleCarryAdder(int bits) {
+        requirePositive(bits, "Adders");
+        return cached("ripple_carry_adder_" + bits, () -> {
+            // Small adders chain full adders directly, and larger adders chain two smaller adders
+            List<DesignedTemplate> stages = new ArrayList<>();
+            List<Integer> stageBits = new ArrayList<>();
+            if (bits <= blockSize) {
+                for (int bit = 0; bit < bits; bit++) {
+                    stages.add(fullAdder());
+                    stageBits.add(1);
+                }
+            } else {
+                stages.add(rippleCarryAdder(bits / 2));
+                stages.add(rippleCarryAdder(bits - bits / 2));
+                stageBits.add(bits / 2);
+                stageBits.add(bits - bits / 2);
+            }
+
+            DesignLayout layout = new DesignLayout(chipsPerRow(stages.size()));
+            Chip[] chips = new Chip[stages.size()];
+            for (int index = 0; index < chips.length; index++)
+                chips[index] = layout.place(stages.get(index));
+            Pin[] a = busPins(layout, "a", bits, Direction.LEFT);
+            Pin[] b = busPins(layout, "b", bits, Direction.LEFT);
+            Pin cin = layout.pin("cin", Direction.LEFT);
+            Pin[] s = busPins(layout, "s", bits, Direction.RIGHT);
+            Pin cout = layout.pin("cout", Direction.RIGHT);
+            connectPower(layout, chips);
+
+            // Connect each stage to its slice of the operands and sum, and carry between the stages
+            Pin carry = cin;
+            Chip carryChip = null;
+            int offset = 0;
+            for (int index = 0; index < chips.length; index++) {
+                DesignedTemplate stage = stages.get(index);
+                for (int bit = 0; bit < stageBits.get(index); bit++) {
+                    String suffix = stage == fullAdder() ? "" : Integer.toString(bit);
+                    layout.connect(chips[index], pin(stage, "a" + suffix), a[offset + bit]);
+                    layout.connect(chips[index], pin(stage, "b" + suffix), b[offset + bit]);
+                    layout.connect(chips[index], pin(stage, "s" + suffix), s[offset + bit]);
+                }
+                if (carryChip == null)
+                    layout.connect(chips[index], pin(stage, "cin"), carry);
+                else
+                    layout.connect(carryChip, carry, chips[index], pin(stage, "cin"));
+                carryChip = chips[index];
+                carry = pin(stage, "cout");
+                offset += stageBits.get(index);
+            }
+            layout.connect(carryChip, carry, cout);
+            return layout.build("ripple_carry_adder_" + bits);
+        });
+    }
+
+    public DesignedTemplate sramArray(int rows, int columns) {
+        requirePositive(rows, "SRAM arrays");
+        requirePositive(columns, "SRAM arrays");
+        return cached("sram_array_" + rows + "x" + columns, () -> {
+            // Small arrays contain cells directly, and larger arrays are split in half along their longer side
+            List<DesignedTemplate> blocks = new ArrayList<>();
+            List<int[]> blockBounds = new ArrayList<>();
+            if (rows * columns <= blockSize) {
+                for (int row = 0; row < rows; row++) {
+                    for (int column = 0; column < columns; column++) {
+                        blocks.add(sramCell());
+                        blockBounds.add(new int[] {row, column, 1, 1});
+                    }
+                }
+            } else if (rows >= columns) {
+                blocks.add(sramArray(rows / 2, columns));
+                blocks.add(sramArray(rows - rows / 2, columns));
+                blockBounds.add(new int[] {0, 0, rows / 2, columns});
+                blockBounds.add(new int[] {rows / 2, 0, rows - rows / 2, columns});
+            } else {
+                blocks.add(sramArray(rows, columns / 2));
+                blocks.add(sramArray(rows, columns - columns / 2));
+                blockBounds.add(new int[] {0, 0, rows, columns / 2});
+                blockBounds.add(new int[] {0, columns / 2, rows, columns - columns / 2});
+            }
+
+            DesignLayout layout = new DesignLayout(chipsPerRow(blocks.size()));
+            Chip[] chips = new Chip[blocks.size()];
+            for (int index = 0; index < chips.length; index++)
+                chips[index] = layout.place(blocks.get(index));
+            Pin[] we = busPins(layout, "we", rows, Direction.LEFT);
+            Pin[] re = busPins(layout, "re", rows, Direction.LEFT);
+            Pin[] d = busPins(layout, "d", columns, Direction.LEFT);
+            Pin[] bl = busPins(layout, "bl", columns, Direction.RIGHT);
+            connectPower(layout, chips);
+
+            // Each row shares its enables, and each column shares its data and bit lines
+            for (int index = 0; index < chips.length; index++) {
+                DesignedTemplate block = blocks.get(index);
+                int[] bounds = blockBounds.get(index);
+                boolean cell = block == sramCell();
+                for (int row = 0; row < bounds[2]; row++) {
+                    layout.connect(chips[index], pin(block, cell ? "we" : "we" + row), we[bounds[0] + row]);
+                    layout.connect(chips[index], pin(block, cell ? "re" : "re" + row), re[bounds[0] + row]);
+                }
+                for (int column = 0; column < bounds[3]; column++) {
+                    layout.connect(chips[index], pin(block, cell ? "d" : "d" + column), d[bounds[1] + column]);
+                    layout.connect(chips[index], pin(block, cell ? "bl" : "bl" + column), bl[bounds[1] + column]);
+                }
+            }
+            return layout.build("sram_array_" + rows + "x" + columns);
+        });
+    }
+
+    public GeneratedDesign generate(DesignedTemplate template) {
+        // Place the circuit next to the power supplies, and a toggle for each of its inputs
+        List<Pin> inputs = template.getPins().stream().filter(pin -> pin.getChipOrientation() == Direction.LEFT).toList();
+        DesignLayout layout = new DesignLayout(chipsPerRow(inputs.size() + 3));
+        Chip circuit = layout.place(template);
+        Chip high = layout.place(ChipTemplate.get("driven_high"));
+        Chip low = layout.place(ChipTemplate.get("driven_low"));
+        Map<String, Chip> drivers = new LinkedHashMap<>();
+        for (Pin input : inputs)
+            drivers.put(input.getId(), layout.place(ChipTemplate.get("toggle")));
+
+        layout.connect(high, ConstantTemplate.OUTPUT, circuit, pin(template, VDD));
+        layout.connect(low, ConstantTemplate.OUTPUT, circuit, pin(template, GND));
+        for (Pin input : inputs)
+            layout.connect(drivers.get(input.getId()), ToggleTemplate.OUTPUT, circuit, input);
+
+        return new GeneratedDesign(layout.getDesign(), circuit, drivers);
+    }
+
+    private DesignedTemplate chain(String id, int length, DesignedTemplate cell, IntFunction<DesignedTemplate> factory, String input, String output, String... shared) {
+        return cached(id, () -> {
+            // Short chains contain cells directly, and longer chains contain up to a block of shorter chains, plus one
+            // more for any remainder
+            List<DesignedTemplate> links = new ArrayList<>();
+            if (length <= blockSize) {
+                for (int index = 0; index < length; index++)
+                    links.add(cell);
+            } else {
+                int linkLength = (length + blockSize - 1) / blockSize;
+                for (int index = 0; index < length / linkLength; index++)
+                    links.add(factory.apply(linkLength));
+                if (length % linkLength > 0)
+                    links.add(factory.apply(length % linkLength));
+            }
+
+            DesignLayout layout = new DesignLayout(chipsPerRow(links.size()));
+            Chip[] chips = new Chip[links.size()];
+            for (int index = 0; index < chips.length; index++)
+                chips[index] = layout.place(links.get(index));
+            Pin in = layout.pin(input, Direction.LEFT);
+            Pin[] sharedPins = new Pin[shared.length];
+            for (int index = 0; index < shared.length; index++)
+                sharedPins[index] = layout.pin(shared[index], Direction.LEFT);
+            Pin out = layout.pin(output, Direction.RIGHT);
+            connectPower(layout, chips);
+
+            // Connect the links in sequence, and connect the shared pins to every link
+            layout.connect(chips[0], pin(links.get(0), input), in);
+            for (int index = 0; index < chips.length; index++) {
+                for (int sharedIndex = 0; sharedIndex < shared.length; sharedIndex++)
+                    layout.connect(chips[index], pin(links.get(index), shared[sharedIndex]), sharedPins[sharedIndex]);
+                if (index > 0)
+                    layout.connect(chips[index - 1], pin(links.get(index - 1), output), chips[index], pin(links.get(index), input));
+            }
+            layout.connect(chips[chips.length - 1], pin(links.get(chips.length - 1), output), out);
+            return layout.build(id);
+        });
+    }
+
+    private DesignedTemplate cached(String id, Supplier<DesignedTemplate> factory) {
+        // Templates are built recursively, so computeIfAbsent can't be used here
+        DesignedTemplate template = templates.get(id);
+        if (template == null) {
+            template = factory.get();
+            templates.put(id, template);
+        }
+        return template;
+    }
+
+    private int chipsPerRow(int chips) {
+        return (int) Math.ceil(Math.sqrt(chips));
+    }
+
+    private static Pin[] powerPins(DesignLayout layout) {
+        return new Pin[] {layout.pin(VDD, Direction.UP), layout.pin(GND, Direction.DOWN)};
+    }
+
+    private static void connectPower(DesignLayout layout, Chip... chips) {
+        Pin[] power = powerPins(layout);
+        for (Chip chip : chips) {
+            layout.connect(chip, pin(chip.getChipTemplate(), VDD), power[0]);
+            layout.connect(chip, pin(chip.getChipTemplate(), GND), power[1]);
+        }
+    }
+
+    private static Pin[] busPins(DesignLayout layout, String prefix, int bits, Direction side) {
+        Pin[] pins = new Pin[bits];
+        for (int bit = 0; bit < bits; bit++)
+            pins[bit] = layout.pin(prefix + bit, side);
+        return pins;
+    }
+
+    static Pin pin(ChipTemplate template, String id) {
+        return template.getPins().stream()
+                .filter(pin -> id.equals(pin.getId()))
+                .findFirst()
+                .orElseThrow(() -> new DesignException("Template '" + template.getId() + "' has no pin '" + id + "'."));
+    }
+
+    private static void requirePositive(int count, String description) {
+        if (count < 1)
+            throw new DesignException(description + " must have a positive size.");
+    }
+}
@@ -0,0 +1,163 @@
+package com.aethersim.tests.designs.generators;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.ChipPin;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.Point;
+import com.aethersim.designs.templates.ChipTemplate;
+import com.aethersim.designs.templates.DesignedTemplate;
+import com.aethersim.designs.wires.WireRoutable;
+import com.aethersim.designs.wires.WireSegment;
+import com.aethersim.utils.Direction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class lays out a single generated {@link Design}.  Chips are placed in rows with routing channels between
+ * them, and the design's own pins are placed in a row below the chips.  Once all chips and pins have been added, the
+ * design is sized to fit them, and wires can be connected.
+ * <p>
+ * When the design is packaged as a {@link DesignedTemplate}, its pins are placed on the package edge matching the
+ * side they were added with, so inputs are on the left, outputs are on the right, and power is on the top and bottom.
+ */
+class DesignLayout {
+
+    // Chips are separated by channels that are wide enough for the wire router to pass between them
+    private static final int MARGIN = 2;
+    private static final int CHIP_GAP = 3;
+
+    private final Design design = new Design();
+    private final int chipsPerRow;
+
+    private final List<Chip> row = new ArrayList<>();
+    private final Map<String, Pin> pins = new LinkedHashMap<>();
+    private final Map<Pin, Direction> sides = new LinkedHashMap<>();
+    private int rowY = MARGIN;
+    private int rowX = MARGIN;
+    private int rowHeight = 0;
+    private int width = 0;
+    private boolean sized = false;
+
+    DesignLayout(int chipsPerRow) {
+        this.chipsPerRow = Math.max(1, chipsPerRow);
+    }
+
+    Design getDesign() {
+        return design;
+    }
+
+    Map<String, Pin> getPins() {
+        return pins;
+    }
+
+    Chip place(ChipTemplate template) {
+        if (sized)
+            throw new IllegalStateException("Chips cannot be placed after wires have been connected.");
+
+        // Start a new row if the current one is full
+        if (row.size() == chipsPerRow) {
+            rowY += rowHeight + CHIP_GAP;
+            rowX = MARGIN;
+            rowHeight = 0;
+            row.clear();
+        }
+
+        Chip chip = new Chip();
+        chip.setChipTemplate(template);
+        chip.setLocation(new Point(rowX, rowY));
+        design.addChip(chip);
+        row.add(chip);
+
+        rowX += template.getWidth() + CHIP_GAP;
+        rowHeight = Math.max(rowHeight, template.getHeight());
+        width = Math.max(width, rowX);
+        return chip;
+    }
+
+    Pin pin(String id, Direction side) {
+        if (sized)
+            throw new IllegalStateException("Pins cannot be added after wires have been connected.");
+
+        Pin pin = new Pin();
+        pin.setId(id);
+        pin.setName(id);
+        pins.put(id, pin);
+        sides.put(pin, side);
+        design.addPin(pin);
+        return pin;
+    }
+
+    DesignedTemplate build(String id) {
+        if (!sized)
+            size();
+
+        // Count the pins on each side of the package, so the package can be sized to fit them
+        int leftPins = 0, rightPins = 0, topPins = 0, bottomPins = 0;
+        for (Direction side : sides.values()) {
+            switch (side) {
+                case LEFT -> leftPins++;
+                case RIGHT -> rightPins++;
+                case UP -> topPins++;
+                case DOWN -> bottomPins++;
+            }
+        }
+        int width = 2 * Math.max(1, Math.max(topPins, bottomPins)) + 2;
+        int height = 2 * Math.max(1, Math.max(leftPins, rightPins)) + 2;
+
+        // Place each pin on its side of the package, leaving a gap between pins and away from the corners
+        int left = 0, right = 0, top = 0, bottom = 0;
+        for (Map.Entry<Pin, Direction> entry : sides.entrySet()) {
+            Pin pin = entry.getKey();
+            Point location = switch (entry.getValue()) {
+                case LEFT -> new Point(0, 2 * ++left);
+                case RIGHT -> new Point(width, 2 * ++right);
+                case UP -> new Point(2 * ++top, 0);
+                case DOWN -> new Point(2 * ++bottom, height);
+            };
+            pin.setChipLocation(location);
+            pin.setChipOrientation(entry.getValue());
+        }
+
+        DesignedTemplate template = new DesignedTemplate(design);
+        template.setId(id);
+        template.setName(id);
+        template.setWidth(width);
+        template.setHeight(height);
+        return template;
+    }
+
+    void connect(WireRoutable start, WireRoutable end) {
+        // The wire router needs the final size of the design, so size it before the first wire is routed
+        if (!sized)
+            size();
+        design.addWireSegment(new WireSegment(design, start, end));
+    }
+
+    void connect(Chip chip, Pin chipPin, Pin designPin) {
+        connect(new ChipPin(chip, chipPin), new ChipPin(null, designPin));
+    }
+
+    void connect(Chip startChip, Pin startPin, Chip endChip, Pin endPin) {
+        connect(new ChipPin(startChip, startPin), new ChipPin(endChip, endPin));
+    }
+
+    private void size() {
+        // Place the design pins in a row below all the chips
+        int pinY = rowY + rowHeight + CHIP_GAP;
+        int pinX = MARGIN;
+        for (Pin pin : pins.values()) {
+            pin.setDesignLocation(new Point(pinX, pinY));
+            pin.setDesignOrientation(Direction.UP);
+            pinX += 2;
+        }
+
+        design.setWidth(Math.max(width, pinX) + MARGIN);
+        design.setHeight(pinY + MARGIN);
+        design.recalculateOpenDistances();
+        sized = true;
+    }
+}
@@ -0,0 +1,84 @@
+package com.aethersim.tests.designs.generators;
+
+import com.aethersim.designs.Chip;
+import com.aethersim.designs.Design;
+import com.aethersim.designs.Pin;
+import com.aethersim.designs.exceptions.DesignException;
+import com.aethersim.designs.templates.DesignedTemplate;
+import com.aethersim.designs.templates.ToggleTemplate;
+import com.aethersim.simulation.LogicState;
+import com.aethersim.simulation.SimulatedDesign;
+
+import java.util.Map;
+
+/**
+ * A {@code GeneratedDesign} is a top-level {@link Design} built by {@link DesignGenerator#generate(DesignedTemplate)}.
+ * It holds the chip for the generated circuit and the toggles driving its inputs, so tests and benchmarks can drive
+ * inputs and read outputs by pin ID.
+ */
+public class GeneratedDesign {
+
+    private final Design design;
+    private final Chip circuit;
+    private final Map<String, Chip> drivers;
+
+    GeneratedDesign(Design design, Chip circuit, Map<String, Chip> drivers) {
+        this.design = design;
+        this.circuit = circuit;
+        this.drivers = drivers;
+    }
+
+    public Design getDesign() {
+        return design;
+    }
+
+    public Chip getCircuit() {
+        return circuit;
+    }
+
+    public int getTransistorCount() {
+        return design.getTransistorCount();
+    }
+
+    public Chip getDriver(String pinId) {
+        Chip driver = drivers.get(pinId);
+        if (driver == null)
+            throw new DesignException("Generated design has no input '" + pinId + "'.");
+        return driver;
+    }
+
+    public Pin getPin(String pinId) {
+        return DesignGenerator.pin(circuit.getChipTemplate(), pinId);
+    }
+
+    public void setInput(String pinId, LogicState state) {
+        Chip driver = getDriver(pinId);
+        ((ToggleTemplate) driver.getChipTemplate()).setDrivenState(driver, state);
+    }
+
+    public void toggleInput(String pinId) {
+        Chip driver = getDriver(pinId);
+        ToggleTemplate template = (ToggleTemplate) driver.getChipTemplate();
+        template.setDrivenState(driver, template.getDrivenState(driver) == LogicState.HIGH ? LogicState.LOW : LogicState.HIGH);
+    }
+
+    public void setInputs(String prefix, int bits, long value) {
+        for (int bit = 0; bit < bits; bit++)
+            setInput(prefix + bit, ((value >>> bit) & 1) != 0 ? LogicState.HIGH : LogicState.LOW);
+    }
+
+    public LogicState getState(SimulatedDesign simulatedDesign, String pinId) {
+        // Pin states are read from inside the circuit, since the top-level design has no pins of its own
+        SimulatedDesign circuitDesign = simulatedDesign.getSimulatedChipDesign(circuit);
+        return circuitDesign.getStateForPin(getPin(pinId));
+    }
+
+    public long getOutputs(SimulatedDesign simulatedDesign, String prefix, int bits) {
+        long value = 0;
+        for (int bit = 0; bit < bits; bit++) {
+            if (getState(simulatedDesign, prefix + bit) == LogicState.HIGH)
+                value |= 1L << bit;
+        }
+        return value;
+    }
+}